@@ -10,9 +10,13 @@
 
 package com.github.tno.pokayoke.transform.activitysynthesis;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -65,6 +69,56 @@ public class AbstractActivityDependencyOrderer {
         return result;
     }
 
+    /**
+     * Computes the waves in which the abstract activities can be synthesized. Each wave consists of abstract activities
+     * that are consecutive in the order computed by {@link #computeOrder}, and that don't depend on each other, neither
+     * directly nor via concrete activities. Hence, the abstract activities of a wave can be synthesized independently
+     * of each other, once all abstract activities of earlier waves have been synthesized.
+     *
+     * @return The waves of abstract activities, in the order they should be synthesized, or {@code null} if a cycle in
+     *     the dependencies is detected. Concatenating the waves gives the order computed by {@link #computeOrder}.
+     */
+    public List<List<Activity>> computeWaves() {
+        List<Activity> order = orderer.computeOrder();
+
+        if (order == null) {
+            return null;
+        }
+
+        // Determine for every activity the abstract activities it depends on, directly or via concrete activities. The
+        // order ensures that the dependencies of an activity are considered before the activity itself.
+        Map<Activity, Set<Activity>> abstractDependencies = new LinkedHashMap<>();
+        for (Activity activity: order) {
+            Set<Activity> dependencies = new LinkedHashSet<>();
+            for (Activity dependency: orderer.findDirectDependencies(activity)) {
+                if (dependency.isAbstract()) {
+                    dependencies.add(dependency);
+                } else {
+                    dependencies.addAll(abstractDependencies.get(dependency));
+                }
+            }
+            abstractDependencies.put(activity, dependencies);
+        }
+
+        // Group consecutive abstract activities into waves, starting a new wave whenever an abstract activity depends
+        // on an abstract activity of the current wave.
+        List<List<Activity>> waves = new ArrayList<>();
+        List<Activity> currentWave = null;
+        for (Activity activity: order) {
+            if (!activity.isAbstract()) {
+                continue;
+            }
+
+            if (currentWave == null || !Collections.disjoint(currentWave, abstractDependencies.get(activity))) {
+                currentWave = new ArrayList<>();
+                waves.add(currentWave);
+            }
+            currentWave.add(activity);
+        }
+
+        return waves;
+    }
+
     /**
      * Gives a description of a cycle in case there are cyclic dependencies in the activities to consider.
      *
@@ -27,7 +27,6 @@ import org.eclipse.escet.cif.io.CifWriter;
 import org.eclipse.escet.cif.metamodel.cif.Specification;
 import org.eclipse.escet.common.app.framework.AppEnv;
 import org.eclipse.escet.common.java.PathPair;
-import org.eclipse.escet.common.java.Termination;
 
 import com.github.javabdd.BDDFactory;
 
@@ -47,7 +46,7 @@ public class CIFDataSynthesisHelper {
         // Perform preprocessing.
         CifToBddConverter converter = new CifToBddConverter("Data-based supervisory controller synthesis");
         converter.preprocess(spec, specAbsPath, settings.getWarnOutput(), settings.getDoPlantsRefReqsWarn(),
-                Termination.NEVER);
+                settings.getTermination());
 
         // Create BDD factory.
         List<Long> continuousOpMisses = list();
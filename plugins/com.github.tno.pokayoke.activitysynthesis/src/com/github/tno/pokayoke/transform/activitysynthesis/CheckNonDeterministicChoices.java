@@ -13,6 +13,7 @@ package com.github.tno.pokayoke.transform.activitysynthesis;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.eclipse.escet.cif.bdd.conversion.CifToBddConverter;
 import org.eclipse.escet.cif.bdd.spec.CifBddSpec;
@@ -36,15 +37,20 @@ public class CheckNonDeterministicChoices {
      * @param translator The UML to CIF translator that was used to translate the UML input model to the CIF
      *     specification.
      * @param warnings Any warnings to notify the user of, which is modified in-place.
-     * @param bddSpec The CIF/BDD specification.
+     * @param bddSpecSupplier Supplies the CIF/BDD specification. Is only invoked if the activity has a decision node
+     *     to check, and then only once.
      */
     public static void check(Activity activity, UmlToCifTranslator translator, List<String> warnings,
-            CifBddSpec bddSpec)
+            Supplier<CifBddSpec> bddSpecSupplier)
     {
+        CifBddSpec bddSpec = null;
         for (ActivityNode node: activity.getNodes()) {
             // If the current node is a decision node with multiple outgoing edges, then check for non-determinism.
             if (node instanceof DecisionNode decisionNode && decisionNode.getOutgoings().size() > 1) {
                 // Check if (at least) two edges can be fired at the same time.
+                if (bddSpec == null) {
+                    bddSpec = bddSpecSupplier.get();
+                }
                 check(decisionNode, translator, warnings, bddSpec);
             }
         }
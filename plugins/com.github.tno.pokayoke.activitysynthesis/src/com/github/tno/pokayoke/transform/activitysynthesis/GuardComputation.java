@@ -80,6 +80,15 @@ public class GuardComputation {
      */
     private final SynthesisChainTracking synthesisTracker;
 
+    /**
+     * The CIF/BDD specification that was used for the earlier synthesis of the activity structure, or {@code null} if
+     * not available. If available, its BDD node table size is reused for guard computation.
+     */
+    private final CifBddSpec synthesisCifBddSpec;
+
+    /** The termination of the guard computation. */
+    private final Termination termination;
+
     /**
      * Constructs a new {@link GuardComputation}.
      *
@@ -88,8 +97,44 @@ public class GuardComputation {
      *     relate to the input UML.
      */
     public GuardComputation(UmlToCifTranslator translator, SynthesisChainTracking tracker) {
+        this(translator, tracker, null);
+    }
+
+    /**
+     * Constructs a new {@link GuardComputation}.
+     *
+     * @param translator The UML-to-CIF translator to use for guard computation.
+     * @param tracker The tracker that indicates how results from intermediate steps of the activity synthesis chain
+     *     relate to the input UML.
+     * @param synthesisCifBddSpec The CIF/BDD specification that was used for the earlier synthesis of the activity
+     *     structure, or {@code null} if not available. If available, its BDD node table size is reused for guard
+     *     computation. It is not modified.
+     */
+    public GuardComputation(UmlToCifTranslator translator, SynthesisChainTracking tracker,
+            CifBddSpec synthesisCifBddSpec)
+    {
+        this(translator, tracker, synthesisCifBddSpec, Termination.NEVER);
+    }
+
+    /**
+     * Constructs a new {@link GuardComputation}.
+     *
+     * @param translator The UML-to-CIF translator to use for guard computation.
+     * @param tracker The tracker that indicates how results from intermediate steps of the activity synthesis chain
+     *     relate to the input UML.
+     * @param synthesisCifBddSpec The CIF/BDD specification that was used for the earlier synthesis of the activity
+     *     structure, or {@code null} if not available. If available, its BDD node table size is reused for guard
+     *     computation. It is not modified.
+     * @param termination The termination of the guard computation. If termination is requested, the guard computation
+     *     stops early, leaving the guards of the activity incomplete.
+     */
+    public GuardComputation(UmlToCifTranslator translator, SynthesisChainTracking tracker,
+            CifBddSpec synthesisCifBddSpec, Termination termination)
+    {
         this.translator = translator;
         this.synthesisTracker = tracker;
+        this.synthesisCifBddSpec = synthesisCifBddSpec;
+        this.termination = termination;
     }
 
     public void computeGuards(Specification specification, Path specPath) {
@@ -129,13 +174,25 @@ public class GuardComputation {
         synthesisFrees.remove(CifDataSynthesisFree.EDGE_GUARD);
         synthesisFrees.remove(CifDataSynthesisFree.EDGE_ORIG_GUARD);
         settings.setSynthesisFrees(synthesisFrees);
+        settings.setTermination(termination);
+
+        // Reuse the node table size of the earlier synthesis, if available, to avoid repeatedly resizing the node
+        // table. The BDD variable ordering is not reused, as it determines the computed guards.
+        if (synthesisCifBddSpec != null) {
+            settings.setBddInitNodeTableSize(synthesisCifBddSpec.factory.getNodeTableSize());
+        }
 
         // Convert the CIF specification to a CIF/BDD specification.
         CifToBddConverter converter = new CifToBddConverter("Guard computation");
         converter.preprocess(specification, specPath.toAbsolutePath().toString(), settings.getWarnOutput(),
-                settings.getDoPlantsRefReqsWarn(), Termination.NEVER);
+                settings.getDoPlantsRefReqsWarn(), termination);
         BDDFactory factory = CifToBddConverter.createFactory(settings, new ArrayList<>(), new ArrayList<>());
         CifBddSpec cifBddSpec = converter.convert(specification, settings, factory);
+        if (cifBddSpec == null) {
+            // Termination was requested. Release the BDD nodes.
+            factory.done();
+            return;
+        }
 
         // Helper function for obtaining the corresponding single CIF/BDD edge of a CIF event.
         Function<Event, CifBddEdge> getCorrespondingEdge = event -> {
@@ -148,6 +205,11 @@ public class GuardComputation {
         // Find all controlled system states.
         CifDataSynthesisResult synthResult = CifDataSynthesis.synthesize(cifBddSpec, settings,
                 new CifDataSynthesisTiming());
+        if (synthResult == null) {
+            // Termination was requested. Release the BDD nodes.
+            factory.done();
+            return;
+        }
         BDD controlledStates = synthResult.ctrlBeh;
 
         // Obtain the set of all internal BDD variables.
@@ -155,6 +217,10 @@ public class GuardComputation {
 
         // Compute guards for every activity node, and put these on the appropriate control flows in the activity.
         for (ActivityNode node: translator.getActivity().getNodes()) {
+            if (termination.isRequested()) {
+                break;
+            }
+
             // Do a case distinction on the type of activity node, and compute guards according to this node type. If
             // the control flow already has a guard (e.g. the control flow connects two nodes of an original concrete
             // activity), conjunct the new guard with the existing one.
@@ -10,6 +10,7 @@
 
 package com.github.tno.pokayoke.transform.activitysynthesis;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -176,14 +177,18 @@ public class NonAtomicPatternRewriter {
      * @param patterns The non-atomic patterns to rewrite, which are modified in-place.
      */
     private void rewritePatterns(List<NonAtomicPattern> patterns) {
+        // Collect the objects to remove, to delete them all at once, rather than scanning the Petri Net for references
+        // to them for each pattern separately.
+        List<PnObject> objectsToDelete = new ArrayList<>();
+
         for (NonAtomicPattern pattern: patterns) {
             // First, remove the intermediate place's outgoing arcs.
-            EcoreUtil.deleteAll(pattern.intermediatePlace.getOutArcs(), true);
+            objectsToDelete.addAll(pattern.intermediatePlace.getOutArcs());
             pattern.intermediatePlace.getOutArcs().clear();
 
             // Remove all the end transitions and their outgoing arcs.
-            pattern.endTransitions.stream().forEach(et -> EcoreUtil.deleteAll(et.getOutArcs(), true));
-            EcoreUtil.deleteAll(pattern.endTransitions, true);
+            pattern.endTransitions.stream().forEach(et -> objectsToDelete.addAll(et.getOutArcs()));
+            objectsToDelete.addAll(pattern.endTransitions);
 
             // Connect the intermediate place with the outgoing arcs from the end places.
             for (Place endPlace: pattern.endPlaces) {
@@ -193,8 +198,10 @@ public class NonAtomicPatternRewriter {
             }
 
             // Remove end places.
-            EcoreUtil.deleteAll(pattern.endPlaces, true);
+            objectsToDelete.addAll(pattern.endPlaces);
         }
+
+        EcoreUtil.deleteAll(objectsToDelete, true);
     }
 
     private static <T extends PnObject> List<T> sorted(Stream<T> stream) {
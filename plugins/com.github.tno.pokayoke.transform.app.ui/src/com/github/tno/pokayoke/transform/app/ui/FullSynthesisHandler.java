@@ -13,12 +13,12 @@ package com.github.tno.pokayoke.transform.app.ui;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.e4.core.di.annotations.Execute;
@@ -27,6 +27,7 @@ import org.eclipse.jface.dialogs.IDialogConstants;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.ListViewer;
+import org.eclipse.jface.window.Window;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Composite;
@@ -34,7 +35,11 @@ import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 
+import com.github.tno.pokayoke.transform.app.ArtifactLevel;
 import com.github.tno.pokayoke.transform.app.FullSynthesisApp;
+import com.github.tno.pokayoke.transform.app.FullSynthesisSettings;
+import com.github.tno.pokayoke.transform.app.SynthesisBudget;
+import com.github.tno.pokayoke.transform.app.SynthesisBudgetExceededException;
 
 import jakarta.inject.Named;
 
@@ -47,11 +52,32 @@ public class FullSynthesisHandler {
         IResource inputResource = (IResource)selection.getFirstElement();
         Path inputPath = Paths.get(inputResource.getLocationURI());
         Path outputPath = inputPath.resolveSibling("output");
+        Path cachePath = inputPath.resolveSibling(".synthml-cache");
+
+        // Let the user configure full synthesis.
+        FullSynthesisSettingsDialog settingsDialog = new FullSynthesisSettingsDialog(shell);
+        if (settingsDialog.open() != Window.OK) {
+            return;
+        }
+        ArtifactLevel artifactLevel = settingsDialog.getArtifactLevel();
+        boolean cache = settingsDialog.getCache();
+        SynthesisBudget budget = settingsDialog.getBudget();
+
         Job job = Job.create("Performing full synthesis", monitor -> {
             try {
-                // Perform activity synthesis.
-                List<String> warnings = new ArrayList<>();
-                FullSynthesisApp.performFullSynthesis(inputPath, outputPath, warnings);
+                // Perform activity synthesis, writing the configured outputs. Synthesize independent activities in
+                // parallel, on all processors. Cache the results of the most expensive steps, if configured, to speed
+                // up synthesis after only some of the activities have changed. Write performance metrics, to be able
+                // to find out why synthesis is slow. Abort synthesis as soon as it is cancelled or exceeds its time
+                // budget.
+                FullSynthesisSettings settings = new FullSynthesisSettings();
+                settings.setArtifactLevel(artifactLevel);
+                settings.setParallelism(Runtime.getRuntime().availableProcessors());
+                settings.setCacheFolderPath(cache ? cachePath : null);
+                settings.setWriteMetrics(true);
+                settings.setBudget(budget);
+                settings.setMonitor(monitor);
+                List<String> warnings = FullSynthesisApp.performFullSynthesis(inputPath, outputPath, settings);
 
                 // In case warnings came up during synthesis, show a warning dialog to notify the user.
                 if (!warnings.isEmpty()) {
@@ -63,6 +89,13 @@ public class FullSynthesisHandler {
                 inputResource.getProject().refreshLocal(IResource.DEPTH_INFINITE, null);
 
                 return Status.OK_STATUS;
+            } catch (OperationCanceledException e) {
+                return Status.CANCEL_STATUS;
+            } catch (SynthesisBudgetExceededException e) {
+                return new Status(IStatus.ERROR, getClass().getPackageName(), String.format(
+                        "Full synthesis of \"%s\" exceeded its time budget. %s Configure a larger time budget, or "
+                                + "none, to synthesize the activity.",
+                        inputPath.getFileName(), e.getMessage()), e);
             } catch (IOException | CoreException e) {
                 return new Status(IStatus.ERROR, getClass().getPackageName(),
                         "Failed to perform full synthesis: " + inputPath, e);
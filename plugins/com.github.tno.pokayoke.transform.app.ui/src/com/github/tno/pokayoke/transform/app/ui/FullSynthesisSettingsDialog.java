@@ -0,0 +1,246 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app.ui;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.jface.dialogs.TitleAreaDialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+import org.osgi.service.prefs.BackingStoreException;
+
+import com.github.tno.pokayoke.transform.app.ArtifactLevel;
+import com.github.tno.pokayoke.transform.app.SynthesisBudget;
+
+/**
+ * Dialog to configure full synthesis. The configuration is stored in the preferences of the workspace, such that it is
+ * offered again the next time full synthesis is performed.
+ */
+class FullSynthesisSettingsDialog extends TitleAreaDialog {
+    /** The preference key of the level of the artifacts to write to the output folder. */
+    private static final String ARTIFACT_LEVEL_KEY = "artifactLevel";
+
+    /** The artifact levels that can be selected, in the order they are offered. */
+    private static final List<ArtifactLevel> ARTIFACT_LEVELS = List.of(ArtifactLevel.FINAL, ArtifactLevel.CHECKPOINTS,
+            ArtifactLevel.FULL, ArtifactLevel.NONE);
+
+    /** The descriptions of the {@link #ARTIFACT_LEVELS artifact levels}, in the same order. */
+    private static final String[] ARTIFACT_LEVEL_DESCRIPTIONS = {"Final UML model only",
+            "Final UML model and key checkpoints", "All intermediate outputs, for debugging",
+            "Nothing, only check that synthesis succeeds"};
+
+    /** The preference key of whether to cache the results of the most expensive steps of the synthesis chain. */
+    private static final String CACHE_KEY = "cache";
+
+    /** The preference key of the time budget of each stage of the synthesis chain of an activity, in seconds. */
+    private static final String STAGE_BUDGET_KEY = "stageBudget";
+
+    /** The preference key of the time budget of the synthesis chain of each activity, in seconds. */
+    private static final String ACTIVITY_BUDGET_KEY = "activityBudget";
+
+    /** The preferences in which the configuration is stored. */
+    private final IEclipsePreferences preferences = InstanceScope.INSTANCE
+            .getNode(FullSynthesisSettingsDialog.class.getPackageName());
+
+    /** The combo box of the artifact level. */
+    private Combo artifactLevelCombo;
+
+    /** The check box of whether to cache step results. */
+    private Button cacheButton;
+
+    /** The text field of the time budget of each stage, in seconds. */
+    private Text stageBudgetText;
+
+    /** The text field of the time budget of each activity, in seconds. */
+    private Text activityBudgetText;
+
+    /** The configured artifact level. */
+    private ArtifactLevel artifactLevel;
+
+    /** Whether step results are to be cached. */
+    private boolean cache;
+
+    /** The configured time budget of each stage, or {@code null} if unlimited. */
+    private Duration stageBudget;
+
+    /** The configured time budget of each activity, or {@code null} if unlimited. */
+    private Duration activityBudget;
+
+    /**
+     * Constructs a new full synthesis settings dialog.
+     *
+     * @param parentShell The parent shell.
+     */
+    FullSynthesisSettingsDialog(Shell parentShell) {
+        super(parentShell);
+    }
+
+    /**
+     * Gives the configured level of the artifacts to write to the output folder. May only be used once the dialog has
+     * been closed with OK.
+     *
+     * @return The artifact level.
+     */
+    ArtifactLevel getArtifactLevel() {
+        return artifactLevel;
+    }
+
+    /**
+     * Gives whether the results of the most expensive steps of the synthesis chain are to be cached. May only be used
+     * once the dialog has been closed with OK.
+     *
+     * @return {@code true} to cache step results, {@code false} otherwise.
+     */
+    boolean getCache() {
+        return cache;
+    }
+
+    /**
+     * Gives the configured time budgets. May only be used once the dialog has been closed with OK.
+     *
+     * @return The time budgets.
+     */
+    SynthesisBudget getBudget() {
+        return new SynthesisBudget(stageBudget, activityBudget);
+    }
+
+    @Override
+    protected void configureShell(Shell newShell) {
+        super.configureShell(newShell);
+        newShell.setText("Perform Synthesis");
+    }
+
+    @Override
+    protected Control createDialogArea(Composite parent) {
+        setTitle("Full synthesis settings");
+        setMessage("Configure full synthesis. Leave a time budget empty to not limit synthesis in time.");
+
+        Composite area = (Composite)super.createDialogArea(parent);
+        Composite container = new Composite(area, SWT.NONE);
+        container.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+        container.setLayout(new GridLayout(2, false));
+
+        new Label(container, SWT.NONE).setText("Outputs to write:");
+        artifactLevelCombo = new Combo(container, SWT.READ_ONLY);
+        artifactLevelCombo.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+        artifactLevelCombo.setItems(ARTIFACT_LEVEL_DESCRIPTIONS);
+        artifactLevelCombo.select(Math.max(0, ARTIFACT_LEVELS.stream().map(ArtifactLevel::name).toList()
+                .indexOf(preferences.get(ARTIFACT_LEVEL_KEY, ArtifactLevel.FINAL.name()))));
+
+        new Label(container, SWT.NONE);
+        cacheButton = new Button(container, SWT.CHECK);
+        cacheButton.setText("Cache intermediate results, to speed up synthesis after changes");
+        cacheButton.setSelection(preferences.getBoolean(CACHE_KEY, true));
+
+        stageBudgetText = createText(container, "Time budget per stage (seconds):",
+                preferences.get(STAGE_BUDGET_KEY, ""));
+        activityBudgetText = createText(container, "Time budget per activity (seconds):",
+                preferences.get(ACTIVITY_BUDGET_KEY, ""));
+
+        return area;
+    }
+
+    @Override
+    protected void createButtonsForButtonBar(Composite parent) {
+        super.createButtonsForButtonBar(parent);
+        validate();
+    }
+
+    @Override
+    protected void okPressed() {
+        artifactLevel = ARTIFACT_LEVELS.get(artifactLevelCombo.getSelectionIndex());
+        preferences.put(ARTIFACT_LEVEL_KEY, artifactLevel.name());
+        cache = cacheButton.getSelection();
+        preferences.putBoolean(CACHE_KEY, cache);
+        preferences.put(STAGE_BUDGET_KEY, stageBudgetText.getText().strip());
+        preferences.put(ACTIVITY_BUDGET_KEY, activityBudgetText.getText().strip());
+        try {
+            preferences.flush();
+        } catch (BackingStoreException e) {
+            // The configuration is then only remembered until the application is closed.
+        }
+        super.okPressed();
+    }
+
+    /**
+     * Creates a labeled text field, that is validated whenever it is modified.
+     *
+     * @param parent The parent composite.
+     * @param label The label of the text field.
+     * @param value The initial value of the text field.
+     * @return The text field.
+     */
+    private Text createText(Composite parent, String label, String value) {
+        new Label(parent, SWT.NONE).setText(label);
+        Text text = new Text(parent, SWT.BORDER);
+        text.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+        text.setText(value);
+        text.addModifyListener(e -> validate());
+        return text;
+    }
+
+    /**
+     * Validates the configuration. Shows an error message and disables the OK button if the configuration is invalid.
+     */
+    private void validate() {
+        String errorMessage = null;
+        try {
+            stageBudget = parseBudget(stageBudgetText.getText(), "stage");
+            activityBudget = parseBudget(activityBudgetText.getText(), "activity");
+        } catch (IllegalArgumentException e) {
+            errorMessage = e.getMessage();
+        }
+
+        setErrorMessage(errorMessage);
+        Button okButton = getButton(IDialogConstants.OK_ID);
+        if (okButton != null) {
+            okButton.setEnabled(errorMessage == null);
+        }
+    }
+
+    /**
+     * Parses a time budget.
+     *
+     * @param value The time budget, in seconds, or empty for no limit.
+     * @param kind The kind of the time budget, for use in the error message.
+     * @return The time budget, or {@code null} if unlimited.
+     * @throws IllegalArgumentException If the time budget is invalid.
+     */
+    private static Duration parseBudget(String value, String kind) {
+        if (value.isBlank()) {
+            return null;
+        }
+
+        long seconds;
+        try {
+            seconds = Long.parseLong(value.strip());
+        } catch (NumberFormatException e) {
+            seconds = 0;
+        }
+        if (seconds <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid %s time budget \"%s\". Expected a positive "
+                    + "whole number of seconds, or nothing to not limit synthesis in time.", kind, value.strip()));
+        }
+        return Duration.ofSeconds(seconds);
+    }
+}
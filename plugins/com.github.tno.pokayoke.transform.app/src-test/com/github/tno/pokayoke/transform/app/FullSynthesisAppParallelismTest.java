@@ -0,0 +1,84 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.github.tno.pokayoke.transform.tests.common.FileCompare;
+
+/**
+ * Tests that synthesizing independent abstract activities in parallel gives the same outputs as synthesizing them one
+ * after another. The regression tests are performed with parallelism, and compared to their expected outputs, which
+ * are those of synthesizing the abstract activities one after another. The actual outputs are written to a temporary
+ * folder.
+ */
+class FullSynthesisAppParallelismTest extends FullSynthesisAppRegressionTest {
+    /** The maximum number of abstract activities to synthesize in parallel. */
+    private static final int PARALLELISM = 3;
+
+    /** The name of the regression test that has a wave of multiple independent abstract activities. */
+    private static final String WAVE_TEST_NAME = "counter-incr-three-activities";
+
+    /** The number of abstract activities of the regression test that has a wave of multiple abstract activities. */
+    private static final int WAVE_TEST_ACTIVITY_COUNT = 3;
+
+    @TempDir
+    Path temporaryPath;
+
+    @Override
+    @ParameterizedTest
+    @MethodSource("provideArguments")
+    public void regressionTest(Path inputPath, Path expectedPath, Path outputPath, String message) throws Exception {
+        super.regressionTest(inputPath, expectedPath, temporaryPath.resolve("actual"), message);
+    }
+
+    @Override
+    protected FullSynthesisSettings createSettings() {
+        FullSynthesisSettings settings = super.createSettings();
+        settings.setParallelism(PARALLELISM);
+        return settings;
+    }
+
+    /**
+     * Tests that the results of synthesizing the abstract activities of a wave in parallel are used, rather than that
+     * the activities are synthesized again. Each synthesized CIF specification is cached once, so if an activity would
+     * be synthesized again from another translation, the cache would contain more synthesis results than there are
+     * activities.
+     *
+     * @throws Exception In case synthesis fails.
+     */
+    @Test
+    void testWaveResultsReused() throws Exception {
+        Path testPath = Path.of("resources-test", REGRESSIONTESTS_NAME, WAVE_TEST_NAME);
+        Path outputPath = temporaryPath.resolve("actual");
+        Path cachePath = temporaryPath.resolve("cache");
+
+        FullSynthesisSettings settings = createSettings();
+        settings.setCacheFolderPath(cachePath);
+        FullSynthesisApp.performFullSynthesis(testPath.resolve("input.uml"), outputPath, settings);
+
+        FileCompare.checkDirectoriesEqual(testPath.resolve("expected"), outputPath, WAVE_TEST_NAME);
+        try (Stream<Path> paths = Files.list(cachePath)) {
+            long synthesisCount = paths.filter(path -> path.getFileName().toString().startsWith("synthesis-"))
+                    .count();
+            assertEquals(WAVE_TEST_ACTIVITY_COUNT, synthesisCount);
+        }
+    }
+}
@@ -18,7 +18,6 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.stream.Stream;
 
 import org.eclipse.core.runtime.CoreException;
@@ -51,7 +50,7 @@ class FullSynthesisAppRegressionTest extends RegressionTest {
     @Override
     protected void actTest(Path inputPath, Path outputPath) throws IOException, CoreException {
         try {
-            FullSynthesisApp.performFullSynthesis(inputPath, outputPath, new ArrayList<>());
+            FullSynthesisApp.performFullSynthesis(inputPath, outputPath, createSettings());
         } catch (Throwable e) {
             Path exceptionPath = outputPath.resolve("exception.txt");
             try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(exceptionPath.toFile()));
@@ -61,4 +60,17 @@ class FullSynthesisAppRegressionTest extends RegressionTest {
             }
         }
     }
+
+    /**
+     * Creates the settings of full synthesis for the regression tests. The expected outputs are all intermediate
+     * outputs of synthesizing the abstract activities one after another.
+     *
+     * @return The settings.
+     */
+    protected FullSynthesisSettings createSettings() {
+        FullSynthesisSettings settings = new FullSynthesisSettings();
+        settings.setArtifactLevel(ArtifactLevel.FULL);
+        settings.setParallelism(1);
+        return settings;
+    }
 }
@@ -0,0 +1,194 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.escet.cif.common.CifEdgeUtils;
+import org.eclipse.escet.cif.common.CifEventUtils;
+import org.eclipse.escet.cif.metamodel.cif.automata.Edge;
+import org.eclipse.escet.cif.metamodel.cif.automata.Location;
+import org.eclipse.escet.cif.metamodel.cif.declarations.Event;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.tno.pokayoke.transform.app.IndexedStateSpace.IntList;
+
+/** Tests for {@link IndexedStateSpace}. */
+class IndexedStateSpaceTest {
+    @Test
+    @DisplayName("Tau chain")
+    void testTauChain() {
+        StateSpaceBuilder builder = new StateSpaceBuilder("chain", 4).initial(0).marked(3);
+        builder.edge(0, "tau", 1).edge(1, "tau", 2).edge(2, "tau", 3);
+        IndexedStateSpace stateSpace = index(builder);
+
+        assertArrayEquals(new int[] {0, 1, 2, 3}, stateSpace.getTauReachableStates(new int[] {0}));
+        assertArrayEquals(new int[] {2, 3}, stateSpace.getTauReachableStates(new int[] {2}));
+        assertArrayEquals(new int[] {3}, stateSpace.getTauReachableStates(new int[] {3}));
+        assertArrayEquals(new int[] {3, 0, 1, 2}, stateSpace.getTauReachableStates(new int[] {3, 0}));
+        assertArrayEquals(new int[] {3, 0, 1, 2}, stateSpace.getTauReachableStatesInDiscoveryOrder(new int[] {3, 0}));
+        assertTrue(stateSpace.isInitial(0));
+        assertFalse(stateSpace.isInitial(1));
+        assertTrue(stateSpace.isMarked(3));
+        assertFalse(stateSpace.isMarked(0));
+    }
+
+    @Test
+    @DisplayName("Tau cycle")
+    void testTauCycle() {
+        StateSpaceBuilder builder = new StateSpaceBuilder("cycle", 5).initial(1).marked(4);
+        builder.edge(0, "tau", 1).edge(1, "tau", 2).edge(2, "tau", 0).edge(2, "tau", 3).edge(3, "a", 4);
+        IndexedStateSpace stateSpace = index(builder, "a");
+
+        // All locations of the cycle reach each other, and the location after it, but not the one after 'a'.
+        for (int state: new int[] {0, 1, 2}) {
+            int[] reachable = stateSpace.getTauReachableStates(new int[] {state});
+            assertEquals(state, reachable[0]);
+            assertArrayEquals(new int[] {0, 1, 2, 3}, sorted(reachable));
+        }
+        assertArrayEquals(new int[] {1, 0, 2, 3}, stateSpace.getTauReachableStates(new int[] {1}));
+        assertArrayEquals(new int[] {1, 2, 0, 3}, stateSpace.getTauReachableStatesInDiscoveryOrder(new int[] {1}));
+        assertArrayEquals(new int[] {3}, stateSpace.getTauReachableStates(new int[] {3}));
+    }
+
+    @Test
+    @DisplayName("Tau and labeled self-loops")
+    void testSelfLoops() {
+        StateSpaceBuilder builder = new StateSpaceBuilder("loops", 3).initial(0).marked(2);
+        builder.edge(0, "tau", 0).edge(0, "a", 1).edge(1, "tau", 1).edge(1, "a", 1).edge(1, "b", 2);
+        IndexedStateSpace stateSpace = index(builder, "a", "b");
+
+        assertArrayEquals(new int[] {0}, stateSpace.getTauReachableStates(new int[] {0}));
+        assertArrayEquals(new int[] {1}, stateSpace.getTauReachableStates(new int[] {1}));
+        assertArrayEquals(new int[] {1}, stateSpace.getTauReachableStatesInDiscoveryOrder(new int[] {1}));
+
+        int[][] nextStates = stateSpace.getNextStates(new int[] {0, 1});
+        assertArrayEquals(new int[] {1}, nextStates[0]);
+        assertArrayEquals(new int[] {2}, nextStates[1]);
+    }
+
+    @Test
+    @DisplayName("Memoized tau closures match breadth-first search")
+    void testTauClosuresMatchSearch() {
+        Random random = new Random(42);
+        for (int iteration = 0; iteration < 200; iteration++) {
+            int locationCount = 1 + random.nextInt(12);
+            StateSpaceBuilder builder = new StateSpaceBuilder("random", locationCount).initial(0);
+            int edgeCount = random.nextInt(3 * locationCount);
+            for (int i = 0; i < edgeCount; i++) {
+                String eventName = random.nextInt(3) == 0 ? "a" : "tau";
+                builder.edge(random.nextInt(locationCount), eventName, random.nextInt(locationCount));
+            }
+            IndexedStateSpace stateSpace = index(builder, "a");
+
+            // Query single locations and pairs of locations, in random order, such that closures are computed both on
+            // first use by other closures, and directly.
+            for (int i = 0; i < 2 * locationCount; i++) {
+                int first = random.nextInt(locationCount);
+                int second = random.nextInt(locationCount);
+                int[] states = (first == second) ? new int[] {first} : new int[] {first, second};
+
+                int[] expected = search(builder, states);
+                int[] closure = stateSpace.getTauReachableStates(states);
+                int[] discovered = stateSpace.getTauReachableStatesInDiscoveryOrder(states);
+                assertArrayEquals(expected, discovered);
+                assertArrayEquals(sorted(expected), sorted(closure));
+                assertArrayEquals(states, Arrays.copyOf(closure, states.length));
+                int[] others = Arrays.copyOfRange(closure, states.length, closure.length);
+                assertArrayEquals(sorted(others), others);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Unique next states")
+    void testUniqueNextStates() {
+        StateSpaceBuilder builder = new StateSpaceBuilder("unique", 5).initial(0);
+        builder.edge(0, "b", 2).edge(0, "a", 1).edge(1, "a", 1).edge(3, "a", 4).edge(3, "c", 4);
+        IndexedStateSpace stateSpace = new IndexedStateSpace(builder.automaton(), builder.events("tau"),
+                List.of(List.of(builder.event("a")), List.of(builder.event("b"), builder.event("c"))));
+        IntList nextLabels = new IntList();
+        IntList nextStates = new IntList();
+
+        // Label 'a' leads to location 1 from both locations, and label 'b' to location 2.
+        assertTrue(stateSpace.getUniqueNextStates(new int[] {0, 1}, nextLabels, nextStates));
+        assertArrayEquals(new int[] {1, 0}, nextLabels.toArray());
+        assertArrayEquals(new int[] {2, 1}, nextStates.toArray());
+
+        // Label 'a' leads to locations 1 and 4.
+        assertFalse(stateSpace.getUniqueNextStates(new int[] {0, 3}, nextLabels, nextStates));
+
+        // The scratch storage is reset after a query that found a label leading to multiple locations.
+        assertTrue(stateSpace.getUniqueNextStates(new int[] {3}, nextLabels, nextStates));
+        assertArrayEquals(new int[] {0, 1}, nextLabels.toArray());
+        assertArrayEquals(new int[] {4, 4}, nextStates.toArray());
+        assertTrue(stateSpace.getUniqueNextStates(new int[] {2}, nextLabels, nextStates));
+        assertEquals(0, nextLabels.size());
+        assertEquals(0, nextStates.size());
+    }
+
+    private static IndexedStateSpace index(StateSpaceBuilder builder, String... labelEventNames) {
+        List<List<Event>> labelEvents = Arrays.stream(labelEventNames).map(name -> List.of(builder.event(name)))
+                .toList();
+        return new IndexedStateSpace(builder.automaton(), builder.events("tau"), labelEvents);
+    }
+
+    /**
+     * Computes the tau-reachable locations by a breadth-first search over the state space automaton itself.
+     *
+     * @param builder The builder of the state space.
+     * @param states The numbers of the distinct locations to start from.
+     * @return The numbers of the reachable locations, in the order in which the search discovers them.
+     */
+    private static int[] search(StateSpaceBuilder builder, int[] states) {
+        List<Location> locations = builder.automaton().getLocations();
+        BitSet visited = new BitSet();
+        Deque<Integer> queue = new ArrayDeque<>();
+        IntList result = new IntList();
+        for (int state: states) {
+            visited.set(state);
+            queue.add(state);
+            result.add(state);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Edge edge: locations.get(state).getEdges()) {
+                if (!CifEventUtils.getEvents(edge).contains(builder.event("tau"))) {
+                    continue;
+                }
+                int target = locations.indexOf(CifEdgeUtils.getTarget(edge));
+                if (!visited.get(target)) {
+                    visited.set(target);
+                    queue.add(target);
+                    result.add(target);
+                }
+            }
+        }
+        return result.toArray();
+    }
+
+    private static int[] sorted(int[] values) {
+        int[] result = values.clone();
+        Arrays.sort(result);
+        return result;
+    }
+}
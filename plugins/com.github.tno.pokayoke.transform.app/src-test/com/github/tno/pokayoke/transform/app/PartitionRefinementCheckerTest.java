@@ -0,0 +1,236 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.escet.cif.metamodel.cif.declarations.Event;
+import org.eclipse.escet.common.java.Pair;
+import org.eclipse.escet.common.java.Termination;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.tno.pokayoke.transform.app.PartitionRefinementChecker.WeakTransitions;
+
+/**
+ * Tests for {@link PartitionRefinementChecker}, and for the agreement of the {@link LanguageEquivalenceCheckMode modes}
+ * of the {@link StateAwareWeakLanguageEquivalenceChecker}.
+ */
+class PartitionRefinementCheckerTest {
+    /** The label events of the state spaces of the tests. */
+    private static final String[] LABELS = {"a", "b", "c"};
+
+    @Test
+    @DisplayName("Weak transitions of a state space that is deterministic modulo tau")
+    void testWeakTransitions() {
+        WeakTransitions transitions = computeWeakTransitions(tauChain(), new StateAnnotationClasses());
+
+        // The tau closure of location 0 includes location 1, so both have the weak transition with label 'a'.
+        assertNotNull(transitions);
+        assertEquals(4, transitions.size());
+        assertEquals(transitions.keys()[0], transitions.keys()[1]);
+        assertEquals(List.of(2), weakTargets(transitions, 0, 0));
+        assertEquals(List.of(2), weakTargets(transitions, 1, 0));
+        assertEquals(List.of(3), weakTargets(transitions, 2, 1));
+        assertEquals(List.of(), weakTargets(transitions, 3, 1));
+    }
+
+    @Test
+    @DisplayName("No weak transitions for state spaces that are not deterministic modulo tau")
+    void testNondeterministicWeakTransitions() {
+        // Nondeterministic without tau transitions.
+        assertNull(computeWeakTransitions(nondeterministic(), new StateAnnotationClasses()));
+
+        // Deterministic per location, but the tau closure of location 0 has transitions with label 'a' to two
+        // different locations.
+        StateSpaceBuilder builder = new StateSpaceBuilder("tauNondeterministic", 4).initial(0).marked(3);
+        builder.edge(0, "tau", 1).edge(0, "a", 2).edge(1, "a", 3).edge(2, "b", 3);
+        builder.annotate(1, 0);
+        assertNull(computeWeakTransitions(builder, new StateAnnotationClasses()));
+    }
+
+    @Test
+    @DisplayName("Equivalence of locations")
+    void testAreEquivalent() {
+        // The state annotation classes are shared, such that the keys of the locations can be compared.
+        StateAnnotationClasses annotationClasses = new StateAnnotationClasses();
+        WeakTransitions transitions1 = computeWeakTransitions(sequence(), annotationClasses);
+        WeakTransitions transitions2 = computeWeakTransitions(tauChain(), annotationClasses);
+        PartitionRefinementChecker checker = new PartitionRefinementChecker(Termination.NEVER);
+
+        assertTrue(checker.areEquivalent(transitions1, transitions2, new int[][] {{0, 0}}));
+        assertTrue(checker.areEquivalent(transitions1, transitions2, new int[][] {{0, 1}, {1, 2}, {2, 3}}));
+        assertFalse(checker.areEquivalent(transitions1, transitions2, new int[][] {{0, 0}, {1, 3}}));
+
+        WeakTransitions loopTransitions = computeWeakTransitions(loop(), annotationClasses);
+        assertFalse(checker.areEquivalent(transitions1, loopTransitions, new int[][] {{0, 0}}));
+    }
+
+    @Test
+    @DisplayName("All modes agree on equivalent deterministic state spaces")
+    void testModesEquivalent() {
+        assertEquals(List.of("", "", ""), checkAllModes(sequence(), tauChain()));
+    }
+
+    @Test
+    @DisplayName("All modes agree on non-equivalent deterministic state spaces")
+    void testModesNotEquivalent() {
+        String expected = StateAwareWeakLanguageEquivalenceChecker.ERROR_PREFIX
+                + "the two models can reach non-equivalent states: state 'loc0' of the first model, and state 'loc1' "
+                + "of the second model.";
+        assertEquals(List.of(expected, expected, expected), checkAllModes(cycle(), loop()));
+    }
+
+    @Test
+    @DisplayName("Subset construction and automatic mode agree on nondeterministic state spaces")
+    void testModesNondeterministic() {
+        // Partition refinement requires both state spaces to be deterministic modulo tau, regardless of whether they
+        // are equivalent.
+        String requiresDeterminism = StateAwareWeakLanguageEquivalenceChecker.ERROR_PREFIX
+                + "partition refinement requires state space 'nondeterministic' to be deterministic modulo tau.";
+        assertEquals(List.of("", requiresDeterminism, ""), checkAllModes(nondeterministic(), branching(true)));
+        assertEquals(List.of("", requiresDeterminism, ""), checkAllModes(branching(true), nondeterministic()));
+
+        String expected = StateAwareWeakLanguageEquivalenceChecker.ERROR_PREFIX + "the events c from states loc1, "
+                + "loc2 of the state space 'nondeterministic' and the events c from states loc1 of the state space "
+                + "'branching' reach different states.";
+        assertEquals(List.of(expected, requiresDeterminism, expected),
+                checkAllModes(nondeterministic(), branching(false)));
+    }
+
+    /**
+     * Location 0 reaches marked location 2 by 'a' followed by 'b'.
+     *
+     * @return The builder of the state space.
+     */
+    private static StateSpaceBuilder sequence() {
+        return new StateSpaceBuilder("sequence", 3).initial(0).marked(2).edge(0, "a", 1).edge(1, "b", 2);
+    }
+
+    /**
+     * Like {@link #sequence}, but with an internal tau transition first.
+     *
+     * @return The builder of the state space.
+     */
+    private static StateSpaceBuilder tauChain() {
+        StateSpaceBuilder builder = new StateSpaceBuilder("tauChain", 4).initial(0).marked(3);
+        builder.edge(0, "tau", 1).edge(1, "a", 2).edge(2, "b", 3);
+        return builder.annotate(1, 0).annotate(2, 1).annotate(3, 2);
+    }
+
+    /**
+     * Alternates between locations 0 and 1 by 'a', and ends by 'b' from location 1.
+     *
+     * @return The builder of the state space.
+     */
+    private static StateSpaceBuilder cycle() {
+        return new StateSpaceBuilder("cycle", 3).initial(0).marked(2).edge(0, "a", 1).edge(1, "a", 0)
+                .edge(1, "b", 2);
+    }
+
+    /**
+     * Like {@link #cycle}, but stays in location 1 after the first 'a', such that it reaches location 1 where
+     * {@link #cycle} reaches location 0.
+     *
+     * @return The builder of the state space.
+     */
+    private static StateSpaceBuilder loop() {
+        return new StateSpaceBuilder("loop", 3).initial(0).marked(2).edge(0, "a", 1).edge(1, "a", 1)
+                .edge(1, "b", 2);
+    }
+
+    /**
+     * Chooses nondeterministically by 'a' between a location that continues with 'b' and one that continues with 'c'.
+     *
+     * @return The builder of the state space.
+     */
+    private static StateSpaceBuilder nondeterministic() {
+        StateSpaceBuilder builder = new StateSpaceBuilder("nondeterministic", 4).initial(0).marked(3);
+        builder.edge(0, "a", 1).edge(0, "a", 2).edge(1, "b", 3).edge(2, "c", 3);
+        return builder.annotate(2, 1);
+    }
+
+    /**
+     * Reaches by 'a' a single location that continues with 'b' or 'c', with the same language as
+     * {@link #nondeterministic}.
+     *
+     * @param withC Whether the location continues with 'c' as well as 'b'.
+     * @return The builder of the state space.
+     */
+    private static StateSpaceBuilder branching(boolean withC) {
+        StateSpaceBuilder builder = new StateSpaceBuilder("branching", 3).initial(0).marked(2);
+        builder.edge(0, "a", 1).edge(1, "b", 2);
+        if (withC) {
+            builder.edge(1, "c", 2);
+        }
+        return builder.annotate(2, 3);
+    }
+
+    private static WeakTransitions computeWeakTransitions(StateSpaceBuilder builder,
+            StateAnnotationClasses annotationClasses)
+    {
+        IndexedStateSpace stateSpace = index(builder);
+        return new PartitionRefinementChecker(Termination.NEVER).computeWeakTransitions(stateSpace,
+                annotationClasses.intern(stateSpace, builder.annotations()));
+    }
+
+    private static IndexedStateSpace index(StateSpaceBuilder builder) {
+        List<List<Event>> labelEvents = Arrays.stream(LABELS).map(name -> List.of(builder.event(name))).toList();
+        return new IndexedStateSpace(builder.automaton(), builder.events("tau"), labelEvents);
+    }
+
+    private static List<Integer> weakTargets(WeakTransitions transitions, int state, int label) {
+        List<Integer> targets = new ArrayList<>();
+        for (int i = transitions.offsets()[state]; i < transitions.offsets()[state + 1]; i++) {
+            if (transitions.labels()[i] == label) {
+                targets.add(transitions.targets()[i]);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Checks two state spaces for equivalence, in all modes of the {@link StateAwareWeakLanguageEquivalenceChecker}.
+     *
+     * @param builder1 The builder of the first state space.
+     * @param builder2 The builder of the second state space.
+     * @return Per mode, in the order of {@link LanguageEquivalenceCheckMode#values}, the message of the failure of the
+     *     check, or an empty string if the check passed.
+     */
+    private static List<String> checkAllModes(StateSpaceBuilder builder1, StateSpaceBuilder builder2) {
+        Set<Pair<List<Event>, List<Event>>> pairedEvents = new LinkedHashSet<>();
+        for (String label: LABELS) {
+            pairedEvents.add(new Pair<>(List.of(builder1.event(label)), List.of(builder2.event(label))));
+        }
+
+        return Arrays.stream(LanguageEquivalenceCheckMode.values()).map(mode -> {
+            StateAwareWeakLanguageEquivalenceChecker checker = new StateAwareWeakLanguageEquivalenceChecker(
+                    Termination.NEVER, mode);
+            try {
+                checker.check(builder1.automaton(), builder1.annotations(), builder1.events("tau"),
+                        builder2.automaton(), builder2.annotations(), builder2.events("tau"), pairedEvents);
+                return "";
+            } catch (RuntimeException e) {
+                return e.getMessage();
+            }
+        }).toList();
+    }
+}
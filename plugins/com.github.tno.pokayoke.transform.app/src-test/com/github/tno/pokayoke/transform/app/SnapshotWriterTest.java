@@ -0,0 +1,153 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link SnapshotWriter}. */
+class SnapshotWriterTest {
+    /** The number of snapshots to write in the tests. */
+    private static final int SNAPSHOT_COUNT = 20;
+
+    @Test
+    void testOrder() throws Exception {
+        // All snapshots are written by the background thread, in the order they were submitted.
+        SnapshotWriter writer = new SnapshotWriter();
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < SNAPSHOT_COUNT; i++) {
+            int index = i;
+            writer.submit(() -> {
+                threads.add(Thread.currentThread());
+                written.add(index);
+            });
+        }
+        writer.awaitAll();
+
+        assertEquals(IntStream.range(0, SNAPSHOT_COUNT).boxed().toList(), written);
+        assertTrue(threads.stream().allMatch(thread -> thread.getName().equals("synthml-snapshot-writer")));
+        assertTrue(threads.stream().noneMatch(thread -> thread == Thread.currentThread()));
+    }
+
+    @Test
+    void testPendingBound() throws Exception {
+        // Submit snapshots that can not be written yet, from another thread.
+        SnapshotWriter writer = new SnapshotWriter();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger submitted = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        Thread submitter = new Thread(() -> {
+            for (int i = 0; i < SNAPSHOT_COUNT; i++) {
+                writer.submit(() -> {
+                    await(release);
+                    written.incrementAndGet();
+                });
+                submitted.incrementAndGet();
+            }
+        });
+        submitter.start();
+
+        // Submitting blocks once the maximum number of snapshots is pending.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (submitted.get() < 4 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        assertEquals(4, submitted.get());
+        assertEquals(0, written.get());
+
+        // Once the snapshots can be written, all of them are submitted and written.
+        release.countDown();
+        submitter.join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals(SNAPSHOT_COUNT, submitted.get());
+        writer.awaitAll();
+        assertEquals(SNAPSHOT_COUNT, written.get());
+    }
+
+    @Test
+    void testFailures() throws Exception {
+        SnapshotWriter writer = new SnapshotWriter();
+        AtomicInteger written = new AtomicInteger();
+        IOException firstFailure = new IOException("first");
+        IllegalStateException secondFailure = new IllegalStateException("second");
+        writer.submit(written::incrementAndGet);
+        writer.submit(() -> {
+            throw firstFailure;
+        });
+        writer.submit(written::incrementAndGet);
+        writer.submit(() -> {
+            throw secondFailure;
+        });
+        writer.submit(written::incrementAndGet);
+
+        // The snapshots after the failed ones are still written, and the first failure is reported, with the others
+        // suppressed.
+        IOException exception = assertThrows(IOException.class, writer::awaitAll);
+        assertEquals(firstFailure, exception);
+        assertArrayEquals(new Throwable[] {secondFailure}, exception.getSuppressed());
+        assertEquals(3, written.get());
+
+        // Failures are reported only once, after which the writer can be used again.
+        writer.submit(written::incrementAndGet);
+        writer.awaitAll();
+        assertEquals(4, written.get());
+    }
+
+    @Test
+    void testRuntimeFailure() {
+        SnapshotWriter writer = new SnapshotWriter();
+        IllegalStateException failure = new IllegalStateException("failure");
+        writer.submit(() -> {
+            throw failure;
+        });
+        assertEquals(failure, assertThrows(IllegalStateException.class, writer::awaitAll));
+    }
+
+    @Test
+    void testIdle() throws Exception {
+        // Snapshots can still be written after the writer thread has stopped because it was idle.
+        SnapshotWriter writer = new SnapshotWriter();
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        writer.submit(() -> threads.add(Thread.currentThread()));
+        writer.awaitAll();
+        threads.get(0).join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals(Thread.State.TERMINATED, threads.get(0).getState());
+
+        writer.submit(() -> threads.add(Thread.currentThread()));
+        writer.awaitAll();
+        assertEquals(2, threads.size());
+        assertNotEquals(threads.get(0), threads.get(1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for {@link StageResultCache}. */
+class StageResultCacheTest {
+    @TempDir
+    Path temporaryPath;
+
+    @Test
+    void testKeys() throws Exception {
+        Path inputPath = Files.writeString(temporaryPath.resolve("input.cif"), "plant p: location: initial;");
+        String key = StageResultCache.computeKey("synthesis", StageResultCache.class, List.of("a"), List.of(inputPath));
+
+        assertTrue(key.startsWith("synthesis-"));
+        assertEquals(key,
+                StageResultCache.computeKey("synthesis", StageResultCache.class, List.of("a"), List.of(inputPath)));
+        assertNotEquals(key,
+                StageResultCache.computeKey("statespace", StageResultCache.class, List.of("a"), List.of(inputPath)));
+        assertNotEquals(key,
+                StageResultCache.computeKey("synthesis", StageResultCache.class, List.of("b"), List.of(inputPath)));
+
+        Files.writeString(inputPath, "plant q: location: initial;");
+        assertNotEquals(key,
+                StageResultCache.computeKey("synthesis", StageResultCache.class, List.of("a"), List.of(inputPath)));
+    }
+
+    @Test
+    void testStoreRestore() throws Exception {
+        StageResultCache cache = new StageResultCache(temporaryPath.resolve("cache"), 1000);
+        Path outputPath = Files.writeString(temporaryPath.resolve("output.cif"), "result");
+        Path restoredPath = temporaryPath.resolve("restored.cif");
+
+        assertFalse(cache.restore("step-1", restoredPath));
+        cache.store("step-1", outputPath);
+        assertTrue(cache.restore("step-1", restoredPath));
+        assertEquals("result", Files.readString(restoredPath));
+    }
+
+    @Test
+    void testPruneLeastRecentlyUsed() throws Exception {
+        Path folderPath = temporaryPath.resolve("cache");
+        StageResultCache cache = new StageResultCache(folderPath, 25);
+        Path outputPath = Files.writeString(temporaryPath.resolve("output.cif"), "0123456789");
+        Path restoredPath = temporaryPath.resolve("restored.cif");
+
+        // Subfolders, like those of other caches, are not cached results, and are never removed.
+        Path subfolderPath = Files.createDirectories(folderPath.resolve("petrify"));
+        Files.writeString(subfolderPath.resolve("result"), "0123456789".repeat(10));
+
+        // Store two results, and then use the oldest one.
+        cache.store("step-1", outputPath);
+        cache.store("step-2", outputPath);
+        Files.setLastModifiedTime(folderPath.resolve("step-1"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(folderPath.resolve("step-2"), FileTime.fromMillis(2000));
+        assertTrue(cache.restore("step-1", restoredPath));
+
+        // Storing a third result exceeds the maximum size, which removes the least recently used result.
+        cache.store("step-3", outputPath);
+        assertTrue(Files.exists(folderPath.resolve("step-1")));
+        assertFalse(Files.exists(folderPath.resolve("step-2")));
+        assertTrue(Files.exists(folderPath.resolve("step-3")));
+        assertTrue(Files.exists(subfolderPath.resolve("result")));
+    }
+}
@@ -0,0 +1,109 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.escet.cif.common.CifValueUtils;
+import org.eclipse.escet.cif.metamodel.cif.annotations.Annotation;
+import org.eclipse.escet.cif.metamodel.cif.annotations.AnnotationArgument;
+import org.eclipse.escet.cif.metamodel.java.CifConstructors;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link StateAnnotationClasses}. */
+class StateAnnotationClassesTest {
+    @Test
+    void testClassIds() {
+        // Class ids are assigned in order of first occurrence, and are shared by the state spaces.
+        StateSpaceBuilder builder1 = new StateSpaceBuilder("first", 4).initial(0).annotate(2, 0);
+        StateSpaceBuilder builder2 = new StateSpaceBuilder("second", 3).initial(0).annotate(0, 3).annotate(1, 5);
+        StateAnnotationClasses annotationClasses = new StateAnnotationClasses();
+        assertArrayEquals(new int[] {0, 1, 0, 2}, annotationClasses.intern(indexedStateSpace(builder1),
+                builder1.annotations()));
+        assertArrayEquals(new int[] {2, 3, 4}, annotationClasses.intern(indexedStateSpace(builder2),
+                builder2.annotations()));
+    }
+
+    @Test
+    void testSameAsWrappers() {
+        // Locations have the same class id if and only if their state annotations are equal when wrapped. The state
+        // annotations have named and unnamed arguments, in random orders, with random values.
+        Random random = new Random(0);
+        StateSpaceBuilder builder1 = randomlyAnnotatedStateSpace("first", random);
+        StateSpaceBuilder builder2 = randomlyAnnotatedStateSpace("second", random);
+        StateAnnotationClasses annotationClasses = new StateAnnotationClasses();
+        List<Annotation> annotations = new ArrayList<>();
+        List<Integer> classIds = new ArrayList<>();
+        for (StateSpaceBuilder builder: List.of(builder1, builder2)) {
+            IndexedStateSpace stateSpace = indexedStateSpace(builder);
+            int[] locationClassIds = annotationClasses.intern(stateSpace, builder.annotations());
+            for (int i = 0; i < stateSpace.size(); i++) {
+                annotations.add(builder.annotations().get(stateSpace.getLocation(i)));
+                classIds.add(locationClassIds[i]);
+            }
+        }
+
+        for (int i = 0; i < annotations.size(); i++) {
+            for (int j = 0; j < annotations.size(); j++) {
+                boolean expected = new StateAnnotationEqHashWrap(annotations.get(i))
+                        .equals(new StateAnnotationEqHashWrap(annotations.get(j)));
+                assertEquals(expected, classIds.get(i).equals(classIds.get(j)), "Locations " + i + " and " + j + ".");
+            }
+        }
+    }
+
+    @Test
+    void testMissingAnnotation() {
+        StateSpaceBuilder builder = new StateSpaceBuilder("stateSpace", 2).initial(0);
+        builder.annotations().remove(builder.location(1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new StateAnnotationClasses().intern(indexedStateSpace(builder), builder.annotations()));
+    }
+
+    private static StateSpaceBuilder randomlyAnnotatedStateSpace(String name, Random random) {
+        int locationCount = 50;
+        StateSpaceBuilder builder = new StateSpaceBuilder(name, locationCount).initial(0);
+        for (int i = 0; i < locationCount; i++) {
+            Annotation annotation = CifConstructors.newAnnotation();
+            annotation.setName("state");
+            boolean namedFirst = random.nextBoolean();
+            if (namedFirst) {
+                addArgument(annotation, "x", random.nextInt(2));
+                addArgument(annotation, "y", random.nextInt(2));
+            } else {
+                addArgument(annotation, "y", random.nextInt(2));
+                addArgument(annotation, "x", random.nextInt(2));
+            }
+            for (int j = random.nextInt(3); j > 0; j--) {
+                addArgument(annotation, null, random.nextInt(2));
+            }
+            builder.annotations().put(builder.location(i), annotation);
+        }
+        return builder;
+    }
+
+    private static void addArgument(Annotation annotation, String name, int value) {
+        AnnotationArgument argument = CifConstructors.newAnnotationArgument();
+        argument.setName(name);
+        argument.setValue(CifValueUtils.makeInt(value));
+        annotation.getArguments().add(argument);
+    }
+
+    private static IndexedStateSpace indexedStateSpace(StateSpaceBuilder builder) {
+        return new IndexedStateSpace(builder.automaton(), builder.events("tau"), List.of());
+    }
+}
@@ -0,0 +1,135 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.escet.cif.metamodel.cif.declarations.Event;
+import org.eclipse.escet.common.java.Pair;
+import org.eclipse.escet.common.java.Termination;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link StateAwareWeakLanguageEquivalenceChecker}. */
+class StateAwareWeakLanguageEquivalenceCheckerTest {
+    /**
+     * The number of branches of the state spaces of which the pairs of a level are expanded one after another, which is
+     * less than the minimum number of pairs of a level to expand them in parallel.
+     */
+    private static final int SEQUENTIAL_BRANCH_COUNT = 8;
+
+    /**
+     * The number of branches of the state spaces of which the pairs of a level are expanded in parallel, which is more
+     * than the minimum number of pairs of a level to expand them in parallel.
+     */
+    private static final int PARALLEL_BRANCH_COUNT = 200;
+
+    /** The number of times to repeat a check that expands the pairs of a level in parallel. */
+    private static final int REPETITIONS = 20;
+
+    @Test
+    @DisplayName("Expanding a level in parallel reports the same counterexample as expanding it sequentially")
+    void testParallelLevelCounterexample() {
+        // The branches after the first failing one also fail, and may be expanded first when expanding in parallel.
+        String expected = StateAwareWeakLanguageEquivalenceChecker.ERROR_PREFIX
+                + "the two models can reach non-equivalent states: state 'loc6' of the first model, and state 'loc6' "
+                + "of the second model.";
+        assertEquals(expected, check(SEQUENTIAL_BRANCH_COUNT, 5, 6));
+        for (int i = 0; i < REPETITIONS; i++) {
+            assertEquals(expected, check(PARALLEL_BRANCH_COUNT, 5, 6, 40, 70, 90, 150, 199));
+        }
+    }
+
+    @Test
+    @DisplayName("Expanding a level in parallel passes for equivalent state spaces")
+    void testParallelLevelEquivalent() {
+        assertEquals("", check(PARALLEL_BRANCH_COUNT));
+    }
+
+    @Test
+    @DisplayName("Expanding a level in parallel stops if termination is requested")
+    void testParallelLevelTermination() {
+        StateSpaceBuilder builder1 = branches("first", PARALLEL_BRANCH_COUNT);
+        StateSpaceBuilder builder2 = branches("second", PARALLEL_BRANCH_COUNT);
+
+        // Request termination once the initial pair has been expanded, while expanding the next level in parallel.
+        AtomicInteger terminationChecks = new AtomicInteger();
+        StateAwareWeakLanguageEquivalenceChecker checker = new StateAwareWeakLanguageEquivalenceChecker(
+                () -> terminationChecks.incrementAndGet() > 1, LanguageEquivalenceCheckMode.SUBSET_CONSTRUCTION);
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> checker.check(builder1.automaton(), builder1.annotations(), builder1.events("tau"),
+                        builder2.automaton(), builder2.annotations(), builder2.events("tau"),
+                        pairEvents(builder1, builder2, PARALLEL_BRANCH_COUNT)));
+        assertEquals(StateAwareWeakLanguageEquivalenceChecker.ERROR_PREFIX
+                + "termination was requested before completion.", exception.getMessage());
+    }
+
+    /**
+     * Checks two state spaces with the given number of branches for equivalence, using subset construction. The second
+     * state space differs from the first one in the state annotations of the given branches.
+     *
+     * @param branchCount The number of branches.
+     * @param failingBranches The indices of the branches with different state annotations.
+     * @return The message of the failure of the check, or an empty string if the check passed.
+     */
+    private static String check(int branchCount, int... failingBranches) {
+        StateSpaceBuilder builder1 = branches("first", branchCount);
+        StateSpaceBuilder builder2 = branches("second", branchCount);
+        for (int branch: failingBranches) {
+            builder2.annotate(branch + 1, branchCount + 2 + branch);
+        }
+
+        StateAwareWeakLanguageEquivalenceChecker checker = new StateAwareWeakLanguageEquivalenceChecker(
+                Termination.NEVER, LanguageEquivalenceCheckMode.SUBSET_CONSTRUCTION);
+        try {
+            checker.check(builder1.automaton(), builder1.annotations(), builder1.events("tau"), builder2.automaton(),
+                    builder2.annotations(), builder2.events("tau"), pairEvents(builder1, builder2, branchCount));
+            return "";
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Creates a state space that branches from its initial location 0 to locations {@code 1} to {@code n}, each by its
+     * own event, and then continues from each of them to the marked location {@code n + 1}. The pairs of the first
+     * level after the initial one are thus the {@code n} pairs of corresponding branches.
+     *
+     * @param name The name of the state space.
+     * @param branchCount The number of branches {@code n}.
+     * @return The builder of the state space.
+     */
+    private static StateSpaceBuilder branches(String name, int branchCount) {
+        StateSpaceBuilder builder = new StateSpaceBuilder(name, branchCount + 2).initial(0).marked(branchCount + 1);
+        for (int branch = 0; branch < branchCount; branch++) {
+            builder.edge(0, "e" + branch, branch + 1).edge(branch + 1, "end", branchCount + 1);
+        }
+        return builder;
+    }
+
+    private static Set<Pair<List<Event>, List<Event>>> pairEvents(StateSpaceBuilder builder1,
+            StateSpaceBuilder builder2, int branchCount)
+    {
+        Set<Pair<List<Event>, List<Event>>> pairedEvents = new LinkedHashSet<>();
+        for (int branch = 0; branch < branchCount; branch++) {
+            pairedEvents.add(new Pair<>(List.of(builder1.event("e" + branch)), List.of(builder2.event("e" + branch))));
+        }
+        pairedEvents.add(new Pair<>(List.of(builder1.event("end")), List.of(builder2.event("end"))));
+        return pairedEvents;
+    }
+}
@@ -0,0 +1,187 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.escet.cif.common.CifValueUtils;
+import org.eclipse.escet.cif.metamodel.cif.Specification;
+import org.eclipse.escet.cif.metamodel.cif.annotations.Annotation;
+import org.eclipse.escet.cif.metamodel.cif.annotations.AnnotationArgument;
+import org.eclipse.escet.cif.metamodel.cif.automata.Automaton;
+import org.eclipse.escet.cif.metamodel.cif.automata.Edge;
+import org.eclipse.escet.cif.metamodel.cif.automata.EdgeEvent;
+import org.eclipse.escet.cif.metamodel.cif.automata.Location;
+import org.eclipse.escet.cif.metamodel.cif.declarations.Event;
+import org.eclipse.escet.cif.metamodel.java.CifConstructors;
+
+/**
+ * Builds small state space automata for tests. The locations are numbered from zero, and the events are declared in
+ * the specification that contains the automaton, such that they have an absolute name.
+ */
+class StateSpaceBuilder {
+    /** The specification that contains the state space automaton and its events. */
+    private final Specification specification = CifConstructors.newSpecification();
+
+    /** The state space automaton. */
+    private final Automaton automaton = CifConstructors.newAutomaton();
+
+    /** The locations of the state space, by number. */
+    private final List<Location> locations = new ArrayList<>();
+
+    /** Per event name, the event. */
+    private final Map<String, Event> events = new LinkedHashMap<>();
+
+    /** Per location, its state annotation. */
+    private final Map<Location, Annotation> annotations = new LinkedHashMap<>();
+
+    /**
+     * Constructs a new state space builder.
+     *
+     * @param name The name of the state space automaton.
+     * @param locationCount The number of locations of the state space.
+     */
+    StateSpaceBuilder(String name, int locationCount) {
+        automaton.setName(name);
+        specification.getComponents().add(automaton);
+        for (int i = 0; i < locationCount; i++) {
+            Location location = CifConstructors.newLocation();
+            location.setName("loc" + i);
+            automaton.getLocations().add(location);
+            locations.add(location);
+            annotate(i, i);
+        }
+    }
+
+    /**
+     * Makes the given location initial.
+     *
+     * @param location The number of the location.
+     * @return This builder.
+     */
+    StateSpaceBuilder initial(int location) {
+        locations.get(location).getInitials().add(CifValueUtils.makeTrue());
+        return this;
+    }
+
+    /**
+     * Makes the given location marked.
+     *
+     * @param location The number of the location.
+     * @return This builder.
+     */
+    StateSpaceBuilder marked(int location) {
+        locations.get(location).getMarkeds().add(CifValueUtils.makeTrue());
+        return this;
+    }
+
+    /**
+     * Adds an edge. The edge has no target if it is a self-loop, as is common for CIF edges.
+     *
+     * @param source The number of the source location.
+     * @param eventName The name of the event of the edge, which is declared if it doesn't exist yet.
+     * @param target The number of the target location.
+     * @return This builder.
+     */
+    StateSpaceBuilder edge(int source, String eventName, int target) {
+        EdgeEvent edgeEvent = CifConstructors.newEdgeEvent();
+        edgeEvent.setEvent(CifConstructors.newEventExpression(event(eventName), null, CifConstructors.newBoolType()));
+        Edge edge = CifConstructors.newEdge();
+        edge.getEvents().add(edgeEvent);
+        if (source != target) {
+            edge.setTarget(locations.get(target));
+        }
+        locations.get(source).getEdges().add(edge);
+        return this;
+    }
+
+    /**
+     * Sets the state annotation of the given location, which replaces its default state annotation with its number as
+     * value.
+     *
+     * @param location The number of the location.
+     * @param value The value of the state annotation.
+     * @return This builder.
+     */
+    StateSpaceBuilder annotate(int location, int value) {
+        AnnotationArgument argument = CifConstructors.newAnnotationArgument();
+        argument.setName("value");
+        argument.setValue(CifValueUtils.makeInt(value));
+        Annotation annotation = CifConstructors.newAnnotation();
+        annotation.setName("state");
+        annotation.getArguments().add(argument);
+        annotations.put(locations.get(location), annotation);
+        return this;
+    }
+
+    /**
+     * Gives the event with the given name, declaring it if it doesn't exist yet.
+     *
+     * @param eventName The name of the event.
+     * @return The event.
+     */
+    Event event(String eventName) {
+        return events.computeIfAbsent(eventName, n -> {
+            Event event = CifConstructors.newEvent();
+            event.setName(n);
+            event.setControllable(true);
+            specification.getDeclarations().add(event);
+            return event;
+        });
+    }
+
+    /**
+     * Gives the events with the given names, declaring them if they don't exist yet.
+     *
+     * @param eventNames The names of the events.
+     * @return The events, in the given order.
+     */
+    Set<Event> events(String... eventNames) {
+        Set<Event> result = new LinkedHashSet<>();
+        for (String eventName: eventNames) {
+            result.add(event(eventName));
+        }
+        return result;
+    }
+
+    /**
+     * Gives the location with the given number.
+     *
+     * @param location The number of the location.
+     * @return The location.
+     */
+    Location location(int location) {
+        return locations.get(location);
+    }
+
+    /**
+     * Gives the state space automaton.
+     *
+     * @return The state space automaton.
+     */
+    Automaton automaton() {
+        return automaton;
+    }
+
+    /**
+     * Gives the state annotations of the locations.
+     *
+     * @return Per location, its state annotation.
+     */
+    Map<Location, Annotation> annotations() {
+        return annotations;
+    }
+}
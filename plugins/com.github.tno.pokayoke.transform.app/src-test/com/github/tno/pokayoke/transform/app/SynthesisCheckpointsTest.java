@@ -0,0 +1,165 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.eclipse.uml2.uml.Activity;
+import org.eclipse.uml2.uml.CallBehaviorAction;
+import org.eclipse.uml2.uml.Class;
+import org.eclipse.uml2.uml.ControlFlow;
+import org.eclipse.uml2.uml.InitialNode;
+import org.eclipse.uml2.uml.Model;
+import org.eclipse.uml2.uml.UMLPackage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.tno.pokayoke.transform.common.FileHelper;
+import com.github.tno.pokayoke.transform.uml2cif.UmlToCifTranslator;
+
+/** Tests for {@link SynthesisCheckpoints}. */
+class SynthesisCheckpointsTest {
+    /** The path to the input UML model, which has a single wave of three abstract activities. */
+    private static final Path INPUT_PATH = Path.of("resources-test", "regressiontests",
+            "counter-incr-three-activities", "input.uml");
+
+    @TempDir
+    Path temporaryPath;
+
+    /**
+     * Tests that restoring a checkpoint gives the same UML model as the one at the time the checkpoint was written,
+     * and that only the synthesized activities are written to the checkpoint.
+     *
+     * @throws Exception In case the test fails.
+     */
+    @Test
+    void testRestore() throws Exception {
+        Path rootFolderPath = temporaryPath.resolve("checkpoints");
+        Path otherFolderPath = Files.createDirectories(rootFolderPath.resolve("other"));
+
+        // Mimic synthesis of the wave, and write a checkpoint.
+        Model model = loadModel();
+        List<Activity> wave = getActivities(model);
+        List<String> warnings = new ArrayList<>();
+        SynthesisCheckpoints checkpoints = SynthesisCheckpoints.open(rootFolderPath, INPUT_PATH, List.of(),
+                List.of(wave), warnings);
+        assertEquals(0, checkpoints.findLatest());
+
+        UmlToCifTranslator.prepareModelForSynthesis(model);
+        for (Activity activity: wave) {
+            synthesize(activity);
+        }
+        warnings.add("warning");
+        checkpoints.write(wave);
+
+        // Only the synthesized activities and the descriptor are written, and the checkpoints of other inputs are kept.
+        Path folderPath;
+        try (Stream<Path> paths = Files.list(rootFolderPath)) {
+            folderPath = paths.filter(path -> !path.equals(otherFolderPath)).findFirst().get();
+        }
+        try (Stream<Path> paths = Files.list(folderPath)) {
+            assertEquals(List.of("1.uml", "2.uml", "3.json", "3.uml"),
+                    paths.map(path -> path.getFileName().toString()).sorted().toList());
+        }
+        assertTrue(Files.isDirectory(otherFolderPath));
+
+        // Resume from the checkpoint, for a newly loaded input UML model.
+        Model resumedModel = loadModel();
+        List<String> resumedWarnings = new ArrayList<>();
+        SynthesisCheckpoints resumedCheckpoints = SynthesisCheckpoints.open(rootFolderPath, INPUT_PATH, List.of(),
+                List.of(getActivities(resumedModel)), resumedWarnings);
+        assertEquals(3, resumedCheckpoints.findLatest());
+        resumedCheckpoints.restore(3);
+
+        assertEquals(List.of("warning"), resumedWarnings);
+        assertEquals(storeModel(model, "original.uml"), storeModel(resumedModel, "resumed.uml"));
+        Activity resumedActivity = (Activity)getContext(resumedModel).getOwnedBehavior("goToFour");
+        assertEquals(resumedActivity, getContext(resumedModel).getClassifierBehavior());
+        assertFalse(resumedActivity.isAbstract());
+
+        // Removing the checkpoints keeps those of other inputs.
+        resumedCheckpoints.delete();
+        assertFalse(Files.exists(folderPath));
+        assertTrue(Files.isDirectory(otherFolderPath));
+    }
+
+    /**
+     * Tests that a checkpoint of which a synthesized activity is corrupted is not resumed from.
+     *
+     * @throws Exception In case the test fails.
+     */
+    @Test
+    void testCorrupted() throws Exception {
+        Path rootFolderPath = temporaryPath.resolve("checkpoints");
+        Model model = loadModel();
+        List<Activity> wave = getActivities(model);
+        SynthesisCheckpoints checkpoints = SynthesisCheckpoints.open(rootFolderPath, INPUT_PATH, List.of(),
+                List.of(wave), new ArrayList<>());
+        UmlToCifTranslator.prepareModelForSynthesis(model);
+        for (Activity activity: wave) {
+            synthesize(activity);
+        }
+        checkpoints.write(wave);
+        assertEquals(3, checkpoints.findLatest());
+
+        try (Stream<Path> paths = Files.list(rootFolderPath)) {
+            Path activityPath = paths.findFirst().get().resolve("2.uml");
+            Files.writeString(activityPath, Files.readString(activityPath).replace("goToFour", "goToSix"));
+        }
+        assertEquals(0, checkpoints.findLatest());
+    }
+
+    private static Model loadModel() {
+        Model model = FileHelper.loadModel(INPUT_PATH.toString());
+        FileHelper.normalizeIds(model);
+        return model;
+    }
+
+    private static Class getContext(Model model) {
+        return (Class)model.getOwnedType("Context");
+    }
+
+    private static List<Activity> getActivities(Model model) {
+        return getContext(model).getOwnedBehaviors().stream().filter(Activity.class::isInstance)
+                .map(Activity.class::cast).toList();
+    }
+
+    /**
+     * Replaces the body of an abstract activity by a simple concrete body, that calls an opaque behavior outside the
+     * activity, like synthesis would.
+     *
+     * @param activity The abstract activity.
+     */
+    private static void synthesize(Activity activity) {
+        activity.setIsAbstract(false);
+        InitialNode initialNode = (InitialNode)activity.createOwnedNode("start", UMLPackage.Literals.INITIAL_NODE);
+        CallBehaviorAction action = (CallBehaviorAction)activity.createOwnedNode("call",
+                UMLPackage.Literals.CALL_BEHAVIOR_ACTION);
+        action.setBehavior(getContext(activity.getModel()).getOwnedBehavior("incr1"));
+        ControlFlow edge = (ControlFlow)activity.createEdge("flow", UMLPackage.Literals.CONTROL_FLOW);
+        edge.setSource(initialNode);
+        edge.setTarget(action);
+    }
+
+    private String storeModel(Model model, String fileName) throws Exception {
+        Path path = temporaryPath.resolve(fileName);
+        FileHelper.storeModel(model, path.toString());
+        return Files.readString(path);
+    }
+}
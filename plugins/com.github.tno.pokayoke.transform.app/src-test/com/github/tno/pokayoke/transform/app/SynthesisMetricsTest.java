@@ -0,0 +1,136 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.escet.cif.metamodel.cif.Specification;
+import org.eclipse.escet.cif.metamodel.cif.automata.Automaton;
+import org.eclipse.escet.cif.metamodel.cif.automata.Edge;
+import org.eclipse.escet.cif.metamodel.java.CifConstructors;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import fr.lip6.move.pnml.ptnet.Page;
+import fr.lip6.move.pnml.ptnet.PetriNet;
+import fr.lip6.move.pnml.ptnet.Place;
+import fr.lip6.move.pnml.ptnet.PtnetFactory;
+import fr.lip6.move.pnml.ptnet.Transition;
+
+/** Tests for {@link SynthesisMetrics}. */
+class SynthesisMetricsTest {
+    @TempDir
+    Path temporaryPath;
+
+    @Test
+    void testStages() throws IOException {
+        SynthesisMetrics metrics = new SynthesisMetrics();
+        metrics.startStage("first");
+        metrics.addSize("items", 3);
+        metrics.startStage("second");
+        metrics.addSize("items", 5);
+        metrics.addSize("other", 7);
+
+        // Writing the report ends the current stage.
+        JSONObject report = write(metrics);
+        assertEquals("activity", report.getString("activity"));
+        JSONArray stages = report.getJSONArray("stages");
+        assertEquals(2, stages.length());
+        assertStage(stages.getJSONObject(0), "first", "{\"items\":3}");
+        assertStage(stages.getJSONObject(1), "second", "{\"items\":5,\"other\":7}");
+        assertThrows(IllegalStateException.class, () -> metrics.addSize("items", 1));
+    }
+
+    @Test
+    void testNoStage() {
+        SynthesisMetrics metrics = new SynthesisMetrics();
+        assertThrows(IllegalStateException.class, () -> metrics.addSize("items", 1));
+
+        // Sizes can no longer be added once the stage has ended.
+        metrics.startStage("stage");
+        metrics.endStage();
+        assertThrows(IllegalStateException.class, () -> metrics.addSize("items", 1));
+    }
+
+    @Test
+    void testStateSpaceSizes() throws IOException {
+        StateSpaceBuilder builder = new StateSpaceBuilder("stateSpace", 3).initial(0).marked(2);
+        builder.edge(0, "a", 1).edge(1, "tau", 1).edge(1, "b", 2).edge(0, "b", 2);
+
+        // Edges count as a transition per event, and edges without events as a single transition.
+        Automaton automaton = builder.automaton();
+        List<Edge> edges = automaton.getLocations().get(0).getEdges();
+        edges.get(0).getEvents().add(EcoreUtil.copy(edges.get(1).getEvents().get(0)));
+        automaton.getLocations().get(2).getEdges().add(CifConstructors.newEdge());
+
+        SynthesisMetrics metrics = new SynthesisMetrics();
+        metrics.startStage("stage");
+        metrics.addStateSpaceSizes("stateSpace", (Specification)automaton.eContainer());
+        JSONObject sizes = write(metrics).getJSONArray("stages").getJSONObject(0).getJSONObject("sizes");
+        assertEquals(3, sizes.getLong("stateSpace.states"));
+        assertEquals(6, sizes.getLong("stateSpace.transitions"));
+    }
+
+    @Test
+    void testPetriNetSizes() throws IOException {
+        PtnetFactory factory = PtnetFactory.eINSTANCE;
+        PetriNet petriNet = factory.createPetriNet();
+        Page page = factory.createPage();
+        page.setContainerPetriNet(petriNet);
+        Place source = factory.createPlace();
+        source.setContainerPage(page);
+        Place target = factory.createPlace();
+        target.setContainerPage(page);
+        Transition transition = factory.createTransition();
+        transition.setContainerPage(page);
+        factory.createArc().setContainerPage(page);
+        factory.createArc().setContainerPage(page);
+
+        SynthesisMetrics metrics = new SynthesisMetrics();
+        metrics.startStage("stage");
+        metrics.addPetriNetSizes("petriNet", petriNet);
+        JSONObject sizes = write(metrics).getJSONArray("stages").getJSONObject(0).getJSONObject("sizes");
+        assertEquals(2, sizes.getLong("petriNet.places"));
+        assertEquals(1, sizes.getLong("petriNet.transitions"));
+        assertEquals(2, sizes.getLong("petriNet.arcs"));
+    }
+
+    private JSONObject write(SynthesisMetrics metrics) throws IOException {
+        Path path = temporaryPath.resolve("metrics.json");
+        metrics.write("activity", path);
+        return new JSONObject(Files.readString(path));
+    }
+
+    /**
+     * Asserts that the given stage of a report has the given name and sizes, and has ended.
+     *
+     * @param stage The stage of the report.
+     * @param name The expected name of the stage.
+     * @param sizes The expected sizes of the stage, as JSON.
+     */
+    private static void assertStage(JSONObject stage, String name, String sizes) {
+        assertEquals(name, stage.getString("name"));
+        assertTrue(stage.getLong("wallTimeNanos") >= 0);
+        assertTrue(stage.getLong("cpuTimeNanos") >= -1);
+        assertTrue(stage.getLong("allocatedBytes") >= -1);
+        assertTrue(new JSONObject(sizes).similar(stage.getJSONObject("sizes")));
+    }
+}
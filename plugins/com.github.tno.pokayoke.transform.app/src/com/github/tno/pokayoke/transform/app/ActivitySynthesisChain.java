@@ -0,0 +1,898 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.escet.cif.bdd.spec.CifBddSpec;
+import org.eclipse.escet.cif.cif2cif.ElimIfUpdates;
+import org.eclipse.escet.cif.common.CifCollectUtils;
+import org.eclipse.escet.cif.common.CifTextUtils;
+import org.eclipse.escet.cif.datasynth.CifDataSynthesis;
+import org.eclipse.escet.cif.datasynth.CifDataSynthesisResult;
+import org.eclipse.escet.cif.datasynth.settings.CifDataSynthesisSettings;
+import org.eclipse.escet.cif.eventbased.apps.DfaMinimizationApplication;
+import org.eclipse.escet.cif.eventbased.apps.ProjectionApplication;
+import org.eclipse.escet.cif.explorer.app.ExplorerApplication;
+import org.eclipse.escet.cif.io.CifWriter;
+import org.eclipse.escet.cif.metamodel.cif.Specification;
+import org.eclipse.escet.cif.metamodel.cif.automata.Automaton;
+import org.eclipse.escet.cif.metamodel.cif.declarations.Event;
+import org.eclipse.escet.common.app.framework.AppEnv;
+import org.eclipse.escet.common.app.framework.io.AppStream;
+import org.eclipse.escet.common.app.framework.io.AppStreams;
+import org.eclipse.escet.common.app.framework.io.MemAppStream;
+import org.eclipse.escet.common.java.Pair;
+import org.eclipse.escet.common.java.PathPair;
+import org.eclipse.uml2.uml.Activity;
+import org.eclipse.uml2.uml.Model;
+
+import com.github.tno.pokayoke.transform.activitysynthesis.CIFDataSynthesisHelper;
+import com.github.tno.pokayoke.transform.activitysynthesis.CheckNonDeterministicChoices;
+import com.github.tno.pokayoke.transform.activitysynthesis.CifSourceSinkLocationTransformer;
+import com.github.tno.pokayoke.transform.activitysynthesis.GuardComputation;
+import com.github.tno.pokayoke.transform.activitysynthesis.NonAtomicPatternRewriter;
+import com.github.tno.pokayoke.transform.activitysynthesis.NonAtomicPatternRewriter.NonAtomicPattern;
+import com.github.tno.pokayoke.transform.app.StateAwareWeakLanguageEquivalenceHelper.ModelPreparationResult;
+import com.github.tno.pokayoke.transform.cif2petrify.Cif2Petrify;
+import com.github.tno.pokayoke.transform.cif2petrify.CifFileHelper;
+import com.github.tno.pokayoke.transform.common.FileHelper;
+import com.github.tno.pokayoke.transform.petrify.PetrifyCache;
+import com.github.tno.pokayoke.transform.petrify.PetrifyHelper;
+import com.github.tno.pokayoke.transform.petrify.PetrifyNet;
+import com.github.tno.pokayoke.transform.petrify.RegionBasedSynthesis;
+import com.github.tno.pokayoke.transform.petrify2uml.ConcreteActivityRestorer;
+import com.github.tno.pokayoke.transform.petrify2uml.PNML2UMLTranslator;
+import com.github.tno.pokayoke.transform.petrify2uml.PNMLUMLFileHelper;
+import com.github.tno.pokayoke.transform.petrify2uml.PetrifyOutput2PNMLTranslator;
+import com.github.tno.pokayoke.transform.petrify2uml.PostProcessActivity;
+import com.github.tno.pokayoke.transform.petrify2uml.PostProcessPNML;
+import com.github.tno.pokayoke.transform.track.SynthesisChainTracking;
+import com.github.tno.pokayoke.transform.track.UmlToCifTranslationPurpose;
+import com.github.tno.pokayoke.transform.uml2cif.UmlToCifTranslator;
+import com.github.tno.synthml.uml.profile.cif.CifContextManager;
+import com.google.common.base.Preconditions;
+
+import fr.lip6.move.pnml.ptnet.PetriNet;
+import fr.lip6.move.pnml.ptnet.Transition;
+
+/**
+ * The synthesis chain for a single abstract activity. The chain is split into three stages, which must be performed in
+ * order:
+ * <ol>
+ * <li>{@link #translate}, which translates the activity to CIF. It reads the UML model, and modifies it if it prepares
+ * the UML model for synthesis.</li>
+ * <li>{@link #synthesizeStateSpace}, which performs synthesis, state space generation and petrification. It neither
+ * modifies the UML model, nor does it depend on other activities being synthesized. Hence, this stage may be performed
+ * in parallel to the same stage of the synthesis chains of other independent activities.</li>
+ * <li>{@link #synthesizeActivity}, which translates the Petri net back to UML, computes the guards, and checks the
+ * result. It reads and modifies the UML model.</li>
+ * </ol>
+ * <p>
+ * The chain stops early if full synthesis is cancelled, or if it exceeds its time budget. It then releases its
+ * intermediate results, and fails with an {@link OperationCanceledException} or a
+ * {@link SynthesisBudgetExceededException}, respectively.
+ * </p>
+ */
+class ActivitySynthesisChain {
+    /**
+     * The lock to hold while accessing UML elements during the {@link #synthesizeStateSpace} stage. UML elements may
+     * update their shared caches while being read, and are thus not safe to access concurrently.
+     */
+    private static final Object UML_ACCESS_LOCK = new Object();
+
+    /** The abstract activity to synthesize. */
+    private final Activity activity;
+
+    /** The prefix of the names of the output files. */
+    private final String filePrefix;
+
+    /** The path to the folder in which to store the outputs. */
+    private final Path outputFolderPath;
+
+    /** The path to the folder in which to exchange files with the CIF tools and Petrify. */
+    private final Path workFolderPath;
+
+    /** The CIF context manager of the UML model that contains the activity. */
+    private final CifContextManager ctxManager;
+
+    /** The warnings of this synthesis chain, which is modified in-place. */
+    private final List<String> warnings;
+
+    /** The level of the artifacts to write to the output folder. */
+    private final ArtifactLevel artifactLevel;
+
+    /** The cache of the results of the steps of the synthesis chain, or {@code null} if results are not cached. */
+    private final StageResultCache cache;
+
+    /** The cache of Petrify results, or {@code null} if Petrify results are not cached. */
+    private final PetrifyCache petrifyCache;
+
+    /** Whether to write a report of the performance metrics of the stages of the synthesis chain. */
+    private final boolean writeMetrics;
+
+    /** The termination of the synthesis chain. */
+    private final SynthesisTermination termination;
+
+    /** The performance metrics of the stages of the synthesis chain. */
+    private final SynthesisMetrics metrics = new SynthesisMetrics();
+
+    /** The writer of the snapshots of the intermediate results that are written to the output folder. */
+    private final SnapshotWriter snapshotWriter = new SnapshotWriter();
+
+    /**
+     * The tracker that indicates how results from intermediate steps of the activity synthesis chain relate to the
+     * input UML.
+     */
+    private final SynthesisChainTracking tracker;
+
+    /** The translator of the activity to CIF for synthesis, or {@code null} if not yet translated. */
+    private UmlToCifTranslator umlToCifTranslator;
+
+    /** The CIF specification to synthesize, or {@code null} if not yet translated. */
+    private Specification cifSpec;
+
+    /** The CIF/BDD specification used for synthesis, or {@code null} if not yet synthesized. */
+    private CifBddSpec cifBddSpec;
+
+    /** The state space of the synthesized CIF specification, or {@code null} if not yet generated. */
+    private Specification cifStateSpace;
+
+    /** The normalized Petrify output, or {@code null} if not yet petrified. */
+    private PetrifyNet petrifyOutput;
+
+    /**
+     * Constructs a new synthesis chain for an abstract activity.
+     *
+     * @param activity The abstract activity to synthesize.
+     * @param filePrefix The prefix of the names of the output files.
+     * @param outputFolderPath The path to the folder in which to store the outputs.
+     * @param workFolderPath The path to the folder in which to exchange files with the CIF tools and Petrify. Must be
+     *     the output folder path if all intermediate outputs are to be written.
+     * @param ctxManager The CIF context manager of the UML model that contains the activity.
+     * @param warnings The warnings of this synthesis chain, which is modified in-place.
+     * @param artifactLevel The level of the artifacts to write to the output folder.
+     * @param cache The cache of the results of the steps of the synthesis chain, or {@code null} to not cache results.
+     * @param petrifyCache The cache of Petrify results, or {@code null} to not cache Petrify results.
+     * @param writeMetrics Whether to write a report of the performance metrics of the stages of the synthesis chain,
+     *     to the output folder.
+     * @param termination The termination of the synthesis chain.
+     */
+    ActivitySynthesisChain(Activity activity, String filePrefix, Path outputFolderPath, Path workFolderPath,
+            CifContextManager ctxManager, List<String> warnings, ArtifactLevel artifactLevel, StageResultCache cache,
+            PetrifyCache petrifyCache, boolean writeMetrics, SynthesisTermination termination)
+    {
+        Preconditions.checkArgument(artifactLevel != ArtifactLevel.FULL || outputFolderPath.equals(workFolderPath),
+                "Expected the work folder to be the output folder when writing all intermediate outputs.");
+
+        this.activity = activity;
+        this.filePrefix = filePrefix;
+        this.outputFolderPath = outputFolderPath;
+        this.workFolderPath = workFolderPath;
+        this.ctxManager = ctxManager;
+        this.warnings = warnings;
+        this.artifactLevel = artifactLevel;
+        this.cache = cache;
+        this.petrifyCache = petrifyCache;
+        this.writeMetrics = writeMetrics;
+        this.termination = termination;
+
+        // Instantiate the tracker that indicates how results from intermediate steps of the activity synthesis chain
+        // relate to the input UML.
+        this.tracker = new SynthesisChainTracking(activity);
+    }
+
+    /**
+     * Gives the abstract activity to synthesize.
+     *
+     * @return The abstract activity to synthesize.
+     */
+    Activity getActivity() {
+        return activity;
+    }
+
+    /**
+     * Gives the warnings of this synthesis chain.
+     *
+     * @return The warnings of this synthesis chain.
+     */
+    List<String> getWarnings() {
+        return warnings;
+    }
+
+    /**
+     * Performs all stages of the synthesis chain.
+     *
+     * @throws IOException In case an I/O error occurs.
+     * @throws CoreException In case the input UML model is invalid, or the Petrify executable could not be found.
+     */
+    void perform() throws IOException, CoreException {
+        translate(true);
+        synthesizeStateSpace();
+        synthesizeActivity();
+    }
+
+    /**
+     * Performs the first stage of the synthesis chain, which translates the activity to CIF.
+     *
+     * @param prepareModel Whether to prepare the UML model for synthesis. May only be {@code false} if the UML model
+     *     has already been prepared for synthesis, and has not been changed since. The translation then doesn't modify
+     *     the UML model.
+     * @throws CoreException In case the input UML model is invalid.
+     */
+    void translate(boolean prepareModel) throws CoreException {
+        Preconditions.checkState(cifSpec == null, "Expected the activity not to have been translated yet.");
+
+        try {
+            performTranslate(prepareModel);
+        } catch (RuntimeException e) {
+            throw handleFailure(e);
+        }
+    }
+
+    /**
+     * Translates the activity to CIF.
+     *
+     * @param prepareModel Whether to prepare the UML model for synthesis.
+     * @throws CoreException In case the input UML model is invalid.
+     */
+    private void performTranslate(boolean prepareModel) throws CoreException {
+        // Translate the UML specification to a CIF specification.
+        startStage("translation");
+        metrics.addSize("uml.nodes", activity.getNodes().size());
+        metrics.addSize("uml.edges", activity.getEdges().size());
+        umlToCifTranslator = new UmlToCifTranslator(ctxManager.getGlobalContext(), activity,
+                UmlToCifTranslationPurpose.SYNTHESIS, tracker, warnings);
+        cifSpec = umlToCifTranslator.translate(prepareModel);
+        if (artifactLevel.includes(ArtifactLevel.FULL)) {
+            writeCifSnapshot(cifSpec, outputFolderPath.resolve(filePrefix + ".01.cif"));
+        }
+
+        // Post-process the CIF specification to eliminate all if-updates.
+        ElimIfUpdates elimIfUpdates = new ElimIfUpdates();
+        elimIfUpdates.transform(cifSpec);
+        if (artifactLevel.includes(ArtifactLevel.CHECKPOINTS)) {
+            writeCifSnapshot(cifSpec, outputFolderPath.resolve(filePrefix + ".02.postprocessed.cif"));
+        }
+        metrics.addSize("cif.events", CifCollectUtils.collectEvents(cifSpec, new ArrayList<>()).size());
+        metrics.addSize("cif.variables", CifCollectUtils.collectDiscVariables(cifSpec, new ArrayList<>()).size());
+        endStage();
+    }
+
+    /**
+     * Performs the second stage of the synthesis chain, which performs synthesis, state space generation and
+     * petrification.
+     *
+     * @throws IOException In case an I/O error occurs.
+     * @throws CoreException In case the Petrify executable could not be found.
+     */
+    void synthesizeStateSpace() throws IOException, CoreException {
+        Preconditions.checkState(cifSpec != null, "Expected the activity to have been translated.");
+        Preconditions.checkState(petrifyOutput == null, "Expected the state space not to have been synthesized yet.");
+
+        try {
+            performSynthesizeStateSpace();
+        } catch (RuntimeException e) {
+            throw handleFailure(e);
+        }
+    }
+
+    /**
+     * Performs synthesis, state space generation and petrification.
+     *
+     * @throws IOException In case an I/O error occurs.
+     * @throws CoreException In case the Petrify executable could not be found.
+     */
+    private void performSynthesizeStateSpace() throws IOException, CoreException {
+        // If results are cached, write the CIF specification to synthesize, as it is the input of synthesis, unless it
+        // has already been written as a checkpoint. In that case, wait for it to have been written.
+        startStage("synthesis");
+        Path cifPostProcessedSpecStepPath = getStepPath(".02.postprocessed.cif", ArtifactLevel.CHECKPOINTS);
+        if (cache != null && !artifactLevel.includes(ArtifactLevel.CHECKPOINTS)) {
+            writeCifSpec(cifSpec, cifPostProcessedSpecStepPath, workFolderPath);
+        } else if (cache != null) {
+            snapshotWriter.awaitAll();
+        }
+
+        // Perform synthesis, and convert the synthesis result back to CIF. The CIF/BDD specification is only created
+        // if synthesis is actually performed, and otherwise only once it is needed.
+        CifDataSynthesisSettings settings = createSynthesisSettings();
+        Path cifSynthesisPath = workFolderPath.resolve(filePrefix + ".03.ctrlsys.cif");
+        List<String> synthesisSettings = List.of("--forward-reach=" + settings.getDoForwardReach(),
+                "--fixed-point-order=" + settings.getFixedPointComputationsOrder());
+        boolean synthesisCached = performStep("synthesis", CifDataSynthesis.class, synthesisSettings,
+                List.of(cifPostProcessedSpecStepPath), cifSynthesisPath, () -> {
+                    CifDataSynthesisResult cifSynthesisResult = CIFDataSynthesisHelper.synthesize(getCifBddSpec(),
+                            settings);
+                    termination.check();
+                    CIFDataSynthesisHelper.convertSynthesisResultToCif(cifSpec, cifSynthesisResult, cifSynthesisPath,
+                            workFolderPath.toString());
+                });
+        metrics.addSize("cached", synthesisCached ? 1 : 0);
+        if (cifBddSpec != null) {
+            metrics.addSize("bdd.variables", cifBddSpec.variables.length);
+            metrics.addSize("bdd.nodeTableSize", cifBddSpec.factory.getNodeTableSize());
+            metrics.addSize("bdd.usedNodes", cifBddSpec.factory.getNodeNum());
+        }
+
+        // Perform state space generation.
+        startStage("statespace");
+        Path cifStateSpacePath = workFolderPath.resolve(filePrefix + ".04.ctrlsys.statespace.cif");
+        String stateSpaceName = "--name=synthesis_state_space";
+        boolean stateSpaceCached = performStep("statespace", ExplorerApplication.class, List.of(stateSpaceName),
+                List.of(cifSynthesisPath), cifStateSpacePath, () -> {
+                    String[] stateSpaceGenerationArgs = new String[] {cifSynthesisPath.toString(), stateSpaceName,
+                            "--output=" + cifStateSpacePath.toString()};
+                    AppStream explorerAppStream = new MemAppStream();
+                    AppStreams explorerAppStreams = new AppStreams(InputStream.nullInputStream(), explorerAppStream,
+                            explorerAppStream, explorerAppStream);
+                    ExplorerApplication explorerApp = new ExplorerApplication(explorerAppStreams);
+                    int exitCode = explorerApp.run(stateSpaceGenerationArgs, false);
+                    if (exitCode != 0) {
+                        throw new RuntimeException("Non-zero exit code for state space generation: " + exitCode
+                                + "\n" + explorerAppStream.toString());
+                    }
+                });
+
+        // Load the state space. A copy is kept for the language equivalence check, to avoid having to load it again.
+        Specification cifStateSpaceToTransform = CifFileHelper.loadCifSpec(cifStateSpacePath);
+        cifStateSpace = EcoreUtil.copy(cifStateSpaceToTransform);
+        metrics.addSize("cached", stateSpaceCached ? 1 : 0);
+        metrics.addStateSpaceSizes("statespace", cifStateSpace);
+
+        // Transform the state space by creating a single (initial) source and a single (marked) sink location.
+        startStage("projection");
+        Path cifStatespaceWithSingleSourceSink = workFolderPath
+                .resolve(filePrefix + ".05.statespace.singlesourcesink.cif");
+        synchronized (UML_ACCESS_LOCK) {
+            CifSourceSinkLocationTransformer.transform(cifStateSpaceToTransform, cifStatespaceWithSingleSourceSink,
+                    workFolderPath, tracker);
+        }
+
+        // Perform event-based automaton projection and update the synthesis tracker.
+        String preservedEventNames;
+        synchronized (UML_ACCESS_LOCK) {
+            Pair<String, Set<String>> preservedAndRemovedEventNames = getPreservedAndRemovedEventNames(
+                    cifStateSpaceToTransform, tracker);
+            preservedEventNames = preservedAndRemovedEventNames.left;
+            Set<String> removedEventNames = preservedAndRemovedEventNames.right;
+            tracker.removeAndUpdateEvents(removedEventNames, UmlToCifTranslationPurpose.SYNTHESIS);
+        }
+        Path cifProjectedStateSpacePath = workFolderPath.resolve(filePrefix + ".06.statespace.projected.cif");
+        String preserveArg = "--preserve=" + preservedEventNames;
+        boolean projectionCached = performStep("projection", ProjectionApplication.class, List.of(preserveArg),
+                List.of(cifStatespaceWithSingleSourceSink), cifProjectedStateSpacePath, () -> {
+                    String[] projectionArgs = new String[] {cifStatespaceWithSingleSourceSink.toString(), preserveArg,
+                            "--output=" + cifProjectedStateSpacePath.toString()};
+                    AppStream projectionAppStream = new MemAppStream();
+                    AppStreams projectionAppStreams = new AppStreams(InputStream.nullInputStream(),
+                            projectionAppStream, projectionAppStream, projectionAppStream);
+                    ProjectionApplication projectionApp = new ProjectionApplication(projectionAppStreams);
+                    int exitCode = projectionApp.run(projectionArgs, false);
+                    if (exitCode != 0) {
+                        throw new RuntimeException("Non-zero exit code for event-based automaton projection: "
+                                + exitCode + "\n" + projectionAppStream.toString());
+                    }
+                });
+        metrics.addSize("cached", projectionCached ? 1 : 0);
+
+        // Perform DFA minimization.
+        startStage("minimization");
+        Path cifMinimizedStateSpacePath = getStepPath(".07.statespace.projected.minimized.cif",
+                ArtifactLevel.CHECKPOINTS);
+        boolean minimizationCached = performStep("minimization", DfaMinimizationApplication.class, List.of(),
+                List.of(cifProjectedStateSpacePath), cifMinimizedStateSpacePath, () -> {
+                    String[] dfaMinimizationArgs = new String[] {cifProjectedStateSpacePath.toString(),
+                            "--output=" + cifMinimizedStateSpacePath.toString()};
+                    AppStream dfaMinimizationAppStream = new MemAppStream();
+                    AppStreams dfaMinimizationAppStreams = new AppStreams(InputStream.nullInputStream(),
+                            dfaMinimizationAppStream, dfaMinimizationAppStream, dfaMinimizationAppStream);
+                    DfaMinimizationApplication dfaMinimizationApp = new DfaMinimizationApplication(
+                            dfaMinimizationAppStreams);
+                    int exitCode = dfaMinimizationApp.run(dfaMinimizationArgs, false);
+                    if (exitCode != 0) {
+                        throw new RuntimeException("Non-zero exit code for DFA minimization: " + exitCode + "\n"
+                                + dfaMinimizationAppStream.toString());
+                    }
+                });
+
+        // Translate the CIF state space to Petrify input.
+        Path petrifyInputPath = getStepPath(".08.g", ArtifactLevel.CHECKPOINTS);
+        Specification cifMinimizedStateSpace = CifFileHelper.loadCifSpec(cifMinimizedStateSpacePath);
+        metrics.addSize("cached", minimizationCached ? 1 : 0);
+        metrics.addStateSpaceSizes("statespace", cifMinimizedStateSpace);
+        startStage("petrification");
+        int petrifyInputLineCount;
+
+        // Petrify the state space. If the Petrify executable is not available, then synthesize the Petri Net
+        // in-process instead.
+        Path petrifyOutputPath = getStepPath(".09.out", ArtifactLevel.CHECKPOINTS);
+        boolean petrificationCached = false;
+        String petrifyPluginName = "com.github.tno.pokayoke.transform.distribution";
+        if (ExecutableHelper.hasExecutable("petrify", petrifyPluginName, "bin")) {
+            petrifyInputLineCount = Cif2Petrify.transform(cifMinimizedStateSpace, petrifyInputPath);
+            Path petrifyLogPath = workFolderPath.resolve("petrify.log");
+            Path petrifyErrorPath = workFolderPath.resolve("petrify.err");
+            String petrifyExecutable = ExecutableHelper.getExecutable("petrify", petrifyPluginName, "bin");
+            if (petrifyCache == null) {
+                petrifyOutput = PetrifyHelper.convertToPetriNet(petrifyInputPath, petrifyOutputPath,
+                        petrifyExecutable, petrifyLogPath, petrifyErrorPath, 20, termination::isRequested);
+            } else {
+                petrificationCached = PetrifyHelper.convertToPetriNet(petrifyInputPath, petrifyOutputPath,
+                        petrifyExecutable, petrifyLogPath, petrifyErrorPath, 20, termination::isRequested,
+                        petrifyCache);
+
+                // Load Petrify output.
+                petrifyOutput = PetrifyNet.read(petrifyOutputPath);
+            }
+        } else if (cache != null) {
+            // Exchange the Petri Net synthesis input and output as files, to be able to cache the output.
+            petrifyInputLineCount = Cif2Petrify.transform(cifMinimizedStateSpace, petrifyInputPath);
+            petrificationCached = performStep("regionbasedsynthesis", RegionBasedSynthesis.class, List.of(),
+                    List.of(petrifyInputPath), petrifyOutputPath, () -> {
+                        Files.write(petrifyOutputPath,
+                                RegionBasedSynthesis.synthesize(Files.readAllLines(petrifyInputPath)));
+                    });
+            petrifyOutput = PetrifyNet.read(petrifyOutputPath);
+        } else {
+            List<String> petrifyInput = Cif2Petrify.transform(cifMinimizedStateSpace);
+            petrifyInputLineCount = petrifyInput.size();
+            petrifyOutput = RegionBasedSynthesis.synthesizePetriNet(petrifyInput);
+            if (artifactLevel.includes(ArtifactLevel.CHECKPOINTS)) {
+                Files.write(petrifyInputPath, petrifyInput);
+                Files.write(petrifyOutputPath, petrifyOutput.toLines());
+            }
+        }
+        metrics.addSize("cached", petrificationCached ? 1 : 0);
+        metrics.addSize("petrify.inputLines", petrifyInputLineCount);
+        metrics.addSize("petrify.outputLines", petrifyOutput.getLineCount());
+        endStage();
+    }
+
+    /**
+     * Performs a step of the synthesis chain that produces a single output file. If results are cached, the output file
+     * is restored from the cache instead, if possible, and is otherwise stored in the cache after performing the step.
+     *
+     * @param step The name of the step.
+     * @param tool The class that implements the step.
+     * @param settings The settings of the step, excluding the paths of its input and output files.
+     * @param inputPaths The paths to the input files of the step.
+     * @param outputPath The path to the output file of the step.
+     * @param action The action that performs the step.
+     * @return {@code true} if the output file was restored from the cache, {@code false} otherwise.
+     * @throws IOException In case an I/O error occurs.
+     * @throws CoreException In case the step could not be performed.
+     */
+    private boolean performStep(String step, Class<?> tool, List<String> settings, List<Path> inputPaths,
+            Path outputPath, StepAction action) throws IOException, CoreException
+    {
+        if (cache == null) {
+            action.perform();
+            return false;
+        }
+
+        String key = StageResultCache.computeKey(step, tool, settings, inputPaths);
+        if (cache.restore(key, outputPath)) {
+            return true;
+        }
+        action.perform();
+        cache.store(key, outputPath);
+        return false;
+    }
+
+    /**
+     * Gives the path to a file that is exchanged between steps of the synthesis chain. The file is in the output folder
+     * if it is an artifact of the selected artifact level, and in the work folder otherwise.
+     *
+     * @param fileSuffix The suffix of the name of the file, following the file prefix.
+     * @param level The artifact level from which the file is an artifact.
+     * @return The path to the file.
+     */
+    private Path getStepPath(String fileSuffix, ArtifactLevel level) {
+        Path folderPath = artifactLevel.includes(level) ? outputFolderPath : workFolderPath;
+        return folderPath.resolve(filePrefix + fileSuffix);
+    }
+
+    /**
+     * Starts a new stage of the synthesis chain, and ends the current stage, if any.
+     *
+     * @param stage The name of the stage.
+     * @throws OperationCanceledException If full synthesis is cancelled.
+     * @throws SynthesisBudgetExceededException If the budget is exceeded.
+     */
+    private void startStage(String stage) {
+        metrics.startStage(stage);
+        termination.startStage(stage);
+    }
+
+    /** Ends the current stage of the synthesis chain, if any. */
+    private void endStage() {
+        metrics.endStage();
+        termination.endStage();
+    }
+
+    /**
+     * Handles a failure of a stage of the synthesis chain. If the failure results from termination having been
+     * requested, the intermediate results are released, and the failure is replaced by one that indicates why
+     * termination was requested.
+     *
+     * @param failure The failure.
+     * @return The failure to rethrow.
+     */
+    private RuntimeException handleFailure(RuntimeException failure) {
+        boolean terminated = failure instanceof OperationCanceledException
+                || failure instanceof SynthesisBudgetExceededException;
+        if (!terminated && !termination.isRequested()) {
+            return failure;
+        }
+
+        // Release the intermediate results, as the synthesis chain can't continue.
+        releaseResults();
+
+        return terminated ? failure : termination.createException(failure);
+    }
+
+    /**
+     * Creates the settings of data-based synthesis.
+     *
+     * @return The settings.
+     */
+    private CifDataSynthesisSettings createSynthesisSettings() {
+        CifDataSynthesisSettings settings = CIFDataSynthesisHelper.getSynthesisSettings();
+        settings.setTermination(termination);
+        return settings;
+    }
+
+    /**
+     * Gives the CIF/BDD specification of the CIF specification to synthesize, creating it if it has not been created
+     * yet. It is not created if the synthesis result is restored from the cache, until it is needed otherwise.
+     *
+     * @return The CIF/BDD specification.
+     */
+    private CifBddSpec getCifBddSpec() {
+        if (cifBddSpec == null) {
+            Path cifPostProcessedSpecPath = outputFolderPath.resolve(filePrefix + ".02.postprocessed.cif");
+            cifBddSpec = CIFDataSynthesisHelper.getCifBddSpec(cifSpec,
+                    cifPostProcessedSpecPath.toAbsolutePath().toString(), createSynthesisSettings());
+            termination.check();
+        }
+        return cifBddSpec;
+    }
+
+    /** Releases the intermediate results, and in particular the BDD nodes. */
+    private void releaseResults() {
+        if (cifBddSpec != null) {
+            cifBddSpec.factory.done();
+        }
+        cifSpec = null;
+        cifBddSpec = null;
+        cifStateSpace = null;
+        petrifyOutput = null;
+    }
+
+    /** An action that performs a step of the synthesis chain. */
+    @FunctionalInterface
+    private interface StepAction {
+        /**
+         * Performs the step.
+         *
+         * @throws IOException In case an I/O error occurs.
+         * @throws CoreException In case the step could not be performed.
+         */
+        void perform() throws IOException, CoreException;
+    }
+
+    /**
+     * Performs the third stage of the synthesis chain, which translates the Petri net back to UML, computes the guards,
+     * and checks the result.
+     *
+     * @throws IOException In case an I/O error occurs.
+     * @throws CoreException In case the UML model is invalid.
+     */
+    void synthesizeActivity() throws IOException, CoreException {
+        Preconditions.checkState(petrifyOutput != null, "Expected the state space to have been synthesized.");
+
+        try {
+            performSynthesizeActivity();
+        } catch (RuntimeException e) {
+            throw handleFailure(e);
+        }
+    }
+
+    /**
+     * Translates the Petri net back to UML, computes the guards, and checks the result.
+     *
+     * @throws IOException In case an I/O error occurs.
+     * @throws CoreException In case the UML model is invalid.
+     */
+    private void performSynthesizeActivity() throws IOException, CoreException {
+        // Translate Petrify output into PNML.
+        startStage("petrinet");
+        PetriNet petriNet = PetrifyOutput2PNMLTranslator.transform(petrifyOutput);
+        if (artifactLevel.includes(ArtifactLevel.FULL)) {
+            Path pnmlWithLoopOutputPath = outputFolderPath.resolve(filePrefix + ".10.pnml");
+            PNMLUMLFileHelper.writePetriNet(petriNet, pnmlWithLoopOutputPath.toString());
+        }
+        metrics.addPetriNetSizes("petrinet", petriNet);
+
+        // Remove the self-loop that was added for petrification.
+        PostProcessPNML.removeLoop(petriNet);
+        if (artifactLevel.includes(ArtifactLevel.FULL)) {
+            Path pnmlWithoutLoopOutputPath = outputFolderPath.resolve(filePrefix + ".11.loopremoved.pnml");
+            PNMLUMLFileHelper.writePetriNet(petriNet, pnmlWithoutLoopOutputPath.toString());
+        }
+
+        // Store the Petri net transitions in the synthesis tracker. It is more convenient to use the Petri net after it
+        // has been synthesised, instead of storing each transition at the time of creation: in case a transition
+        // appears multiple times in a Petri net, Petrify distinguishes each duplicate by adding a postfix to the name
+        // of the transition (e.g., 'Transition_A/1' is a duplicate of 'Transition_A'), and these duplicates are not
+        // specified in the transition declarations, but only appear in the specification, and are handled separately.
+        tracker.addPetriNetTransitions(petriNet);
+
+        // Rewrite all rewritable non-atomic patterns in the Petri Net. The rewriting merges the non-atomic patterns
+        // that can be merged, replacing their start and end transitions by a single transition. These patterns'
+        // intermediate control flows cannot have guards and we can safely merge them, since 1) the patterns have no
+        // other actions between the start and end actions; 2) we only place outgoing guards in incoming control flows
+        // to actions. The end actions are uncontrollable, so synthesis will push the computed guards to whatever comes
+        // before them: in this case, the start of the action.
+        NonAtomicPatternRewriter nonAtomicPatternRewriter = new NonAtomicPatternRewriter(
+                tracker.getNonAtomicStartEndEventMap(UmlToCifTranslationPurpose.SYNTHESIS));
+        List<NonAtomicPattern> nonAtomicPatterns = nonAtomicPatternRewriter.findAndRewritePatterns(petriNet);
+        if (artifactLevel.includes(ArtifactLevel.FULL)) {
+            Path pnmlNonAtomicsReducedOutputPath = outputFolderPath
+                    .resolve(filePrefix + ".12.nonatomicsreduced.pnml");
+            PNMLUMLFileHelper.writePetriNet(petriNet, pnmlNonAtomicsReducedOutputPath.toString());
+        }
+
+        // Update the synthesis tracker transition map with the rewritten non-atomic pattern.
+        Map<Transition, List<Transition>> rewrittenTransitions = nonAtomicPatterns.stream()
+                .collect(Collectors.toMap(p -> p.startTransition(), p -> p.endTransitions()));
+        tracker.mergeTransitionPatterns(rewrittenTransitions);
+        metrics.addSize("nonAtomicPatterns", nonAtomicPatterns.size());
+        metrics.addPetriNetSizes("nonatomicsreduced", petriNet);
+
+        // Translate PNML into UML activity. The translation translates every Petri Net transition to a UML activity
+        // node.
+        startStage("umltranslation");
+        Path umlOutputPath = outputFolderPath.resolve(filePrefix + ".13.uml");
+        PNML2UMLTranslator petriNet2Activity = new PNML2UMLTranslator(activity);
+        petriNet2Activity.translate(petriNet, tracker);
+        if (artifactLevel.includes(ArtifactLevel.FULL)) {
+            storeModelSnapshot(activity.getModel(), umlOutputPath);
+        }
+        metrics.addSize("uml.nodes", activity.getNodes().size());
+        metrics.addSize("uml.edges", activity.getEdges().size());
+
+        // Restore the control flow guards of a called concrete activity and the decision or merge patterns deriving
+        // from the translation of a decision or merge node located in a called concrete activity.
+        startStage("postprocessing");
+        Path restoredActivityOutputPath = outputFolderPath.resolve(filePrefix + ".14.concrete_activity_restored.uml");
+        ConcreteActivityRestorer restorer = new ConcreteActivityRestorer(activity, tracker);
+        restorer.restore();
+        if (artifactLevel.includes(ArtifactLevel.FULL)) {
+            storeModelSnapshot(activity.getModel(), restoredActivityOutputPath);
+        }
+
+        // Finalize the opaque actions of the activity. Transform opaque actions into call behaviors when they
+        // correspond to atomic opaque behaviors or non-atomic ones that have been re-written in the previous step. For
+        // non-atomic ones that couldn't be rewritten, add guards (for start action) and effects (for end actions).
+        Path opaqueActionsFinalizedOutputPath = outputFolderPath
+                .resolve(filePrefix + ".15.opaque_actions_finalized.uml");
+        PostProcessActivity.finalizeOpaqueActions(activity, tracker, warnings);
+        if (artifactLevel.includes(ArtifactLevel.FULL)) {
+            storeModelSnapshot(activity.getModel(), opaqueActionsFinalizedOutputPath);
+        }
+
+        // Remove the temporary actions that were added to the CIF specification for petrification.
+        Path temporaryActionsRemovedUMLOutputPath = outputFolderPath
+                .resolve(filePrefix + ".16.petrifyactionsremoved.uml");
+        PostProcessActivity.removeOpaqueActions(activity, tracker.getTemporaryPetrificationActions());
+        if (artifactLevel.includes(ArtifactLevel.FULL)) {
+            storeModelSnapshot(activity.getModel(), temporaryActionsRemovedUMLOutputPath);
+        }
+
+        // Remove temporary actions created for petrification from the synthesis chain tracker.
+        tracker.removeTemporaryPetrificationActions();
+
+        metrics.addSize("uml.nodes", activity.getNodes().size());
+        metrics.addSize("uml.edges", activity.getEdges().size());
+
+        // Post-process the activity to simplify it.
+        startStage("simplification");
+        metrics.addSize("uml.nodesBefore", activity.getNodes().size());
+        metrics.addSize("uml.edgesBefore", activity.getEdges().size());
+        Path umlSimplifiedOutputPath = outputFolderPath.resolve(filePrefix + ".17.simplified.uml");
+        PostProcessActivity.simplify(activity, tracker, termination::isRequested);
+        termination.check();
+        if (artifactLevel.includes(ArtifactLevel.CHECKPOINTS)) {
+            storeModelSnapshot(activity.getModel(), umlSimplifiedOutputPath);
+        }
+        metrics.addSize("uml.nodesAfter", activity.getNodes().size());
+        metrics.addSize("uml.edgesAfter", activity.getEdges().size());
+
+        // Post-process the activity to remove the names of edges and nodes.
+        Path umlLabelsRemovedOutputPath = outputFolderPath.resolve(filePrefix + ".18.labelsremoved.uml");
+        PostProcessActivity.removeNodesEdgesNames(activity);
+        if (artifactLevel.includes(ArtifactLevel.FULL)) {
+            storeModelSnapshot(activity.getModel(), umlLabelsRemovedOutputPath);
+        }
+
+        // Translating synthesized activity to CIF, for guard computation.
+        startStage("guardcomputation");
+        Path umlActivityToCifPath = outputFolderPath.resolve(filePrefix + ".19.guardcomputation.cif");
+        UmlToCifTranslator umlActivityToCifTranslator = new UmlToCifTranslator(ctxManager.getGlobalContext(), activity,
+                UmlToCifTranslationPurpose.GUARD_COMPUTATION, tracker, warnings);
+        Specification cifTranslatedActivity = umlActivityToCifTranslator.translate();
+        if (artifactLevel.includes(ArtifactLevel.FULL)) {
+            writeCifSnapshot(cifTranslatedActivity, umlActivityToCifPath);
+        }
+
+        // Post-process the CIF specification to eliminate all if-updates.
+        ElimIfUpdates elimIfUpdatesGuardComputation = new ElimIfUpdates();
+        elimIfUpdatesGuardComputation.transform(cifTranslatedActivity);
+        if (artifactLevel.includes(ArtifactLevel.FULL)) {
+            Path cifPostProcessedGuardComputation = outputFolderPath
+                    .resolve(filePrefix + ".20.guardcomputation.postprocessed.cif");
+            writeCifSnapshot(cifTranslatedActivity, cifPostProcessedGuardComputation);
+        }
+
+        // Computing guards. If the CIF/BDD specification was not created, as the synthesis result was restored from the
+        // cache, the guards are computed without reusing its size.
+        new GuardComputation(umlActivityToCifTranslator, tracker, cifBddSpec, termination)
+                .computeGuards(cifTranslatedActivity, umlActivityToCifPath);
+        termination.check();
+        Path umlGuardsOutputPath = outputFolderPath.resolve(filePrefix + ".21.guardsadded.uml");
+        if (artifactLevel.includes(ArtifactLevel.FINAL)) {
+            storeModelSnapshot(umlActivityToCifTranslator.getActivity().getModel(), umlGuardsOutputPath);
+        }
+        metrics.addSize("cif.events", CifCollectUtils.collectEvents(cifTranslatedActivity, new ArrayList<>()).size());
+
+        // Check the activity for non-deterministic choices.
+        startStage("nondeterminismcheck");
+        CheckNonDeterministicChoices.check(activity, umlToCifTranslator, warnings, this::getCifBddSpec);
+
+        // Perform the language equivalence check between the CIF model generated by the state space exploration and the
+        // translation to CIF of the final UML model. Throws a runtime error if models are non-equivalent.
+        startStage("languageequivalence");
+        performLanguageEquivalenceCheck();
+
+        // Wait for the snapshots to have been written, and report any failure to write them.
+        startStage("snapshots");
+        snapshotWriter.awaitAll();
+        endStage();
+
+        // Write the performance metrics report.
+        if (writeMetrics) {
+            metrics.write(activity.getName(), outputFolderPath.resolve(filePrefix + ".metrics.json"));
+        }
+    }
+
+    private static Pair<String, Set<String>> getPreservedAndRemovedEventNames(Specification spec,
+            SynthesisChainTracking tracker)
+    {
+        List<Event> events = CifCollectUtils.collectEvents(spec, new ArrayList<>());
+
+        // Preserve controllable events and all events that are *not* the end of an atomic non-deterministic action.
+        // This merges (folds) the non-deterministic result events of an atomic action into the single start event. The
+        // choice is based on the nodes name: in the future we might want to refer directly to the nodes instead of
+        // using a string comparison.
+        List<String> preservedEventNames = events.stream().filter(
+                event -> event.getControllable() || !tracker.isAtomicNonDeterministicEndEventName(event.getName()))
+                .map(event -> CifTextUtils.getAbsName(event, false)).toList();
+
+        // Get the removed events names (end of atomic non-deterministic actions).
+        Set<String> removedEventNames = events.stream().filter(event -> !preservedEventNames.contains(event.getName()))
+                .map(e -> e.getName()).collect(Collectors.toSet());
+
+        return new Pair<>(String.join(",", preservedEventNames), removedEventNames);
+    }
+
+    private void performLanguageEquivalenceCheck() throws CoreException {
+        // Translate final UML model to CIF and get its state space.
+        UmlToCifTranslator umlToCifTranslatorPostSynth = new UmlToCifTranslator(ctxManager.getGlobalContext(),
+                activity, UmlToCifTranslationPurpose.LANGUAGE_EQUIVALENCE, tracker, warnings);
+        Specification cifSpec = umlToCifTranslatorPostSynth.translate();
+        Path cifSpecPath = workFolderPath.resolve(filePrefix + ".99.01.finalUmlToCif.cif");
+        writeCifSpec(cifSpec, cifSpecPath, workFolderPath);
+
+        // Perform state space generation.
+        Path cifStateSpacePath = workFolderPath.resolve(filePrefix + ".99.02.ctrlsys.statespace.cif");
+        String[] stateSpaceGenerationArgs = new String[] {cifSpecPath.toString(),
+                "--name=post_synthesis_chain_state_space", "--output=" + cifStateSpacePath.toString()};
+        AppStream explorerAppStream = new MemAppStream();
+        AppStreams explorerAppStreams = new AppStreams(InputStream.nullInputStream(), explorerAppStream,
+                explorerAppStream, explorerAppStream);
+        ExplorerApplication explorerApp = new ExplorerApplication(explorerAppStreams);
+        int exitCode = explorerApp.run(stateSpaceGenerationArgs, false);
+        if (exitCode != 0) {
+            throw new RuntimeException(
+                    "Non-zero exit code for state space generation: " + exitCode + "\n" + explorerAppStream.toString());
+        }
+
+        // Load state space post-synthesis chain file.
+        Specification stateSpacePostSynthChain = CifFileHelper.loadCifSpec(cifStateSpacePath);
+        metrics.addStateSpaceSizes("synthesis", cifStateSpace);
+        metrics.addStateSpaceSizes("activity", stateSpacePostSynthChain);
+
+        // Get internal event sets for the synthesis translation, including the events of any concrete activity nodes
+        // that were restored.
+        Set<Event> synthesisInternalEvents = tracker.getInternalEvents(UmlToCifTranslationPurpose.SYNTHESIS);
+        synthesisInternalEvents.addAll(tracker.getRestoredDecisionMergeNodeEvents());
+
+        // Get internal event sets for the language equivalence translation.
+        Set<Event> languageEqInternalEvents = tracker
+                .getInternalEvents(UmlToCifTranslationPurpose.LANGUAGE_EQUIVALENCE);
+
+        // Filter the state annotations to keep only the external variables, check that external and internal events
+        // cover the entire state space alphabets, and that they do not overlap.
+        ModelPreparationResult result = StateAwareWeakLanguageEquivalenceHelper.prepareModels(cifStateSpace,
+                tracker.getExternalEvents(UmlToCifTranslationPurpose.SYNTHESIS), synthesisInternalEvents,
+                stateSpacePostSynthChain, tracker.getExternalEvents(UmlToCifTranslationPurpose.LANGUAGE_EQUIVALENCE),
+                languageEqInternalEvents, umlToCifTranslator.getVariableNames());
+
+        // Get the two state space automata to compare.
+        Automaton stateSpace1 = (Automaton)cifStateSpace.getComponents().get(0);
+        Automaton stateSpace2 = (Automaton)stateSpacePostSynthChain.getComponents().get(0);
+
+        // Perform the language equivalence check.
+        StateAwareWeakLanguageEquivalenceChecker checker = new StateAwareWeakLanguageEquivalenceChecker(termination);
+        checker.check(stateSpace1, result.stateAnnotations1(), synthesisInternalEvents, stateSpace2,
+                result.stateAnnotations2(), languageEqInternalEvents, tracker.getLanguageEqEventsPaired());
+    }
+
+    /**
+     * Writes a snapshot of the given CIF specification to the output folder, in the background.
+     *
+     * @param spec The CIF specification. A copy of it is written, such that it may be modified while being written.
+     * @param path The path to the file to write the snapshot to.
+     */
+    private void writeCifSnapshot(Specification spec, Path path) {
+        Specification snapshot = EcoreUtil.copy(spec);
+        snapshotWriter.submit(() -> writeCifSpec(snapshot, path, outputFolderPath));
+    }
+
+    /**
+     * Stores a snapshot of the given UML model, in the background.
+     *
+     * @param model The UML model. A copy of it is stored, such that it may be modified while being stored.
+     * @param path The path to the file to store the snapshot to.
+     */
+    private void storeModelSnapshot(Model model, Path path) {
+        Resource snapshot = FileHelper.createModelSnapshot(model, URI.createFileURI(path.toString()));
+        snapshotWriter.submit(() -> FileHelper.storeModelSnapshot(snapshot));
+    }
+
+    private static void writeCifSpec(Specification spec, Path path, Path folderPath) {
+        try {
+            AppEnv.registerSimple();
+            CifWriter.writeCifSpec(spec, makePathPair(path), folderPath.toString());
+        } finally {
+            AppEnv.unregisterApplication();
+        }
+    }
+
+    private static PathPair makePathPair(Path path) {
+        return new PathPair(path.toString(), path.toAbsolutePath().toString());
+    }
+}
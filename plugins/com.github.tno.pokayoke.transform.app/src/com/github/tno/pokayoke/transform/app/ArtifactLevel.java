@@ -0,0 +1,48 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+/**
+ * The levels of artifacts that full synthesis writes to the output folder, from no artifacts at all to all numbered
+ * intermediate outputs of the synthesis chain. Each level includes the artifacts of all lower levels. Only the
+ * artifacts of the selected level are serialized. All other results are handed over in memory, or, if a step requires
+ * them as files, via a temporary work folder.
+ */
+public enum ArtifactLevel {
+    /** No artifacts are written. Synthesis is performed only to check that it succeeds, and to report any warnings. */
+    NONE,
+
+    /** Only the final UML model of each abstract activity, with the computed guards, is written. */
+    FINAL,
+
+    /**
+     * In addition to the final UML model, the key checkpoints of the synthesis chain are written: the CIF
+     * specification to synthesize, the projected and minimized state space, the Petrify input and output, and the
+     * simplified activity.
+     */
+    CHECKPOINTS,
+
+    /**
+     * All numbered intermediate outputs of all steps of the synthesis chain are written, including the files exchanged
+     * with the CIF tools and Petrify, for debugging purposes.
+     */
+    FULL;
+
+    /**
+     * Indicates whether this artifact level includes the artifacts of the given level.
+     *
+     * @param level The artifact level.
+     * @return {@code true} if this level includes the artifacts of the given level, {@code false} otherwise.
+     */
+    public boolean includes(ArtifactLevel level) {
+        return compareTo(level) >= 0;
+    }
+}
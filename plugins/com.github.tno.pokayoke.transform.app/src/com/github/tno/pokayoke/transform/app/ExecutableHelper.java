@@ -28,6 +28,23 @@ public class ExecutableHelper {
     private ExecutableHelper() {
     }
 
+    /**
+     * Checks whether an executable can be found in a certain plugin, in a certain folder.
+     *
+     * @param executableName The executable name.
+     * @param pluginName The plugin name.
+     * @param folderName The folder name.
+     * @return {@code true} if the executable can be found, {@code false} otherwise.
+     */
+    public static boolean hasExecutable(String executableName, String pluginName, String folderName) {
+        if (Platform.isRunning() && SystemUtils.IS_OS_WINDOWS) {
+            Bundle bundle = Platform.getBundle(pluginName);
+            Path bundledPath = new Path(folderName + "/" + executableName + ".exe");
+            return bundle != null && FileLocator.find(bundle, bundledPath) != null;
+        }
+        return false;
+    }
+
     /**
      * Get absolute path to executable, to be found in a certain plugin, in a certain folder.
      *
@@ -11,77 +11,93 @@
 package com.github.tno.pokayoke.transform.app;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.escet.cif.bdd.spec.CifBddSpec;
-import org.eclipse.escet.cif.cif2cif.ElimIfUpdates;
-import org.eclipse.escet.cif.common.CifCollectUtils;
-import org.eclipse.escet.cif.common.CifTextUtils;
-import org.eclipse.escet.cif.datasynth.CifDataSynthesisResult;
-import org.eclipse.escet.cif.datasynth.settings.CifDataSynthesisSettings;
-import org.eclipse.escet.cif.eventbased.apps.DfaMinimizationApplication;
-import org.eclipse.escet.cif.eventbased.apps.ProjectionApplication;
-import org.eclipse.escet.cif.explorer.app.ExplorerApplication;
-import org.eclipse.escet.cif.io.CifWriter;
-import org.eclipse.escet.cif.metamodel.cif.Specification;
-import org.eclipse.escet.cif.metamodel.cif.automata.Automaton;
-import org.eclipse.escet.cif.metamodel.cif.declarations.Event;
-import org.eclipse.escet.common.app.framework.AppEnv;
-import org.eclipse.escet.common.app.framework.io.AppStream;
-import org.eclipse.escet.common.app.framework.io.AppStreams;
-import org.eclipse.escet.common.app.framework.io.MemAppStream;
-import org.eclipse.escet.common.java.Pair;
-import org.eclipse.escet.common.java.PathPair;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.uml2.uml.Activity;
 import org.eclipse.uml2.uml.Model;
 
 import com.github.tno.pokayoke.transform.activitysynthesis.AbstractActivityDependencyOrderer;
-import com.github.tno.pokayoke.transform.activitysynthesis.CIFDataSynthesisHelper;
-import com.github.tno.pokayoke.transform.activitysynthesis.CheckNonDeterministicChoices;
-import com.github.tno.pokayoke.transform.activitysynthesis.CifSourceSinkLocationTransformer;
-import com.github.tno.pokayoke.transform.activitysynthesis.GuardComputation;
-import com.github.tno.pokayoke.transform.activitysynthesis.NonAtomicPatternRewriter;
-import com.github.tno.pokayoke.transform.activitysynthesis.NonAtomicPatternRewriter.NonAtomicPattern;
-import com.github.tno.pokayoke.transform.app.StateAwareWeakLanguageEquivalenceHelper.ModelPreparationResult;
-import com.github.tno.pokayoke.transform.cif2petrify.Cif2Petrify;
-import com.github.tno.pokayoke.transform.cif2petrify.CifFileHelper;
 import com.github.tno.pokayoke.transform.common.FileHelper;
 import com.github.tno.pokayoke.transform.flatten.CompositeDataTypeFlattener;
-import com.github.tno.pokayoke.transform.petrify.PetrifyHelper;
-import com.github.tno.pokayoke.transform.petrify2uml.ConcreteActivityRestorer;
-import com.github.tno.pokayoke.transform.petrify2uml.PNML2UMLTranslator;
-import com.github.tno.pokayoke.transform.petrify2uml.PNMLUMLFileHelper;
-import com.github.tno.pokayoke.transform.petrify2uml.PetrifyOutput2PNMLTranslator;
-import com.github.tno.pokayoke.transform.petrify2uml.PostProcessActivity;
-import com.github.tno.pokayoke.transform.petrify2uml.PostProcessPNML;
-import com.github.tno.pokayoke.transform.track.SynthesisChainTracking;
-import com.github.tno.pokayoke.transform.track.UmlToCifTranslationPurpose;
+import com.github.tno.pokayoke.transform.petrify.PetrifyCache;
 import com.github.tno.pokayoke.transform.uml2cif.UmlToCifTranslator;
 import com.github.tno.synthml.uml.profile.cif.CifContext;
 import com.github.tno.synthml.uml.profile.cif.CifContextManager;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 
-import fr.lip6.move.pnml.ptnet.PetriNet;
-import fr.lip6.move.pnml.ptnet.Transition;
-
 /** Application that performs full synthesis. */
 public class FullSynthesisApp {
     private FullSynthesisApp() {
     }
 
-    public static void performFullSynthesis(Path inputPath, Path outputFolderPath, List<String> warnings)
-            throws IOException, CoreException
+    /**
+     * Performs full synthesis of all abstract activities in the given UML model.
+     * <p>
+     * The abstract activities are synthesized in waves of activities that don't depend on each other. The most
+     * expensive stage of the synthesis chain, from synthesis to petrification, is performed in parallel for the
+     * activities of a wave, if the parallelism allows it. All other stages are performed in order. The activities of a
+     * wave are synthesized in the same way regardless of the parallelism, such that the outputs are identical
+     * regardless of the parallelism.
+     * </p>
+     * <p>
+     * If step results are cached, then the results of the steps from synthesis up to and including petrification are
+     * cached on disk, keyed by a hash of their inputs and settings. Steps of which the result is already cached, for
+     * instance from an earlier run for the same activity, are skipped, and their results are restored from the cache
+     * instead. The least recently used step results are removed once their total size exceeds a bound. Petrify
+     * results are cached in a separate size-bounded subfolder, keyed by the canonical form of the state graph,
+     * such that they are also reused for other activities and models with the same behavior. The outputs are the same
+     * as without caching. Also a checkpoint is written to the cache folder after each wave of abstract activities has
+     * been synthesized. If a run fails or is killed, a next run for the same input UML model and settings resumes from
+     * the latest valid checkpoint, and only synthesizes the remaining abstract activities. The checkpoints are removed
+     * once all abstract activities have been synthesized.
+     * </p>
+     * <p>
+     * If performance metrics are written, then for each abstract activity a JSON report is written next to its other
+     * outputs. The report contains, for each stage of the synthesis chain of the activity, its wall time, CPU time,
+     * allocated bytes and stage-specific sizes, such as the number of states of the state spaces, the number of places
+     * and transitions of the Petri Nets, and the number of nodes of the activity before and after simplification.
+     * </p>
+     * <p>
+     * Progress is reported per abstract activity. Cancellation and the time budgets are checked regularly during the
+     * long-running steps of the synthesis chains, such as the BDD fixed point computations, Petrify, the
+     * simplification of the activities and the language equivalence checks, and in between all steps. If full
+     * synthesis is cancelled, it fails with an {@link OperationCanceledException}. If a stage of the synthesis chain of
+     * an abstract activity exceeds its time budget, full synthesis fails with a
+     * {@link SynthesisBudgetExceededException} that reports the stage.
+     * </p>
+     *
+     * @param inputPath The path to the input UML model.
+     * @param outputFolderPath The path to the folder in which to store the outputs.
+     * @param settings The settings of full synthesis.
+     * @return Any warnings to notify the user of.
+     * @throws IOException In case an I/O error occurs.
+     * @throws CoreException In case the input UML model is invalid, or the Petrify executable could not be found.
+     */
+    public static List<String> performFullSynthesis(Path inputPath, Path outputFolderPath,
+            FullSynthesisSettings settings) throws IOException, CoreException
     {
+        List<String> warnings = new ArrayList<>();
+        ArtifactLevel artifactLevel = settings.getArtifactLevel();
+        Path cacheFolderPath = settings.getCacheFolderPath();
+
         Files.createDirectories(outputFolderPath);
         String filePrefix = FilenameUtils.removeExtension(inputPath.getFileName().toString());
 
@@ -97,9 +113,9 @@ public class FullSynthesisApp {
         // Synthesize all abstract activities in the loaded UML specification in the proper order.
         CifContext context = ctxManager.getGlobalContext();
         AbstractActivityDependencyOrderer orderer = new AbstractActivityDependencyOrderer(context.getAllActivities());
-        List<Activity> activities = orderer.computeOrder();
+        List<List<Activity>> waves = orderer.computeWaves();
 
-        if (activities == null) {
+        if (waves == null) {
             throw new RuntimeException(String.format(
                     "Expected to find no cyclic dependencies in the activities to synthesize, but found '%s'.",
                     orderer.getCycleDescription()));
@@ -109,6 +125,10 @@ public class FullSynthesisApp {
             throw new RuntimeException("Synthesis of parameterized activities is unsupported.");
         }
 
+        // Determine the output folder of each abstract activity, numbered in the order they are synthesized. Only
+        // create the folders if anything is to be written to them.
+        List<Activity> activities = waves.stream().flatMap(List::stream).toList();
+        Map<Activity, Path> localOutputPaths = new LinkedHashMap<>();
         int digits = (activities.size() / 10) + 1;
         for (int i = 0; i < activities.size(); i++) {
             Activity activity = activities.get(i);
@@ -116,326 +136,281 @@ public class FullSynthesisApp {
             String formattedNumber = String.format("%0" + digits + "d", i + 1);
             Path localOutputPath = outputFolderPath
                     .resolve(String.format("%s-%s", formattedNumber, activity.getName()));
-            Files.createDirectories(localOutputPath);
-            performFullSynthesis(activity, filePrefix, localOutputPath, ctxManager, warnings);
+            if (artifactLevel != ArtifactLevel.NONE || settings.getWriteMetrics()) {
+                Files.createDirectories(localOutputPath);
+            }
+            localOutputPaths.put(activity, localOutputPath);
         }
-    }
-
-    public static void performFullSynthesis(Activity activity, String filePrefix, Path outputFolderPath,
-            CifContextManager ctxManager, List<String> warnings) throws IOException, CoreException
-    {
-        // Instantiate the tracker that indicates how results from intermediate steps of the activity synthesis chain
-        // relate to the input UML.
-        SynthesisChainTracking tracker = new SynthesisChainTracking(activity);
 
-        // Translate the UML specification to a CIF specification.
-        UmlToCifTranslator umlToCifTranslator = new UmlToCifTranslator(ctxManager.getGlobalContext(), activity,
-                UmlToCifTranslationPurpose.SYNTHESIS, tracker, warnings);
-        Specification cifSpec = umlToCifTranslator.translate();
-        Path cifSpecPath = outputFolderPath.resolve(filePrefix + ".01.cif");
-        try {
-            AppEnv.registerSimple();
-            CifWriter.writeCifSpec(cifSpec, makePathPair(cifSpecPath), outputFolderPath.toString());
-        } finally {
-            AppEnv.unregisterApplication();
+        // Open the caches of step results and Petrify results, and the checkpoints, if any.
+        StageResultCache cache = (cacheFolderPath == null) ? null
+                : new StageResultCache(cacheFolderPath, StageResultCache.DEFAULT_MAX_SIZE);
+        PetrifyCache petrifyCache = (cacheFolderPath == null) ? null
+                : new PetrifyCache(cacheFolderPath.resolve("petrify"), PetrifyCache.DEFAULT_MAX_SIZE);
+        SynthesisCheckpoints checkpoints = (cacheFolderPath == null) ? null
+                : SynthesisCheckpoints.open(cacheFolderPath.resolve("checkpoints"), inputPath,
+                        List.of(artifactLevel.name(), String.valueOf(settings.getWriteMetrics())), waves, warnings);
+
+        // Resume from the latest valid checkpoint, if any. The waves of abstract activities that have already been
+        // synthesized are then replayed from the checkpoints, and only the remaining waves are synthesized.
+        int completedCount = (checkpoints == null) ? 0 : checkpoints.findLatest();
+        if (completedCount > 0) {
+            checkpoints.restore(completedCount);
+            ctxManager.refresh();
+
+            List<Activity> remainingActivities = activities.subList(completedCount, activities.size());
+            waves = waves.stream().filter(remainingActivities::containsAll).toList();
         }
 
-        // Post-process the CIF specification to eliminate all if-updates.
-        ElimIfUpdates elimIfUpdates = new ElimIfUpdates();
-        elimIfUpdates.transform(cifSpec);
-        Path cifPostProcessedSpecPath = outputFolderPath.resolve(filePrefix + ".02.postprocessed.cif");
+        // Synthesize the waves of abstract activities. Only create worker threads if there is something to parallelize.
+        SubMonitor progress = SubMonitor.convert(settings.getMonitor(), "Synthesizing activities",
+                activities.size() - completedCount);
+        int parallelism = settings.getParallelism();
+        boolean parallelize = parallelism > 1 && waves.stream().anyMatch(wave -> wave.size() > 1);
+        ExecutorService executor = parallelize ? Executors.newFixedThreadPool(parallelism) : null;
         try {
-            AppEnv.registerSimple();
-            CifWriter.writeCifSpec(cifSpec, makePathPair(cifPostProcessedSpecPath), outputFolderPath.toString());
+            for (List<Activity> wave: waves) {
+                progress.subTask("Synthesizing " + ((wave.size() == 1) ? "activity " : "activities ")
+                        + String.join(", ", wave.stream().map(Activity::getName).toList()));
+                performFullSynthesis(wave, filePrefix, localOutputPaths, ctxManager, warnings, settings, cache,
+                        petrifyCache, progress.split(wave.size()), executor);
+
+                // Write a checkpoint once the whole wave has been synthesized. Resuming in the middle of a wave would
+                // give other outputs, as all activities of a wave are translated given the same UML model.
+                if (checkpoints != null) {
+                    checkpoints.write(wave);
+                }
+            }
         } finally {
-            AppEnv.unregisterApplication();
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
 
-        // Get CIF/BDD specification.
-        CifDataSynthesisSettings settings = CIFDataSynthesisHelper.getSynthesisSettings();
-        CifBddSpec cifBddSpec = CIFDataSynthesisHelper.getCifBddSpec(cifSpec,
-                cifPostProcessedSpecPath.toAbsolutePath().toString(), settings);
-
-        // Perform synthesis.
-        CifDataSynthesisResult cifSynthesisResult = CIFDataSynthesisHelper.synthesize(cifBddSpec, settings);
-
-        // Convert synthesis result back to CIF.
-        Path cifSynthesisPath = outputFolderPath.resolve(filePrefix + ".03.ctrlsys.cif");
-        CIFDataSynthesisHelper.convertSynthesisResultToCif(cifSpec, cifSynthesisResult, cifSynthesisPath,
-                outputFolderPath.toString());
-
-        // Perform state space generation.
-        Path cifStateSpacePath = outputFolderPath.resolve(filePrefix + ".04.ctrlsys.statespace.cif");
-        String[] stateSpaceGenerationArgs = new String[] {cifSynthesisPath.toString(), "--name=synthesis_state_space",
-                "--output=" + cifStateSpacePath.toString()};
-        AppStream explorerAppStream = new MemAppStream();
-        AppStreams explorerAppStreams = new AppStreams(InputStream.nullInputStream(), explorerAppStream,
-                explorerAppStream, explorerAppStream);
-        ExplorerApplication explorerApp = new ExplorerApplication(explorerAppStreams);
-        int exitCode = explorerApp.run(stateSpaceGenerationArgs, false);
-        if (exitCode != 0) {
-            throw new RuntimeException(
-                    "Non-zero exit code for state space generation: " + exitCode + "\n" + explorerAppStream.toString());
+        // All abstract activities have been synthesized, so the checkpoints are no longer needed.
+        if (checkpoints != null) {
+            checkpoints.delete();
         }
 
-        // Transform the state space by creating a single (initial) source and a single (marked) sink location.
-        Path cifStatespaceWithSingleSourceSink = outputFolderPath
-                .resolve(filePrefix + ".05.statespace.singlesourcesink.cif");
-        Specification cifStateSpace = CifFileHelper.loadCifSpec(cifStateSpacePath);
-        CifSourceSinkLocationTransformer.transform(cifStateSpace, cifStatespaceWithSingleSourceSink, outputFolderPath,
-                tracker);
-
-        // Perform event-based automaton projection and update the synthesis tracker.
-        Pair<String, Set<String>> preservedAndRemovedEventNames = getPreservedAndRemovedEventNames(cifStateSpace,
-                tracker);
-        String preservedEventNames = preservedAndRemovedEventNames.left;
-        Set<String> removedEventNames = preservedAndRemovedEventNames.right;
-        tracker.removeAndUpdateEvents(removedEventNames, UmlToCifTranslationPurpose.SYNTHESIS);
-        Path cifProjectedStateSpacePath = outputFolderPath.resolve(filePrefix + ".06.statespace.projected.cif");
-        String[] projectionArgs = new String[] {cifStatespaceWithSingleSourceSink.toString(),
-                "--preserve=" + preservedEventNames, "--output=" + cifProjectedStateSpacePath.toString()};
-        AppStream projectionAppStream = new MemAppStream();
-        AppStreams projectionAppStreams = new AppStreams(InputStream.nullInputStream(), projectionAppStream,
-                projectionAppStream, projectionAppStream);
-        ProjectionApplication projectionApp = new ProjectionApplication(projectionAppStreams);
-        exitCode = projectionApp.run(projectionArgs, false);
-        if (exitCode != 0) {
-            throw new RuntimeException("Non-zero exit code for event-based automaton projection: " + exitCode + "\n"
-                    + projectionAppStream.toString());
-        }
-
-        // Perform DFA minimization.
-        Path cifMinimizedStateSpacePath = outputFolderPath
-                .resolve(filePrefix + ".07.statespace.projected.minimized.cif");
-        String[] dfaMinimizationArgs = new String[] {cifProjectedStateSpacePath.toString(),
-                "--output=" + cifMinimizedStateSpacePath.toString()};
-        AppStream dfaMinimizationAppStream = new MemAppStream();
-        AppStreams dfaMinimizationAppStreams = new AppStreams(InputStream.nullInputStream(), dfaMinimizationAppStream,
-                dfaMinimizationAppStream, dfaMinimizationAppStream);
-        DfaMinimizationApplication dfaMinimizationApp = new DfaMinimizationApplication(dfaMinimizationAppStreams);
-        exitCode = dfaMinimizationApp.run(dfaMinimizationArgs, false);
-        if (exitCode != 0) {
-            throw new RuntimeException("Non-zero exit code for DFA minimization: " + exitCode + "\n"
-                    + dfaMinimizationAppStream.toString());
-        }
-
-        // Translate the CIF state space to Petrify input.
-        Path petrifyInputPath = outputFolderPath.resolve(filePrefix + ".08.g");
-        Specification cifMinimizedStateSpace = CifFileHelper.loadCifSpec(cifMinimizedStateSpacePath);
-        List<String> petrifyInput = Cif2Petrify.transform(cifMinimizedStateSpace);
-        Files.write(petrifyInputPath, petrifyInput);
-
-        // Petrify the state space.
-        Path petrifyOutputPath = outputFolderPath.resolve(filePrefix + ".09.out");
-        Path petrifyLogPath = outputFolderPath.resolve("petrify.log");
-        Path petrifyErrorPath = outputFolderPath.resolve("petrify.err");
-        PetrifyHelper.convertToPetriNet(petrifyInputPath, petrifyOutputPath,
-                ExecutableHelper.getExecutable("petrify", "com.github.tno.pokayoke.transform.distribution", "bin"),
-                petrifyLogPath, petrifyErrorPath, 20);
-
-        // Load Petrify output.
-        List<String> petrifyOutput = PetrifyHelper.readFile(petrifyOutputPath.toString());
-
-        // Translate Petrify output into PNML.
-        Path pnmlWithLoopOutputPath = outputFolderPath.resolve(filePrefix + ".10.pnml");
-        PetriNet petriNet = PetrifyOutput2PNMLTranslator.transform(new ArrayList<>(petrifyOutput));
-        PNMLUMLFileHelper.writePetriNet(petriNet, pnmlWithLoopOutputPath.toString());
-
-        // Remove the self-loop that was added for petrification.
-        Path pnmlWithoutLoopOutputPath = outputFolderPath.resolve(filePrefix + ".11.loopremoved.pnml");
-        PostProcessPNML.removeLoop(petriNet);
-        PNMLUMLFileHelper.writePetriNet(petriNet, pnmlWithoutLoopOutputPath.toString());
-
-        // Store the Petri net transitions in the synthesis tracker. It is more convenient to use the Petri net after it
-        // has been synthesised, instead of storing each transition at the time of creation: in case a transition
-        // appears multiple times in a Petri net, Petrify distinguishes each duplicate by adding a postfix to the name
-        // of the transition (e.g., 'Transition_A/1' is a duplicate of 'Transition_A'), and these duplicates are not
-        // specified in the transition declarations, but only appear in the specification, and are handled separately.
-        tracker.addPetriNetTransitions(petriNet);
-
-        // Rewrite all rewritable non-atomic patterns in the Petri Net. The rewriting merges the non-atomic patterns
-        // that can be merged, replacing their start and end transitions by a single transition. These patterns'
-        // intermediate control flows cannot have guards and we can safely merge them, since 1) the patterns have no
-        // other actions between the start and end actions; 2) we only place outgoing guards in incoming control flows
-        // to actions. The end actions are uncontrollable, so synthesis will push the computed guards to whatever comes
-        // before them: in this case, the start of the action.
-        Path pnmlNonAtomicsReducedOutputPath = outputFolderPath.resolve(filePrefix + ".12.nonatomicsreduced.pnml");
-        NonAtomicPatternRewriter nonAtomicPatternRewriter = new NonAtomicPatternRewriter(
-                tracker.getNonAtomicStartEndEventMap(UmlToCifTranslationPurpose.SYNTHESIS));
-        List<NonAtomicPattern> nonAtomicPatterns = nonAtomicPatternRewriter.findAndRewritePatterns(petriNet);
-        PNMLUMLFileHelper.writePetriNet(petriNet, pnmlNonAtomicsReducedOutputPath.toString());
-
-        // Update the synthesis tracker transition map with the rewritten non-atomic pattern.
-        Map<Transition, List<Transition>> rewrittenTransitions = nonAtomicPatterns.stream()
-                .collect(Collectors.toMap(p -> p.startTransition(), p -> p.endTransitions()));
-        tracker.mergeTransitionPatterns(rewrittenTransitions);
-
-        // Translate PNML into UML activity. The translation translates every Petri Net transition to a UML activity
-        // node.
-        Path umlOutputPath = outputFolderPath.resolve(filePrefix + ".13.uml");
-        PNML2UMLTranslator petriNet2Activity = new PNML2UMLTranslator(activity);
-        petriNet2Activity.translate(petriNet, tracker);
-        FileHelper.storeModel(activity.getModel(), umlOutputPath.toString());
-
-        // Restore the control flow guards of a called concrete activity and the decision or merge patterns deriving
-        // from the translation of a decision or merge node located in a called concrete activity.
-        Path restoredActivityOutputPath = outputFolderPath.resolve(filePrefix + ".14.concrete_activity_restored.uml");
-        ConcreteActivityRestorer restorer = new ConcreteActivityRestorer(activity, tracker);
-        restorer.restore();
-        FileHelper.storeModel(activity.getModel(), restoredActivityOutputPath.toString());
-
-        // Finalize the opaque actions of the activity. Transform opaque actions into call behaviors when they
-        // correspond to atomic opaque behaviors or non-atomic ones that have been re-written in the previous step. For
-        // non-atomic ones that couldn't be rewritten, add guards (for start action) and effects (for end actions).
-        Path opaqueActionsFinalizedOutputPath = outputFolderPath
-                .resolve(filePrefix + ".15.opaque_actions_finalized.uml");
-        PostProcessActivity.finalizeOpaqueActions(activity, tracker, warnings);
-        FileHelper.storeModel(activity.getModel(), opaqueActionsFinalizedOutputPath.toString());
-
-        // Remove the temporary actions that were added to the CIF specification for petrification.
-        Path temporaryActionsRemovedUMLOutputPath = outputFolderPath
-                .resolve(filePrefix + ".16.petrifyactionsremoved.uml");
-        PostProcessActivity.removeOpaqueActions(activity, tracker.getTemporaryPetrificationActions());
-        FileHelper.storeModel(activity.getModel(), temporaryActionsRemovedUMLOutputPath.toString());
-
-        // Remove temporary actions created for petrification from the synthesis chain tracker.
-        tracker.removeTemporaryPetrificationActions();
-
-        // Post-process the activity to simplify it.
-        Path umlSimplifiedOutputPath = outputFolderPath.resolve(filePrefix + ".17.simplified.uml");
-        PostProcessActivity.simplify(activity, tracker);
-        FileHelper.storeModel(activity.getModel(), umlSimplifiedOutputPath.toString());
-
-        // Post-process the activity to remove the names of edges and nodes.
-        Path umlLabelsRemovedOutputPath = outputFolderPath.resolve(filePrefix + ".18.labelsremoved.uml");
-        PostProcessActivity.removeNodesEdgesNames(activity);
-        FileHelper.storeModel(activity.getModel(), umlLabelsRemovedOutputPath.toString());
+        return warnings;
+    }
 
-        // Translating synthesized activity to CIF, for guard computation.
-        Path umlActivityToCifPath = outputFolderPath.resolve(filePrefix + ".19.guardcomputation.cif");
-        UmlToCifTranslator umlActivityToCifTranslator = new UmlToCifTranslator(ctxManager.getGlobalContext(), activity,
-                UmlToCifTranslationPurpose.GUARD_COMPUTATION, tracker, warnings);
-        Specification cifTranslatedActivity = umlActivityToCifTranslator.translate();
-        try {
-            AppEnv.registerSimple();
-            CifWriter.writeCifSpec(cifTranslatedActivity, makePathPair(umlActivityToCifPath),
-                    outputFolderPath.toString());
-        } finally {
-            AppEnv.unregisterApplication();
-        }
+    /**
+     * Performs full synthesis of a single abstract activity, writing all intermediate outputs.
+     *
+     * @param activity The abstract activity to synthesize.
+     * @param filePrefix The prefix of the names of the output files.
+     * @param outputFolderPath The path to the folder in which to store the outputs.
+     * @param ctxManager The CIF context manager of the UML model that contains the activity.
+     * @param warnings Any warnings to notify the user of, which is modified in-place.
+     * @throws IOException In case an I/O error occurs.
+     * @throws CoreException In case the input UML model is invalid, or the Petrify executable could not be found.
+     */
+    public static void performFullSynthesis(Activity activity, String filePrefix, Path outputFolderPath,
+            CifContextManager ctxManager, List<String> warnings) throws IOException, CoreException
+    {
+        FullSynthesisSettings settings = new FullSynthesisSettings();
+        settings.setArtifactLevel(ArtifactLevel.FULL);
+        performFullSynthesis(activity, filePrefix, outputFolderPath, ctxManager, warnings, settings, null, null,
+                settings.getMonitor());
+    }
 
-        // Post-process the CIF specification to eliminate all if-updates.
-        ElimIfUpdates elimIfUpdatesGuardComputation = new ElimIfUpdates();
-        elimIfUpdatesGuardComputation.transform(cifTranslatedActivity);
-        Path cifPostProcessedGuardComputation = outputFolderPath
-                .resolve(filePrefix + ".20.guardcomputation.postprocessed.cif");
+    /**
+     * Performs full synthesis of a single abstract activity.
+     *
+     * @param activity The abstract activity to synthesize.
+     * @param filePrefix The prefix of the names of the output files.
+     * @param outputFolderPath The path to the folder in which to store the outputs.
+     * @param ctxManager The CIF context manager of the UML model that contains the activity.
+     * @param warnings Any warnings to notify the user of, which is modified in-place.
+     * @param settings The settings of full synthesis.
+     * @param cache The cache of the results of the steps of the synthesis chain, or {@code null} to not cache results.
+     * @param petrifyCache The cache of Petrify results, or {@code null} to not cache Petrify results.
+     * @param monitor The progress monitor to check for cancellation.
+     * @throws IOException In case an I/O error occurs.
+     * @throws CoreException In case the input UML model is invalid, or the Petrify executable could not be found.
+     */
+    private static void performFullSynthesis(Activity activity, String filePrefix, Path outputFolderPath,
+            CifContextManager ctxManager, List<String> warnings, FullSynthesisSettings settings,
+            StageResultCache cache, PetrifyCache petrifyCache, IProgressMonitor monitor)
+            throws IOException, CoreException
+    {
+        SynthesisTermination termination = new SynthesisTermination(activity.getName(), settings.getBudget(),
+                monitor::isCanceled);
+        Path workFolderPath = createWorkFolder(outputFolderPath, settings.getArtifactLevel());
         try {
-            AppEnv.registerSimple();
-            CifWriter.writeCifSpec(cifTranslatedActivity, makePathPair(cifPostProcessedGuardComputation),
-                    outputFolderPath.toString());
+            new ActivitySynthesisChain(activity, filePrefix, outputFolderPath, workFolderPath, ctxManager, warnings,
+                    settings.getArtifactLevel(), cache, petrifyCache, settings.getWriteMetrics(), termination)
+                    .perform();
         } finally {
-            AppEnv.unregisterApplication();
+            deleteWorkFolder(workFolderPath, settings.getArtifactLevel());
         }
-
-        // Computing guards.
-        new GuardComputation(umlActivityToCifTranslator, tracker).computeGuards(cifTranslatedActivity,
-                umlActivityToCifPath);
-        Path umlGuardsOutputPath = outputFolderPath.resolve(filePrefix + ".21.guardsadded.uml");
-        FileHelper.storeModel(umlActivityToCifTranslator.getActivity().getModel(), umlGuardsOutputPath.toString());
-
-        // Check the activity for non-deterministic choices.
-        CheckNonDeterministicChoices.check(activity, umlToCifTranslator, warnings, cifBddSpec);
-
-        // Perform the language equivalence check between the CIF model generated by the state space exploration and the
-        // translation to CIF of the final UML model. Throws a runtime error if models are non-equivalent.
-        performLanguageEquivalenceCheck(filePrefix, outputFolderPath, umlToCifTranslator, tracker, ctxManager,
-                warnings);
     }
 
-    private static Pair<String, Set<String>> getPreservedAndRemovedEventNames(Specification spec,
-            SynthesisChainTracking tracker)
+    /**
+     * Performs full synthesis of a wave of abstract activities that don't depend on each other.
+     * <p>
+     * Synthesizing an activity changes the IDs of UML elements, which are part of the names of CIF elements. Therefore,
+     * all activities of the wave are first translated to CIF, one after another, given the same UML model, as it is
+     * prepared for synthesis by the translation of the first activity. The activities are then synthesized up to and
+     * including petrification, in parallel if an executor is given, as this neither modifies nor depends on the UML
+     * model. The results are then translated back to UML one after another, in order, each time after again preparing
+     * the UML model for synthesis, like translating would when synthesizing the activities one after another. Each
+     * activity is thus translated and synthesized only once, and the outputs are identical regardless of the
+     * parallelism.
+     * </p>
+     *
+     * @param wave The abstract activities to synthesize, in order.
+     * @param filePrefix The prefix of the names of the output files.
+     * @param outputFolderPaths Per abstract activity, the path to the folder in which to store its outputs.
+     * @param ctxManager The CIF context manager of the UML model that contains the activities.
+     * @param warnings Any warnings to notify the user of, which is modified in-place.
+     * @param settings The settings of full synthesis.
+     * @param cache The cache of the results of the steps of the synthesis chains, or {@code null} to not cache results.
+     * @param petrifyCache The cache of Petrify results, or {@code null} to not cache Petrify results.
+     * @param monitor The progress monitor to check for cancellation.
+     * @param executor The executor to use to perform the synthesis chains in parallel, or {@code null} to perform them
+     *     one after another.
+     * @throws IOException In case an I/O error occurs.
+     * @throws CoreException In case the input UML model is invalid, or the Petrify executable could not be found.
+     */
+    private static void performFullSynthesis(List<Activity> wave, String filePrefix,
+            Map<Activity, Path> outputFolderPaths, CifContextManager ctxManager, List<String> warnings,
+            FullSynthesisSettings settings, StageResultCache cache, PetrifyCache petrifyCache, IProgressMonitor monitor,
+            ExecutorService executor) throws IOException, CoreException
     {
-        List<Event> events = CifCollectUtils.collectEvents(spec, new ArrayList<>());
+        ArtifactLevel artifactLevel = settings.getArtifactLevel();
 
-        // Preserve controllable events and all events that are *not* the end of an atomic non-deterministic action.
-        // This merges (folds) the non-deterministic result events of an atomic action into the single start event. The
-        // choice is based on the nodes name: in the future we might want to refer directly to the nodes instead of
-        // using a string comparison.
-        List<String> preservedEventNames = events.stream().filter(
-                event -> event.getControllable() || !tracker.isAtomicNonDeterministicEndEventName(event.getName()))
-                .map(event -> CifTextUtils.getAbsName(event, false)).toList();
-
-        // Get the removed events names (end of atomic non-deterministic actions).
-        Set<String> removedEventNames = events.stream().filter(event -> !preservedEventNames.contains(event.getName()))
-                .map(e -> e.getName()).collect(Collectors.toSet());
-
-        return new Pair<>(String.join(",", preservedEventNames), removedEventNames);
-    }
-
-    private static void performLanguageEquivalenceCheck(String filePrefix, Path localOutputPath,
-            UmlToCifTranslator translator, SynthesisChainTracking tracker, CifContextManager ctxManager,
-            List<String> warnings) throws CoreException
-    {
-        // Load state space UML file.
-        Specification stateSpaceGenerated = CifFileHelper
-                .loadCifSpec(localOutputPath.resolve(filePrefix + ".04.ctrlsys.statespace.cif"));
-
-        // Translate final UML model to CIF and get its state space.
-        UmlToCifTranslator umlToCifTranslatorPostSynth = new UmlToCifTranslator(ctxManager.getGlobalContext(),
-                translator.getActivity(), UmlToCifTranslationPurpose.LANGUAGE_EQUIVALENCE, tracker, warnings);
-        Specification cifSpec = umlToCifTranslatorPostSynth.translate();
-        Path cifSpecPath = localOutputPath.resolve(filePrefix + ".99.01.finalUmlToCif.cif");
+        // Create a synthesis chain per activity, each with its own work folder and warnings.
+        List<ActivitySynthesisChain> chains = new ArrayList<>(wave.size());
+        List<Path> workFolderPaths = new ArrayList<>(wave.size());
         try {
-            AppEnv.registerSimple();
-            CifWriter.writeCifSpec(cifSpec, makePathPair(cifSpecPath), localOutputPath.toString());
+            for (Activity activity: wave) {
+                Path outputFolderPath = outputFolderPaths.get(activity);
+                Path workFolderPath = createWorkFolder(outputFolderPath, artifactLevel);
+                workFolderPaths.add(workFolderPath);
+                chains.add(new ActivitySynthesisChain(activity, filePrefix, outputFolderPath, workFolderPath,
+                        ctxManager, new ArrayList<>(), artifactLevel, cache, petrifyCache, settings.getWriteMetrics(),
+                        new SynthesisTermination(activity.getName(), settings.getBudget(), monitor::isCanceled)));
+            }
+
+            // Translate the activities to CIF, one after another. Only the first translation prepares the UML model for
+            // synthesis, such that the other translations don't modify the UML model. Then perform synthesis up to and
+            // including petrification, in parallel if possible. Failures are only reported once the activities before
+            // the failed one have been synthesized, as they would be when synthesizing one after another. If the
+            // translation of an activity fails, the activities after it are not translated.
+            List<Future<Void>> futures = new ArrayList<>(chains.size());
+            for (int i = 0; i < chains.size(); i++) {
+                ActivitySynthesisChain chain = chains.get(i);
+                try {
+                    chain.translate(i == 0);
+                } catch (CoreException | RuntimeException e) {
+                    futures.add(CompletableFuture.failedFuture(e));
+                    break;
+                }
+
+                FutureTask<Void> future = new FutureTask<>(() -> {
+                    chain.synthesizeStateSpace();
+                    return null;
+                });
+                futures.add(future);
+                if (executor != null && chains.size() > 1) {
+                    executor.execute(future);
+                } else {
+                    future.run();
+                }
+            }
+            List<Throwable> failures = awaitAll(futures);
+
+            // Translate the Petri nets back to UML, one after another and in order, as this modifies the UML model.
+            for (int i = 0; i < failures.size(); i++) {
+                ActivitySynthesisChain chain = chains.get(i);
+                try {
+                    if (failures.get(i) != null) {
+                        rethrow(failures.get(i));
+                    }
+                    if (i > 0) {
+                        UmlToCifTranslator.prepareModelForSynthesis(chain.getActivity().getModel());
+                    }
+                    chain.synthesizeActivity();
+                } finally {
+                    warnings.addAll(chain.getWarnings());
+                }
+            }
         } finally {
-            AppEnv.unregisterApplication();
+            for (Path workFolderPath: workFolderPaths) {
+                deleteWorkFolder(workFolderPath, artifactLevel);
+            }
         }
+    }
 
-        // Perform state space generation.
-        Path cifStateSpacePath = localOutputPath.resolve(filePrefix + ".99.02.ctrlsys.statespace.cif");
-        String[] stateSpaceGenerationArgs = new String[] {cifSpecPath.toString(),
-                "--name=post_synthesis_chain_state_space", "--output=" + cifStateSpacePath.toString()};
-        AppStream explorerAppStream = new MemAppStream();
-        AppStreams explorerAppStreams = new AppStreams(InputStream.nullInputStream(), explorerAppStream,
-                explorerAppStream, explorerAppStream);
-        ExplorerApplication explorerApp = new ExplorerApplication(explorerAppStreams);
-        int exitCode = explorerApp.run(stateSpaceGenerationArgs, false);
-        if (exitCode != 0) {
-            throw new RuntimeException(
-                    "Non-zero exit code for state space generation: " + exitCode + "\n" + explorerAppStream.toString());
+    /**
+     * Waits for all given futures to complete.
+     *
+     * @param futures The futures to wait for.
+     * @return Per future, its failure, or {@code null} if it completed successfully.
+     */
+    private static List<Throwable> awaitAll(List<Future<Void>> futures) {
+        List<Throwable> failures = new ArrayList<>(futures.size());
+        for (Future<Void> future: futures) {
+            try {
+                future.get();
+                failures.add(null);
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while synthesizing activities in parallel.", e);
+            }
         }
+        return failures;
+    }
 
-        // Load state space post-synthesis chain file.
-        Specification stateSpacePostSynthChain = CifFileHelper.loadCifSpec(cifStateSpacePath);
-
-        // Get internal event sets for the synthesis translation, including the events of any concrete activity nodes
-        // that were restored.
-        Set<Event> synthesisInternalEvents = tracker.getInternalEvents(UmlToCifTranslationPurpose.SYNTHESIS);
-        synthesisInternalEvents.addAll(tracker.getRestoredDecisionMergeNodeEvents());
-
-        // Get internal event sets for the language equivalence translation.
-        Set<Event> languageEqInternalEvents = tracker
-                .getInternalEvents(UmlToCifTranslationPurpose.LANGUAGE_EQUIVALENCE);
-
-        // Filter the state annotations to keep only the external variables, check that external and internal events
-        // cover the entire state space alphabets, and that they do not overlap.
-        ModelPreparationResult result = StateAwareWeakLanguageEquivalenceHelper.prepareModels(stateSpaceGenerated,
-                tracker.getExternalEvents(UmlToCifTranslationPurpose.SYNTHESIS), synthesisInternalEvents,
-                stateSpacePostSynthChain, tracker.getExternalEvents(UmlToCifTranslationPurpose.LANGUAGE_EQUIVALENCE),
-                languageEqInternalEvents, translator.getVariableNames());
-
-        // Get the two state space automata to compare.
-        Automaton stateSpace1 = (Automaton)stateSpaceGenerated.getComponents().get(0);
-        Automaton stateSpace2 = (Automaton)stateSpacePostSynthChain.getComponents().get(0);
+    /**
+     * Rethrows the given failure of synthesizing an activity in parallel.
+     *
+     * @param failure The failure.
+     * @throws IOException In case an I/O error occurred.
+     * @throws CoreException In case the input UML model is invalid, or the Petrify executable could not be found.
+     */
+    private static void rethrow(Throwable failure) throws IOException, CoreException {
+        if (failure instanceof IOException e) {
+            throw e;
+        } else if (failure instanceof CoreException e) {
+            throw e;
+        } else if (failure instanceof RuntimeException e) {
+            throw e;
+        } else if (failure instanceof Error e) {
+            throw e;
+        } else {
+            throw new RuntimeException("Failed to synthesize activity in parallel.", failure);
+        }
+    }
 
-        // Perform the language equivalence check.
-        StateAwareWeakLanguageEquivalenceChecker checker = new StateAwareWeakLanguageEquivalenceChecker();
-        checker.check(stateSpace1, result.stateAnnotations1(), synthesisInternalEvents, stateSpace2,
-                result.stateAnnotations2(), languageEqInternalEvents, tracker.getLanguageEqEventsPaired());
+    /**
+     * Creates the work folder in which to exchange files with the CIF tools and Petrify. This is the output folder if
+     * all intermediate outputs are to be written, as they include these files. Otherwise, it is a temporary folder.
+     *
+     * @param outputFolderPath The path to the folder in which to store the outputs.
+     * @param artifactLevel The level of the artifacts to write to the output folder.
+     * @return The path to the work folder.
+     * @throws IOException In case the temporary folder could not be created.
+     */
+    private static Path createWorkFolder(Path outputFolderPath, ArtifactLevel artifactLevel) throws IOException {
+        return (artifactLevel == ArtifactLevel.FULL) ? outputFolderPath : Files.createTempDirectory("synthml-");
     }
 
-    private static PathPair makePathPair(Path path) {
-        return new PathPair(path.toString(), path.toAbsolutePath().toString());
+    /**
+     * Deletes the given work folder, if it is a temporary folder.
+     *
+     * @param workFolderPath The path to the work folder.
+     * @param artifactLevel The level of the artifacts to write to the output folder.
+     * @throws IOException In case the temporary folder could not be deleted.
+     */
+    private static void deleteWorkFolder(Path workFolderPath, ArtifactLevel artifactLevel) throws IOException {
+        if (artifactLevel != ArtifactLevel.FULL) {
+            FileUtils.deleteDirectory(workFolderPath.toFile());
+        }
     }
 }
@@ -0,0 +1,152 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import java.nio.file.Path;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The settings of full synthesis. By default, only the final UML model of each abstract activity is written, the
+ * abstract activities are synthesized one after another, step results are not cached, no performance metrics are
+ * written, synthesis is not limited in time, and progress is not reported.
+ */
+public class FullSynthesisSettings {
+    /** The level of the artifacts to write to the output folder. */
+    private ArtifactLevel artifactLevel = ArtifactLevel.FINAL;
+
+    /** The maximum number of abstract activities to synthesize in parallel. */
+    private int parallelism = 1;
+
+    /** The path to the folder in which to cache step results, or {@code null} to not cache them. */
+    private Path cacheFolderPath = null;
+
+    /** Whether to write a performance metrics report for each abstract activity. */
+    private boolean writeMetrics = false;
+
+    /** The time budgets. */
+    private SynthesisBudget budget = SynthesisBudget.UNLIMITED;
+
+    /** The progress monitor to report progress to, and to check for cancellation. */
+    private IProgressMonitor monitor = new NullProgressMonitor();
+
+    /**
+     * Gives the level of the artifacts to write to the output folder.
+     *
+     * @return The artifact level.
+     */
+    public ArtifactLevel getArtifactLevel() {
+        return artifactLevel;
+    }
+
+    /**
+     * Sets the level of the artifacts to write to the output folder.
+     *
+     * @param artifactLevel The artifact level.
+     */
+    public void setArtifactLevel(ArtifactLevel artifactLevel) {
+        this.artifactLevel = Preconditions.checkNotNull(artifactLevel);
+    }
+
+    /**
+     * Gives the maximum number of abstract activities to synthesize in parallel.
+     *
+     * @return The parallelism.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the maximum number of abstract activities to synthesize in parallel.
+     *
+     * @param parallelism The parallelism. Must be positive.
+     */
+    public void setParallelism(int parallelism) {
+        Preconditions.checkArgument(parallelism > 0, "Expected a positive parallelism, but got: " + parallelism);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Gives the path to the folder in which to cache step results.
+     *
+     * @return The path to the cache folder, or {@code null} to not cache step results.
+     */
+    public Path getCacheFolderPath() {
+        return cacheFolderPath;
+    }
+
+    /**
+     * Sets the path to the folder in which to cache step results.
+     *
+     * @param cacheFolderPath The path to the cache folder, or {@code null} to not cache step results.
+     */
+    public void setCacheFolderPath(Path cacheFolderPath) {
+        this.cacheFolderPath = cacheFolderPath;
+    }
+
+    /**
+     * Gives whether to write a performance metrics report for each abstract activity.
+     *
+     * @return {@code true} to write performance metrics, {@code false} otherwise.
+     */
+    public boolean getWriteMetrics() {
+        return writeMetrics;
+    }
+
+    /**
+     * Sets whether to write a performance metrics report for each abstract activity.
+     *
+     * @param writeMetrics {@code true} to write performance metrics, {@code false} otherwise.
+     */
+    public void setWriteMetrics(boolean writeMetrics) {
+        this.writeMetrics = writeMetrics;
+    }
+
+    /**
+     * Gives the time budgets.
+     *
+     * @return The time budgets.
+     */
+    public SynthesisBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Sets the time budgets.
+     *
+     * @param budget The time budgets.
+     */
+    public void setBudget(SynthesisBudget budget) {
+        this.budget = Preconditions.checkNotNull(budget);
+    }
+
+    /**
+     * Gives the progress monitor to report progress to, and to check for cancellation.
+     *
+     * @return The progress monitor.
+     */
+    public IProgressMonitor getMonitor() {
+        return monitor;
+    }
+
+    /**
+     * Sets the progress monitor to report progress to, and to check for cancellation.
+     *
+     * @param monitor The progress monitor.
+     */
+    public void setMonitor(IProgressMonitor monitor) {
+        this.monitor = Preconditions.checkNotNull(monitor);
+    }
+}
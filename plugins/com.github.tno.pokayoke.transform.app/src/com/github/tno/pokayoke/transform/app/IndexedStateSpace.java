@@ -0,0 +1,760 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.eclipse.escet.cif.common.CifEdgeUtils;
+import org.eclipse.escet.cif.common.CifEventUtils;
+import org.eclipse.escet.cif.common.CifTextUtils;
+import org.eclipse.escet.cif.metamodel.cif.automata.Automaton;
+import org.eclipse.escet.cif.metamodel.cif.automata.Edge;
+import org.eclipse.escet.cif.metamodel.cif.automata.Location;
+import org.eclipse.escet.cif.metamodel.cif.declarations.Event;
+
+import com.github.tno.pokayoke.transform.activitysynthesis.CifLocationHelper;
+import com.google.common.base.Preconditions;
+
+/**
+ * Compact integer-indexed representation of a CIF state space automaton, for the
+ * {@link StateAwareWeakLanguageEquivalenceChecker}. Locations are identified by their index in the automaton. Events
+ * are interned by absolute name, and edges are grouped into tau edges and labeled edges. A label is the index of a list
+ * of events, such that an edge has a label if any of its events is in that list. The edges are stored in compressed
+ * sparse row format, such that all queries operate on primitive integers only.
+ * <p>
+ * The tau edges are condensed into strongly connected components, and the tau closure of each component is computed at
+ * most once, on first use. The tau closure of a set of locations is then the union of the closures of their components.
+ * </p>
+ * <p>
+ * Instances are thread safe. Queries take their scratch storage from a pool, such that concurrent queries use separate
+ * scratch storage. Tau closures are published atomically, and may be computed more than once if they are first used
+ * concurrently.
+ * </p>
+ */
+class IndexedStateSpace {
+    /** The state space automaton. */
+    private final Automaton automaton;
+
+    /** The locations of the state space, by location index. */
+    private final Location[] locations;
+
+    /** Per location of the state space, its location index. */
+    private final Map<Location, Integer> locationIndices;
+
+    /** The indices of the initial locations. */
+    private final BitSet initialLocations = new BitSet();
+
+    /** The indices of the marked locations. */
+    private final BitSet markedLocations = new BitSet();
+
+    /** Per location index, the offset of its tau edges in {@link #tauTargets}. Has one extra trailing offset. */
+    private final int[] tauOffsets;
+
+    /** The target location indices of the tau edges, grouped by source location. */
+    private final int[] tauTargets;
+
+    /**
+     * Per location index, the index of its strongly connected component of the tau edges. The components are numbered
+     * in reverse topological order, such that tau edges only lead to components with the same or a lower index.
+     */
+    private final int[] tauComponents;
+
+    /** Per tau component, the offset of its locations in {@link #tauComponentMembers}. Has one extra trailing offset. */
+    private final int[] tauComponentOffsets;
+
+    /** The location indices of the tau components, grouped by component, in ascending order per component. */
+    private final int[] tauComponentMembers;
+
+    /**
+     * Per tau component, its tau closure as location indices in ascending order, or {@code null} if not yet computed.
+     */
+    private final AtomicReferenceArray<int[]> tauClosures;
+
+    /** The number of labels. */
+    private final int labelCount;
+
+    /** Per location index, the offset of its labeled edges in {@link #labels}. Has one extra trailing offset. */
+    private final int[] labelOffsets;
+
+    /** The labels of the labeled edges, grouped by source location. */
+    private final int[] labels;
+
+    /** The target location indices of the labeled edges, grouped by source location. */
+    private final int[] labelTargets;
+
+    /** The scratch storage that is not in use by any query. */
+    private final Queue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructs a new indexed state space.
+     *
+     * @param automaton The state space automaton.
+     * @param tauEvents The events that represent a tau transition.
+     * @param labelEvents The lists of events, per label. The events are compared by absolute name, since the events of
+     *     the state space and the given events may be different objects.
+     */
+    IndexedStateSpace(Automaton automaton, Set<Event> tauEvents, List<List<Event>> labelEvents) {
+        this.automaton = automaton;
+        this.locations = automaton.getLocations().toArray(Location[]::new);
+        this.locationIndices = new HashMap<>(locations.length * 2);
+        for (int i = 0; i < locations.length; i++) {
+            locationIndices.put(locations[i], i);
+            if (CifLocationHelper.isInitial(locations[i])) {
+                initialLocations.set(i);
+            }
+            if (CifLocationHelper.isMarked(locations[i])) {
+                markedLocations.set(i);
+            }
+        }
+
+        // Intern the tau events and the events of all labels.
+        EventInterner interner = new EventInterner();
+        BitSet tauEventIds = new BitSet();
+        for (Event event: tauEvents) {
+            tauEventIds.set(interner.intern(event));
+        }
+        List<List<Integer>> labelsPerEventId = new ArrayList<>();
+        this.labelCount = labelEvents.size();
+        for (int label = 0; label < labelCount; label++) {
+            for (Event event: labelEvents.get(label)) {
+                int eventId = interner.intern(event);
+                while (labelsPerEventId.size() <= eventId) {
+                    labelsPerEventId.add(new ArrayList<>(1));
+                }
+                List<Integer> eventLabels = labelsPerEventId.get(eventId);
+                if (!eventLabels.contains(label)) {
+                    eventLabels.add(label);
+                }
+            }
+        }
+
+        // Collect the tau and labeled edges per location. The order of the edges, and of the events on the edges, is
+        // preserved.
+        IntList tauTargetList = new IntList();
+        IntList labelList = new IntList();
+        IntList labelTargetList = new IntList();
+        this.tauOffsets = new int[locations.length + 1];
+        this.labelOffsets = new int[locations.length + 1];
+        for (int i = 0; i < locations.length; i++) {
+            tauOffsets[i] = tauTargetList.size();
+            labelOffsets[i] = labelList.size();
+
+            for (Edge edge: locations[i].getEdges()) {
+                int target = locationIndices.get(CifEdgeUtils.getTarget(edge));
+                boolean isTauEdge = false;
+                for (Event event: CifEventUtils.getEvents(edge)) {
+                    int eventId = interner.intern(event);
+                    isTauEdge |= tauEventIds.get(eventId);
+                    if (eventId < labelsPerEventId.size()) {
+                        for (int label: labelsPerEventId.get(eventId)) {
+                            labelList.add(label);
+                            labelTargetList.add(target);
+                        }
+                    }
+                }
+                if (isTauEdge) {
+                    tauTargetList.add(target);
+                }
+            }
+        }
+        tauOffsets[locations.length] = tauTargetList.size();
+        labelOffsets[locations.length] = labelList.size();
+        this.tauTargets = tauTargetList.toArray();
+        this.labels = labelList.toArray();
+        this.labelTargets = labelTargetList.toArray();
+
+        // Condense the tau edges into strongly connected components, and group the locations per component.
+        this.tauComponents = computeTauComponents();
+        int componentCount = Arrays.stream(tauComponents).max().orElse(-1) + 1;
+        this.tauComponentOffsets = new int[componentCount + 1];
+        for (int component: tauComponents) {
+            tauComponentOffsets[component + 1]++;
+        }
+        for (int component = 0; component < componentCount; component++) {
+            tauComponentOffsets[component + 1] += tauComponentOffsets[component];
+        }
+        this.tauComponentMembers = new int[locations.length];
+        int[] memberCounts = new int[componentCount];
+        for (int i = 0; i < locations.length; i++) {
+            int component = tauComponents[i];
+            tauComponentMembers[tauComponentOffsets[component] + memberCounts[component]++] = i;
+        }
+        this.tauClosures = new AtomicReferenceArray<>(componentCount);
+    }
+
+    /**
+     * Computes the strongly connected components of the tau edges, using an iterative version of Tarjan's algorithm.
+     *
+     * @return Per location index, the index of its component. The components are numbered in the order in which they
+     *     are completed, which is a reverse topological order.
+     */
+    private int[] computeTauComponents() {
+        int[] components = new int[locations.length];
+        Arrays.fill(components, -1);
+        int[] discoveryIndices = new int[locations.length];
+        Arrays.fill(discoveryIndices, -1);
+        int[] lowLinks = new int[locations.length];
+        int discoveryIndex = 0;
+        int componentCount = 0;
+
+        // The stack of locations of components that are not yet completed, and the depth-first search stack, with per
+        // location on the search stack the next tau edge to explore.
+        int[] componentStack = new int[locations.length];
+        int componentStackSize = 0;
+        int[] searchStack = new int[locations.length];
+        int[] searchEdges = new int[locations.length];
+        int searchStackSize = 0;
+
+        for (int root = 0; root < locations.length; root++) {
+            if (discoveryIndices[root] != -1) {
+                continue;
+            }
+
+            discoveryIndices[root] = lowLinks[root] = discoveryIndex++;
+            componentStack[componentStackSize++] = root;
+            searchStack[searchStackSize] = root;
+            searchEdges[searchStackSize++] = tauOffsets[root];
+
+            while (searchStackSize > 0) {
+                int state = searchStack[searchStackSize - 1];
+                int edge = searchEdges[searchStackSize - 1];
+                if (edge < tauOffsets[state + 1]) {
+                    // Explore the next tau edge of the location.
+                    searchEdges[searchStackSize - 1]++;
+                    int target = tauTargets[edge];
+                    if (discoveryIndices[target] == -1) {
+                        discoveryIndices[target] = lowLinks[target] = discoveryIndex++;
+                        componentStack[componentStackSize++] = target;
+                        searchStack[searchStackSize] = target;
+                        searchEdges[searchStackSize++] = tauOffsets[target];
+                    } else if (components[target] == -1) {
+                        lowLinks[state] = Math.min(lowLinks[state], discoveryIndices[target]);
+                    }
+                } else {
+                    // All tau edges of the location are explored. Complete its component, if it is the root of it.
+                    searchStackSize--;
+                    if (lowLinks[state] == discoveryIndices[state]) {
+                        int member;
+                        do {
+                            member = componentStack[--componentStackSize];
+                            components[member] = componentCount;
+                        } while (member != state);
+                        componentCount++;
+                    }
+                    if (searchStackSize > 0) {
+                        int parent = searchStack[searchStackSize - 1];
+                        lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[state]);
+                    }
+                }
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Gives the state space automaton.
+     *
+     * @return The state space automaton.
+     */
+    Automaton getAutomaton() {
+        return automaton;
+    }
+
+    /**
+     * Gives the number of locations of the state space.
+     *
+     * @return The number of locations.
+     */
+    int size() {
+        return locations.length;
+    }
+
+    /**
+     * Gives the location with the given index.
+     *
+     * @param index The location index.
+     * @return The location.
+     */
+    Location getLocation(int index) {
+        return locations[index];
+    }
+
+    /**
+     * Gives the index of the given location.
+     *
+     * @param location The location, which must be a location of the state space.
+     * @return The location index.
+     */
+    int getIndex(Location location) {
+        Integer index = locationIndices.get(location);
+        Preconditions.checkArgument(index != null, "Expected a location of state space " + automaton.getName() + ".");
+        return index;
+    }
+
+    /**
+     * Checks whether the location with the given index is initial.
+     *
+     * @param index The location index.
+     * @return {@code true} if the location is initial, {@code false} otherwise.
+     */
+    boolean isInitial(int index) {
+        return initialLocations.get(index);
+    }
+
+    /**
+     * Checks whether the location with the given index is marked.
+     *
+     * @param index The location index.
+     * @return {@code true} if the location is marked, {@code false} otherwise.
+     */
+    boolean isMarked(int index) {
+        return markedLocations.get(index);
+    }
+
+    /**
+     * Gives the names of the locations with the given indices.
+     *
+     * @param indices The location indices.
+     * @return The location names, in the order of the given indices.
+     */
+    List<String> getNames(int[] indices) {
+        return Arrays.stream(indices).mapToObj(i -> locations[i].getName()).toList();
+    }
+
+    /**
+     * Gives the locations that can be reached from the given locations via zero or more tau edges, as the union of the
+     * memoized tau closures of their components. The order of the locations differs from the order in which a search
+     * would discover them. Use {@link #getTauReachableStatesInDiscoveryOrder} if the order is observable.
+     *
+     * @param states The indices of the distinct locations to start from.
+     * @return The indices of the tau-reachable locations, starting with the given locations, followed by the other
+     *     reachable locations in ascending order.
+     */
+    int[] getTauReachableStates(int[] states) {
+        if (tauTargets.length == 0) {
+            return states.clone();
+        }
+
+        Scratch scratch = acquireScratch();
+        try {
+            // Ensure the tau closures of the components of the given locations are computed, before using the stamps.
+            int[][] closures = new int[states.length][];
+            for (int i = 0; i < states.length; i++) {
+                closures[i] = getTauClosure(tauComponents[states[i]], scratch);
+            }
+
+            // Collect the union of the tau closures.
+            int[] stamps = scratch.stamps;
+            int stamp = scratch.nextStamp();
+            for (int state: states) {
+                stamps[state] = stamp;
+            }
+            IntList otherStates = new IntList();
+            for (int[] closure: closures) {
+                for (int state: closure) {
+                    if (stamps[state] != stamp) {
+                        stamps[state] = stamp;
+                        otherStates.add(state);
+                    }
+                }
+            }
+
+            int[] reachable = Arrays.copyOf(states, states.length + otherStates.size());
+            int[] others = otherStates.toArray();
+            if (closures.length > 1) {
+                Arrays.sort(others);
+            }
+            System.arraycopy(others, 0, reachable, states.length, others.length);
+            return reachable;
+        } finally {
+            releaseScratch(scratch);
+        }
+    }
+
+    /**
+     * Gives the locations that can be reached from the given locations via zero or more tau edges, in the order in
+     * which a breadth-first search discovers them. Unlike {@link #getTauReachableStates}, this doesn't use the memoized
+     * tau closures, but it gives the locations in the same order as they are reported to the user.
+     *
+     * @param states The indices of the distinct locations to start from.
+     * @return The indices of the tau-reachable locations, starting with the given locations, followed by the other
+     *     reachable locations in breadth-first order.
+     */
+    int[] getTauReachableStatesInDiscoveryOrder(int[] states) {
+        Scratch scratch = acquireScratch();
+        try {
+            int[] stamps = scratch.stamps;
+            int stamp = scratch.nextStamp();
+            IntList reachable = new IntList(states.length);
+            for (int state: states) {
+                stamps[state] = stamp;
+                reachable.add(state);
+            }
+
+            for (int i = 0; i < reachable.size(); i++) {
+                int state = reachable.get(i);
+                for (int edge = tauOffsets[state]; edge < tauOffsets[state + 1]; edge++) {
+                    int target = tauTargets[edge];
+                    if (stamps[target] != stamp) {
+                        stamps[target] = stamp;
+                        reachable.add(target);
+                    }
+                }
+            }
+            return reachable.toArray();
+        } finally {
+            releaseScratch(scratch);
+        }
+    }
+
+    /**
+     * Gives the tau closure of the given tau component, computing it and the tau closures of the components it can
+     * reach if they are not yet computed.
+     *
+     * @param component The index of the tau component.
+     * @param scratch The scratch storage to use.
+     * @return The indices of the locations that can be reached from the locations of the component via zero or more tau
+     *     edges, in ascending order.
+     */
+    private int[] getTauClosure(int component, Scratch scratch) {
+        int[] closure = tauClosures.get(component);
+        if (closure != null) {
+            return closure;
+        }
+
+        // Compute the tau closures depth-first, such that the closures of the successor components of a component are
+        // computed before the closure of the component itself. The tau components form a directed acyclic graph.
+        IntList pending = new IntList();
+        pending.add(component);
+        while (pending.size() > 0) {
+            int current = pending.get(pending.size() - 1);
+            if (tauClosures.get(current) != null) {
+                pending.removeLast();
+                continue;
+            }
+
+            boolean successorsComputed = true;
+            for (int member = tauComponentOffsets[current]; member < tauComponentOffsets[current + 1]; member++) {
+                int state = tauComponentMembers[member];
+                for (int edge = tauOffsets[state]; edge < tauOffsets[state + 1]; edge++) {
+                    int successor = tauComponents[tauTargets[edge]];
+                    if (successor != current && tauClosures.get(successor) == null) {
+                        pending.add(successor);
+                        successorsComputed = false;
+                    }
+                }
+            }
+
+            if (successorsComputed) {
+                tauClosures.set(current, computeTauClosure(current, scratch));
+                pending.removeLast();
+            }
+        }
+        return tauClosures.get(component);
+    }
+
+    /**
+     * Computes the tau closure of the given tau component, given that the closures of its successor components are
+     * already computed.
+     *
+     * @param component The index of the tau component.
+     * @param scratch The scratch storage to use.
+     * @return The indices of the locations that can be reached from the locations of the component via zero or more tau
+     *     edges, in ascending order.
+     */
+    private int[] computeTauClosure(int component, Scratch scratch) {
+        int start = tauComponentOffsets[component];
+        int end = tauComponentOffsets[component + 1];
+
+        // Start with the locations of the component itself.
+        int[] stamps = scratch.stamps;
+        int stamp = scratch.nextStamp();
+        IntList closure = new IntList(end - start);
+        for (int member = start; member < end; member++) {
+            int state = tauComponentMembers[member];
+            stamps[state] = stamp;
+            closure.add(state);
+        }
+
+        // Add the closures of the successor components.
+        boolean hasSuccessors = false;
+        for (int member = start; member < end; member++) {
+            int state = tauComponentMembers[member];
+            for (int edge = tauOffsets[state]; edge < tauOffsets[state + 1]; edge++) {
+                int successor = tauComponents[tauTargets[edge]];
+                if (successor == component) {
+                    continue;
+                }
+                for (int reachable: tauClosures.get(successor)) {
+                    if (stamps[reachable] != stamp) {
+                        stamps[reachable] = stamp;
+                        closure.add(reachable);
+                        hasSuccessors = true;
+                    }
+                }
+            }
+        }
+
+        int[] result = closure.toArray();
+        if (hasSuccessors) {
+            Arrays.sort(result);
+        }
+        return result;
+    }
+
+    /**
+     * Gives, per label, the locations that can be reached from the given locations via a single edge with that label.
+     *
+     * @param states The indices of the locations to start from.
+     * @return Per label, the indices of the distinct reachable locations, in the order of the given locations and their
+     *     edges. The array for a label is empty if no location can be reached with that label.
+     */
+    int[][] getNextStates(int[] states) {
+        // Collect the targets per label.
+        IntList[] targetsPerLabel = new IntList[labelCount];
+        for (int state: states) {
+            for (int edge = labelOffsets[state]; edge < labelOffsets[state + 1]; edge++) {
+                int label = labels[edge];
+                if (targetsPerLabel[label] == null) {
+                    targetsPerLabel[label] = new IntList();
+                }
+                targetsPerLabel[label].add(labelTargets[edge]);
+            }
+        }
+
+        // Remove duplicate targets per label, keeping their first occurrence.
+        int[][] nextStates = new int[labelCount][];
+        Scratch scratch = acquireScratch();
+        try {
+            int[] stamps = scratch.stamps;
+            for (int label = 0; label < labelCount; label++) {
+                IntList targets = targetsPerLabel[label];
+                if (targets == null) {
+                    nextStates[label] = new int[0];
+                    continue;
+                }
+
+                int stamp = scratch.nextStamp();
+                IntList distinctTargets = new IntList(targets.size());
+                for (int i = 0; i < targets.size(); i++) {
+                    int target = targets.get(i);
+                    if (stamps[target] != stamp) {
+                        stamps[target] = stamp;
+                        distinctTargets.add(target);
+                    }
+                }
+                nextStates[label] = distinctTargets.toArray();
+            }
+        } finally {
+            releaseScratch(scratch);
+        }
+        return nextStates;
+    }
+
+    /**
+     * Gives the labeled edges from the given locations, provided that each label leads to at most one location.
+     *
+     * @param states The indices of the locations to start from.
+     * @param nextLabels The list to which to add the labels with which a location can be reached, each label once, in
+     *     order of first occurrence. Is cleared first.
+     * @param nextStates The list to which to add, per label in {@code nextLabels}, the index of the location that can
+     *     be reached with that label. Is cleared first.
+     * @return {@code true} if each label leads to at most one location, {@code false} otherwise, in which case the
+     *     contents of the given lists are unspecified.
+     */
+    boolean getUniqueNextStates(int[] states, IntList nextLabels, IntList nextStates) {
+        nextLabels.clear();
+        nextStates.clear();
+        boolean unique = true;
+        Scratch scratch = acquireScratch();
+        int[] nextStatePerLabel = scratch.nextStatePerLabel;
+        try {
+            for (int state: states) {
+                for (int edge = labelOffsets[state]; unique && edge < labelOffsets[state + 1]; edge++) {
+                    int label = labels[edge];
+                    int target = labelTargets[edge];
+                    if (nextStatePerLabel[label] == -1) {
+                        nextLabels.add(label);
+                        nextStatePerLabel[label] = target;
+                        nextStates.add(target);
+                    } else {
+                        unique = nextStatePerLabel[label] == target;
+                    }
+                }
+            }
+        } finally {
+            // Reset the scratch storage, before releasing it. Each label that is set is in 'nextLabels'.
+            for (int i = 0; i < nextLabels.size(); i++) {
+                nextStatePerLabel[nextLabels.get(i)] = -1;
+            }
+            releaseScratch(scratch);
+        }
+        return unique;
+    }
+
+    /**
+     * Acquires scratch storage for a query, from the pool if available. It must be released once the query completes.
+     *
+     * @return The scratch storage, which is not in use by any other query.
+     */
+    private Scratch acquireScratch() {
+        Scratch scratch = scratchPool.poll();
+        return (scratch != null) ? scratch : new Scratch(locations.length, labelCount);
+    }
+
+    /**
+     * Releases scratch storage back to the pool, once the query that acquired it completes.
+     *
+     * @param scratch The scratch storage.
+     */
+    private void releaseScratch(Scratch scratch) {
+        scratchPool.add(scratch);
+    }
+
+    /** Scratch storage for a single query. */
+    private static class Scratch {
+        /** Per location index, the stamp with which it was last marked as visited. See also {@link #stamp}. */
+        private final int[] stamps;
+
+        /** The stamp that marks locations as visited in {@link #stamps} for the current query. */
+        private int stamp;
+
+        /** Per label, the index of the location reached with that label, or {@code -1} if none. */
+        private final int[] nextStatePerLabel;
+
+        /**
+         * Constructs new scratch storage.
+         *
+         * @param locationCount The number of locations.
+         * @param labelCount The number of labels.
+         */
+        private Scratch(int locationCount, int labelCount) {
+            this.stamps = new int[locationCount];
+            this.nextStatePerLabel = new int[labelCount];
+            Arrays.fill(nextStatePerLabel, -1);
+        }
+
+        /**
+         * Advances to the next stamp, such that no location is marked as visited.
+         *
+         * @return The new stamp.
+         */
+        private int nextStamp() {
+            if (stamp == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                stamp = 0;
+            }
+            return ++stamp;
+        }
+    }
+
+    /** Interns events by absolute name, assigning consecutive integer ids starting at zero. */
+    private static class EventInterner {
+        /** Per event absolute name, its id. */
+        private final Map<String, Integer> idsByName = new HashMap<>();
+
+        /** Per event object, its id. Avoids computing the absolute name of the same event object repeatedly. */
+        private final Map<Event, Integer> idsByEvent = new HashMap<>();
+
+        /**
+         * Interns the given event.
+         *
+         * @param event The event.
+         * @return The id of the event.
+         */
+        int intern(Event event) {
+            return idsByEvent.computeIfAbsent(event,
+                    e -> idsByName.computeIfAbsent(CifTextUtils.getAbsName(e), n -> idsByName.size()));
+        }
+    }
+
+    /** Growable list of primitive integers. */
+    static class IntList {
+        /** The elements, followed by unused capacity. */
+        private int[] elements;
+
+        /** The number of elements. */
+        private int size;
+
+        /** Constructs a new empty list. */
+        IntList() {
+            this(8);
+        }
+
+        /**
+         * Constructs a new empty list.
+         *
+         * @param capacity The initial capacity.
+         */
+        IntList(int capacity) {
+            this.elements = new int[Math.max(capacity, 1)];
+        }
+
+        /**
+         * Adds an element at the end of the list.
+         *
+         * @param element The element to add.
+         */
+        void add(int element) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = element;
+        }
+
+        /** Removes all elements of the list. */
+        void clear() {
+            size = 0;
+        }
+
+        /** Removes the last element of the list, which must not be empty. */
+        void removeLast() {
+            size--;
+        }
+
+        /**
+         * Gives the element at the given index.
+         *
+         * @param index The index.
+         * @return The element.
+         */
+        int get(int index) {
+            return elements[index];
+        }
+
+        /**
+         * Gives the number of elements.
+         *
+         * @return The number of elements.
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Gives the elements as an array.
+         *
+         * @return A new array with the elements.
+         */
+        int[] toArray() {
+            return Arrays.copyOf(elements, size);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+/**
+ * The modes of the {@link StateAwareWeakLanguageEquivalenceChecker}. All modes reach the same conclusion, and report
+ * the same counterexample if the state spaces are not equivalent. They only differ in how fast they reach it.
+ */
+public enum LanguageEquivalenceCheckMode {
+    /**
+     * Explore the pairs of sets of states that the two state spaces can reach with the same events. This works for all
+     * state spaces, but the number of pairs may grow exponentially with the nondeterminism after tau abstraction.
+     */
+    SUBSET_CONSTRUCTION,
+
+    /**
+     * Compute the coarsest stable partition of the disjoint union of the two state spaces, in {@code O(m log n)} time.
+     * This requires both state spaces to be deterministic modulo tau, i.e., from the tau closure of each state, each
+     * event leads to at most one state, and each state annotation is shared by at most one initial state. Subset
+     * construction is then only used to find the counterexample, if the state spaces are not equivalent.
+     */
+    PARTITION_REFINEMENT,
+
+    /**
+     * Use partition refinement if both state spaces are deterministic modulo tau, and subset construction otherwise.
+     */
+    AUTOMATIC;
+}
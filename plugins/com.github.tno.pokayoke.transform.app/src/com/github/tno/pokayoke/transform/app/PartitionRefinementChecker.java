@@ -0,0 +1,378 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.escet.common.java.Termination;
+
+import com.github.tno.pokayoke.transform.app.IndexedStateSpace.IntList;
+
+/**
+ * Partition refinement based equivalence check of state spaces that are deterministic modulo tau, for the
+ * {@link StateAwareWeakLanguageEquivalenceChecker}.
+ * <p>
+ * A state space is deterministic modulo tau if, from the tau closure of each of its locations, each label leads to at
+ * most one location. Each location then has a single weak transition per label, and weak-language equivalence
+ * coincides with weak bisimilarity. The coarsest partition of the disjoint union of both state spaces that respects the
+ * state annotations and markings of the tau closures, and that is stable under the weak transitions, is computed
+ * using the algorithm of Valmari and Lehtinen for the minimization of partial deterministic automata, which is a
+ * variant of the partition refinement algorithms of Hopcroft and Paige-Tarjan. It runs in {@code O(m log n)} time, for
+ * {@code n} locations and {@code m} weak transitions.
+ * </p>
+ * <p>
+ * The check only indicates whether pairs of locations are equivalent. It is up to the caller to report any
+ * counterexample.
+ * </p>
+ */
+class PartitionRefinementChecker {
+    /** The termination of the check. */
+    private final Termination termination;
+
+    /**
+     * Constructs a new partition refinement checker.
+     *
+     * @param termination The termination of the check.
+     */
+    PartitionRefinementChecker(Termination termination) {
+        this.termination = termination;
+    }
+
+    /**
+     * Computes the weak transitions of a state space, if it is deterministic modulo tau.
+     *
+     * @param stateSpace The state space.
+     * @param annotationClasses Per location index, the class id of its state annotation.
+     * @return The weak transitions, or {@code null} if the state space is not deterministic modulo tau.
+     */
+    WeakTransitions computeWeakTransitions(IndexedStateSpace stateSpace, int[] annotationClasses) {
+        int[] keys = new int[stateSpace.size()];
+        int[] offsets = new int[stateSpace.size() + 1];
+        IntList labels = new IntList();
+        IntList targets = new IntList();
+        IntList nextLabels = new IntList();
+        IntList nextStates = new IntList();
+
+        for (int state = 0; state < stateSpace.size(); state++) {
+            checkTermination();
+            int[] tauReachableStates = stateSpace.getTauReachableStates(new int[] {state});
+
+            // The key of the location combines the state annotation and marking of its tau closure. Tau closures with
+            // non-equivalent state annotations get no key, as the state space is then invalid.
+            int annotationClass = annotationClasses[state];
+            boolean marked = false;
+            for (int reachableState: tauReachableStates) {
+                if (annotationClasses[reachableState] != annotationClass) {
+                    annotationClass = -1;
+                    break;
+                }
+                marked |= stateSpace.isMarked(reachableState);
+            }
+            keys[state] = (annotationClass == -1) ? -1 : 2 * annotationClass + (marked ? 1 : 0);
+
+            // Add the weak transitions of the location.
+            if (!stateSpace.getUniqueNextStates(tauReachableStates, nextLabels, nextStates)) {
+                return null;
+            }
+            offsets[state] = labels.size();
+            for (int i = 0; i < nextLabels.size(); i++) {
+                labels.add(nextLabels.get(i));
+                targets.add(nextStates.get(i));
+            }
+        }
+        offsets[stateSpace.size()] = labels.size();
+        return new WeakTransitions(keys, offsets, labels.toArray(), targets.toArray());
+    }
+
+    /**
+     * Checks whether pairs of locations of two state spaces are equivalent, i.e., whether they are weak bisimilar.
+     *
+     * @param transitions1 The weak transitions of the first state space.
+     * @param transitions2 The weak transitions of the second state space.
+     * @param statePairs The pairs of location indices to check, with per pair the index of a location of the first
+     *     state space followed by the index of a location of the second state space.
+     * @return {@code true} if all pairs of locations are equivalent, {@code false} otherwise.
+     */
+    boolean areEquivalent(WeakTransitions transitions1, WeakTransitions transitions2, int[][] statePairs) {
+        // Combine the state spaces into their disjoint union, with the locations of the second state space following
+        // those of the first one.
+        int offset = transitions1.size();
+        int stateCount = offset + transitions2.size();
+        int transitionCount = transitions1.labels().length + transitions2.labels().length;
+        int[] tails = new int[transitionCount];
+        int[] labels = new int[transitionCount];
+        int[] heads = new int[transitionCount];
+        transitions1.copyTo(0, 0, tails, labels, heads);
+        transitions2.copyTo(offset, transitions1.labels().length, tails, labels, heads);
+
+        // Initially partition the locations by their keys. Locations without key each get their own block, such that
+        // they are not equivalent to any other location.
+        Map<Integer, Integer> blocksPerKey = new HashMap<>();
+        int[] initialBlocks = new int[stateCount];
+        int blockCount = 0;
+        for (int state = 0; state < stateCount; state++) {
+            int key = (state < offset) ? transitions1.keys()[state] : transitions2.keys()[state - offset];
+            if (key == -1) {
+                initialBlocks[state] = blockCount++;
+            } else {
+                Integer block = blocksPerKey.get(key);
+                if (block == null) {
+                    block = blockCount++;
+                    blocksPerKey.put(key, block);
+                }
+                initialBlocks[state] = block;
+            }
+        }
+        RefinablePartition blocks = new RefinablePartition(initialBlocks, blockCount);
+
+        // Initially partition the transitions, into cords, by their labels.
+        Map<Integer, Integer> cordsPerLabel = new HashMap<>();
+        int[] initialCords = new int[transitionCount];
+        for (int transition = 0; transition < transitionCount; transition++) {
+            initialCords[transition] = cordsPerLabel.computeIfAbsent(labels[transition], l -> cordsPerLabel.size());
+        }
+        RefinablePartition cords = new RefinablePartition(initialCords, cordsPerLabel.size());
+
+        // Index the incoming transitions per location.
+        int[] incomingOffsets = new int[stateCount + 1];
+        for (int head: heads) {
+            incomingOffsets[head + 1]++;
+        }
+        for (int state = 0; state < stateCount; state++) {
+            incomingOffsets[state + 1] += incomingOffsets[state];
+        }
+        int[] incomingTransitions = new int[transitionCount];
+        int[] incomingCounts = new int[stateCount];
+        for (int transition = 0; transition < transitionCount; transition++) {
+            int head = heads[transition];
+            incomingTransitions[incomingOffsets[head] + incomingCounts[head]++] = transition;
+        }
+
+        // Refine the partitions until they are stable. Each cord splits the blocks into the locations with and without
+        // a transition in that cord. Each new block in turn splits the cords into the transitions with and without
+        // their head in that block. All initial blocks but the first, and the smaller half of each split block, are
+        // used as splitters.
+        int nextBlock = 1;
+        for (int nextCord = 0; nextCord < cords.getSetCount(); nextCord++) {
+            checkTermination();
+            for (int i = cords.getFirst(nextCord); i < cords.getPast(nextCord); i++) {
+                blocks.mark(tails[cords.getElement(i)]);
+            }
+            blocks.split();
+
+            for (; nextBlock < blocks.getSetCount(); nextBlock++) {
+                for (int i = blocks.getFirst(nextBlock); i < blocks.getPast(nextBlock); i++) {
+                    int state = blocks.getElement(i);
+                    for (int j = incomingOffsets[state]; j < incomingOffsets[state + 1]; j++) {
+                        cords.mark(incomingTransitions[j]);
+                    }
+                }
+                cords.split();
+            }
+        }
+
+        // The pairs of locations are equivalent if they are in the same block.
+        for (int[] statePair: statePairs) {
+            if (blocks.getSet(statePair[0]) != blocks.getSet(offset + statePair[1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkTermination() {
+        if (termination.isRequested()) {
+            throw new RuntimeException(StateAwareWeakLanguageEquivalenceChecker.ERROR_PREFIX
+                    + "termination was requested before completion.");
+        }
+    }
+
+    /**
+     * The weak transitions of a state space that is deterministic modulo tau, in compressed sparse row format.
+     *
+     * @param keys Per location index, the key of its tau closure, or {@code -1} if the locations of its tau closure
+     *     have non-equivalent state annotations. Locations with the same key have equivalent state annotations, and
+     *     either all or none of them can tau-reach a marked location.
+     * @param offsets Per location index, the offset of its weak transitions. Has one extra trailing offset.
+     * @param labels The labels of the weak transitions, grouped by source location.
+     * @param targets The target location indices of the weak transitions, grouped by source location.
+     */
+    record WeakTransitions(int[] keys, int[] offsets, int[] labels, int[] targets) {
+        /**
+         * Gives the number of locations of the state space.
+         *
+         * @return The number of locations.
+         */
+        int size() {
+            return keys.length;
+        }
+
+        /**
+         * Copies the weak transitions into the transition arrays of a disjoint union of state spaces.
+         *
+         * @param stateOffset The offset of the location indices of this state space in the disjoint union.
+         * @param transitionOffset The offset of the transitions of this state space in the disjoint union.
+         * @param unionTails The source location indices of the transitions of the disjoint union.
+         * @param unionLabels The labels of the transitions of the disjoint union.
+         * @param unionHeads The target location indices of the transitions of the disjoint union.
+         */
+        private void copyTo(int stateOffset, int transitionOffset, int[] unionTails, int[] unionLabels,
+                int[] unionHeads)
+        {
+            for (int state = 0; state < size(); state++) {
+                for (int transition = offsets[state]; transition < offsets[state + 1]; transition++) {
+                    unionTails[transitionOffset + transition] = stateOffset + state;
+                    unionLabels[transitionOffset + transition] = labels[transition];
+                    unionHeads[transitionOffset + transition] = stateOffset + targets[transition];
+                }
+            }
+        }
+    }
+
+    /**
+     * A partition of the integers {@code 0} to {@code n - 1} into sets, that can be refined by marking elements and
+     * then splitting the sets into their marked and unmarked elements. The elements are stored grouped by set, with
+     * the marked elements of a set at the start of its range.
+     */
+    private static class RefinablePartition {
+        /** The number of sets. */
+        private int setCount;
+
+        /** The elements, grouped by set. */
+        private final int[] elements;
+
+        /** Per element, its index in {@link #elements}. */
+        private final int[] elementIndices;
+
+        /** Per element, the set that contains it. */
+        private final int[] sets;
+
+        /** Per set, the index of its first element in {@link #elements}. */
+        private final int[] firsts;
+
+        /** Per set, the index just past its last element in {@link #elements}. */
+        private final int[] pasts;
+
+        /** Per set, the number of its marked elements. */
+        private final int[] markedCounts;
+
+        /** The sets that have marked elements. */
+        private final int[] touchedSets;
+
+        /** The number of sets in {@link #touchedSets}. */
+        private int touchedCount;
+
+        /**
+         * Constructs a new refinable partition.
+         *
+         * @param initialSets Per element, its initial set.
+         * @param initialSetCount The number of initial sets. Each initial set must contain at least one element.
+         */
+        private RefinablePartition(int[] initialSets, int initialSetCount) {
+            int elementCount = initialSets.length;
+            this.setCount = initialSetCount;
+            this.elements = new int[elementCount];
+            this.elementIndices = new int[elementCount];
+            this.sets = initialSets.clone();
+            this.firsts = new int[elementCount];
+            this.pasts = new int[elementCount];
+            this.markedCounts = new int[elementCount];
+            this.touchedSets = new int[elementCount];
+
+            // Group the elements by set, in ascending order per set.
+            for (int set: initialSets) {
+                pasts[set]++;
+            }
+            for (int set = 0, first = 0; set < initialSetCount; set++) {
+                firsts[set] = first;
+                first += pasts[set];
+                pasts[set] = firsts[set];
+            }
+            for (int element = 0; element < elementCount; element++) {
+                int index = pasts[initialSets[element]]++;
+                elements[index] = element;
+                elementIndices[element] = index;
+            }
+        }
+
+        private int getSetCount() {
+            return setCount;
+        }
+
+        private int getSet(int element) {
+            return sets[element];
+        }
+
+        private int getFirst(int set) {
+            return firsts[set];
+        }
+
+        private int getPast(int set) {
+            return pasts[set];
+        }
+
+        private int getElement(int index) {
+            return elements[index];
+        }
+
+        /**
+         * Marks an element, by moving it to the marked elements at the start of the range of its set.
+         *
+         * @param element The element to mark.
+         */
+        private void mark(int element) {
+            int set = sets[element];
+            int index = elementIndices[element];
+            int firstUnmarked = firsts[set] + markedCounts[set];
+            if (index < firstUnmarked) {
+                return;
+            }
+
+            elements[index] = elements[firstUnmarked];
+            elementIndices[elements[index]] = index;
+            elements[firstUnmarked] = element;
+            elementIndices[element] = firstUnmarked;
+            if (markedCounts[set]++ == 0) {
+                touchedSets[touchedCount++] = set;
+            }
+        }
+
+        /**
+         * Splits each set with marked elements into its marked and unmarked elements, if both are present. The smaller
+         * of the two becomes a new set. Afterwards, no elements are marked.
+         */
+        private void split() {
+            while (touchedCount > 0) {
+                int set = touchedSets[--touchedCount];
+                int firstUnmarked = firsts[set] + markedCounts[set];
+                markedCounts[set] = 0;
+                if (firstUnmarked == pasts[set]) {
+                    continue;
+                }
+
+                int newSet = setCount++;
+                if (firstUnmarked - firsts[set] <= pasts[set] - firstUnmarked) {
+                    firsts[newSet] = firsts[set];
+                    pasts[newSet] = firstUnmarked;
+                    firsts[set] = firstUnmarked;
+                } else {
+                    pasts[newSet] = pasts[set];
+                    firsts[newSet] = firstUnmarked;
+                    pasts[set] = firstUnmarked;
+                }
+                for (int i = firsts[newSet]; i < pasts[newSet]; i++) {
+                    sets[elements[i]] = newSet;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes snapshots of the intermediate results of a synthesis chain in the background, such that the synthesis chain
+ * can already continue with its next step while they are being written.
+ * <p>
+ * Snapshots are written one after another, in the order they are submitted, by a single background thread. The thread
+ * is only created once there is something to write, and stops when it has been idle for a while. The number of pending
+ * snapshots is bounded, to bound the memory they occupy. Submitting a snapshot blocks while the bound is reached.
+ * Failures to write snapshots are reported by {@link #awaitAll}.
+ * </p>
+ * <p>
+ * A snapshot must be independent of the intermediate result it is a snapshot of, for instance a copy of it, as the
+ * synthesis chain may modify the intermediate result while the snapshot is being written.
+ * </p>
+ */
+class SnapshotWriter {
+    /** The maximum number of snapshots that may be pending, i.e., submitted but not yet written. */
+    private static final int MAX_PENDING_SNAPSHOTS = 4;
+
+    /** The number of seconds after which an idle writer thread stops. */
+    private static final long IDLE_SECONDS = 1;
+
+    /** The executor that writes the snapshots, using at most a single thread. */
+    private final ExecutorService executor = new ThreadPoolExecutor(0, 1, IDLE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "synthml-snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /** The permits for pending snapshots. */
+    private final Semaphore pendingSnapshots = new Semaphore(MAX_PENDING_SNAPSHOTS);
+
+    /** The futures of the snapshots that have been submitted since the last {@link #awaitAll}. */
+    private final List<Future<Void>> futures = new ArrayList<>();
+
+    /**
+     * Submits a snapshot to be written in the background. Blocks while the maximum number of snapshots is pending.
+     *
+     * @param action The action that writes the snapshot.
+     */
+    void submit(SnapshotAction action) {
+        try {
+            pendingSnapshots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for snapshots to be written.", e);
+        }
+
+        try {
+            futures.add(executor.submit(() -> {
+                try {
+                    action.write();
+                    return null;
+                } finally {
+                    pendingSnapshots.release();
+                }
+            }));
+        } catch (RuntimeException e) {
+            pendingSnapshots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for all submitted snapshots to be written. If any of them failed to be written, the failure of the first
+     * of them is rethrown, with the failures of the others as suppressed exceptions.
+     *
+     * @throws IOException In case a snapshot could not be written.
+     */
+    void awaitAll() throws IOException {
+        Throwable failure = null;
+        for (Future<Void> future: futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for snapshots to be written.", e);
+            }
+        }
+        futures.clear();
+
+        if (failure == null) {
+            return;
+        } else if (failure instanceof IOException e) {
+            throw e;
+        } else if (failure instanceof RuntimeException e) {
+            throw e;
+        } else if (failure instanceof Error e) {
+            throw e;
+        } else {
+            throw new RuntimeException("Failed to write snapshot.", failure);
+        }
+    }
+
+    /** An action that writes a snapshot. */
+    @FunctionalInterface
+    interface SnapshotAction {
+        /**
+         * Writes the snapshot.
+         *
+         * @throws IOException In case an I/O error occurs.
+         */
+        void write() throws IOException;
+    }
+}
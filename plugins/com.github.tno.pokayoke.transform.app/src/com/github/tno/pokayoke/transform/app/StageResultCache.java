@@ -0,0 +1,248 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * An on-disk cache of the results of steps of the synthesis chain.
+ * <p>
+ * Each cached result is the output file of a step, and is stored under a key that is a hash of everything that
+ * determines it: the name of the step, the version of the tool that performs it, the settings of the tool, and the
+ * contents of its input files. If a key is present in the cache, the step may thus be skipped and its output file be
+ * restored from the cache instead. The cache may be shared by multiple synthesis chains, including ones that run in
+ * parallel, and by multiple runs.
+ * </p>
+ * <p>
+ * The total size of the cached results is bounded. If it exceeds the bound, the least recently used results are
+ * removed.
+ * </p>
+ */
+class StageResultCache {
+    /** The default maximum total size of the cached results, in bytes. */
+    static final long DEFAULT_MAX_SIZE = 1L << 30;
+
+    /** The version of the cache layout and keys. Must be incremented if cached results become incompatible. */
+    private static final int CACHE_VERSION = 1;
+
+    /** The suffix of the names of the temporary files of results that are being stored. */
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    /** The path to the folder that contains the cached results. */
+    private final Path folderPath;
+
+    /** The maximum total size of the cached results, in bytes. */
+    private final long maxSize;
+
+    /**
+     * Constructs a new stage result cache.
+     *
+     * @param folderPath The path to the folder that contains the cached results. Is created when the first result is
+     *     stored, if it does not yet exist. Only the files directly in the folder are considered to be cached results.
+     *     It may thus contain subfolders with other contents.
+     * @param maxSize The maximum total size of the cached results, in bytes. Must not be negative.
+     */
+    StageResultCache(Path folderPath, long maxSize) {
+        Preconditions.checkArgument(maxSize >= 0, "Expected a non-negative maximum size, but got: " + maxSize);
+        this.folderPath = folderPath;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Computes the key of the result of a step of the synthesis chain.
+     *
+     * @param step The name of the step. Must be a valid file name.
+     * @param tool The class that implements the step. The version of its bundle, if any, is part of the key.
+     * @param settings The settings of the step, excluding the paths of its input and output files.
+     * @param inputPaths The paths to the input files of the step. Their contents are part of the key.
+     * @return The key.
+     * @throws IOException In case an input file could not be read.
+     */
+    static String computeKey(String step, Class<?> tool, List<String> settings, List<Path> inputPaths)
+            throws IOException
+    {
+        MessageDigest digest = createDigest();
+        update(digest, String.valueOf(CACHE_VERSION));
+        update(digest, step);
+        update(digest, getVersion(tool));
+
+        update(digest, String.valueOf(settings.size()));
+        for (String setting: settings) {
+            update(digest, setting);
+        }
+
+        update(digest, String.valueOf(inputPaths.size()));
+        for (Path inputPath: inputPaths) {
+            update(digest, String.valueOf(Files.size(inputPath)));
+            try (InputStream stream = new DigestInputStream(Files.newInputStream(inputPath), digest)) {
+                stream.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+
+        return step + "-" + HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Restores a cached result, if present.
+     *
+     * @param key The key of the result, as computed by {@link #computeKey}.
+     * @param outputPath The path to the output file of the step, to restore the result to.
+     * @return {@code true} if the result was present and has been restored, {@code false} otherwise.
+     * @throws IOException In case the result could not be restored.
+     */
+    boolean restore(String key, Path outputPath) throws IOException {
+        Path cachedPath = folderPath.resolve(key);
+        if (!Files.isRegularFile(cachedPath)) {
+            return false;
+        }
+
+        try {
+            Files.copy(cachedPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
+
+            // Mark the result as recently used.
+            Files.setLastModifiedTime(cachedPath, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            // The result was removed concurrently, for instance by pruning.
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Stores a result in the cache, and prunes the cache if it exceeds its maximum size. The result becomes visible
+     * to others only once it has been stored completely.
+     *
+     * @param key The key of the result, as computed by {@link #computeKey}.
+     * @param outputPath The path to the output file of the step, that contains the result to store.
+     * @throws IOException In case the result could not be stored.
+     */
+    void store(String key, Path outputPath) throws IOException {
+        Files.createDirectories(folderPath);
+        Path temporaryPath = Files.createTempFile(folderPath, key, TEMPORARY_FILE_SUFFIX);
+        try {
+            Files.copy(outputPath, temporaryPath, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(temporaryPath, folderPath.resolve(key), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryPath, folderPath.resolve(key), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+
+        prune();
+    }
+
+    /**
+     * Removes the least recently used results until the total size of the cached results no longer exceeds the
+     * maximum size.
+     *
+     * @throws IOException In case the cache could not be pruned.
+     */
+    private void prune() throws IOException {
+        // Determine the size and last use of each result.
+        List<CacheEntry> entries = new ArrayList<>();
+        long totalSize = 0;
+        try (DirectoryStream<Path> entryPaths = Files.newDirectoryStream(folderPath)) {
+            for (Path entryPath: entryPaths) {
+                if (entryPath.getFileName().toString().endsWith(TEMPORARY_FILE_SUFFIX)) {
+                    continue;
+                }
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(entryPath, BasicFileAttributes.class);
+                    if (attributes.isRegularFile()) {
+                        entries.add(new CacheEntry(entryPath, attributes.lastModifiedTime(), attributes.size()));
+                        totalSize += attributes.size();
+                    }
+                } catch (NoSuchFileException e) {
+                    // The result was removed concurrently.
+                }
+            }
+        }
+
+        // Remove the least recently used results, until the cache is small enough.
+        entries.sort(Comparator.comparing(CacheEntry::lastUsed));
+        for (CacheEntry entry: entries) {
+            if (totalSize <= maxSize) {
+                break;
+            }
+            Files.deleteIfExists(entry.path());
+            totalSize -= entry.size();
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to create a SHA-256 message digest.", e);
+        }
+    }
+
+    /**
+     * Updates the given digest with the given text, prefixed with its length, such that consecutive texts can't be
+     * confused.
+     *
+     * @param digest The digest to update.
+     * @param text The text.
+     */
+    private static void update(MessageDigest digest, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    /**
+     * Gives the version of the bundle that contains the given class.
+     *
+     * @param tool The class.
+     * @return The version of the bundle, or {@code "unknown"} if the class is not part of a bundle.
+     */
+    private static String getVersion(Class<?> tool) {
+        Bundle bundle = FrameworkUtil.getBundle(tool);
+        return (bundle == null) ? "unknown" : bundle.getSymbolicName() + "_" + bundle.getVersion();
+    }
+
+    /**
+     * A cached result.
+     *
+     * @param path The path to the file of the result.
+     * @param lastUsed The time the result was last used.
+     * @param size The size of the result, in bytes.
+     */
+    private record CacheEntry(Path path, FileTime lastUsed, long size) {
+    }
+}
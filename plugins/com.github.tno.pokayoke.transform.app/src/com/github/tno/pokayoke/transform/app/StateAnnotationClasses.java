@@ -0,0 +1,51 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.escet.cif.metamodel.cif.annotations.Annotation;
+import org.eclipse.escet.cif.metamodel.cif.automata.Location;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Equivalence classes of state annotations, for the {@link StateAwareWeakLanguageEquivalenceChecker}. State
+ * annotations are interned by their {@link StateAnnotationEqHashWrap evaluated arguments}, and each distinct state
+ * annotation gets a small integer class id. Two state annotations are thus equivalent if and only if they have the
+ * same class id, also if they belong to different state spaces, as long as they are interned by the same instance.
+ */
+class StateAnnotationClasses {
+    /** Per distinct state annotation, its class id. */
+    private final Map<StateAnnotationEqHashWrap, Integer> classIds = new HashMap<>();
+
+    /**
+     * Interns the state annotations of all locations of a state space. Each state annotation is evaluated only once.
+     *
+     * @param stateSpace The state space.
+     * @param stateAnnotations The map from locations of the state space to their filtered state annotations.
+     * @return Per location index, the class id of the state annotation of that location.
+     */
+    int[] intern(IndexedStateSpace stateSpace, Map<Location, Annotation> stateAnnotations) {
+        int[] locationClassIds = new int[stateSpace.size()];
+        for (int i = 0; i < locationClassIds.length; i++) {
+            Location location = stateSpace.getLocation(i);
+            Annotation annotation = stateAnnotations.get(location);
+            Preconditions.checkArgument(annotation != null, String.format(
+                    "Expected state '%s' of state space '%s' to have a state annotation.", location.getName(),
+                    stateSpace.getAutomaton().getName()));
+            locationClassIds[i] = classIds.computeIfAbsent(new StateAnnotationEqHashWrap(annotation),
+                    wrapper -> classIds.size());
+        }
+        return locationClassIds;
+    }
+}
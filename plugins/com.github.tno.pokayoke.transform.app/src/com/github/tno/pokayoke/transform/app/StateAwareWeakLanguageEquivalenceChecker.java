@@ -12,7 +12,8 @@ package com.github.tno.pokayoke.transform.app;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -21,10 +22,14 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.eclipse.escet.cif.common.CifEdgeUtils;
-import org.eclipse.escet.cif.common.CifEventUtils;
 import org.eclipse.escet.cif.common.CifTextUtils;
 import org.eclipse.escet.cif.eventbased.automata.AutomatonHelper;
 import org.eclipse.escet.cif.metamodel.cif.annotations.Annotation;
@@ -33,8 +38,11 @@ import org.eclipse.escet.cif.metamodel.cif.automata.Edge;
 import org.eclipse.escet.cif.metamodel.cif.automata.Location;
 import org.eclipse.escet.cif.metamodel.cif.declarations.Event;
 import org.eclipse.escet.common.java.Pair;
+import org.eclipse.escet.common.java.Termination;
 
 import com.github.tno.pokayoke.transform.activitysynthesis.CifLocationHelper;
+import com.github.tno.pokayoke.transform.app.IndexedStateSpace.IntList;
+import com.github.tno.pokayoke.transform.app.PartitionRefinementChecker.WeakTransitions;
 import com.google.common.base.Verify;
 
 /**
@@ -45,6 +53,48 @@ import com.google.common.base.Verify;
 public class StateAwareWeakLanguageEquivalenceChecker {
     protected static final String ERROR_PREFIX = "Language equivalence check failed: ";
 
+    /** The minimum number of pairs of a level of the breadth-first search, to expand them in parallel. */
+    private static final int MIN_PARALLEL_LEVEL_SIZE = 64;
+
+    /** The value of the visited pairs that are placed in a level of the breadth-first search. */
+    private static final int PLACED = -1;
+
+    /** The termination of the check. */
+    private final Termination termination;
+
+    /** The mode of the check. */
+    private final LanguageEquivalenceCheckMode mode;
+
+    /**
+     * Constructs a new state-aware weak-language equivalence checker, that always checks to completion, and
+     * automatically selects its mode.
+     */
+    public StateAwareWeakLanguageEquivalenceChecker() {
+        this(Termination.NEVER);
+    }
+
+    /**
+     * Constructs a new state-aware weak-language equivalence checker, that automatically selects its mode.
+     *
+     * @param termination The termination of the check. If termination is requested during a check, the check fails
+     *     without a conclusion.
+     */
+    public StateAwareWeakLanguageEquivalenceChecker(Termination termination) {
+        this(termination, LanguageEquivalenceCheckMode.AUTOMATIC);
+    }
+
+    /**
+     * Constructs a new state-aware weak-language equivalence checker.
+     *
+     * @param termination The termination of the check. If termination is requested during a check, the check fails
+     *     without a conclusion.
+     * @param mode The mode of the check.
+     */
+    public StateAwareWeakLanguageEquivalenceChecker(Termination termination, LanguageEquivalenceCheckMode mode) {
+        this.termination = termination;
+        this.mode = mode;
+    }
+
     /**
      * Checks whether two CIF state space automata are weak-language equivalent, considering state annotations.
      *
@@ -98,98 +148,302 @@ public class StateAwareWeakLanguageEquivalenceChecker {
         checkNoBlockingStates(stateSpace1, markedStates1, stateToIncomingTrans1);
         checkNoBlockingStates(stateSpace2, markedStates2, stateToIncomingTrans2);
 
+        // Compile both state spaces into an integer-indexed representation. The paired events are labeled by their
+        // index in the set of paired events.
+        List<Pair<List<Event>, List<Event>>> pairedEventsList = new ArrayList<>(pairedEvents);
+        IndexedStateSpace indexedStateSpace1 = new IndexedStateSpace(stateSpace1, tauEvents1,
+                pairedEventsList.stream().map(p -> p.left).toList());
+        IndexedStateSpace indexedStateSpace2 = new IndexedStateSpace(stateSpace2, tauEvents2,
+                pairedEventsList.stream().map(p -> p.right).toList());
+
+        // Intern the state annotations of both state spaces into shared equivalence classes, such that each state
+        // annotation is evaluated only once, and states can be compared by their class ids.
+        StateAnnotationClasses annotationClasses = new StateAnnotationClasses();
+        int[] annotationClasses1 = annotationClasses.intern(indexedStateSpace1, stateAnnotations1);
+        int[] annotationClasses2 = annotationClasses.intern(indexedStateSpace2, stateAnnotations2);
+
         // Initialize queue.
-        Queue<Pair<Set<Location>, Set<Location>>> queue = initializeQueue(stateSpace1, stateAnnotations1, stateSpace2,
-                stateAnnotations2);
+        Queue<SubsetPair> queue = new ArrayDeque<>();
+        for (Pair<Set<Location>, Set<Location>> initialPair: initializeQueue(indexedStateSpace1, annotationClasses1,
+                indexedStateSpace2, annotationClasses2))
+        {
+            queue.add(new SubsetPair(initialPair.left.stream().mapToInt(indexedStateSpace1::getIndex).toArray(),
+                    initialPair.right.stream().mapToInt(indexedStateSpace2::getIndex).toArray()));
+        }
 
-        Set<Pair<Set<Location>, Set<Location>>> visitedPairs = new LinkedHashSet<>();
-        visitedPairs.addAll(queue);
+        // If both state spaces are deterministic modulo tau, try to prove their equivalence by partition refinement.
+        // Subset construction is still used to find the counterexample if they are not equivalent, such that it is
+        // reported in the same way in all modes.
+        if (mode != LanguageEquivalenceCheckMode.SUBSET_CONSTRUCTION && checkByPartitionRefinement(indexedStateSpace1,
+                annotationClasses1, indexedStateSpace2, annotationClasses2, queue))
+        {
+            return;
+        }
 
-        // Get absolute names of tau events.
-        Set<String> absNamesTauEvents1 = tauEvents1.stream().map(e -> CifTextUtils.getAbsName(e))
-                .collect(Collectors.toSet());
-        Set<String> absNamesTauEvents2 = tauEvents2.stream().map(e -> CifTextUtils.getAbsName(e))
-                .collect(Collectors.toSet());
+        // Explore the pairs level by level, in breadth-first order. The pairs of a level are expanded in parallel, if
+        // there are enough of them. While a level is expanded, the visited pairs map each newly reached pair to the
+        // index of the first pair of the level that reaches it. The newly reached pairs are then placed in the next
+        // level in that order, such that the levels, and thereby the reported counterexample, are the same as when
+        // expanding the pairs one after another. Placed pairs map to PLACED.
+        Map<SubsetPairKey, Integer> visitedPairs = new ConcurrentHashMap<>();
+        queue.forEach(pair -> visitedPairs.put(new SubsetPairKey(pair), PLACED));
+        List<SubsetPair> initialLevel = new ArrayList<>(queue);
+        List<SubsetPair> level = initialLevel;
+        List<LevelOrigins> levelOrigins = new ArrayList<>();
+
+        while (!level.isEmpty()) {
+            List<SubsetPair> currentLevel = level;
+            AtomicReferenceArray<List<Successor>> successors = new AtomicReferenceArray<>(currentLevel.size());
+            AtomicReferenceArray<RuntimeException> failures = new AtomicReferenceArray<>(currentLevel.size());
+            AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+            AtomicBoolean terminated = new AtomicBoolean();
+
+            IntStream indices = IntStream.range(0, currentLevel.size());
+            if (currentLevel.size() >= MIN_PARALLEL_LEVEL_SIZE) {
+                indices = indices.parallel();
+            }
+            indices.forEach(i -> {
+                // Stop cooperatively once a pair earlier in the level has failed, or termination is requested.
+                if (i > firstFailure.get() || terminated.get()) {
+                    return;
+                }
+                if (termination.isRequested()) {
+                    terminated.set(true);
+                    return;
+                }
 
-        while (!queue.isEmpty()) {
-            // Pop first element of the queue.
-            Pair<Set<Location>, Set<Location>> currentPair = queue.remove();
-
-            // Compute tau-reachable states from the current pair.
-            Set<Location> tauReachableStates1 = getTauReachableStates(currentPair.left, absNamesTauEvents1);
-            Set<Location> tauReachableStates2 = getTauReachableStates(currentPair.right, absNamesTauEvents2);
-
-            // Sanity check: the states should represent the same external state, since tau transitions may only
-            // change internal state.
-            checkAllEquivalentStates(tauReachableStates1, stateAnnotations1, stateSpace1);
-            checkAllEquivalentStates(tauReachableStates2, stateAnnotations2, stateSpace2);
-
-            // Check if any tau reachable state is marked, for both state spaces.
-            List<String> reachableMarked1 = tauReachableStates1.stream().filter(markedStates1::contains)
-                    .map(Location::getName).toList();
-            List<String> reachableMarked2 = tauReachableStates2.stream().filter(markedStates2::contains)
-                    .map(Location::getName).toList();
-            if (reachableMarked1.isEmpty() != reachableMarked2.isEmpty()) {
-                if (reachableMarked1.isEmpty()) {
-                    throw new RuntimeException(ERROR_PREFIX + "the state space '" + stateSpace2.getName()
-                            + "' tau-reached marked state(s) " + String.join(", ", reachableMarked2)
-                            + " from the tau-reachable set {"
-                            + String.join(", ", tauReachableStates2.stream().map(l -> l.getName()).toList())
-                            + "}, while the state space " + stateSpace1.getName()
-                            + " has not reached any marked state within {"
-                            + String.join(", ", tauReachableStates1.stream().map(l -> l.getName()).toList()) + "}.");
-                } else {
-                    throw new RuntimeException(ERROR_PREFIX + "the state space '" + stateSpace1.getName()
-                            + "' tau-reached marked state(s) " + String.join(", ", reachableMarked1)
-                            + " from the tau-reachable set {"
-                            + String.join(", ", tauReachableStates1.stream().map(l -> l.getName()).toList())
-                            + "}, while the state space " + stateSpace2.getName()
-                            + " has not reached any marked state within {"
-                            + String.join(", ", tauReachableStates2.stream().map(l -> l.getName()).toList()) + "}.");
+                try {
+                    SubsetPair[] nextPairs = expand(currentLevel.get(i), false, indexedStateSpace1,
+                            annotationClasses1, indexedStateSpace2, annotationClasses2, pairedEventsList);
+                    List<Successor> pairSuccessors = new ArrayList<>();
+                    for (int label = 0; label < nextPairs.length; label++) {
+                        if (nextPairs[label] != null) {
+                            SubsetPairKey nextKey = new SubsetPairKey(nextPairs[label]);
+                            visitedPairs.merge(nextKey, i, Math::min);
+                            pairSuccessors.add(new Successor(nextPairs[label], nextKey, label));
+                        }
+                    }
+                    successors.set(i, pairSuccessors);
+                } catch (RuntimeException e) {
+                    failures.set(i, e);
+                    firstFailure.accumulateAndGet(i, Math::min);
                 }
+            });
+
+            if (terminated.get()) {
+                throw new RuntimeException(ERROR_PREFIX + "termination was requested before completion.");
             }
 
-            // Check that the pair of sets of tau reached states is equivalent.
-            if (!areEquivalentStates(tauReachableStates1.iterator().next(), stateAnnotations1,
-                    tauReachableStates2.iterator().next(), stateAnnotations2))
-            {
-                throw new RuntimeException(ERROR_PREFIX + "the two models can reach non-equivalent states: "
-                        + String.format("state '%s' of the first model, and state '%s' of the second model.",
-                                tauReachableStates1.iterator().next().getName(),
-                                tauReachableStates2.iterator().next().getName()));
+            // Report the counterexample of the first failed pair of the level, as all pairs before it have passed.
+            if (firstFailure.get() != Integer.MAX_VALUE) {
+                throw reportFailure(initialLevel, levelOrigins, firstFailure.get(), failures.get(firstFailure.get()),
+                        indexedStateSpace1, annotationClasses1, indexedStateSpace2, annotationClasses2,
+                        pairedEventsList);
             }
 
-            // The pair of states is equivalent. Check also all pairs of states reachable from this pair.
-            for (Pair<List<Event>, List<Event>> events: pairedEvents) {
-                Set<Location> targetStates1 = getNextStates(tauReachableStates1, events.left);
-                Set<Location> targetStates2 = getNextStates(tauReachableStates2, events.right);
-
-                // If one set of states can reach some target with this event, but the other set cannot reach any,
-                // the two models are different. Note that this is different from checking the sizes of the target
-                // sets, which can be different. This works only if the size of one is zero while the size of the
-                // other is not zero.
-                if (targetStates1.isEmpty() != targetStates2.isEmpty()) {
-                    throw new RuntimeException(ERROR_PREFIX + String.format(
-                            "the events %s from states %s of the state space '%s' and the "
-                                    + "events %s from states %s of the state space '%s' reach different states.",
-                            String.join(", ", events.left.stream().map(Event::getName).toList()),
-                            String.join(", ", tauReachableStates1.stream().map(s -> s.getName()).toList()),
-                            stateSpace1.getName(),
-                            String.join(", ", events.right.stream().map(Event::getName).toList()),
-                            String.join(", ", tauReachableStates2.stream().map(s -> s.getName()).toList()),
-                            stateSpace2.getName()));
-                } else if (targetStates1.size() > 0) {
-                    // Add the next pair to the queue, if not already visited.
-                    Pair<Set<Location>, Set<Location>> nextPair = new Pair<>(targetStates1, targetStates2);
-                    if (!visitedPairs.contains(nextPair)) {
-                        visitedPairs.add(nextPair);
-                        queue.add(nextPair);
+            // Place the newly reached pairs in the next level, and record from where they were reached.
+            level = new ArrayList<>();
+            IntList parents = new IntList();
+            IntList labels = new IntList();
+            for (int i = 0; i < currentLevel.size(); i++) {
+                for (Successor successor: successors.get(i)) {
+                    if (visitedPairs.replace(successor.key(), i, PLACED)) {
+                        level.add(successor.pair());
+                        parents.add(i);
+                        labels.add(successor.label());
                     }
                 }
             }
+            levelOrigins.add(new LevelOrigins(parents.toArray(), labels.toArray()));
         }
     }
 
+    /**
+     * Gives the failure to report for a pair of sets of states that is not equivalent.
+     * <p>
+     * The search expands the pairs using the memoized tau closures, which give the same sets of states, but not in the
+     * order in which they are discovered. The failed pair is therefore reconstructed along the path by which it was
+     * first reached, expanding each pair on the path with its tau-reachable states in discovery order. The failure of
+     * the reconstructed pair then reports the states in the same order as they are discovered.
+     * </p>
+     *
+     * @param initialLevel The initial pairs of sets of states.
+     * @param levelOrigins Per level after the initial one, the origins of its pairs.
+     * @param index The index of the failed pair in its level.
+     * @param failure The failure of the pair.
+     * @param indexedStateSpace1 The first state space.
+     * @param annotationClasses1 Per location index of the first state space, the class id of its state annotation.
+     * @param indexedStateSpace2 The second state space.
+     * @param annotationClasses2 Per location index of the second state space, the class id of its state annotation.
+     * @param pairedEventsList The pairs of corresponding (lists of) events, per label.
+     * @return The failure to report.
+     */
+    private RuntimeException reportFailure(List<SubsetPair> initialLevel, List<LevelOrigins> levelOrigins, int index,
+            RuntimeException failure, IndexedStateSpace indexedStateSpace1, int[] annotationClasses1,
+            IndexedStateSpace indexedStateSpace2, int[] annotationClasses2,
+            List<Pair<List<Event>, List<Event>>> pairedEventsList)
+    {
+        // Find the labels of the path from an initial pair to the failed pair.
+        int[] pathLabels = new int[levelOrigins.size()];
+        for (int level = levelOrigins.size() - 1; level >= 0; level--) {
+            pathLabels[level] = levelOrigins.get(level).labels()[index];
+            index = levelOrigins.get(level).parents()[index];
+        }
+
+        // Reconstruct the failed pair along the path, and expand it again to get its failure.
+        try {
+            SubsetPair pair = initialLevel.get(index);
+            for (int label: pathLabels) {
+                pair = expand(pair, true, indexedStateSpace1, annotationClasses1, indexedStateSpace2,
+                        annotationClasses2, pairedEventsList)[label];
+            }
+            expand(pair, true, indexedStateSpace1, annotationClasses1, indexedStateSpace2, annotationClasses2,
+                    pairedEventsList);
+        } catch (RuntimeException e) {
+            return e;
+        }
+        return failure;
+    }
+
+    /**
+     * Checks a pair of sets of states for equivalence, and gives the pairs of sets of states reachable from it.
+     *
+     * @param currentPair The pair of sets of states to check.
+     * @param inDiscoveryOrder Whether to use the tau-reachable states in the order in which they are discovered, to
+     *     report the failure of the pair, or to use the memoized tau closures, to efficiently check the pair.
+     * @param indexedStateSpace1 The first state space.
+     * @param annotationClasses1 Per location index of the first state space, the class id of its state annotation.
+     * @param indexedStateSpace2 The second state space.
+     * @param annotationClasses2 Per location index of the second state space, the class id of its state annotation.
+     * @param pairedEventsList The pairs of corresponding (lists of) events, per label.
+     * @return Per label, the pair of sets of states reachable from the pair with that label, or {@code null} if no
+     *     states are reachable with that label.
+     * @throws RuntimeException If the pair of sets of states is not equivalent.
+     */
+    private SubsetPair[] expand(SubsetPair currentPair, boolean inDiscoveryOrder,
+            IndexedStateSpace indexedStateSpace1, int[] annotationClasses1, IndexedStateSpace indexedStateSpace2,
+            int[] annotationClasses2, List<Pair<List<Event>, List<Event>>> pairedEventsList)
+    {
+        Automaton stateSpace1 = indexedStateSpace1.getAutomaton();
+        Automaton stateSpace2 = indexedStateSpace2.getAutomaton();
+
+        // Compute tau-reachable states from the current pair.
+        int[] tauReachableStates1 = inDiscoveryOrder
+                ? indexedStateSpace1.getTauReachableStatesInDiscoveryOrder(currentPair.states1())
+                : indexedStateSpace1.getTauReachableStates(currentPair.states1());
+        int[] tauReachableStates2 = inDiscoveryOrder
+                ? indexedStateSpace2.getTauReachableStatesInDiscoveryOrder(currentPair.states2())
+                : indexedStateSpace2.getTauReachableStates(currentPair.states2());
+
+        // Sanity check: the states should represent the same external state, since tau transitions may only
+        // change internal state.
+        checkAllEquivalentStates(tauReachableStates1, annotationClasses1, indexedStateSpace1);
+        checkAllEquivalentStates(tauReachableStates2, annotationClasses2, indexedStateSpace2);
+
+        // Check if any tau reachable state is marked, for both state spaces.
+        List<String> reachableMarked1 = indexedStateSpace1
+                .getNames(Arrays.stream(tauReachableStates1).filter(indexedStateSpace1::isMarked).toArray());
+        List<String> reachableMarked2 = indexedStateSpace2
+                .getNames(Arrays.stream(tauReachableStates2).filter(indexedStateSpace2::isMarked).toArray());
+        if (reachableMarked1.isEmpty() != reachableMarked2.isEmpty()) {
+            if (reachableMarked1.isEmpty()) {
+                throw new RuntimeException(ERROR_PREFIX + "the state space '" + stateSpace2.getName()
+                        + "' tau-reached marked state(s) " + String.join(", ", reachableMarked2)
+                        + " from the tau-reachable set {"
+                        + String.join(", ", indexedStateSpace2.getNames(tauReachableStates2))
+                        + "}, while the state space " + stateSpace1.getName()
+                        + " has not reached any marked state within {"
+                        + String.join(", ", indexedStateSpace1.getNames(tauReachableStates1)) + "}.");
+            } else {
+                throw new RuntimeException(ERROR_PREFIX + "the state space '" + stateSpace1.getName()
+                        + "' tau-reached marked state(s) " + String.join(", ", reachableMarked1)
+                        + " from the tau-reachable set {"
+                        + String.join(", ", indexedStateSpace1.getNames(tauReachableStates1))
+                        + "}, while the state space " + stateSpace2.getName()
+                        + " has not reached any marked state within {"
+                        + String.join(", ", indexedStateSpace2.getNames(tauReachableStates2)) + "}.");
+            }
+        }
+
+        // Check that the pair of sets of tau reached states is equivalent. States are equivalent if their
+        // annotations are equivalent.
+        if (annotationClasses1[tauReachableStates1[0]] != annotationClasses2[tauReachableStates2[0]]) {
+            Location firstState1 = indexedStateSpace1.getLocation(tauReachableStates1[0]);
+            Location firstState2 = indexedStateSpace2.getLocation(tauReachableStates2[0]);
+            throw new RuntimeException(ERROR_PREFIX + "the two models can reach non-equivalent states: "
+                    + String.format("state '%s' of the first model, and state '%s' of the second model.",
+                            firstState1.getName(), firstState2.getName()));
+        }
+
+        // The pair of states is equivalent. Check also all pairs of states reachable from this pair.
+        int[][] nextStates1 = indexedStateSpace1.getNextStates(tauReachableStates1);
+        int[][] nextStates2 = indexedStateSpace2.getNextStates(tauReachableStates2);
+        SubsetPair[] nextPairs = new SubsetPair[pairedEventsList.size()];
+        for (int label = 0; label < pairedEventsList.size(); label++) {
+            int[] targetStates1 = nextStates1[label];
+            int[] targetStates2 = nextStates2[label];
+
+            // If one set of states can reach some target with this event, but the other set cannot reach any,
+            // the two models are different. Note that this is different from checking the sizes of the target
+            // sets, which can be different. This works only if the size of one is zero while the size of the
+            // other is not zero.
+            if ((targetStates1.length == 0) != (targetStates2.length == 0)) {
+                Pair<List<Event>, List<Event>> events = pairedEventsList.get(label);
+                throw new RuntimeException(ERROR_PREFIX + String.format(
+                        "the events %s from states %s of the state space '%s' and the "
+                                + "events %s from states %s of the state space '%s' reach different states.",
+                        String.join(", ", events.left.stream().map(Event::getName).toList()),
+                        String.join(", ", indexedStateSpace1.getNames(tauReachableStates1)),
+                        stateSpace1.getName(),
+                        String.join(", ", events.right.stream().map(Event::getName).toList()),
+                        String.join(", ", indexedStateSpace2.getNames(tauReachableStates2)),
+                        stateSpace2.getName()));
+            } else if (targetStates1.length > 0) {
+                nextPairs[label] = new SubsetPair(targetStates1, targetStates2);
+            }
+        }
+        return nextPairs;
+    }
+
+    /**
+     * Checks whether two state spaces are equivalent using partition refinement, if both are deterministic modulo tau.
+     *
+     * @param indexedStateSpace1 The first state space.
+     * @param annotationClasses1 Per location index of the first state space, the class id of its state annotation.
+     * @param indexedStateSpace2 The second state space.
+     * @param annotationClasses2 Per location index of the second state space, the class id of its state annotation.
+     * @param initialPairs The initial pairs of sets of states.
+     * @return {@code true} if the state spaces are equivalent, {@code false} if they are not equivalent or if the
+     *     automatic mode is used and not both state spaces are deterministic modulo tau.
+     */
+    private boolean checkByPartitionRefinement(IndexedStateSpace indexedStateSpace1, int[] annotationClasses1,
+            IndexedStateSpace indexedStateSpace2, int[] annotationClasses2, Collection<SubsetPair> initialPairs)
+    {
+        PartitionRefinementChecker checker = new PartitionRefinementChecker(termination);
+        WeakTransitions transitions1 = null;
+        WeakTransitions transitions2 = null;
+        if (initialPairs.stream().allMatch(p -> p.states1().length == 1)) {
+            transitions1 = checker.computeWeakTransitions(indexedStateSpace1, annotationClasses1);
+        }
+        if (transitions1 != null && initialPairs.stream().allMatch(p -> p.states2().length == 1)) {
+            transitions2 = checker.computeWeakTransitions(indexedStateSpace2, annotationClasses2);
+        }
+
+        if (transitions1 == null || transitions2 == null) {
+            if (mode == LanguageEquivalenceCheckMode.AUTOMATIC) {
+                return false;
+            }
+            Automaton stateSpace = ((transitions1 == null) ? indexedStateSpace1 : indexedStateSpace2).getAutomaton();
+            throw new RuntimeException(ERROR_PREFIX + String.format(
+                    "partition refinement requires state space '%s' to be deterministic modulo tau.",
+                    stateSpace.getName()));
+        }
+
+        int[][] statePairs = initialPairs.stream().map(p -> new int[] {p.states1()[0], p.states2()[0]})
+                .toArray(int[][]::new);
+        return checker.areEquivalent(transitions1, transitions2, statePairs);
+    }
+
     private void checkDisjointEventSets(Set<Event> set1, Set<Event> set2, String stateSpaceName) {
         Set<String> absNamesEventsSet1 = set1.stream().map(e -> CifTextUtils.getAbsName(e)).collect(Collectors.toSet());
         Set<String> absNamesEventsSet2 = set2.stream().map(e -> CifTextUtils.getAbsName(e)).collect(Collectors.toSet());
@@ -250,36 +504,36 @@ public class StateAwareWeakLanguageEquivalenceChecker {
         }
     }
 
-    private Queue<Pair<Set<Location>, Set<Location>>> initializeQueue(Automaton stateSpace1,
-            Map<Location, Annotation> annotations1, Automaton stateSpace2, Map<Location, Annotation> annotations2)
+    private Queue<Pair<Set<Location>, Set<Location>>> initializeQueue(IndexedStateSpace indexedStateSpace1,
+            int[] annotationClasses1, IndexedStateSpace indexedStateSpace2, int[] annotationClasses2)
     {
+        Automaton stateSpace1 = indexedStateSpace1.getAutomaton();
+        Automaton stateSpace2 = indexedStateSpace2.getAutomaton();
         Queue<Pair<Set<Location>, Set<Location>>> queue = new LinkedList<>();
-        Map<StateAnnotationEqHashWrap, List<Location>> annotationsToStates = new LinkedHashMap<>();
+        Map<Integer, List<Location>> annotationsToStates = new LinkedHashMap<>();
 
         // Find initial states of the first state space.
         Set<Location> initialStates1 = new LinkedHashSet<>();
-        for (Location state: stateSpace1.getLocations()) {
-            if (CifLocationHelper.isInitial(state)) {
+        for (int i = 0; i < indexedStateSpace1.size(); i++) {
+            if (indexedStateSpace1.isInitial(i)) {
+                Location state = indexedStateSpace1.getLocation(i);
                 initialStates1.add(state);
-                annotationsToStates
-                        .computeIfAbsent(new StateAnnotationEqHashWrap(annotations1.get(state)), k -> new ArrayList<>())
-                        .add(state);
+                annotationsToStates.computeIfAbsent(annotationClasses1[i], k -> new ArrayList<>()).add(state);
             }
         }
 
         // Find initial states of the second state space.
         Set<Location> initialStates2 = new LinkedHashSet<>();
-        for (Location state: stateSpace2.getLocations()) {
-            if (CifLocationHelper.isInitial(state)) {
+        for (int i = 0; i < indexedStateSpace2.size(); i++) {
+            if (indexedStateSpace2.isInitial(i)) {
+                Location state = indexedStateSpace2.getLocation(i);
                 initialStates2.add(state);
-                annotationsToStates
-                        .computeIfAbsent(new StateAnnotationEqHashWrap(annotations2.get(state)), k -> new ArrayList<>())
-                        .add(state);
+                annotationsToStates.computeIfAbsent(annotationClasses2[i], k -> new ArrayList<>()).add(state);
             }
         }
 
         // For each equivalent annotation, create a pair containing states of the first and second state space.
-        for (Entry<StateAnnotationEqHashWrap, List<Location>> annotationToState: annotationsToStates.entrySet()) {
+        for (Entry<Integer, List<Location>> annotationToState: annotationsToStates.entrySet()) {
             queue.add(new Pair<>(
                     annotationToState.getValue().stream().filter(s -> initialStates1.contains(s))
                             .collect(Collectors.toCollection(LinkedHashSet::new)),
@@ -318,77 +572,90 @@ public class StateAwareWeakLanguageEquivalenceChecker {
         return queue;
     }
 
-    private boolean areEquivalentStates(Location state1, Map<Location, Annotation> stateAnnotations1, Location state2,
-            Map<Location, Annotation> stateAnnotations2)
-    {
-        // States are equivalent if their annotations are equivalent.
-        return areEquivalentAnnotations(stateAnnotations1.get(state1), stateAnnotations2.get(state2));
-    }
-
-    private boolean areEquivalentAnnotations(Annotation ann1, Annotation ann2) {
-        StateAnnotationEqHashWrap annotationWrapped1 = new StateAnnotationEqHashWrap(ann1);
-        StateAnnotationEqHashWrap annotationWrapped2 = new StateAnnotationEqHashWrap(ann2);
-        return annotationWrapped1.equals(annotationWrapped2);
-    }
-
-    private Set<Location> getTauReachableStates(Set<Location> states, Set<String> tauEvents) {
-        Set<Location> visited = new LinkedHashSet<>(states);
-        Queue<Location> queue = new LinkedList<>(states);
-
-        while (!queue.isEmpty()) {
-            Location currentState = queue.remove();
-
-            for (Edge transition: currentState.getEdges()) {
-                Set<Event> eventsOnTrans = CifEventUtils.getEvents(transition);
-                for (Event eventOnTrans: eventsOnTrans) {
-                    if (tauEvents.contains(CifTextUtils.getAbsName(eventOnTrans))) {
-                        // Add target state if not yet visited.
-                        Location target = CifEdgeUtils.getTarget(transition);
-                        if (!visited.contains(target)) {
-                            queue.add(target);
-                            visited.add(target);
-                        }
-                    }
-                }
-            }
-        }
-        return visited;
-    }
-
-    private void checkAllEquivalentStates(Set<Location> states, Map<Location, Annotation> stateAnnotations,
-            Automaton stateSpace)
-    {
+    private void checkAllEquivalentStates(int[] states, int[] annotationClasses, IndexedStateSpace stateSpace) {
         // Find if the states of the set are all equivalent. Pick the first state, and compare it to all the others: if
         // there is one non-equivalent state, throws an error.
-        Iterator<Location> statesIter = states.iterator();
-        Location firstState = statesIter.next();
-        Annotation firstStateAnnotation = stateAnnotations.get(firstState);
+        int firstStateClass = annotationClasses[states[0]];
 
-        while (statesIter.hasNext()) {
-            Location currentState = statesIter.next();
-            if (!areEquivalentAnnotations(firstStateAnnotation, stateAnnotations.get(currentState))) {
+        for (int i = 1; i < states.length; i++) {
+            if (annotationClasses[states[i]] != firstStateClass) {
+                Location firstState = stateSpace.getLocation(states[0]);
+                Location currentState = stateSpace.getLocation(states[i]);
                 throw new RuntimeException(ERROR_PREFIX + String.format(
                         "states '%s' and '%s' of state space '%s' can be reached with an internal action, but are not equivalent.",
-                        firstState.getName(), currentState.getName(), stateSpace.getName()));
+                        firstState.getName(), currentState.getName(), stateSpace.getAutomaton().getName()));
             }
         }
     }
 
-    private Set<Location> getNextStates(Set<Location> sourceStates, List<Event> events) {
-        Set<String> eventsAbsNames = events.stream().map(e -> CifTextUtils.getAbsName(e)).collect(Collectors.toSet());
-        Set<Location> nextStates = new LinkedHashSet<>();
+    /**
+     * A pair of sets of states, one of each state space, to check for equivalence.
+     *
+     * @param states1 The indices of the distinct states of the first state space.
+     * @param states2 The indices of the distinct states of the second state space.
+     */
+    private record SubsetPair(int[] states1, int[] states2) {
+    }
 
-        for (Location state: sourceStates) {
-            for (Edge transition: state.getEdges()) {
-                Set<Event> eventsOnTransition = CifEventUtils.getEvents(transition);
-                for (Event event: eventsOnTransition) {
-                    // Comparison is by name, since the events might be different object.
-                    if (eventsAbsNames.contains(CifTextUtils.getAbsName(event))) {
-                        nextStates.add(CifEdgeUtils.getTarget(transition));
-                    }
-                }
+    /**
+     * A pair of sets of states reached from a pair of sets of states.
+     *
+     * @param pair The reached pair of sets of states.
+     * @param key The key of the reached pair.
+     * @param label The label with which the pair is reached.
+     */
+    private record Successor(SubsetPair pair, SubsetPairKey key, int label) {
+    }
+
+    /**
+     * The origins of the pairs of sets of states of a level of the breadth-first search, i.e., from where they were
+     * first reached.
+     *
+     * @param parents Per pair of the level, the index of the pair of the previous level from which it was reached.
+     * @param labels Per pair of the level, the label with which it was reached.
+     */
+    private record LevelOrigins(int[] parents, int[] labels) {
+    }
+
+    /** Key of a {@link SubsetPair}, that disregards the order of the states within each set. */
+    private static class SubsetPairKey {
+        /** The sorted indices of the states of the first state space. */
+        private final int[] sortedStates1;
+
+        /** The sorted indices of the states of the second state space. */
+        private final int[] sortedStates2;
+
+        /** The cached hash code of this key. */
+        private final int hashCode;
+
+        /**
+         * Constructs a new key.
+         *
+         * @param pair The pair of sets of states.
+         */
+        private SubsetPairKey(SubsetPair pair) {
+            this.sortedStates1 = pair.states1().clone();
+            this.sortedStates2 = pair.states2().clone();
+            Arrays.sort(sortedStates1);
+            Arrays.sort(sortedStates2);
+            this.hashCode = 31 * Arrays.hashCode(sortedStates1) + Arrays.hashCode(sortedStates2);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof SubsetPairKey other)) {
+                return false;
             }
+            return hashCode == other.hashCode && Arrays.equals(sortedStates1, other.sortedStates1)
+                    && Arrays.equals(sortedStates2, other.sortedStates2);
         }
-        return nextStates;
     }
 }
@@ -0,0 +1,65 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import java.time.Duration;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The time budgets of full synthesis. A stage of the synthesis chain of an abstract activity that exceeds the stage
+ * budget, or an abstract activity of which the stages together exceed the activity budget, is aborted. Full synthesis
+ * then fails with a {@link SynthesisBudgetExceededException}, reporting the stage that exceeded the budget.
+ */
+public class SynthesisBudget {
+    /** The budget without time limits. */
+    public static final SynthesisBudget UNLIMITED = new SynthesisBudget(null, null);
+
+    /** The maximum duration of a single stage, or {@code null} if unlimited. */
+    private final Duration stageBudget;
+
+    /** The maximum total duration of the stages of a single abstract activity, or {@code null} if unlimited. */
+    private final Duration activityBudget;
+
+    /**
+     * Constructs a new synthesis budget.
+     *
+     * @param stageBudget The maximum duration of a single stage, or {@code null} if unlimited. Must be positive.
+     * @param activityBudget The maximum total duration of the stages of a single abstract activity, or {@code null}
+     *     if unlimited. Must be positive.
+     */
+    public SynthesisBudget(Duration stageBudget, Duration activityBudget) {
+        Preconditions.checkArgument(stageBudget == null || stageBudget.isPositive(),
+                "Expected a positive stage budget, but got: " + stageBudget);
+        Preconditions.checkArgument(activityBudget == null || activityBudget.isPositive(),
+                "Expected a positive activity budget, but got: " + activityBudget);
+        this.stageBudget = stageBudget;
+        this.activityBudget = activityBudget;
+    }
+
+    /**
+     * Gives the maximum duration of a single stage.
+     *
+     * @return The maximum duration, or {@code null} if unlimited.
+     */
+    public Duration getStageBudget() {
+        return stageBudget;
+    }
+
+    /**
+     * Gives the maximum total duration of the stages of a single abstract activity.
+     *
+     * @return The maximum duration, or {@code null} if unlimited.
+     */
+    public Duration getActivityBudget() {
+        return activityBudget;
+    }
+}
@@ -0,0 +1,54 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+/** Exception indicating that synthesis of an abstract activity was aborted, as it exceeded its time budget. */
+public class SynthesisBudgetExceededException extends RuntimeException {
+    private static final long serialVersionUID = 3189012735690471853L;
+
+    /** The name of the abstract activity. */
+    private final String activityName;
+
+    /** The name of the stage that exceeded the budget. */
+    private final String stage;
+
+    /**
+     * Constructs a new synthesis budget exceeded exception.
+     *
+     * @param message The detail message.
+     * @param activityName The name of the abstract activity.
+     * @param stage The name of the stage that exceeded the budget.
+     * @param cause The failure that resulted from aborting the stage, or {@code null} if none.
+     */
+    public SynthesisBudgetExceededException(String message, String activityName, String stage, Throwable cause) {
+        super(message, cause);
+        this.activityName = activityName;
+        this.stage = stage;
+    }
+
+    /**
+     * Gives the name of the abstract activity.
+     *
+     * @return The name of the abstract activity.
+     */
+    public String getActivityName() {
+        return activityName;
+    }
+
+    /**
+     * Gives the name of the stage that exceeded the budget.
+     *
+     * @return The name of the stage.
+     */
+    public String getStage() {
+        return stage;
+    }
+}
@@ -0,0 +1,427 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature.Setting;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.EcoreUtil.Copier;
+import org.eclipse.emf.ecore.util.InternalEList;
+import org.eclipse.uml2.uml.Activity;
+import org.eclipse.uml2.uml.Model;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.github.tno.pokayoke.transform.common.FileHelper;
+import com.github.tno.pokayoke.transform.uml2cif.UmlToCifTranslator;
+import com.google.common.base.Preconditions;
+
+/**
+ * Checkpoints of a full synthesis run, from which a failed or killed run can be resumed.
+ * <p>
+ * After each wave of abstract activities has been synthesized, a checkpoint is written. It consists of the synthesized
+ * activities of the wave, each with the stereotype applications of its elements, and a descriptor. The rest of the UML
+ * model is not written, as it can be reconstructed from the input UML model. References from a synthesized activity
+ * to other elements of the UML model are stored by the path of those elements in the UML model. The descriptor is
+ * written last, and makes the checkpoint valid. It records the hash of the input of the run, the name of the last
+ * activity of the wave, and the hashes of the synthesized activities of this and all earlier waves, such that
+ * incomplete or corrupted checkpoints are never resumed from. It also records the warnings of the run so far, such
+ * that they can be reported again when resuming.
+ * </p>
+ * <p>
+ * To resume from a checkpoint, the waves up to and including that of the checkpoint are replayed on the input UML
+ * model. For each wave, the UML model is prepared for synthesis like when synthesizing the wave, and the abstract
+ * activities of the wave are then replaced by their synthesized activities.
+ * </p>
+ * <p>
+ * The checkpoints of a run are stored in a folder per hash of the input of the run, which consists of the input UML
+ * model and the settings that affect the outputs. A changed input thus never resumes from a stale checkpoint. The
+ * checkpoints of a run are removed once it has completed. The checkpoints of other inputs are left alone, as they may
+ * belong to other runs that are still in progress.
+ * </p>
+ */
+class SynthesisCheckpoints {
+    /** The version of the checkpoint layout. Must be incremented if checkpoints become incompatible. */
+    private static final int CHECKPOINT_VERSION = 2;
+
+    /** The URI of the UML model in the proxies of references from synthesized activities to the UML model. */
+    private static final URI MODEL_URI = URI.createURI("checkpoint:/model");
+
+    /** The path to the folder that contains the checkpoints of the run. */
+    private final Path folderPath;
+
+    /** The hash of the input of the run. */
+    private final String inputHash;
+
+    /** The waves of abstract activities to synthesize, in the order they are synthesized. */
+    private final List<List<Activity>> waves;
+
+    /** The abstract activities to synthesize, in the order they are synthesized. */
+    private final List<Activity> activities;
+
+    /** The hashes of the synthesized activities that have been written or restored, in the order of synthesis. */
+    private final List<String> activityHashes = new ArrayList<>();
+
+    /** The warnings of the run, which is modified in-place. */
+    private final List<String> warnings;
+
+    /** The number of warnings that were already present before the run. */
+    private final int initialWarningCount;
+
+    private SynthesisCheckpoints(Path folderPath, String inputHash, List<List<Activity>> waves, List<String> warnings) {
+        this.folderPath = folderPath;
+        this.inputHash = inputHash;
+        this.waves = waves;
+        this.activities = waves.stream().flatMap(List::stream).toList();
+        this.warnings = warnings;
+        this.initialWarningCount = warnings.size();
+    }
+
+    /**
+     * Opens the checkpoints of a full synthesis run.
+     *
+     * @param rootFolderPath The path to the folder that contains the checkpoints of all runs.
+     * @param inputPath The path to the input UML model.
+     * @param settings The settings of the run that affect its outputs.
+     * @param waves The waves of abstract activities to synthesize, in the order they are synthesized.
+     * @param warnings The warnings of the run, which is modified in-place.
+     * @return The checkpoints.
+     * @throws IOException In case the input UML model could not be read.
+     */
+    static SynthesisCheckpoints open(Path rootFolderPath, Path inputPath, List<String> settings,
+            List<List<Activity>> waves, List<String> warnings) throws IOException
+    {
+        String inputHash = StageResultCache.computeKey("checkpoint", SynthesisCheckpoints.class, settings,
+                List.of(inputPath));
+        return new SynthesisCheckpoints(rootFolderPath.resolve(inputHash), inputHash, waves, warnings);
+    }
+
+    /**
+     * Finds the latest valid checkpoint.
+     *
+     * @return The number of abstract activities that have been synthesized at the latest valid checkpoint, or
+     *     {@code 0} if there is no valid checkpoint.
+     */
+    int findLatest() {
+        for (int count = activities.size(); count > 0; count--) {
+            if (isValid(count)) {
+                return count;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Restores a checkpoint, by replaying the waves of abstract activities up to and including the checkpoint on the
+     * UML model that contains the abstract activities, and adds the warnings of the run up to the checkpoint to the
+     * warnings. The abstract activities of these waves are replaced by their synthesized activities.
+     *
+     * @param count The number of abstract activities that have been synthesized at the checkpoint. Must be the number
+     *     of a valid checkpoint.
+     * @throws IOException In case the checkpoint could not be read.
+     * @throws CoreException In case the UML model could not be prepared for synthesis.
+     */
+    void restore(int count) throws IOException, CoreException {
+        JSONObject descriptor = new JSONObject(Files.readString(getDescriptorPath(count), StandardCharsets.UTF_8));
+        JSONArray hashesJson = descriptor.getJSONArray("activities");
+        JSONArray warningsJson = descriptor.getJSONArray("warnings");
+        List<String> checkpointWarnings = new ArrayList<>(warningsJson.length());
+        for (int i = 0; i < warningsJson.length(); i++) {
+            checkpointWarnings.add(warningsJson.getString(i));
+        }
+
+        Model model = activities.get(0).getModel();
+        int number = 0;
+        for (List<Activity> wave: waves) {
+            if (number == count) {
+                break;
+            }
+            UmlToCifTranslator.prepareModelForSynthesis(model);
+            for (Activity activity: wave) {
+                number++;
+                restoreActivity(activity, getActivityPath(number));
+                activityHashes.add(hashesJson.getString(number - 1));
+            }
+        }
+        Preconditions.checkArgument(number == count, "Expected a checkpoint after a wave, but got: " + count);
+
+        warnings.addAll(checkpointWarnings);
+    }
+
+    /**
+     * Writes a checkpoint after the given wave of abstract activities has been synthesized.
+     *
+     * @param wave The wave of abstract activities that has been synthesized.
+     * @throws IOException In case the checkpoint could not be written.
+     */
+    void write(List<Activity> wave) throws IOException {
+        int count = activities.indexOf(wave.get(wave.size() - 1)) + 1;
+        Preconditions.checkArgument(count == activityHashes.size() + wave.size(),
+                "Expected the next wave of activities to synthesize, but got: " + wave.get(0).getName());
+
+        // Write the synthesized activities.
+        Files.createDirectories(folderPath);
+        for (Activity activity: wave) {
+            Path activityPath = getActivityPath(activityHashes.size() + 1);
+            writeAtomically(activityPath, path -> storeActivity(activity, path));
+            activityHashes.add(computeHash(activityPath));
+        }
+
+        // Write the descriptor, which makes the checkpoint valid once it has been written completely.
+        JSONObject descriptor = new JSONObject();
+        descriptor.put("version", CHECKPOINT_VERSION);
+        descriptor.put("input", inputHash);
+        descriptor.put("activity", activities.get(count - 1).getQualifiedName());
+        descriptor.put("activities", new JSONArray(activityHashes));
+        descriptor.put("warnings", new JSONArray(warnings.subList(initialWarningCount, warnings.size())));
+        writeAtomically(getDescriptorPath(count),
+                path -> Files.writeString(path, descriptor.toString(2), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Removes all checkpoints of the run.
+     *
+     * @throws IOException In case the checkpoints could not be removed.
+     */
+    void delete() throws IOException {
+        FileUtils.deleteDirectory(folderPath.toFile());
+    }
+
+    /**
+     * Indicates whether a checkpoint is valid, i.e., it has been written completely, for the same input, and for the
+     * same abstract activities.
+     *
+     * @param count The number of abstract activities that have been synthesized at the checkpoint.
+     * @return {@code true} if the checkpoint is valid, {@code false} otherwise.
+     */
+    private boolean isValid(int count) {
+        Path descriptorPath = getDescriptorPath(count);
+        if (!Files.isRegularFile(descriptorPath)) {
+            return false;
+        }
+
+        try {
+            JSONObject descriptor = new JSONObject(Files.readString(descriptorPath, StandardCharsets.UTF_8));
+            if (descriptor.getInt("version") != CHECKPOINT_VERSION || !descriptor.getString("input").equals(inputHash)
+                    || !descriptor.getString("activity").equals(activities.get(count - 1).getQualifiedName())
+                    || !descriptor.has("warnings"))
+            {
+                return false;
+            }
+
+            JSONArray hashesJson = descriptor.getJSONArray("activities");
+            if (hashesJson.length() != count) {
+                return false;
+            }
+            for (int number = 1; number <= count; number++) {
+                Path activityPath = getActivityPath(number);
+                if (!Files.isRegularFile(activityPath)
+                        || !hashesJson.getString(number - 1).equals(computeHash(activityPath)))
+                {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException | JSONException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stores a synthesized activity, with the stereotype applications of its elements. References to other elements
+     * of the UML model are replaced by proxies that identify those elements by their path in the UML model.
+     *
+     * @param activity The synthesized activity.
+     * @param path The path to store the activity to.
+     * @throws IOException In case the activity could not be stored.
+     */
+    private static void storeActivity(Activity activity, Path path) throws IOException {
+        Model model = activity.getModel();
+        List<EObject> stereotypeApplications = Stream
+                .concat(Stream.of(activity), activity.allOwnedElements().stream())
+                .flatMap(e -> e.getStereotypeApplications().stream()).toList();
+
+        Copier copier = new Copier();
+        EObject activityCopy = copier.copy(activity);
+        Collection<EObject> stereotypeApplicationCopies = copier.copyAll(stereotypeApplications);
+        copier.copyReferences();
+        Set<EObject> copies = new HashSet<>(copier.values());
+
+        Resource resource = FileHelper.createModelResourceSet().createResource(URI.createFileURI(path.toString()));
+        resource.getContents().add(activityCopy);
+        resource.getContents().addAll(stereotypeApplicationCopies);
+        for (Iterator<EObject> iterator = resource.getAllContents(); iterator.hasNext();) {
+            replaceReferences(iterator.next(), value -> {
+                if (copies.contains(value) || EcoreUtil.getRootContainer(value) != model) {
+                    return value;
+                }
+                InternalEObject proxy = (InternalEObject)EcoreUtil.create(value.eClass());
+                String fragment = (value == model) ? "" : EcoreUtil.getRelativeURIFragmentPath(model, value);
+                proxy.eSetProxyURI(MODEL_URI.appendFragment(fragment));
+                return proxy;
+            });
+        }
+
+        FileHelper.normalizeIds(resource);
+        FileHelper.storeModelSnapshot(resource);
+    }
+
+    /**
+     * Replaces an abstract activity by its synthesized activity, with the stereotype applications of its elements.
+     * References to the abstract activity are redirected to the synthesized activity.
+     *
+     * @param activity The abstract activity.
+     * @param path The path to the synthesized activity.
+     */
+    private static void restoreActivity(Activity activity, Path path) {
+        Model model = activity.getModel();
+        Resource modelResource = model.eResource();
+        Resource resource = modelResource.getResourceSet().getResource(URI.createFileURI(path.toString()), true);
+        try {
+            // Resolve the references to other elements of the UML model.
+            for (Iterator<EObject> iterator = resource.getAllContents(); iterator.hasNext();) {
+                replaceReferences(iterator.next(), value -> {
+                    if (!value.eIsProxy() || !((InternalEObject)value).eProxyURI().trimFragment().equals(MODEL_URI)) {
+                        return value;
+                    }
+                    String fragment = ((InternalEObject)value).eProxyURI().fragment();
+                    EObject element = fragment.isEmpty() ? model : EcoreUtil.getEObject(model, fragment);
+                    return Preconditions.checkNotNull(element,
+                            "Expected checkpoint to refer to an element of the UML model, but got: " + fragment);
+                });
+            }
+
+            // Replace the abstract activity, and its stereotype applications. Redirect the references from the rest of
+            // the UML model, for instance from call behavior actions, to the synthesized activity.
+            Activity synthesizedActivity = (Activity)resource.getContents().get(0);
+            List<EObject> stereotypeApplications = Stream
+                    .concat(Stream.of(activity), activity.allOwnedElements().stream())
+                    .flatMap(e -> e.getStereotypeApplications().stream()).toList();
+            Collection<Setting> usages = EcoreUtil.UsageCrossReferencer.find(activity, modelResource);
+
+            EcoreUtil.replace(activity, synthesizedActivity);
+            modelResource.getContents().removeAll(stereotypeApplications);
+            modelResource.getContents().addAll(new ArrayList<>(resource.getContents()));
+            for (Setting usage: usages) {
+                if (usage.getEStructuralFeature().isChangeable() && !usage.getEStructuralFeature().isDerived()
+                        && !EcoreUtil.isAncestor(activity, usage.getEObject())
+                        && !stereotypeApplications.contains(usage.getEObject()))
+                {
+                    EcoreUtil.replace(usage, activity, synthesizedActivity);
+                }
+            }
+        } finally {
+            modelResource.getResourceSet().getResources().remove(resource);
+        }
+    }
+
+    /**
+     * Replaces the values of the changeable non-containment references of an object, without resolving proxies.
+     *
+     * @param object The object.
+     * @param replacer Gives the replacement of a referenced object, which may be the object itself.
+     */
+    private static void replaceReferences(EObject object, UnaryOperator<EObject> replacer) {
+        for (EReference reference: object.eClass().getEAllReferences()) {
+            if (reference.isContainment() || reference.isContainer() || reference.isDerived()
+                    || !reference.isChangeable())
+            {
+                continue;
+            }
+
+            if (reference.isMany()) {
+                @SuppressWarnings("unchecked")
+                InternalEList<EObject> values = (InternalEList<EObject>)object.eGet(reference, false);
+                for (int i = 0; i < values.size(); i++) {
+                    EObject value = values.basicGet(i);
+                    EObject replacement = replacer.apply(value);
+                    if (replacement != value) {
+                        values.set(i, replacement);
+                    }
+                }
+            } else {
+                EObject value = (EObject)object.eGet(reference, false);
+                EObject replacement = (value == null) ? null : replacer.apply(value);
+                if (replacement != value) {
+                    object.eSet(reference, replacement);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a file atomically, by first writing it to a temporary file, and then moving that file into place. The
+     * file is thus never read while it is only partially written, also not by another run that shares the checkpoints.
+     *
+     * @param path The path to the file.
+     * @param writer Writes the file to the given path.
+     * @throws IOException In case the file could not be written.
+     */
+    private void writeAtomically(Path path, PathWriter writer) throws IOException {
+        Path temporaryPath = Files.createTempFile(folderPath, path.getFileName().toString(), ".tmp");
+        try {
+            writer.write(temporaryPath);
+            try {
+                Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    private static String computeHash(Path path) throws IOException {
+        return StageResultCache.computeKey("activity", SynthesisCheckpoints.class, List.of(), List.of(path));
+    }
+
+    private Path getActivityPath(int number) {
+        return folderPath.resolve(number + ".uml");
+    }
+
+    private Path getDescriptorPath(int count) {
+        return folderPath.resolve(count + ".json");
+    }
+
+    /** Writes a file. */
+    @FunctionalInterface
+    private interface PathWriter {
+        /**
+         * Writes the file.
+         *
+         * @param path The path to write the file to.
+         * @throws IOException In case the file could not be written.
+         */
+        void write(Path path) throws IOException;
+    }
+}
@@ -0,0 +1,236 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.escet.cif.common.CifCollectUtils;
+import org.eclipse.escet.cif.metamodel.cif.Specification;
+import org.eclipse.escet.cif.metamodel.cif.automata.Automaton;
+import org.eclipse.escet.cif.metamodel.cif.automata.Edge;
+import org.eclipse.escet.cif.metamodel.cif.automata.Location;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.google.common.base.Preconditions;
+
+import fr.lip6.move.pnml.ptnet.Arc;
+import fr.lip6.move.pnml.ptnet.Page;
+import fr.lip6.move.pnml.ptnet.PetriNet;
+import fr.lip6.move.pnml.ptnet.Place;
+import fr.lip6.move.pnml.ptnet.Transition;
+
+/**
+ * Performance metrics of the stages of the synthesis chain of a single activity.
+ * <p>
+ * For each stage, the wall time, and the CPU time and allocated bytes of the thread that performs it, are recorded,
+ * together with stage-specific sizes, such as the number of states of a state space. The stages must be performed one
+ * after another, and each stage must be performed on a single thread. Different stages may be performed on different
+ * threads, as long as they are properly synchronized. CPU time and allocations of external processes, like Petrify,
+ * and of threads other than the one performing a stage, are not included.
+ * </p>
+ */
+class SynthesisMetrics {
+    /** The name of the platform MBean that provides the per-thread allocated bytes. */
+    private static final String THREADING_MBEAN_NAME = "java.lang:type=Threading";
+
+    /** The metrics of the stages that have been started, in the order they were started. */
+    private final List<StageMetrics> stages = new ArrayList<>();
+
+    /** The metrics of the current stage, or {@code null} if no stage is being performed. */
+    private StageMetrics currentStage;
+
+    /**
+     * Starts a new stage, and ends the current stage, if any.
+     *
+     * @param name The name of the stage.
+     */
+    void startStage(String name) {
+        endStage();
+        currentStage = new StageMetrics(name, System.nanoTime(), getCurrentThreadCpuTime(),
+                getCurrentThreadAllocatedBytes());
+        stages.add(currentStage);
+    }
+
+    /** Ends the current stage, if any. */
+    void endStage() {
+        if (currentStage != null) {
+            currentStage.wallTime = System.nanoTime() - currentStage.startWallTime;
+            currentStage.cpuTime = difference(getCurrentThreadCpuTime(), currentStage.startCpuTime);
+            currentStage.allocatedBytes = difference(getCurrentThreadAllocatedBytes(),
+                    currentStage.startAllocatedBytes);
+            currentStage = null;
+        }
+    }
+
+    /**
+     * Records a size for the current stage.
+     *
+     * @param name The name of the size.
+     * @param value The size.
+     */
+    void addSize(String name, long value) {
+        Preconditions.checkState(currentStage != null, "Expected a stage to be performed.");
+        currentStage.sizes.put(name, value);
+    }
+
+    /**
+     * Records the number of locations and transitions of the automata of a CIF specification, for the current stage.
+     *
+     * @param name The name prefix of the sizes.
+     * @param specification The CIF specification, for instance a state space.
+     */
+    void addStateSpaceSizes(String name, Specification specification) {
+        long locations = 0;
+        long transitions = 0;
+        for (Automaton automaton: CifCollectUtils.collectAutomata(specification, new ArrayList<>())) {
+            locations += automaton.getLocations().size();
+            for (Location location: automaton.getLocations()) {
+                for (Edge edge: location.getEdges()) {
+                    transitions += Math.max(1, edge.getEvents().size());
+                }
+            }
+        }
+        addSize(name + ".states", locations);
+        addSize(name + ".transitions", transitions);
+    }
+
+    /**
+     * Records the number of places, transitions and arcs of a Petri Net, for the current stage.
+     *
+     * @param name The name prefix of the sizes.
+     * @param petriNet The Petri Net.
+     */
+    void addPetriNetSizes(String name, PetriNet petriNet) {
+        long places = 0;
+        long transitions = 0;
+        long arcs = 0;
+        for (Page page: petriNet.getPages()) {
+            places += page.getObjects().stream().filter(Place.class::isInstance).count();
+            transitions += page.getObjects().stream().filter(Transition.class::isInstance).count();
+            arcs += page.getObjects().stream().filter(Arc.class::isInstance).count();
+        }
+        addSize(name + ".places", places);
+        addSize(name + ".transitions", transitions);
+        addSize(name + ".arcs", arcs);
+    }
+
+    /**
+     * Writes the metrics as a JSON report. Durations are in nanoseconds. Unavailable CPU times and allocated bytes are
+     * written as {@code -1}.
+     *
+     * @param activityName The name of the activity that is synthesized.
+     * @param path The path to the file to write the report to.
+     * @throws IOException In case the report could not be written.
+     */
+    void write(String activityName, Path path) throws IOException {
+        endStage();
+
+        JSONArray stagesJson = new JSONArray();
+        for (StageMetrics stage: stages) {
+            JSONObject sizesJson = new JSONObject();
+            for (Entry<String, Long> size: stage.sizes.entrySet()) {
+                sizesJson.put(size.getKey(), size.getValue().longValue());
+            }
+
+            JSONObject stageJson = new JSONObject();
+            stageJson.put("name", stage.name);
+            stageJson.put("wallTimeNanos", stage.wallTime);
+            stageJson.put("cpuTimeNanos", stage.cpuTime);
+            stageJson.put("allocatedBytes", stage.allocatedBytes);
+            stageJson.put("sizes", sizesJson);
+            stagesJson.put(stageJson);
+        }
+
+        JSONObject reportJson = new JSONObject();
+        reportJson.put("activity", activityName);
+        reportJson.put("stages", stagesJson);
+        Files.writeString(path, reportJson.toString(2) + System.lineSeparator(), StandardCharsets.UTF_8);
+    }
+
+    private static long difference(long end, long start) {
+        return (end < 0 || start < 0) ? -1 : end - start;
+    }
+
+    /**
+     * Gives the CPU time of the current thread.
+     *
+     * @return The CPU time in nanoseconds, or {@code -1} if not available.
+     */
+    private static long getCurrentThreadCpuTime() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * Gives the number of bytes allocated by the current thread. It is obtained through the platform MBean server, as
+     * the Java platform API does not provide it.
+     *
+     * @return The number of allocated bytes, or {@code -1} if not available.
+     */
+    private static long getCurrentThreadAllocatedBytes() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Object bytes = server.getAttribute(new ObjectName(THREADING_MBEAN_NAME), "CurrentThreadAllocatedBytes");
+            return (bytes instanceof Long value) ? value : -1;
+        } catch (JMException | UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    /** The metrics of a single stage. */
+    private static class StageMetrics {
+        /** The name of the stage. */
+        private final String name;
+
+        /** The wall time at the start of the stage, in nanoseconds. */
+        private final long startWallTime;
+
+        /** The CPU time of the thread at the start of the stage, in nanoseconds, or {@code -1} if not available. */
+        private final long startCpuTime;
+
+        /** The bytes allocated by the thread at the start of the stage, or {@code -1} if not available. */
+        private final long startAllocatedBytes;
+
+        /** The wall time of the stage, in nanoseconds, or {@code -1} if the stage has not ended yet. */
+        private long wallTime = -1;
+
+        /** The CPU time of the stage, in nanoseconds, or {@code -1} if not available. */
+        private long cpuTime = -1;
+
+        /** The bytes allocated during the stage, or {@code -1} if not available. */
+        private long allocatedBytes = -1;
+
+        /** The stage-specific sizes, per name. */
+        private final Map<String, Long> sizes = new LinkedHashMap<>();
+
+        private StageMetrics(String name, long startWallTime, long startCpuTime, long startAllocatedBytes) {
+            this.name = name;
+            this.startWallTime = startWallTime;
+            this.startCpuTime = startCpuTime;
+            this.startAllocatedBytes = startAllocatedBytes;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.app;
+
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.escet.common.java.Termination;
+
+/**
+ * The termination of the synthesis chain of an abstract activity. Termination is requested if full synthesis is
+ * cancelled, if the current stage of the synthesis chain exceeds the stage budget, or if the stages of the synthesis
+ * chain together exceed the activity budget. Only the time during which a stage is being performed counts towards the
+ * activity budget, not the time the synthesis chain waits for the synthesis chains of other activities.
+ * <p>
+ * The long-running steps of the synthesis chain, such as the BDD fixed point computations, Petrify, the simplification
+ * of the activity and the language equivalence check, regularly check whether termination is requested, and if so,
+ * stop early. The synthesis chain then fails with an {@link OperationCanceledException} if full synthesis was
+ * cancelled, or with a {@link SynthesisBudgetExceededException} otherwise.
+ * </p>
+ */
+class SynthesisTermination implements Termination {
+    /** The name of the abstract activity. */
+    private final String activityName;
+
+    /** The budget. */
+    private final SynthesisBudget budget;
+
+    /** Indicates whether full synthesis is cancelled. */
+    private final BooleanSupplier cancelRequested;
+
+    /** The name of the current stage, or {@code null} if no stage is being performed. */
+    private volatile String stage;
+
+    /** The name of the last stage that was started, or {@code null} if no stage has been started yet. */
+    private volatile String lastStage;
+
+    /** The {@link System#nanoTime} at which the current stage started. Only relevant if a stage is being performed. */
+    private volatile long stageStartTime;
+
+    /** The total duration of all ended stages, in nanoseconds. */
+    private volatile long endedStagesDuration;
+
+    /**
+     * Constructs a new synthesis termination.
+     *
+     * @param activityName The name of the abstract activity.
+     * @param budget The budget.
+     * @param cancelRequested Indicates whether full synthesis is cancelled.
+     */
+    SynthesisTermination(String activityName, SynthesisBudget budget, BooleanSupplier cancelRequested) {
+        this.activityName = activityName;
+        this.budget = budget;
+        this.cancelRequested = cancelRequested;
+    }
+
+    /**
+     * Starts a new stage, and ends the current stage, if any.
+     *
+     * @param name The name of the stage.
+     * @throws OperationCanceledException If full synthesis is cancelled.
+     * @throws SynthesisBudgetExceededException If the budget is exceeded.
+     */
+    void startStage(String name) {
+        endStage();
+        check();
+        stage = name;
+        lastStage = name;
+        stageStartTime = System.nanoTime();
+    }
+
+    /** Ends the current stage, if any. */
+    void endStage() {
+        if (stage != null) {
+            endedStagesDuration += System.nanoTime() - stageStartTime;
+            stage = null;
+        }
+    }
+
+    @Override
+    public boolean isRequested() {
+        return cancelRequested.getAsBoolean() || getExceededBudget() != null;
+    }
+
+    /**
+     * Checks that termination is not requested.
+     *
+     * @throws OperationCanceledException If full synthesis is cancelled.
+     * @throws SynthesisBudgetExceededException If the budget is exceeded.
+     */
+    void check() {
+        if (isRequested()) {
+            throw createException(null);
+        }
+    }
+
+    /**
+     * Creates the exception with which the synthesis chain fails, if termination is requested.
+     *
+     * @param cause The failure that resulted from stopping early, or {@code null} if none.
+     * @return An {@link OperationCanceledException} if full synthesis is cancelled, or a
+     *     {@link SynthesisBudgetExceededException} otherwise.
+     */
+    RuntimeException createException(Throwable cause) {
+        if (cancelRequested.getAsBoolean()) {
+            OperationCanceledException exception = new OperationCanceledException(
+                    String.format("Synthesis of activity \"%s\" was cancelled.", activityName));
+            exception.initCause(cause);
+            return exception;
+        }
+        return new SynthesisBudgetExceededException(String.format(
+                "Synthesis of activity \"%s\" was aborted in stage \"%s\", as it exceeded the %s.", activityName,
+                lastStage, getExceededBudget()), activityName, lastStage, cause);
+    }
+
+    /**
+     * Gives a description of the budget that is exceeded, if any.
+     *
+     * @return The description of the exceeded budget, or {@code null} if no budget is exceeded.
+     */
+    private String getExceededBudget() {
+        long stageDuration = (stage == null) ? 0 : System.nanoTime() - stageStartTime;
+        if (budget.getStageBudget() != null && stageDuration > budget.getStageBudget().toNanos()) {
+            return String.format("stage budget of %d seconds", budget.getStageBudget().toSeconds());
+        }
+        if (budget.getActivityBudget() != null
+                && endedStagesDuration + stageDuration > budget.getActivityBudget().toNanos())
+        {
+            return String.format("activity budget of %d seconds", budget.getActivityBudget().toSeconds());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,84 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.cif2petrify;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.eclipse.escet.cif.metamodel.cif.Specification;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link Cif2Petrify}, which writes Petrify input to a file line by line, rather than collecting it in memory
+ * first.
+ */
+class Cif2PetrifyTest {
+    @TempDir
+    Path temporaryPath;
+
+    @Test
+    void testRegressionInput() throws IOException {
+        assertStreamedSameAsBuffered(Path.of("resources-test", "regressiontests", "simple", "input.cif"));
+    }
+
+    @Test
+    void testMultipleEventsPerEdge() throws IOException {
+        // Edges with multiple events give a line per event, and self-loops are written as any other edge.
+        Path inputPath = Files.writeString(temporaryPath.resolve("input.cif"), """
+                controllable a, b;
+                automaton statespace:
+                  location s1:
+                    initial;
+                    edge a, b goto s2;
+                  location s2:
+                    marked;
+                    edge b goto s2;
+                end
+                """);
+        List<String> petrifyInput = assertStreamedSameAsBuffered(inputPath);
+        assertEquals(List.of( //
+                ".model statespace", //
+                ".dummy a b __loop", //
+                ".state graph", //
+                "s1 a s2", //
+                "s1 b s2", //
+                "s2 b s2", //
+                "s2 __loop s2", //
+                ".marking {s1}", //
+                ".end"), //
+                petrifyInput);
+    }
+
+    /**
+     * Asserts that the Petrify input file that is written while transforming the given CIF state space is
+     * byte-identical to the file that is written from the Petrify input in memory.
+     *
+     * @param inputPath The path of the CIF state space.
+     * @return The Petrify input.
+     * @throws IOException In case a file could not be read or written.
+     */
+    private List<String> assertStreamedSameAsBuffered(Path inputPath) throws IOException {
+        List<String> petrifyInput = Cif2Petrify.transform(CifFileHelper.loadCifSpec(inputPath));
+        Path bufferedPath = Files.write(temporaryPath.resolve("buffered.g"), petrifyInput);
+
+        Specification specification = CifFileHelper.loadCifSpec(inputPath);
+        Path streamedPath = temporaryPath.resolve("streamed.g");
+        assertEquals(petrifyInput.size(), Cif2Petrify.transform(specification, streamedPath));
+        assertArrayEquals(Files.readAllBytes(bufferedPath), Files.readAllBytes(streamedPath));
+        return petrifyInput;
+    }
+}
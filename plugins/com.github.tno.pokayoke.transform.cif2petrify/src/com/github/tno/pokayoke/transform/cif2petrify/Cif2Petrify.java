@@ -10,12 +10,15 @@
 
 package com.github.tno.pokayoke.transform.cif2petrify;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.FilenameUtils;
 import org.eclipse.escet.cif.common.CifCollectUtils;
@@ -50,20 +53,62 @@ public class Cif2Petrify {
         Path petrifyInputPath = outputFolderPath.resolve(filePrefix + ".g");
         Files.createDirectories(outputFolderPath);
         Specification specification = CifFileHelper.loadCifSpec(inputFilePath);
-        List<String> body = Cif2Petrify.transform(specification);
-        Files.write(petrifyInputPath, body);
+        Cif2Petrify.transform(specification, petrifyInputPath);
     }
 
+    /**
+     * Transforms a CIF state space to Petrify input.
+     *
+     * @param specification The CIF specification that contains the state space.
+     * @return The Petrify input.
+     */
     public static List<String> transform(Specification specification) {
         List<String> petrifyInput = new ArrayList<>();
+        try {
+            transform(specification, petrifyInput::add);
+        } catch (IOException e) {
+            throw new RuntimeException("Unexpected I/O error while collecting Petrify input.", e);
+        }
+        return petrifyInput;
+    }
+
+    /**
+     * Transforms a CIF state space to Petrify input, and writes it directly to a file, line by line. The Petrify input
+     * is never held in memory as a whole. The file is the same as when writing the result of
+     * {@link #transform(Specification)} using {@link Files#write(Path, Iterable, java.nio.file.OpenOption...)}.
+     *
+     * @param specification The CIF specification that contains the state space.
+     * @param petrifyInputPath The path of the Petrify input file to write.
+     * @return The number of lines of the Petrify input.
+     * @throws IOException In case the Petrify input file could not be written.
+     */
+    public static int transform(Specification specification, Path petrifyInputPath) throws IOException {
+        int[] lineCount = {0};
+        try (BufferedWriter writer = Files.newBufferedWriter(petrifyInputPath)) {
+            transform(specification, line -> {
+                writer.write(line);
+                writer.newLine();
+                lineCount[0]++;
+            });
+        }
+        return lineCount[0];
+    }
 
+    /**
+     * Transforms a CIF state space to Petrify input.
+     *
+     * @param specification The CIF specification that contains the state space.
+     * @param output The output to which to emit the lines of the Petrify input, one at a time.
+     * @throws IOException In case the output could not be written.
+     */
+    private static void transform(Specification specification, LineOutput output) throws IOException {
         // Obtain the automaton in the CIF specification.
         List<Automaton> automata = CifCollectUtils.collectAutomata(specification, new ArrayList<>());
         Preconditions.checkArgument(automata.size() == 1, "Expected the CIF specification to include one automaton.");
         Automaton automaton = automata.get(0);
 
         // Declare the header of the Petrify model.
-        petrifyInput.add(".model " + automaton.getName());
+        output.write(".model " + automaton.getName());
 
         // Obtain the list of names from the events in the implicit alphabet of the CIF state space automaton. We first
         // remove the explict automaton alphabet, to ensure that 'CifEventUtils.getAlphabet' will give the implicit one.
@@ -81,22 +126,24 @@ public class Cif2Petrify {
                 "Expected that '" + LOOP_EVENT_NAME + "' is not used as an event name.");
 
         // Declare a Petrify event for every event in the CIF state space automaton alphabet, plus the 'loop' event.
-        petrifyInput.add(".dummy " + String.join(" ", eventNames) + " " + LOOP_EVENT_NAME);
+        output.write(".dummy " + String.join(" ", eventNames) + " " + LOOP_EVENT_NAME);
 
-        petrifyInput.add(".state graph");
+        output.write(".state graph");
 
-        // Iterate over all locations in the state space and translate all edges.
+        // Iterate over all locations in the state space and translate all edges. The name of each location and of each
+        // event is followed by a space only once, such that every edge is written by concatenating three precomputed
+        // parts.
+        Map<Event, String> eventInfixes = new HashMap<>();
         for (Location location: automaton.getLocations()) {
             Preconditions.checkNotNull(location.getName(), "Expected locations to have a name.");
+            String sourcePrefix = location.getName() + " ";
 
             // Translate all edges that go out of the current location.
             for (Edge edge: location.getEdges()) {
+                String targetLocationName = CifEdgeUtils.getTarget(edge).getName();
                 for (Event edgeEvent: CifEventUtils.getEvents(edge)) {
-                    Location targetLocation = CifEdgeUtils.getTarget(edge);
-                    String targetLocationName = targetLocation.getName();
-                    String edgeString = String.format("%s %s %s", location.getName(), edgeEvent.getName(),
-                            targetLocationName);
-                    petrifyInput.add(edgeString);
+                    String eventInfix = eventInfixes.computeIfAbsent(edgeEvent, e -> e.getName() + " ");
+                    output.write(sourcePrefix + eventInfix + targetLocationName);
                 }
             }
         }
@@ -104,15 +151,25 @@ public class Cif2Petrify {
         // Add the self-loop transition to the marked state, that indicates being done.
         Location markedLocation = CifLocationHelper.getMarkedLocation(automaton);
         String markedLocationName = markedLocation.getName();
-        petrifyInput.add(String.format("%s %s %s", markedLocationName, LOOP_EVENT_NAME, markedLocationName));
+        output.write(markedLocationName + " " + LOOP_EVENT_NAME + " " + markedLocationName);
 
         // Indicate that the initial location has a token initially.
         Location initialLocation = CifLocationHelper.getInitialLocation(automaton);
-        petrifyInput.add(String.format(".marking {%s}", initialLocation.getName()));
+        output.write(".marking {" + initialLocation.getName() + "}");
 
         // Indicate the end of the Petrify input graph.
-        petrifyInput.add(".end");
+        output.write(".end");
+    }
 
-        return petrifyInput;
+    /** An output of Petrify input, that accepts the lines of the Petrify input one at a time. */
+    @FunctionalInterface
+    private interface LineOutput {
+        /**
+         * Writes a line of Petrify input.
+         *
+         * @param line The line, without line terminator.
+         * @throws IOException In case the line could not be written.
+         */
+        void write(String line) throws IOException;
     }
 }
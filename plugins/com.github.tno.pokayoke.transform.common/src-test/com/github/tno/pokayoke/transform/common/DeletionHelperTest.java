@@ -0,0 +1,203 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.util.ECrossReferenceAdapter;
+import org.eclipse.uml2.uml.Activity;
+import org.eclipse.uml2.uml.ActivityEdge;
+import org.eclipse.uml2.uml.ActivityNode;
+import org.eclipse.uml2.uml.CallBehaviorAction;
+import org.eclipse.uml2.uml.ControlFlow;
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.Model;
+import org.eclipse.uml2.uml.NamedElement;
+import org.eclipse.uml2.uml.UMLFactory;
+import org.eclipse.uml2.uml.UMLPackage;
+import org.junit.jupiter.api.Test;
+
+/** Tests that {@link DeletionHelper#destroyAll} has the same result as destroying the elements one by one. */
+class DeletionHelperTest {
+    private static final UMLFactory UML_FACTORY = UMLFactory.eINSTANCE;
+
+    @Test
+    void testNodesAndEdges() {
+        // Some of the control flows of the destroyed nodes are destroyed as well, while others are kept.
+        assertSameAsDestroy(DeletionHelperTest::createModel, "decision", "merge", "e2", "e3", "e4");
+    }
+
+    @Test
+    void testContainers() {
+        // Destroying a package destroys the called activity it contains, and removes the references to it.
+        assertSameAsDestroy(DeletionHelperTest::createModel, "package", "action1");
+        assertSameAsDestroy(DeletionHelperTest::createModel, "package");
+
+        // Destroying an element together with its container is the same as destroying the container.
+        assertSameAsDestroy(DeletionHelperTest::createModel, "called", "package");
+    }
+
+    @Test
+    void testResources() {
+        // References are found in the resource set, in the resource, or in the model, depending on which contains the
+        // model.
+        assertSameAsDestroy(() -> addToResource(createModel()), "decision", "e1", "called");
+        assertSameAsDestroy(() -> addToResourceSet(createModel(), false), "decision", "e1", "called");
+
+        // References are found by the cross-reference adapter, if there is one.
+        assertSameAsDestroy(() -> addToResourceSet(createModel(), true), "decision", "e1", "called");
+    }
+
+    @Test
+    void testEmpty() {
+        Model model = createModel();
+        List<String> expected = describe(model);
+        DeletionHelper.destroyAll(List.of());
+        assertEquals(expected, describe(model));
+    }
+
+    @Test
+    void testDetached() {
+        Model model = createModel();
+        ActivityNode decisionNode = (ActivityNode)find(model, "decision");
+        ActivityEdge edge = (ActivityEdge)find(model, "e2");
+        DeletionHelper.destroyAll(List.of(decisionNode, edge));
+
+        // The destroyed elements are no longer contained, and are no longer referred to by the remaining elements.
+        assertNull(decisionNode.eContainer());
+        assertNull(edge.eContainer());
+        assertNull(((ActivityEdge)find(model, "e1")).getTarget());
+        assertNull(((ActivityEdge)find(model, "e3")).getSource());
+    }
+
+    /**
+     * Destroys the elements with the given names, both in bulk and one by one, in two instances of the same model, and
+     * checks that the resulting models are the same.
+     *
+     * @param modelCreator Creates an instance of the model.
+     * @param names The names of the elements to destroy.
+     */
+    private static void assertSameAsDestroy(Supplier<Model> modelCreator, String... names) {
+        Model expected = modelCreator.get();
+        for (String name: names) {
+            find(expected, name).destroy();
+        }
+
+        Model actual = modelCreator.get();
+        List<Element> elements = new ArrayList<>();
+        for (String name: names) {
+            elements.add(find(actual, name));
+        }
+        DeletionHelper.destroyAll(elements);
+
+        assertEquals(describe(expected), describe(actual));
+    }
+
+    /**
+     * Creates a model with an activity that branches and merges again, and of which the actions call another activity
+     * in a package.
+     *
+     * @return The model.
+     */
+    private static Model createModel() {
+        Model model = UML_FACTORY.createModel();
+        model.setName("model");
+        org.eclipse.uml2.uml.Package pkg = model.createNestedPackage("package");
+        Activity called = (Activity)pkg.createOwnedType("called", UMLPackage.Literals.ACTIVITY);
+
+        Activity main = (Activity)model.createOwnedType("main", UMLPackage.Literals.ACTIVITY);
+        ActivityNode initialNode = main.createOwnedNode("initial", UMLPackage.Literals.INITIAL_NODE);
+        CallBehaviorAction action1 = (CallBehaviorAction)main.createOwnedNode("action1",
+                UMLPackage.Literals.CALL_BEHAVIOR_ACTION);
+        action1.setBehavior(called);
+        ActivityNode decisionNode = main.createOwnedNode("decision", UMLPackage.Literals.DECISION_NODE);
+        CallBehaviorAction action2 = (CallBehaviorAction)main.createOwnedNode("action2",
+                UMLPackage.Literals.CALL_BEHAVIOR_ACTION);
+        action2.setBehavior(called);
+        ActivityNode mergeNode = main.createOwnedNode("merge", UMLPackage.Literals.MERGE_NODE);
+        ActivityNode finalNode = main.createOwnedNode("final", UMLPackage.Literals.ACTIVITY_FINAL_NODE);
+
+        connect(main, "e0", initialNode, action1);
+        connect(main, "e1", action1, decisionNode);
+        connect(main, "e2", decisionNode, action2);
+        connect(main, "e3", decisionNode, mergeNode);
+        connect(main, "e4", action2, mergeNode);
+        connect(main, "e5", mergeNode, finalNode);
+        return model;
+    }
+
+    private static void connect(Activity activity, String name, ActivityNode source, ActivityNode target) {
+        ControlFlow controlFlow = (ControlFlow)activity.createEdge(name, UMLPackage.Literals.CONTROL_FLOW);
+        controlFlow.setSource(source);
+        controlFlow.setTarget(target);
+    }
+
+    private static Model addToResource(Model model) {
+        Resource resource = new ResourceImpl(URI.createURI("model.uml"));
+        resource.getContents().add(model);
+        return model;
+    }
+
+    private static Model addToResourceSet(Model model, boolean withCrossReferenceAdapter) {
+        addToResource(model);
+        FileHelper.createModelResourceSet().getResources().add(model.eResource());
+        if (withCrossReferenceAdapter) {
+            model.eResource().getResourceSet().eAdapters().add(new ECrossReferenceAdapter());
+        }
+        return model;
+    }
+
+    private static Element find(Model model, String name) {
+        List<EObject> contents = new ArrayList<>();
+        model.eAllContents().forEachRemaining(contents::add);
+        return contents.stream().filter(o -> o instanceof NamedElement e && name.equals(e.getName()))
+                .map(Element.class::cast).findFirst().orElseThrow();
+    }
+
+    /**
+     * Describes the given model: per contained element in order, its kind, name, and the names of the elements it
+     * refers to.
+     *
+     * @param model The model.
+     * @return The description of the model, with an element per contained element.
+     */
+    private static List<String> describe(Model model) {
+        Function<NamedElement, String> nameOf = e -> (e == null) ? "null" : e.getName();
+        List<String> description = new ArrayList<>();
+        model.eAllContents().forEachRemaining(object -> {
+            String line = object.eClass().getName();
+            if (object instanceof NamedElement namedElement) {
+                line += " " + nameOf.apply(namedElement);
+            }
+            if (object instanceof ActivityEdge edge) {
+                line += " " + nameOf.apply(edge.getSource()) + " -> " + nameOf.apply(edge.getTarget());
+            } else if (object instanceof ActivityNode node) {
+                line += " in " + node.getIncomings().stream().map(nameOf).toList();
+                line += " out " + node.getOutgoings().stream().map(nameOf).toList();
+                if (node instanceof CallBehaviorAction action) {
+                    line += " calls " + nameOf.apply(action.getBehavior());
+                }
+            }
+            description.add(line);
+        });
+        return description;
+    }
+}
@@ -0,0 +1,205 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+import org.eclipse.uml2.uml.Activity;
+import org.eclipse.uml2.uml.ActivityNode;
+import org.eclipse.uml2.uml.ControlFlow;
+import org.eclipse.uml2.uml.Model;
+import org.eclipse.uml2.uml.UMLPackage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for storing models using {@link FileHelper}, which saves the resource of a model in-place if possible, and
+ * only updates the XMI IDs that are not yet normalized.
+ */
+class FileHelperTest {
+    @TempDir
+    Path temporaryPath;
+
+    @Test
+    void testStoreInPlace() throws IOException {
+        // A model that is the only content of its resource is saved in-place.
+        Model model = addToResource(createModel(), "model.uml");
+        Resource resource = model.eResource();
+        Path inPlacePath = temporaryPath.resolve("inPlace.uml");
+        FileHelper.storeModel(model, inPlacePath.toString());
+        assertSame(resource, model.eResource());
+        assertEquals(List.of(model), resource.getContents());
+
+        // A model that shares its resource with other contents is saved via a temporary resource, and put back.
+        Model sharingModel = addToResource(createModel(), "sharing.uml");
+        Model otherModel = FileHelper.FACTORY.createModel();
+        sharingModel.eResource().getContents().add(otherModel);
+        Path sharingPath = temporaryPath.resolve("sharing.uml");
+        FileHelper.storeModel(sharingModel, sharingPath.toString());
+        assertEquals(List.of(otherModel, sharingModel), sharingModel.eResource().getContents());
+
+        assertEquals(Files.readString(sharingPath), Files.readString(inPlacePath));
+    }
+
+    @Test
+    void testStoreWithoutResource() throws IOException {
+        // A model without a resource gets one, which is then saved in-place.
+        Model model = createModel();
+        Path path = temporaryPath.resolve("withoutResource.uml");
+        FileHelper.storeModel(model, path.toString());
+        assertEquals(URI.createFileURI(path.toString()), model.eResource().getURI());
+
+        Path expectedPath = storeViaSharedResource(createModel(), "expected.uml");
+        assertEquals(Files.readString(expectedPath), Files.readString(path));
+    }
+
+    @Test
+    void testStoreAfterChanges() throws IOException {
+        // Store a model, change it, and store it again. The result is the same as storing the changed model at once.
+        Model model = addToResource(createModel(), "model.uml");
+        FileHelper.storeModel(model, temporaryPath.resolve("first.uml").toString());
+        changeModel(model);
+        Path secondPath = temporaryPath.resolve("second.uml");
+        FileHelper.storeModel(model, secondPath.toString());
+
+        Model expectedModel = createModel();
+        changeModel(expectedModel);
+        Path expectedPath = storeViaSharedResource(expectedModel, "expected.uml");
+        assertEquals(Files.readString(expectedPath), Files.readString(secondPath));
+
+        // Storing the model again without changes gives the same result.
+        Path thirdPath = temporaryPath.resolve("third.uml");
+        FileHelper.storeModel(model, thirdPath.toString());
+        assertEquals(Files.readString(secondPath), Files.readString(thirdPath));
+    }
+
+    @Test
+    void testNormalizeIds() {
+        Model model = addToResource(createModel(), "model.uml");
+        FileHelper.normalizeIds(model);
+        assertEquals(consecutiveIds(model), getIds(model));
+
+        // Only the changed part of the containment tree gets new IDs, after which all IDs are consecutive again.
+        changeModel(model);
+        FileHelper.normalizeIds(model);
+        assertEquals(consecutiveIds(model), getIds(model));
+
+        // The IDs of an equal model in a new resource are normalized the same.
+        Model copy = addToResource(EcoreUtil.copy(model), "copy.uml");
+        FileHelper.normalizeIds(copy);
+        assertEquals(getIds(model), getIds(copy));
+    }
+
+    @Test
+    void testSnapshot() throws IOException {
+        // Storing a snapshot gives the same result as storing the model at the time of the snapshot.
+        Model model = addToResource(createModel(), "model.uml");
+        Path snapshotPath = temporaryPath.resolve("snapshot.uml");
+        Resource snapshot = FileHelper.createModelSnapshot(model, URI.createFileURI(snapshotPath.toString()));
+        List<String> snapshotIds = getIds(model);
+        changeModel(model);
+        FileHelper.storeModelSnapshot(snapshot);
+
+        Path expectedPath = storeViaSharedResource(createModel(), "expected.uml");
+        assertEquals(Files.readString(expectedPath), Files.readString(snapshotPath));
+        assertEquals(consecutiveIds(snapshotIds.size()), snapshotIds);
+    }
+
+    /**
+     * Stores the given model via the shared resource of {@link FileHelper}, rather than saving its own resource
+     * in-place, by having its resource contain another model as well.
+     *
+     * @param model The model to store.
+     * @param fileName The name of the file to store the model to.
+     * @return The path of the stored model.
+     * @throws IOException Thrown in case the model could not be saved.
+     */
+    private Path storeViaSharedResource(Model model, String fileName) throws IOException {
+        addToResource(model, fileName).eResource().getContents().add(FileHelper.FACTORY.createModel());
+        Path path = temporaryPath.resolve(fileName);
+        FileHelper.storeModel(model, path.toString());
+        return path;
+    }
+
+    private static Model createModel() {
+        Model model = FileHelper.FACTORY.createModel();
+        model.setName("model");
+        Activity activity = (Activity)model.createOwnedType("activity", UMLPackage.Literals.ACTIVITY);
+        ActivityNode initialNode = activity.createOwnedNode("initial", UMLPackage.Literals.INITIAL_NODE);
+        ActivityNode action = activity.createOwnedNode("action", UMLPackage.Literals.OPAQUE_ACTION);
+        ActivityNode finalNode = activity.createOwnedNode("final", UMLPackage.Literals.ACTIVITY_FINAL_NODE);
+        connect(activity, initialNode, action);
+        connect(activity, action, finalNode);
+        model.createOwnedComment().setBody("comment");
+        return model;
+    }
+
+    /**
+     * Changes the given model, by adding an element in the middle of its containment tree, and removing another.
+     *
+     * @param model The model to change.
+     */
+    private static void changeModel(Model model) {
+        Activity activity = (Activity)model.getOwnedType("activity");
+        ActivityNode action = activity.getNode("action");
+        ActivityNode finalNode = activity.getNode("final");
+        ActivityNode newAction = activity.createOwnedNode("newAction", UMLPackage.Literals.OPAQUE_ACTION);
+        activity.getOwnedNodes().move(2, newAction);
+        action.getOutgoings().get(0).setTarget(newAction);
+        connect(activity, newAction, finalNode);
+        model.getOwnedComments().get(0).destroy();
+    }
+
+    private static void connect(Activity activity, ActivityNode source, ActivityNode target) {
+        ControlFlow controlFlow = (ControlFlow)activity.createEdge(null, UMLPackage.Literals.CONTROL_FLOW);
+        controlFlow.setSource(source);
+        controlFlow.setTarget(target);
+    }
+
+    private static Model addToResource(Model model, String fileName) {
+        Resource resource = FileHelper.createModelResourceSet().createResource(URI.createFileURI(fileName));
+        resource.getContents().add(model);
+        return model;
+    }
+
+    private static List<String> getIds(Model model) {
+        XMLResource resource = (XMLResource)model.eResource();
+        List<String> ids = new ArrayList<>();
+        resource.getAllContents().forEachRemaining(object -> ids.add(resource.getID(object)));
+        return ids;
+    }
+
+    private static List<String> consecutiveIds(Model model) {
+        List<EObject> contents = new ArrayList<>();
+        model.eResource().getAllContents().forEachRemaining(contents::add);
+        return consecutiveIds(contents.size());
+    }
+
+    private static List<String> consecutiveIds(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            ids.add(String.valueOf(i));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,116 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.common;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature.Setting;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.ECrossReferenceAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.uml2.uml.Element;
+
+/** Helps deleting model elements in bulk. */
+public class DeletionHelper {
+    private DeletionHelper() {
+    }
+
+    /**
+     * Destroys the given objects, with the same result as calling {@link Element#destroy()} on each of them. That is,
+     * the objects, their contents, and the stereotype applications of all of them, are removed from their containers,
+     * and all references to them from objects that are not destroyed are removed.
+     * <p>
+     * Unlike destroying the objects one by one, the references to all destroyed objects are resolved only once, either
+     * using the cross-reference adapter of the objects if they have one, or by a single pass over the resource set
+     * that contains them. Objects that are to be destroyed in the same pass should thus be destroyed together.
+     * </p>
+     *
+     * @param objects The objects to destroy. They must all be part of the same model.
+     */
+    public static void destroyAll(Collection<? extends EObject> objects) {
+        if (objects.isEmpty()) {
+            return;
+        }
+
+        // Collect the objects and their contents, and the stereotype applications of all of them.
+        Set<EObject> objectsToDestroy = new LinkedHashSet<>();
+        for (EObject object: objects) {
+            objectsToDestroy.add(object);
+            object.eAllContents().forEachRemaining(objectsToDestroy::add);
+        }
+        for (EObject object: List.copyOf(objectsToDestroy)) {
+            if (object instanceof Element element) {
+                objectsToDestroy.addAll(element.getStereotypeApplications());
+            }
+        }
+
+        // Remove all references to the objects to destroy, from objects that are not destroyed themselves.
+        for (Entry<EObject, Collection<Setting>> usages: findUsages(objectsToDestroy).entrySet()) {
+            for (Setting setting: usages.getValue()) {
+                if (!objectsToDestroy.contains(setting.getEObject())
+                        && setting.getEStructuralFeature().isChangeable())
+                {
+                    EcoreUtil.remove(setting, usages.getKey());
+                }
+            }
+        }
+
+        // Detach the objects to destroy that are still contained in objects that are not destroyed. Other objects are
+        // detached together with their container.
+        for (EObject object: objectsToDestroy) {
+            if (!objectsToDestroy.contains(object.eContainer())) {
+                EcoreUtil.remove(object);
+            }
+        }
+        for (EObject object: objectsToDestroy) {
+            object.eAdapters().clear();
+        }
+    }
+
+    /**
+     * Finds all references to the given objects at once.
+     *
+     * @param objects The non-empty collection of objects for which to find the references.
+     * @return The references to each of the given objects.
+     */
+    private static Map<EObject, Collection<Setting>> findUsages(Collection<EObject> objects) {
+        // Use the cross-reference adapter, if the objects have one, as it keeps track of all references.
+        EObject firstObject = objects.iterator().next();
+        ECrossReferenceAdapter crossReferenceAdapter = ECrossReferenceAdapter.getCrossReferenceAdapter(firstObject);
+        if (crossReferenceAdapter != null) {
+            Map<EObject, Collection<Setting>> usages = new LinkedHashMap<>();
+            for (EObject object: objects) {
+                usages.put(object, List.copyOf(crossReferenceAdapter.getInverseReferences(object)));
+            }
+            return usages;
+        }
+
+        // Otherwise, search the resource set, resource or model containing the objects once, for all objects together.
+        EObject rootObject = EcoreUtil.getRootContainer(firstObject);
+        Resource resource = rootObject.eResource();
+        ResourceSet resourceSet = (resource == null) ? null : resource.getResourceSet();
+        if (resourceSet != null) {
+            return EcoreUtil.UsageCrossReferencer.findAll(objects, resourceSet);
+        } else if (resource != null) {
+            return EcoreUtil.UsageCrossReferencer.findAll(objects, resource);
+        } else {
+            return EcoreUtil.UsageCrossReferencer.findAll(objects, rootObject);
+        }
+    }
+}
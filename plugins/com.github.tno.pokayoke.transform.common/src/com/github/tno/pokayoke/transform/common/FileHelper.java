@@ -10,8 +10,12 @@
 
 package com.github.tno.pokayoke.transform.common;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.util.Collections;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,14 +23,16 @@ import java.util.Map.Entry;
 import java.util.stream.Collectors;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.emf.common.util.ECollections;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.URIConverter;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.EcoreUtil.Copier;
 import org.eclipse.emf.ecore.xmi.XMLResource;
-import org.eclipse.escet.common.emf.EMFHelper;
 import org.eclipse.uml2.uml.Model;
 import org.eclipse.uml2.uml.UMLFactory;
 import org.eclipse.uml2.uml.UMLPackage;
@@ -35,6 +41,28 @@ import org.eclipse.uml2.uml.resources.util.UMLResourcesUtil;
 public class FileHelper {
     public static final UMLFactory FACTORY = UMLFactory.eINSTANCE;
 
+    /** The size in bytes of the output buffer for saving models. */
+    private static final int SAVE_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The resource set per thread, for temporary resources to save models. Sharing it avoids repeatedly initializing
+     * new resource sets for UML.
+     */
+    private static final ThreadLocal<ResourceSet> SAVE_RESOURCE_SET = ThreadLocal
+            .withInitial(FileHelper::createModelResourceSet);
+
+    /**
+     * The options per thread, for saving models. They cache the serialization configuration and the lookup tables for
+     * features, which are not thread-safe, between saves.
+     */
+    private static final ThreadLocal<Map<Object, Object>> SAVE_OPTIONS = ThreadLocal.withInitial(() -> {
+        Map<Object, Object> options = new LinkedHashMap<>();
+        options.put(XMLResource.OPTION_CONFIGURATION_CACHE, Boolean.TRUE);
+        options.put(XMLResource.OPTION_USE_CACHED_LOOKUP_TABLE, new ArrayList<>());
+        options.put(XMLResource.OPTION_USE_DEPRECATED_METHODS, Boolean.FALSE);
+        return options;
+    });
+
     private FileHelper() {
         // Empty for utility classes
     }
@@ -63,35 +91,157 @@ public class FileHelper {
         storeModel(model, URI.createFileURI(pathName));
     }
 
+    /**
+     * Stores the given model, with the stereotype applications of its elements, to the specified URI.
+     * <p>
+     * If the model and its stereotype applications are the only contents of their resource, which is typically the
+     * case, that resource is saved in-place. Otherwise, they are temporarily moved to a resource of a resource set that
+     * is shared between all saves on the same thread. In both cases, the XMI IDs of the saved resource are normalized.
+     * </p>
+     *
+     * @param model The model to store.
+     * @param uri The URI to store the input model.
+     * @throws IOException Thrown in case the model could not be saved.
+     */
     public static void storeModel(Model model, URI uri) throws IOException {
-        // Build the resource to store.
+        List<EObject> stereotypeApplications = model.allOwnedElements().stream()
+                .flatMap(e -> e.getStereotypeApplications().stream()).collect(Collectors.toList());
+
+        // Make sure the model is in a resource. The model keeps this resource, including its resource set, after
+        // having been stored.
+        if (model.eResource() == null) {
+            Resource resource = createModelResourceSet().createResource(uri);
+            resource.getContents().add(model);
+            resource.getContents().addAll(stereotypeApplications.stream().filter(a -> a.eResource() == null).toList());
+        }
+
+        // Save the resource of the model in-place, if possible.
         Resource originalModelResource = model.eResource();
-        Resource resource = createModelResourceSet().createResource(uri);
+        if (model.eContainer() == null && originalModelResource instanceof XMLResource
+                && originalModelResource.getContents().size() == stereotypeApplications.size() + 1
+                && stereotypeApplications.stream()
+                        .allMatch(a -> a.eResource() == originalModelResource && a.eContainer() == null))
+        {
+            // Order the contents of the resource like they would be ordered in a new resource. This only moves objects
+            // within the resource, and thus does not change their containment.
+            List<EObject> contents = new ArrayList<>(stereotypeApplications.size() + 1);
+            contents.add(model);
+            contents.addAll(stereotypeApplications);
+            ECollections.setEList(originalModelResource.getContents(), contents);
+
+            // Store the model.
+            normalizeIds(originalModelResource);
+            save(originalModelResource, uri);
+            return;
+        }
+
+        // Build the resource to store.
+        Resource resource = SAVE_RESOURCE_SET.get().createResource(uri);
         resource.getContents().add(model);
 
         // Also add the UML profiles information to the resource.
-        List<EObject> stereotypeApplications = model.allOwnedElements().stream()
-                .flatMap(e -> e.getStereotypeApplications().stream()).collect(Collectors.toList());
         Map<EObject, Resource> originalApplicationResources = new LinkedHashMap<>();
         stereotypeApplications.forEach(e -> originalApplicationResources.put(e, e.eResource()));
         resource.getContents().addAll(stereotypeApplications);
 
         // Store the model.
-        normalizeIds(resource);
-        resource.save(Collections.EMPTY_MAP);
-
-        // Put the model and stereotype applications back to their original resources.
-        if (originalModelResource != null) {
+        try {
+            normalizeIds(resource);
+            save(resource, uri);
+        } finally {
+            // Put the model and stereotype applications back to their original resources. Stereotype applications
+            // without an original resource are put in the resource of the model.
             originalModelResource.getContents().add(model);
+
+            for (Entry<EObject, Resource> entry: originalApplicationResources.entrySet()) {
+                Resource originalApplicationResource = entry.getValue();
+
+                if (originalApplicationResource != null) {
+                    originalApplicationResource.getContents().add(entry.getKey());
+                } else {
+                    originalModelResource.getContents().add(entry.getKey());
+                }
+            }
+
+            // Remove the now empty resource from the shared resource set.
+            resource.getResourceSet().getResources().remove(resource);
         }
+    }
+
+    /**
+     * Creates a snapshot of the given model, to be stored later using {@link #storeModelSnapshot}, while the model
+     * itself may already be modified further. Storing the snapshot gives the same result as storing the model using
+     * {@link #storeModel} at the time the snapshot is created, including the normalization of the XMI IDs of the model.
+     * <p>
+     * The snapshot is a copy of the model, with the stereotype applications of its elements, in a new resource. The
+     * snapshot is independent of the model, except for references to other resources, like profiles and libraries,
+     * which are only read when storing it. The snapshot may thus be stored on another thread.
+     * </p>
+     *
+     * @param model The model of which to create a snapshot. Must be contained in a resource.
+     * @param uri The URI to store the snapshot to.
+     * @return The snapshot.
+     */
+    public static Resource createModelSnapshot(Model model, URI uri) {
+        List<EObject> stereotypeApplications = model.allOwnedElements().stream()
+                .flatMap(e -> e.getStereotypeApplications().stream()).collect(Collectors.toList());
 
-        for (Entry<EObject, Resource> entry: originalApplicationResources.entrySet()) {
-            Resource originalApplicationResource = entry.getValue();
+        // Copy the model and its stereotype applications into a new resource, ordered like when storing the model.
+        Copier copier = new Copier();
+        EObject modelCopy = copier.copy(model);
+        Collection<EObject> stereotypeApplicationCopies = copier.copyAll(stereotypeApplications);
+        copier.copyReferences();
 
-            if (originalApplicationResource != null) {
-                originalApplicationResource.getContents().add(entry.getKey());
+        XMLResource snapshot = (XMLResource)createModelResourceSet().createResource(uri);
+        snapshot.getContents().add(modelCopy);
+        snapshot.getContents().addAll(stereotypeApplicationCopies);
+        normalizeIds(snapshot);
+
+        // Give the objects of the model the same IDs as their copies, like storing the model would. First remove all
+        // old IDs, to not have the removal of an old ID of one object remove the new ID of another object.
+        Map<EObject, String> changedIds = new LinkedHashMap<>();
+        for (Entry<EObject, EObject> entry: copier.entrySet()) {
+            EObject object = entry.getKey();
+            String id = snapshot.getID(entry.getValue());
+            if (object.eResource() instanceof XMLResource resource && !id.equals(resource.getID(object))) {
+                changedIds.put(object, id);
             }
         }
+        changedIds.keySet().forEach(object -> ((XMLResource)object.eResource()).setID(object, null));
+        changedIds.forEach((object, id) -> ((XMLResource)object.eResource()).setID(object, id));
+
+        return snapshot;
+    }
+
+    /**
+     * Stores a model snapshot that was created using {@link #createModelSnapshot}.
+     *
+     * @param snapshot The model snapshot to store.
+     * @throws IOException Thrown in case the snapshot could not be saved.
+     */
+    public static void storeModelSnapshot(Resource snapshot) throws IOException {
+        save(snapshot, snapshot.getURI());
+    }
+
+    /**
+     * Saves the given resource to the given URI, using buffered output and cached serialization settings.
+     *
+     * @param resource The resource to save. Its URI is temporarily changed to the given URI, such that references to
+     *     other resources are serialized relative to the given URI.
+     * @param uri The URI to save the resource to.
+     * @throws IOException Thrown in case the resource could not be saved.
+     */
+    private static void save(Resource resource, URI uri) throws IOException {
+        ResourceSet resourceSet = resource.getResourceSet();
+        URIConverter uriConverter = (resourceSet == null) ? URIConverter.INSTANCE : resourceSet.getURIConverter();
+
+        URI originalUri = resource.getURI();
+        resource.setURI(uri);
+        try (OutputStream stream = new BufferedOutputStream(uriConverter.createOutputStream(uri), SAVE_BUFFER_SIZE)) {
+            resource.save(stream, SAVE_OPTIONS.get());
+        } finally {
+            resource.setURI(originalUri);
+        }
     }
 
     /**
@@ -104,12 +254,31 @@ public class FileHelper {
     }
 
     /**
-     * Normalizes all XMI IDs in the given resource.
+     * Normalizes all XMI IDs in the given resource. All objects in the resource get consecutive numbers as their IDs,
+     * in the order of their containment tree, starting from {@code 1}. Only the IDs of the objects of which the ID
+     * differs from its normalized ID are updated, such that normalizing the IDs of an already normalized resource is
+     * cheap.
      *
      * @param resource The resource.
      */
     public static void normalizeIds(Resource resource) {
-        EMFHelper.normalizeXmiIds((XMLResource)resource);
+        XMLResource xmlResource = (XMLResource)resource;
+
+        // Collect the objects of which the ID is not yet normalized.
+        Map<EObject, String> changedIds = new LinkedHashMap<>();
+        int nextId = 1;
+        for (Iterator<EObject> iterator = xmlResource.getAllContents(); iterator.hasNext();) {
+            EObject object = iterator.next();
+            String id = String.valueOf(nextId++);
+            if (!id.equals(xmlResource.getID(object))) {
+                changedIds.put(object, id);
+            }
+        }
+
+        // Update the IDs. First remove all old IDs, to not have the removal of an old ID of one object remove the
+        // new ID of another object.
+        changedIds.keySet().forEach(object -> xmlResource.setID(object, null));
+        changedIds.forEach(xmlResource::setID);
     }
 
     public static ResourceSet createModelResourceSet() {
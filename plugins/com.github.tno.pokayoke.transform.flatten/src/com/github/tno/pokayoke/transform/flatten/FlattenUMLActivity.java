@@ -33,6 +33,7 @@ import org.eclipse.uml2.uml.InitialNode;
 import org.eclipse.uml2.uml.MergeNode;
 import org.eclipse.uml2.uml.Model;
 
+import com.github.tno.pokayoke.transform.common.DeletionHelper;
 import com.github.tno.pokayoke.transform.common.ExprHelper;
 import com.github.tno.pokayoke.transform.common.FileHelper;
 import com.github.tno.pokayoke.transform.common.IDHelper;
@@ -141,6 +142,9 @@ public class FlattenUMLActivity {
             // Get the activity of the call behavior action.
             Activity parentActivity = callBehaviorActionToReplace.getActivity();
 
+            // Collect the elements to destroy, to destroy them all at once.
+            List<Element> elementsToDestroy = new ArrayList<>();
+
             for (ActivityNode node: new ArrayList<>(childBehaviorCopy.getNodes())) {
                 // Set the activity for the node.
                 node.setActivity(parentActivity);
@@ -180,7 +184,7 @@ public class FlattenUMLActivity {
                             ExprHelper.conjoinExprs(filteredPreconditions));
 
                     // Destroy the initial node.
-                    initialNode.destroy();
+                    elementsToDestroy.add(initialNode);
                 }
 
                 // Creates a merge node to substitute the activity's final node. This maintains the original structure,
@@ -196,12 +200,13 @@ public class FlattenUMLActivity {
                     finalNodeSub.setName(finalNode.getName());
 
                     // Destroy the final node.
-                    finalNode.destroy();
+                    elementsToDestroy.add(finalNode);
                 }
             }
 
-            // Destroy the call behavior action being replaced.
-            callBehaviorActionToReplace.destroy();
+            // Destroy the call behavior action being replaced, together with the initial and final nodes.
+            elementsToDestroy.add(callBehaviorActionToReplace);
+            DeletionHelper.destroyAll(elementsToDestroy);
         }
     }
 
@@ -0,0 +1,186 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.petrify;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests for {@link NormalizePetrifyOutput}, which normalizes a parsed {@link PetrifyNet} in memory, ordering places
+ * based on precomputed bitset keys.
+ */
+class NormalizePetrifyOutputTest {
+    @TempDir
+    Path temporaryPath;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"excitation_region_split", "join", "parallel", "self_loop_split"})
+    void testRegressionOutputs(String name) {
+        // The expected outputs of the regression tests were normalized before, and remain the same.
+        List<String> expected = readExpectedOutput(name);
+        assertEquals(expected, NormalizePetrifyOutput.normalize(expected));
+
+        // Renaming the places, reordering the specification, and adding comments doesn't affect the normalized output.
+        Random random = new Random(0);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(expected, NormalizePetrifyOutput.normalize(scramble(expected, random)));
+        }
+    }
+
+    @Test
+    void testIncomingTransitions() {
+        // Places 'a' and 'b' have the same outgoing transitions, and are ordered based on their incoming transitions.
+        List<String> petrifyOutput = List.of( //
+                ".model test", //
+                ".dummy s u v", //
+                ".graph", //
+                "m s", //
+                "s a b", //
+                "a u", //
+                "b u", //
+                "u c", //
+                "c v", //
+                "v b m", //
+                ".marking { m }", //
+                ".end");
+        assertEquals(List.of( //
+                ".model test", //
+                ".dummy s u v", //
+                ".graph", //
+                "p1 s", //
+                "p2 u", //
+                "p3 u", //
+                "p4 v", //
+                "s p2 p3", //
+                "u p4", //
+                "v p1 p2", //
+                ".marking { p1 }", //
+                ".end"), //
+                NormalizePetrifyOutput.normalize(petrifyOutput));
+    }
+
+    @Test
+    void testManyTransitions() {
+        // The places are ordered based on their outgoing transitions, of which there are more than fit in a single
+        // word of the bitset keys.
+        int count = 70;
+        List<String> transitionNames = new ArrayList<>();
+        List<String> petrifyOutput = new ArrayList<>(List.of(".model test", "", ".graph", "m s"));
+        List<String> targets = new ArrayList<>(List.of("s"));
+        for (int i = 0; i < count; i++) {
+            String transitionName = String.format("t%02d", i);
+            String placeName = "x" + (count - i);
+            transitionNames.add(transitionName);
+            targets.add(placeName);
+            petrifyOutput.add(placeName + " " + transitionName);
+            petrifyOutput.add(transitionName + " m");
+        }
+        petrifyOutput.add(String.join(" ", targets));
+        petrifyOutput.set(1, ".dummy s " + String.join(" ", transitionNames));
+        petrifyOutput.addAll(List.of(".marking { m }", ".end"));
+
+        PetrifyNet normalizedNet = NormalizePetrifyOutput.normalize(PetrifyNet.parse(petrifyOutput));
+        assertEquals("p1", normalizedNet.getMarkingPlaceName());
+        for (int i = 0; i < count; i++) {
+            List<String> expectedLine = List.of("p" + (i + 2), transitionNames.get(i));
+            assertEquals(1, Collections.frequency(normalizedNet.getSpecification(), expectedLine));
+        }
+    }
+
+    @Test
+    void testSources() throws IOException {
+        // Normalizing a file, a list of lines, or a parsed Petri Net gives the same result.
+        List<String> petrifyOutput = scramble(readExpectedOutput("parallel"), new Random(0));
+        petrifyOutput.add(0, "# Generated by Petrify.");
+        List<String> expected = NormalizePetrifyOutput.normalize(PetrifyNet.parse(petrifyOutput)).toLines();
+        assertEquals(expected, NormalizePetrifyOutput.normalize(petrifyOutput));
+
+        // The normalized Petri Net is also written back to the file, without comments.
+        Path path = Files.write(temporaryPath.resolve("input.out"), petrifyOutput);
+        assertEquals(expected, NormalizePetrifyOutput.normalize(path).toLines());
+        assertEquals(expected, Files.readAllLines(path));
+        assertEquals(expected, PetrifyNet.read(path).toLines());
+    }
+
+    private static List<String> readExpectedOutput(String name) {
+        Path path = Path.of("resources-test", "regressiontests", name, "expected", "input.out");
+        try {
+            return Files.readAllLines(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read: " + path, e);
+        }
+    }
+
+    /**
+     * Scrambles the given Petrify output, by randomly renaming its places, shuffling its specification lines and the
+     * targets on each line, and adding comments.
+     *
+     * @param petrifyOutput The Petrify output.
+     * @param random The random generator to use.
+     * @return The scrambled Petrify output.
+     */
+    private static List<String> scramble(List<String> petrifyOutput, Random random) {
+        PetrifyNet net = PetrifyNet.parse(petrifyOutput);
+        Set<String> transitionNames = new HashSet<>(net.getTransitionNames());
+
+        // Randomly rename the places.
+        List<String> placeNames = net.getSpecification().stream().flatMap(List::stream).distinct()
+                .filter(node -> !transitionNames.contains(node)
+                        && !PetrifyHelper.isDuplicateTransition(node, transitionNames))
+                .toList();
+        List<Integer> numbers = new ArrayList<>(Stream.iterate(0, i -> i + 1).limit(placeNames.size()).toList());
+        Collections.shuffle(numbers, random);
+        Map<String, String> newPlaceNames = new HashMap<>();
+        for (int i = 0; i < placeNames.size(); i++) {
+            newPlaceNames.put(placeNames.get(i), "place_" + numbers.get(i));
+        }
+
+        // Rewrite the specification.
+        List<String> specificationLines = new ArrayList<>();
+        for (List<String> nodes: net.getSpecification()) {
+            List<String> newNodes = new ArrayList<>();
+            nodes.forEach(node -> newNodes.add(newPlaceNames.getOrDefault(node, node)));
+            Collections.shuffle(newNodes.subList(1, newNodes.size()), random);
+            specificationLines.add(String.join(" ", newNodes));
+        }
+        Collections.shuffle(specificationLines, random);
+        specificationLines.add(random.nextInt(specificationLines.size()), "# A comment.");
+
+        // Replace the specification and the marking.
+        List<String> scrambled = new ArrayList<>();
+        for (String line: petrifyOutput) {
+            if (line.startsWith(".marking")) {
+                scrambled.addAll(specificationLines);
+                scrambled.add(".marking { " + newPlaceNames.get(net.getMarkingPlaceName()) + " }");
+            } else if (line.startsWith(".")) {
+                scrambled.add(line);
+            }
+        }
+        return scrambled;
+    }
+}
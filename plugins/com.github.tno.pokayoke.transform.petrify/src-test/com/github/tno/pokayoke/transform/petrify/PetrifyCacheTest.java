@@ -0,0 +1,148 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.petrify;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for {@link PetrifyCache}. */
+class PetrifyCacheTest {
+    /** The Petrify options of the tests. */
+    private static final List<String> OPTIONS = List.of("-fc -opt", "-opt");
+
+    @TempDir
+    Path temporaryPath;
+
+    /** The path of the fake Petrify executable, of which only the contents matter. */
+    private String executablePath;
+
+    /** The path of the Petrify input file. */
+    private Path inputPath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        executablePath = Files.writeString(temporaryPath.resolve("petrify"), "executable").toString();
+        inputPath = Files.writeString(temporaryPath.resolve("input.g"),
+                ".outputs a b\n.state graph\ns0 a s1\ns1 b s2\n.marking {s0}\n.end\n");
+    }
+
+    @Test
+    void testKeys() throws IOException {
+        PetrifyCache cache = new PetrifyCache(temporaryPath.resolve("cache"), PetrifyCache.DEFAULT_MAX_SIZE);
+        String key = cache.computeKey(inputPath, executablePath, OPTIONS);
+        assertEquals(key, cache.computeKey(inputPath, executablePath, OPTIONS));
+
+        // Comments, empty lines and whitespace differences don't affect the key.
+        Path equivalentPath = Files.writeString(temporaryPath.resolve("equivalent.g"),
+                "# Generated.\n.outputs  a\tb\n\n.state graph # The states.\n  s0 a s1\ns1 b s2\n.marking {s0}\n.end");
+        assertEquals(key, cache.computeKey(equivalentPath, executablePath, OPTIONS));
+
+        // Different state graphs, options, and executables give different keys.
+        Path differentPath = Files.writeString(temporaryPath.resolve("different.g"),
+                ".outputs a b\n.state graph\ns0 a s1\ns1 a s2\n.marking {s0}\n.end\n");
+        assertNotEquals(key, cache.computeKey(differentPath, executablePath, OPTIONS));
+        assertNotEquals(key, cache.computeKey(inputPath, executablePath, List.of("-fc -opt -mints", "-opt")));
+        assertNotEquals(key, cache.computeKey(inputPath, executablePath, List.of("-fc -opt")));
+        String otherExecutablePath = Files.writeString(temporaryPath.resolve("petrify2"), "other").toString();
+        assertNotEquals(key, cache.computeKey(inputPath, otherExecutablePath, OPTIONS));
+    }
+
+    @Test
+    void testStoreRestore() throws IOException {
+        PetrifyCache cache = new PetrifyCache(temporaryPath.resolve("cache"), PetrifyCache.DEFAULT_MAX_SIZE);
+        String key = cache.computeKey(inputPath, executablePath, OPTIONS);
+        Path outputPath = Files.writeString(temporaryPath.resolve("input.out"), ".model out\n.end\n");
+        Path logPath = Files.writeString(temporaryPath.resolve("input.log"), "log\r\nwith line endings\n");
+        Path errorPath = Files.writeString(temporaryPath.resolve("input.err"), "");
+
+        // Restoring a result that was not stored leaves the files untouched.
+        Path restoredFolder = Files.createDirectories(temporaryPath.resolve("restored"));
+        Path restoredOutputPath = restoredFolder.resolve("input.out");
+        Path restoredLogPath = restoredFolder.resolve("input.log");
+        Path restoredErrorPath = restoredFolder.resolve("input.err");
+        assertFalse(cache.restore(key, restoredOutputPath, restoredLogPath, restoredErrorPath));
+        assertFalse(Files.exists(restoredOutputPath));
+
+        // A restored result is byte-identical to the stored one, also if it replaces existing files.
+        cache.store(key, outputPath, logPath, errorPath);
+        Files.writeString(restoredOutputPath, "old");
+        assertTrue(cache.restore(key, restoredOutputPath, restoredLogPath, restoredErrorPath));
+        assertArrayEquals(Files.readAllBytes(outputPath), Files.readAllBytes(restoredOutputPath));
+        assertArrayEquals(Files.readAllBytes(logPath), Files.readAllBytes(restoredLogPath));
+        assertArrayEquals(Files.readAllBytes(errorPath), Files.readAllBytes(restoredErrorPath));
+
+        // A result is shared by all caches with the same folder, and storing it again keeps it.
+        PetrifyCache otherCache = new PetrifyCache(temporaryPath.resolve("cache"), PetrifyCache.DEFAULT_MAX_SIZE);
+        otherCache.store(key, outputPath, logPath, errorPath);
+        assertTrue(otherCache.restore(key, restoredOutputPath, restoredLogPath, restoredErrorPath));
+        assertArrayEquals(Files.readAllBytes(outputPath), Files.readAllBytes(restoredOutputPath));
+    }
+
+    @Test
+    void testMissingFiles() throws IOException {
+        // Missing log and stderr files are restored as empty files.
+        PetrifyCache cache = new PetrifyCache(temporaryPath.resolve("cache"), PetrifyCache.DEFAULT_MAX_SIZE);
+        Path outputPath = Files.writeString(temporaryPath.resolve("input.out"), ".model out\n.end\n");
+        cache.store("key", outputPath, temporaryPath.resolve("missing.log"), temporaryPath.resolve("missing.err"));
+
+        Path restoredLogPath = temporaryPath.resolve("restored.log");
+        Path restoredErrorPath = temporaryPath.resolve("restored.err");
+        assertTrue(cache.restore("key", temporaryPath.resolve("restored.out"), restoredLogPath, restoredErrorPath));
+        assertEquals(0, Files.size(restoredLogPath));
+        assertEquals(0, Files.size(restoredErrorPath));
+    }
+
+    @Test
+    void testPruneLeastRecentlyUsed() throws IOException {
+        Path rootFolderPath = temporaryPath.resolve("cache");
+        PetrifyCache cache = new PetrifyCache(rootFolderPath, 25);
+        Path outputPath = Files.writeString(temporaryPath.resolve("input.out"), "0123456789");
+        Path logPath = temporaryPath.resolve("input.log");
+        Path errorPath = temporaryPath.resolve("input.err");
+
+        // Folders of other versions of the cache layout are removed.
+        Path staleFolderPath = Files.createDirectories(rootFolderPath.resolve("v0").resolve("key"));
+
+        // Store two results, and then use the oldest one.
+        cache.store("key1", outputPath, logPath, errorPath);
+        cache.store("key2", outputPath, logPath, errorPath);
+        assertFalse(Files.exists(staleFolderPath));
+        assertEquals(1, listFileNames(rootFolderPath).size());
+        Path folderPath = rootFolderPath.resolve(listFileNames(rootFolderPath).get(0));
+        Files.setLastModifiedTime(folderPath.resolve("key1"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(folderPath.resolve("key2"), FileTime.fromMillis(2000));
+        assertTrue(cache.restore("key1", temporaryPath.resolve("restored.out"), logPath, errorPath));
+
+        // Storing a third result exceeds the maximum size, which removes the least recently used result.
+        cache.store("key3", outputPath, logPath, errorPath);
+        assertEquals(List.of("key1", "key3"), listFileNames(folderPath));
+    }
+
+    private static List<String> listFileNames(Path folderPath) throws IOException {
+        try (Stream<Path> paths = Files.list(folderPath)) {
+            return paths.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.petrify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.github.tno.pokayoke.transform.tests.common.RegressionTest;
+
+/** Regression test for region-based synthesis of Petri Nets from Petrify input. */
+class RegionBasedSynthesisRegressionTest extends RegressionTest {
+    public static final String INPUT_FILE_EXTENSION = "g";
+
+    public static final String REGRESSIONTESTS_NAME = "regressiontests";
+
+    public static Stream<? extends Arguments> provideArguments() throws Exception {
+        return RegressionTest.provideArguments(INPUT_FILE_EXTENSION, REGRESSIONTESTS_NAME);
+    }
+
+    @Override
+    @ParameterizedTest
+    @MethodSource("provideArguments")
+    public void regressionTest(Path inputPath, Path expectedPath, Path outputPath, String message) throws Exception {
+        super.regressionTest(inputPath, expectedPath, outputPath, message);
+    }
+
+    @Override
+    protected void actTest(Path inputPath, Path outputPath) throws IOException {
+        List<String> petrifyOutput = RegionBasedSynthesis.synthesize(Files.readAllLines(inputPath));
+        Files.createDirectories(outputPath);
+        Files.write(outputPath.resolve("input.out"), petrifyOutput);
+    }
+}
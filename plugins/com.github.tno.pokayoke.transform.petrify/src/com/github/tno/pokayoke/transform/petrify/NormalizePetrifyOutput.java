@@ -13,26 +13,22 @@ package com.github.tno.pokayoke.transform.petrify;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Verify;
-import com.google.common.collect.Sets;
 
 /** Normalize Petrify output by relabeling the places. */
 public class NormalizePetrifyOutput {
@@ -43,11 +39,13 @@ public class NormalizePetrifyOutput {
      * Normalize the specified Petrify output file.
      *
      * @param petrifyOutputPath The path to the Petrify output file.
+     * @return The normalized Petrify output.
      * @throws IOException In case the Petrify output file could not be read or written to.
      */
-    public static void normalize(Path petrifyOutputPath) throws IOException {
-        List<String> petrifyOutput = PetrifyHelper.readFile(petrifyOutputPath.toString());
-        Files.write(petrifyOutputPath, NormalizePetrifyOutput.normalize(petrifyOutput));
+    public static PetrifyNet normalize(Path petrifyOutputPath) throws IOException {
+        PetrifyNet normalizedNet = normalize(PetrifyNet.read(petrifyOutputPath));
+        Files.write(petrifyOutputPath, normalizedNet.toLines());
+        return normalizedNet;
     }
 
     /**
@@ -57,25 +55,23 @@ public class NormalizePetrifyOutput {
      * @return The normalized Petrify output.
      */
     public static List<String> normalize(List<String> petrifyOutput) {
+        return normalize(PetrifyNet.parse(petrifyOutput)).toLines();
+    }
+
+    /**
+     * Normalize the given Petrify output by relabeling the places.
+     *
+     * @param net The Petrify output.
+     * @return The normalized Petrify output.
+     */
+    public static PetrifyNet normalize(PetrifyNet net) {
         // Collect transition names.
-        String dummyIdentifier = ".dummy";
-        List<String> transitionDeclarations = petrifyOutput.stream().filter(line -> line.startsWith(dummyIdentifier))
-                .toList();
-        Preconditions.checkArgument(transitionDeclarations.size() == 1,
-                "Expected the Petrify output to contain exactly one transition declaration.");
-        String transitionDeclaration = transitionDeclarations.get(0).substring(dummyIdentifier.length()).trim();
-        Set<String> declaredTransitionNames = Sets.newHashSet(transitionDeclaration.split(" "));
-        Set<String> allTransitionNames = new LinkedHashSet<>(declaredTransitionNames);
-
-        // Collect specification lines.
-        List<String> specificationLines = petrifyOutput.stream()
-                .filter(line -> !line.startsWith(".") && !line.startsWith("#")).toList();
+        Set<String> declaredTransitionNames = new HashSet<>(net.getTransitionNames());
+        Set<String> allTransitionNames = new HashSet<>(declaredTransitionNames);
 
         // Collect duplicate transitions, and make a map from nodes to all nodes they can reach in one forward step.
         Map<String, List<String>> nextNodes = new HashMap<>();
-        for (String currentLine: specificationLines) {
-            // Split the specification line into nodes.
-            List<String> nodes = Arrays.asList(currentLine.split(" "));
+        for (List<String> nodes: net.getSpecification()) {
             String parentNode = nodes.get(0);
             List<String> childNodes = nodes.subList(1, nodes.size());
 
@@ -99,25 +95,27 @@ public class NormalizePetrifyOutput {
             }
         }
 
-        // Sort the transition names.
+        // Sort the transition names, and assign a unique index to every transition.
         List<String> sortedTransitionNames = allTransitionNames.stream().sorted().toList();
-        Map<String, Integer> transitionIndices = IntStream.range(0, sortedTransitionNames.size()).boxed()
-                .collect(Collectors.toMap(sortedTransitionNames::get, i -> i));
+        Map<String, Integer> transitionIndices = new HashMap<>();
+        for (String transitionName: sortedTransitionNames) {
+            transitionIndices.put(transitionName, transitionIndices.size());
+        }
+
+        // Places are ordered based on the lowest non-shared index of their outgoing transitions, and then on the lowest
+        // non-shared index of their incoming transitions. The sort key of a place is computed only once, when the place
+        // is first ordered.
+        int wordCount = (transitionIndices.size() + Long.SIZE - 1) / Long.SIZE;
+        Map<String, long[]> placeKeys = new HashMap<>();
+        Comparator<String> comparator = (left, right) -> Arrays.compareUnsigned(placeKeys.get(right),
+                placeKeys.get(left));
 
         // Get the marking place.
-        String markingIdentifier = ".marking";
-        List<String> markingLines = petrifyOutput.stream().filter(line -> line.startsWith(markingIdentifier)).toList();
-        Preconditions.checkArgument(markingLines.size() == 1,
-                "Expected the Petrify output to contain exactly one marking line.");
-        String markingLine = markingLines.get(0);
-        String markingPlaceName = markingLines.get(0).substring(markingIdentifier.length()).replace("{", "")
-                .replace("}", "").trim();
-        Preconditions.checkArgument(markingPlaceName.split(" ").length == 1,
-                "Expected that there is only one marking place.");
+        String markingPlaceName = net.getMarkingPlaceName();
 
         // Perform breadth-first search and rename places based on the parent-to-child relation.
-        Map<String, String> oldToNewPlaceNames = new LinkedHashMap<>();
-        Queue<String> queue = new LinkedList<>();
+        Map<String, String> oldToNewPlaceNames = new HashMap<>();
+        Queue<String> queue = new ArrayDeque<>();
         Set<String> found = new HashSet<>();
         queue.add(markingPlaceName);
         found.add(markingPlaceName);
@@ -125,7 +123,7 @@ public class NormalizePetrifyOutput {
 
         while (!queue.isEmpty()) {
             String currentPlace = queue.poll();
-            List<String> childTransitions = nextNodes.get(currentPlace);
+            List<String> childTransitions = new ArrayList<>(nextNodes.getOrDefault(currentPlace, List.of()));
             Collections.sort(childTransitions);
 
             // Rename the place that has not been renamed.
@@ -136,27 +134,13 @@ public class NormalizePetrifyOutput {
             nextPlaceNr++;
 
             for (String childTransition: childTransitions) {
-                List<String> places = nextNodes.get(childTransition);
-
-                // Recall that earlier we assigned a unique index to every transition, resulting in 'transitionIndices'.
-                // Now, for every place we find the indices of all its incoming transitions, as well as the indices of
-                // all its outgoing transitions.
-                Map<String, Set<Integer>> placeToNextIndices = new LinkedHashMap<>();
-                Map<String, Set<Integer>> placeToPrevIndices = new LinkedHashMap<>();
-
+                List<String> places = nextNodes.getOrDefault(childTransition, List.of());
                 for (String place: places) {
-                    Set<Integer> prevIndices = prevNodes.get(place).stream().map(transitionIndices::get)
-                            .collect(Collectors.toCollection(LinkedHashSet::new));
-                    Set<Integer> nextIndices = nextNodes.get(place).stream().map(transitionIndices::get)
-                            .collect(Collectors.toCollection(LinkedHashSet::new));
-
-                    placeToPrevIndices.put(place, prevIndices);
-                    placeToNextIndices.put(place, nextIndices);
+                    placeKeys.computeIfAbsent(place, p -> computeSortKey(nextNodes.getOrDefault(p, List.of()),
+                            prevNodes.getOrDefault(p, List.of()), transitionIndices, wordCount));
                 }
 
-                // Sort the places based on the lowest non-shared indices found above.
-                Comparator<String> comparator = compareToLowestNonShared(placeToNextIndices)
-                        .thenComparing(compareToLowestNonShared(placeToPrevIndices));
+                // Sort the places based on their sort keys.
                 List<String> sortedPlaces = places.stream().sorted(comparator).toList();
 
                 // Make sure that there is no ambiguity in the order of places to consider next.
@@ -179,66 +163,82 @@ public class NormalizePetrifyOutput {
         }
 
         // Construct new specification line by replacing old place names with new place names.
-        List<String> newSpecificationLines = new ArrayList<>();
-        for (String currentLine: specificationLines) {
-            List<String> nodes = Arrays.asList(currentLine.split(" "));
-            List<String> newNodes = nodes.stream().map(node -> oldToNewPlaceNames.getOrDefault(node, node))
-                    .collect(Collectors.toList());
+        List<SpecificationLine> newSpecificationLines = new ArrayList<>();
+        for (List<String> nodes: net.getSpecification()) {
+            List<String> newNodes = new ArrayList<>(nodes.size());
+            nodes.forEach(node -> newNodes.add(oldToNewPlaceNames.getOrDefault(node, node)));
 
             // Sort the child nodes to make sure the order is deterministic.
             Collections.sort(newNodes.subList(1, newNodes.size()));
 
-            newSpecificationLines.add(String.join(" ", newNodes));
+            newSpecificationLines.add(new SpecificationLine(String.join(" ", newNodes), newNodes));
         }
 
         // Sort the new specification lines to make sure the order is deterministic.
-        Collections.sort(newSpecificationLines);
-
-        // Get the index of the start index and end index of the specification.
-        int startIndex = petrifyOutput.indexOf(specificationLines.get(0));
-        int endIndex = startIndex + specificationLines.size();
+        newSpecificationLines.sort(Comparator.comparing(SpecificationLine::text));
 
-        // Replace the old specification with the new specification.
-        petrifyOutput.subList(startIndex, endIndex).clear();
-        petrifyOutput.addAll(startIndex, newSpecificationLines);
-
-        // Replace the marking place name in the marking line.
+        // Replace the marking place name. The lines that are not part of the specification and contain
+        // non-deterministic information, such as the absolute path of the file and the time stamp at which it was
+        // generated, are comments, which are already removed when the Petrify output is parsed.
         String newMarkingPlaceName = oldToNewPlaceNames.get(markingPlaceName);
         Preconditions.checkNotNull(newMarkingPlaceName, "Expected that the marking place is renamed.");
-        String newMarkingLine = markingLine.replace(markingPlaceName, newMarkingPlaceName);
-        petrifyOutput.set(petrifyOutput.indexOf(markingLine), newMarkingLine);
-
-        // Remove the specification unrelated lines. These lines are automatically generated by Petrify to show the
-        // absolute path of the file and the time stamp at which it was generated. They contain non-deterministic
-        // information and should be removed.
-        List<String> normalizedPetrifyOutput = petrifyOutput.stream().filter(line -> !line.startsWith("#")).toList();
 
-        return normalizedPetrifyOutput;
+        return net.withSpecification(newSpecificationLines.stream().map(SpecificationLine::nodes).toList(),
+                newMarkingPlaceName);
     }
 
     /**
-     * Gives a comparator for comparing places based on their lowest non-shared index as specified by the given mapping.
+     * Computes the sort key of a place. Places are compared based on the lowest non-shared index of their outgoing
+     * transitions, i.e., the lowest index in the symmetric difference of the indices of their outgoing transitions. The
+     * place that has a transition with that index is considered smaller. If places have the same outgoing transitions,
+     * they are compared in the same way based on their incoming transitions.
      *
-     * @param map The mapping from nodes to indices.
-     * @return A comparator for comparing places based on their lowest non-shared index.
+     * <p>
+     * The sort key consists of a bitset of the indices of the outgoing transitions, followed by a bitset of the indices
+     * of the incoming transitions, each with the given number of words. The bits of each word are reversed, such that
+     * the lowest index corresponds to the most significant bit. Comparing the sort keys as unsigned numbers, the
+     * larger key then belongs to the place that is considered smaller.
+     * </p>
+     *
+     * @param nextTransitions The outgoing transitions of the place.
+     * @param prevTransitions The incoming transitions of the place.
+     * @param transitionIndices The indices of all transitions.
+     * @param wordCount The number of words of each bitset.
+     * @return The sort key.
      */
-    private static Comparator<String> compareToLowestNonShared(Map<String, Set<Integer>> map) {
-        return (left, right) -> {
-            Set<Integer> leftSet = map.get(left);
-            Set<Integer> rightSet = map.get(right);
-
-            // If both elements have the same indices, then they are considered equal with respect to this comparison.
-            if (leftSet.equals(rightSet)) {
-                return 0;
-            }
+    private static long[] computeSortKey(List<String> nextTransitions, List<String> prevTransitions,
+            Map<String, Integer> transitionIndices, int wordCount)
+    {
+        long[] key = new long[2 * wordCount];
+        copyReversed(toBitSet(nextTransitions, transitionIndices), key, 0);
+        copyReversed(toBitSet(prevTransitions, transitionIndices), key, wordCount);
+        return key;
+    }
 
-            // Otherwise, we find the lowest non-shared index, i.e., the lowest number in the symmetric difference of
-            // the two sets of indices.
-            int min = Collections.min(Sets.symmetricDifference(leftSet, rightSet));
+    private static BitSet toBitSet(List<String> transitions, Map<String, Integer> transitionIndices) {
+        BitSet bits = new BitSet(transitionIndices.size());
+        for (String transition: transitions) {
+            Integer index = transitionIndices.get(transition);
+            Preconditions.checkArgument(index != null,
+                    String.format("Expected places to only be connected to transitions, but got: %s.", transition));
+            bits.set(index);
+        }
+        return bits;
+    }
 
-            // If the left set contains this number, then 'left' is considered smaller than 'right', or else the right
-            // set must contain this lowest number, in which case 'left' is considered larger than 'right'.
-            return leftSet.contains(min) ? -1 : 1;
-        };
+    private static void copyReversed(BitSet bits, long[] key, int offset) {
+        long[] words = bits.toLongArray();
+        for (int i = 0; i < words.length; i++) {
+            key[offset + i] = Long.reverse(words[i]);
+        }
+    }
+
+    /**
+     * A line of the specification of a Petri Net.
+     *
+     * @param text The text of the line.
+     * @param nodes The nodes of the line.
+     */
+    private record SpecificationLine(String text, List<String> nodes) {
     }
 }
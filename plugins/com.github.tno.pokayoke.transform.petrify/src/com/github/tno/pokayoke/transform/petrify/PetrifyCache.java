@@ -0,0 +1,314 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.petrify;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A persistent cache of Petrify results, that allows skipping Petrify altogether for state graphs that have been
+ * petrified before, for instance in an earlier run, or for another activity or model with the same behavior.
+ * <p>
+ * Each result is stored under a key that is a hash of the canonical form of the Petrify input, the Petrify options,
+ * and the contents of the Petrify executable. The canonical form of the Petrify input ignores comments, empty lines
+ * and differences in whitespace, which don't affect the Petrify output. Each result consists of the Petrify output,
+ * log and stderr files.
+ * </p>
+ * <p>
+ * The results are stored in a subfolder per version of the cache layout. Subfolders of other versions are stale, and
+ * are removed. The total size of the results is bounded. If it exceeds the bound, the least recently used results are
+ * removed. The cache may be shared by multiple threads and processes.
+ * </p>
+ */
+public class PetrifyCache {
+    /** The default maximum total size of the cached results, in bytes. */
+    public static final long DEFAULT_MAX_SIZE = 256L << 20;
+
+    /** The version of the cache layout and keys. Must be incremented if cached results become incompatible. */
+    private static final int CACHE_VERSION = 1;
+
+    /** The prefix of the names of the subfolders per version of the cache layout. */
+    private static final String VERSION_FOLDER_PREFIX = "v";
+
+    /** The prefix of the names of the temporary folders of results that are being stored. */
+    private static final String TEMPORARY_FOLDER_PREFIX = "tmp-";
+
+    /** The names of the output, log and stderr files within the folder of a cached result. */
+    private static final List<String> RESULT_FILE_NAMES = List.of("petrify.out", "petrify.log", "petrify.err");
+
+    /** The path to the folder that contains the cached results of the current version of the cache layout. */
+    private final Path folderPath;
+
+    /** The maximum total size of the cached results, in bytes. */
+    private final long maxSize;
+
+    /** The hashes of the contents of the Petrify executables, per path, to only compute them once. */
+    private final Map<String, String> executableHashes = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new Petrify cache.
+     *
+     * @param rootFolderPath The path to the root folder of the cache. Is created when the first result is stored, if
+     *     it does not yet exist.
+     * @param maxSize The maximum total size of the cached results, in bytes. Must not be negative.
+     */
+    public PetrifyCache(Path rootFolderPath, long maxSize) {
+        Preconditions.checkArgument(maxSize >= 0, "Expected a non-negative maximum size, but got: " + maxSize);
+        this.folderPath = rootFolderPath.resolve(VERSION_FOLDER_PREFIX + CACHE_VERSION);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Computes the key of the result of petrifying the given Petrify input.
+     *
+     * @param petrifyInputPath The path of the Petrify input file.
+     * @param executablePath The path of the Petrify executable.
+     * @param options The Petrify options, excluding the paths of the input and output files.
+     * @return The key.
+     * @throws IOException In case the Petrify input or executable could not be read.
+     */
+    public String computeKey(Path petrifyInputPath, String executablePath, List<String> options) throws IOException {
+        MessageDigest digest = createDigest();
+        update(digest, String.valueOf(CACHE_VERSION));
+        update(digest, getExecutableHash(executablePath));
+
+        update(digest, String.valueOf(options.size()));
+        for (String option: options) {
+            update(digest, option);
+        }
+
+        try (Stream<String> lines = Files.lines(petrifyInputPath)) {
+            lines.map(PetrifyCache::canonicalize).filter(line -> !line.isEmpty()).forEach(line -> update(digest, line));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Restores a cached result, if present.
+     *
+     * @param key The key of the result, as computed by {@link #computeKey}.
+     * @param petrifyOutputPath The path of the Petrify output file, to restore the output to.
+     * @param petrifyLogPath The path of the Petrify log file, to restore the log to.
+     * @param petrifyErrorPath The Petrify standard error (stderr) destination file, to restore the stderr output to.
+     * @return {@code true} if the result was present and has been restored, {@code false} otherwise.
+     * @throws IOException In case the result could not be restored.
+     */
+    public boolean restore(String key, Path petrifyOutputPath, Path petrifyLogPath, Path petrifyErrorPath)
+            throws IOException
+    {
+        Path entryPath = folderPath.resolve(key);
+        if (!Files.isDirectory(entryPath)) {
+            return false;
+        }
+
+        try {
+            List<Path> targetPaths = List.of(petrifyOutputPath, petrifyLogPath, petrifyErrorPath);
+            for (int i = 0; i < RESULT_FILE_NAMES.size(); i++) {
+                Files.copy(entryPath.resolve(RESULT_FILE_NAMES.get(i)), targetPaths.get(i),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            // Mark the result as recently used.
+            Files.setLastModifiedTime(entryPath, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            // The result was removed concurrently, for instance by pruning.
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Stores a result in the cache, and prunes the cache if it exceeds its maximum size. The result becomes visible
+     * to others only once it has been stored completely.
+     *
+     * @param key The key of the result, as computed by {@link #computeKey}.
+     * @param petrifyOutputPath The path of the Petrify output file.
+     * @param petrifyLogPath The path of the Petrify log file.
+     * @param petrifyErrorPath The Petrify standard error (stderr) destination file.
+     * @throws IOException In case the result could not be stored.
+     */
+    public void store(String key, Path petrifyOutputPath, Path petrifyLogPath, Path petrifyErrorPath)
+            throws IOException
+    {
+        Files.createDirectories(folderPath);
+        Path temporaryPath = Files.createTempDirectory(folderPath, TEMPORARY_FOLDER_PREFIX);
+        try {
+            List<Path> sourcePaths = List.of(petrifyOutputPath, petrifyLogPath, petrifyErrorPath);
+            for (int i = 0; i < RESULT_FILE_NAMES.size(); i++) {
+                Path targetPath = temporaryPath.resolve(RESULT_FILE_NAMES.get(i));
+                if (Files.exists(sourcePaths.get(i))) {
+                    Files.copy(sourcePaths.get(i), targetPath);
+                } else {
+                    Files.createFile(targetPath);
+                }
+            }
+
+            Path entryPath = folderPath.resolve(key);
+            try {
+                try {
+                    Files.move(temporaryPath, entryPath, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporaryPath, entryPath);
+                }
+            } catch (IOException e) {
+                // Ignore the failure if the same result was stored concurrently.
+                if (!Files.isDirectory(entryPath)) {
+                    throw e;
+                }
+            }
+        } finally {
+            FileUtils.deleteQuietly(temporaryPath.toFile());
+        }
+
+        prune();
+    }
+
+    /**
+     * Removes the subfolders of stale versions of the cache layout, and removes the least recently used results until
+     * the total size of the cached results no longer exceeds the maximum size.
+     *
+     * @throws IOException In case the cache could not be pruned.
+     */
+    private void prune() throws IOException {
+        // Remove stale versions.
+        try (DirectoryStream<Path> versionPaths = Files.newDirectoryStream(folderPath.getParent(),
+                VERSION_FOLDER_PREFIX + "*"))
+        {
+            for (Path versionPath: versionPaths) {
+                if (!versionPath.equals(folderPath) && Files.isDirectory(versionPath)) {
+                    FileUtils.deleteQuietly(versionPath.toFile());
+                }
+            }
+        }
+
+        // Determine the size and last use of each result.
+        List<CacheEntry> entries = new ArrayList<>();
+        long totalSize = 0;
+        try (DirectoryStream<Path> entryPaths = Files.newDirectoryStream(folderPath)) {
+            for (Path entryPath: entryPaths) {
+                if (entryPath.getFileName().toString().startsWith(TEMPORARY_FOLDER_PREFIX)) {
+                    continue;
+                }
+                try {
+                    long size = FileUtils.sizeOfDirectory(entryPath.toFile());
+                    entries.add(new CacheEntry(entryPath, Files.getLastModifiedTime(entryPath), size));
+                    totalSize += size;
+                } catch (NoSuchFileException | UncheckedIOException | IllegalArgumentException e) {
+                    // The result was removed concurrently.
+                }
+            }
+        }
+
+        // Remove the least recently used results, until the cache is small enough.
+        entries.sort(Comparator.comparing(CacheEntry::lastUsed));
+        for (CacheEntry entry: entries) {
+            if (totalSize <= maxSize) {
+                break;
+            }
+            FileUtils.deleteQuietly(entry.path().toFile());
+            totalSize -= entry.size();
+        }
+    }
+
+    /**
+     * Gives the hash of the contents of the given Petrify executable.
+     *
+     * @param executablePath The path of the Petrify executable.
+     * @return The hash.
+     * @throws IOException In case the Petrify executable could not be read.
+     */
+    private String getExecutableHash(String executablePath) throws IOException {
+        try {
+            return executableHashes.computeIfAbsent(executablePath, path -> {
+                MessageDigest digest = createDigest();
+                try (InputStream stream = new DigestInputStream(Files.newInputStream(Path.of(path)), digest)) {
+                    stream.transferTo(OutputStream.nullOutputStream());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return HexFormat.of().formatHex(digest.digest());
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Gives the canonical form of a line of Petrify input, without comments, and with normalized whitespace.
+     *
+     * @param line The line of Petrify input.
+     * @return The canonical line, which is empty if the line has no content.
+     */
+    private static String canonicalize(String line) {
+        int commentIndex = line.indexOf('#');
+        String content = (commentIndex < 0) ? line : line.substring(0, commentIndex);
+        return content.strip().replaceAll("\\s+", " ");
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to create a SHA-256 message digest.", e);
+        }
+    }
+
+    /**
+     * Updates the given digest with the given text, prefixed with its length, such that consecutive texts can't be
+     * confused.
+     *
+     * @param digest The digest to update.
+     * @param text The text.
+     */
+    private static void update(MessageDigest digest, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    /**
+     * A cached result.
+     *
+     * @param path The path to the folder of the result.
+     * @param lastUsed The time the result was last used.
+     * @param size The size of the result, in bytes.
+     */
+    private record CacheEntry(Path path, FileTime lastUsed, long size) {
+    }
+}
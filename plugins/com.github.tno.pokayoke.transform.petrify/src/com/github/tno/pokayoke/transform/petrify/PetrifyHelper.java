@@ -21,75 +21,183 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 
 import com.google.common.base.Verify;
 
 /** Helper for petrification. */
 public class PetrifyHelper {
+    /** The interval at which to check whether termination is requested while Petrify is running, in nanoseconds. */
+    private static final long TERMINATION_POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     private PetrifyHelper() {
     }
 
     /**
-     * Converts a given CIF state space to a Petri Net using Petrify. This conversion first tries to synthesize a free
-     * choice Petri Net. If this fails, then an ordinary, non free choice Petri Net is synthesized instead. This
+     * Converts a given CIF state space to a Petri Net using Petrify. This conversion prefers a free choice Petri Net.
+     * If such a Petri Net can't be synthesized, then an ordinary, non free choice Petri Net is used instead. This
      * conversion assumes that Petrify is always able to synthesize an ordinary Petri Net.
      *
+     * <p>
+     * Both Petri Nets are synthesized concurrently, each by its own Petrify process in its own scratch folder, such
+     * that the timeout applies to both of them together. As soon as the free choice Petri Net has been synthesized,
+     * the other Petrify process is killed. The normalized output of a failed free choice attempt is kept, with
+     * {@code .freechoice} added to the file names.
+     * </p>
+     *
      * @param petrifyInputPath The path of the Petrify input file.
      * @param petrifyOutputPath The path of the Petrify output file.
      * @param executablePath The path of the executable.
      * @param petrifyLogPath The path of the Petrify log file.
      * @param petrifyErrorPath The Petrify standard error (stderr) destination file.
      * @param timeoutInSeconds The timeout for the conversion process.
+     * @return The normalized Petrify output, which has also been written to the Petrify output file.
      */
-    public static void convertToPetriNet(Path petrifyInputPath, Path petrifyOutputPath, String executablePath,
+    public static PetrifyNet convertToPetriNet(Path petrifyInputPath, Path petrifyOutputPath, String executablePath,
             Path petrifyLogPath, Path petrifyErrorPath, int timeoutInSeconds)
     {
-        // Try to synthesize a free choice Petri Net.
-        Consumer<Boolean> runPetrify = freeChoice -> convertToPetriNet(petrifyInputPath, petrifyOutputPath,
-                executablePath, petrifyLogPath, petrifyErrorPath, freeChoice, timeoutInSeconds);
-
-        runPetrify.accept(true);
+        return convertToPetriNet(petrifyInputPath, petrifyOutputPath, executablePath, petrifyLogPath, petrifyErrorPath,
+                timeoutInSeconds, () -> false);
+    }
 
-        // Check whether Petrify reported any errors. If not, then we are done.
-        File errorFile = petrifyErrorPath.toFile();
-        Verify.verify(errorFile.exists(), "Expected a stderr destination file to have been created.");
+    /**
+     * Converts a given CIF state space to a Petri Net using Petrify, like
+     * {@link #convertToPetriNet(Path, Path, String, Path, Path, int)}, but kills the Petrify processes and fails as
+     * soon as termination is requested.
+     *
+     * @param petrifyInputPath The path of the Petrify input file.
+     * @param petrifyOutputPath The path of the Petrify output file.
+     * @param executablePath The path of the executable.
+     * @param petrifyLogPath The path of the Petrify log file.
+     * @param petrifyErrorPath The Petrify standard error (stderr) destination file.
+     * @param timeoutInSeconds The timeout for the conversion process.
+     * @param terminationRequested Indicates whether termination is requested.
+     * @return The normalized Petrify output, which has also been written to the Petrify output file.
+     */
+    public static PetrifyNet convertToPetriNet(Path petrifyInputPath, Path petrifyOutputPath, String executablePath,
+            Path petrifyLogPath, Path petrifyErrorPath, int timeoutInSeconds, BooleanSupplier terminationRequested)
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutInSeconds);
+        Path parentPath = petrifyInputPath.toAbsolutePath().getParent();
+        Path freeChoiceFolder = null;
+        Path ordinaryFolder = null;
+        Process freeChoiceProcess = null;
+        Process ordinaryProcess = null;
 
-        if (errorFile.length() != 0) {
-            // Petrify reported errors. First rename all earlier Petrify output.
+        try {
+            // Start Petrify twice, to synthesize a free choice Petri Net, and an ordinary, non free choice Petri Net.
+            // Each Petrify process gets its own copy of the input, in its own scratch folder.
             try {
-                Function<Path, Path> targetPath = path -> {
+                freeChoiceFolder = Files.createTempDirectory(parentPath, "petrify.freechoice.");
+                ordinaryFolder = Files.createTempDirectory(parentPath, "petrify.ordinary.");
+                Files.copy(petrifyInputPath, freeChoiceFolder.resolve(petrifyInputPath.getFileName()));
+                Files.copy(petrifyInputPath, ordinaryFolder.resolve(petrifyInputPath.getFileName()));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to prepare the Petrify scratch folders.", e);
+            }
+
+            freeChoiceProcess = startPetrify(freeChoiceFolder.resolve(petrifyInputPath.getFileName()),
+                    freeChoiceFolder.resolve(petrifyOutputPath.getFileName()), executablePath,
+                    freeChoiceFolder.resolve(petrifyLogPath.getFileName()),
+                    freeChoiceFolder.resolve(petrifyErrorPath.getFileName()), true);
+            ordinaryProcess = startPetrify(ordinaryFolder.resolve(petrifyInputPath.getFileName()),
+                    ordinaryFolder.resolve(petrifyOutputPath.getFileName()), executablePath,
+                    ordinaryFolder.resolve(petrifyLogPath.getFileName()),
+                    ordinaryFolder.resolve(petrifyErrorPath.getFileName()), false);
+
+            // Wait for the free choice Petri Net. Check whether Petrify reported any errors. If not, then we are done.
+            waitForPetrify(freeChoiceProcess, deadline - System.nanoTime(), terminationRequested);
+            File freeChoiceErrorFile = freeChoiceFolder.resolve(petrifyErrorPath.getFileName()).toFile();
+            Verify.verify(freeChoiceErrorFile.exists(), "Expected a stderr destination file to have been created.");
+
+            if (freeChoiceErrorFile.length() == 0) {
+                ordinaryProcess.destroyForcibly();
+                moveOutputFiles(freeChoiceFolder, petrifyOutputPath, petrifyLogPath, petrifyErrorPath,
+                        Function.identity());
+            } else {
+                // Petrify reported errors. Keep the normalized free choice output, with renamed files.
+                normalize(freeChoiceFolder.resolve(petrifyOutputPath.getFileName()));
+                moveOutputFiles(freeChoiceFolder, petrifyOutputPath, petrifyLogPath, petrifyErrorPath, path -> {
                     String fileName = path.getFileName().toString();
                     String filePrefix = FilenameUtils.removeExtension(fileName);
                     String fileExtension = FilenameUtils.getExtension(fileName);
                     return path.getParent().resolve(filePrefix + ".freechoice." + fileExtension);
-                };
+                });
 
-                Files.move(petrifyOutputPath, targetPath.apply(petrifyOutputPath), StandardCopyOption.REPLACE_EXISTING);
-                Files.move(petrifyLogPath, targetPath.apply(petrifyLogPath), StandardCopyOption.REPLACE_EXISTING);
-                Files.move(petrifyErrorPath, targetPath.apply(petrifyErrorPath), StandardCopyOption.REPLACE_EXISTING);
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to rename Petrify output files.", e);
+                // Then use the ordinary, non free choice Petri Net.
+                waitForPetrify(ordinaryProcess, deadline - System.nanoTime(), terminationRequested);
+                moveOutputFiles(ordinaryFolder, petrifyOutputPath, petrifyLogPath, petrifyErrorPath,
+                        Function.identity());
+
+                // Check again whether any errors were reported. If so, then Petri Net synthesis failed.
+                File errorFile = petrifyErrorPath.toFile();
+                Verify.verify(errorFile.exists(), "Expected a stderr destination file to have been created.");
+
+                if (errorFile.length() != 0) {
+                    try {
+                        throw new RuntimeException(
+                                "Petrify failed to synthesize a Petri Net: " + Files.readString(petrifyErrorPath));
+                    } catch (IOException e) {
+                        throw new RuntimeException("Failed to read the Petrify error file.", e);
+                    }
+                }
             }
+        } finally {
+            // Make sure no Petrify process outlives the conversion, and remove the scratch folders.
+            destroyPetrify(freeChoiceProcess);
+            destroyPetrify(ordinaryProcess);
+            if (freeChoiceFolder != null) {
+                FileUtils.deleteQuietly(freeChoiceFolder.toFile());
+            }
+            if (ordinaryFolder != null) {
+                FileUtils.deleteQuietly(ordinaryFolder.toFile());
+            }
+        }
 
-            // Then run Petrify to synthesize an ordinary, non free choice Petri Net.
-            runPetrify.accept(false);
+        // Normalize the output of Petrify.
+        return normalize(petrifyOutputPath);
+    }
 
-            // Check again whether any errors were reported. If so, then Petri Net synthesis failed.
-            errorFile = petrifyErrorPath.toFile();
-            Verify.verify(errorFile.exists(), "Expected a stderr destination file to have been created.");
+    /**
+     * Converts a given CIF state space to a Petri Net using Petrify, like
+     * {@link #convertToPetriNet(Path, Path, String, Path, Path, int, BooleanSupplier)}, but reuses an earlier result
+     * from the given cache if the same Petrify input has been petrified before. In that case, Petrify is not started
+     * at all, and the output, log and stderr files are restored from the cache. Otherwise, the result is stored in the
+     * cache.
+     *
+     * @param petrifyInputPath The path of the Petrify input file.
+     * @param petrifyOutputPath The path of the Petrify output file.
+     * @param executablePath The path of the executable.
+     * @param petrifyLogPath The path of the Petrify log file.
+     * @param petrifyErrorPath The Petrify standard error (stderr) destination file.
+     * @param timeoutInSeconds The timeout for the conversion process.
+     * @param terminationRequested Indicates whether termination is requested.
+     * @param cache The cache of Petrify results.
+     * @return {@code true} if the result was restored from the cache, {@code false} if Petrify was started.
+     */
+    public static boolean convertToPetriNet(Path petrifyInputPath, Path petrifyOutputPath, String executablePath,
+            Path petrifyLogPath, Path petrifyErrorPath, int timeoutInSeconds, BooleanSupplier terminationRequested,
+            PetrifyCache cache)
+    {
+        // The result depends on the options of both Petrify processes.
+        List<String> options = List.of(String.join(" ", getPetrifyOptions(true)),
+                String.join(" ", getPetrifyOptions(false)));
 
-            if (errorFile.length() != 0) {
-                try {
-                    throw new RuntimeException(
-                            "Petrify failed to synthesize a Petri Net: " + Files.readString(petrifyErrorPath));
-                } catch (IOException e) {
-                    throw new RuntimeException("Failed to read the Petrify error file.", e);
-                }
+        try {
+            String key = cache.computeKey(petrifyInputPath, executablePath, options);
+            if (cache.restore(key, petrifyOutputPath, petrifyLogPath, petrifyErrorPath)) {
+                return true;
             }
+            convertToPetriNet(petrifyInputPath, petrifyOutputPath, executablePath, petrifyLogPath, petrifyErrorPath,
+                    timeoutInSeconds, terminationRequested);
+            cache.store(key, petrifyOutputPath, petrifyLogPath, petrifyErrorPath);
+            return false;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to access the Petrify cache.", e);
         }
     }
 
@@ -104,9 +212,31 @@ public class PetrifyHelper {
      * @param produceFreeChoiceResult Whether Petrify should synthesize a free choice Petri Net ({@code true}) or an
      *     ordinary Petri Net ({@code false}).
      * @param timeoutInSeconds The timeout for the conversion process.
+     * @return The normalized Petrify output, which has also been written to the Petrify output file.
      */
-    public static void convertToPetriNet(Path petrifyInputPath, Path petrifyOutputPath, String executablePath,
+    public static PetrifyNet convertToPetriNet(Path petrifyInputPath, Path petrifyOutputPath, String executablePath,
             Path petrifyLogPath, Path petrifyErrorPath, boolean produceFreeChoiceResult, int timeoutInSeconds)
+    {
+        Process petrifyProcess = startPetrify(petrifyInputPath, petrifyOutputPath, executablePath, petrifyLogPath,
+                petrifyErrorPath, produceFreeChoiceResult);
+        waitForPetrify(petrifyProcess, TimeUnit.SECONDS.toNanos(timeoutInSeconds), () -> false);
+        return normalize(petrifyOutputPath);
+    }
+
+    /**
+     * Start a Petrify process to convert CIF state space to Petri Net.
+     *
+     * @param petrifyInputPath The path of the Petrify input file.
+     * @param petrifyOutputPath The path of the Petrify output file.
+     * @param executablePath The path of the executable.
+     * @param petrifyLogPath The path of the Petrify log file.
+     * @param petrifyErrorPath The Petrify standard error (stderr) destination file.
+     * @param produceFreeChoiceResult Whether Petrify should synthesize a free choice Petri Net ({@code true}) or an
+     *     ordinary Petri Net ({@code false}).
+     * @return The started Petrify process.
+     */
+    private static Process startPetrify(Path petrifyInputPath, Path petrifyOutputPath, String executablePath,
+            Path petrifyLogPath, Path petrifyErrorPath, boolean produceFreeChoiceResult)
     {
         // Construct the command for Petrify.
         List<String> command = new ArrayList<>();
@@ -115,18 +245,7 @@ public class PetrifyHelper {
         command.add(parentPath.relativize(petrifyInputPath).toString());
         command.add("-o");
         command.add(parentPath.relativize(petrifyOutputPath).toString());
-
-        // When this option is used, Petrify tries to produce the best possible result.
-        command.add("-opt");
-
-        if (produceFreeChoiceResult) {
-            // Produce a free choice Petri Net, which may lead to more intuitive activity synthesis results.
-            command.add("-fc");
-        }
-
-        // Produce Petri Net with intermediate places. If this option is not used, implied places are described as
-        // transition-transition arcs.
-        command.add("-ip");
+        command.addAll(getPetrifyOptions(produceFreeChoiceResult));
 
         // Generate a log file.
         command.add("-log");
@@ -137,21 +256,65 @@ public class PetrifyHelper {
 
         petrifyProcessBuilder.directory(parentPath.toAbsolutePath().toFile());
         // Start the process for Petrify.
-        Process petrifyProcess;
-
         try {
-            petrifyProcess = petrifyProcessBuilder.start();
+            return petrifyProcessBuilder.start();
         } catch (IOException e) {
             throw new RuntimeException("Failed to start the Petrify process.", e);
         }
+    }
+
+    /**
+     * Gives the options for Petrify that determine the Petri Net it synthesizes.
+     *
+     * @param produceFreeChoiceResult Whether Petrify should synthesize a free choice Petri Net ({@code true}) or an
+     *     ordinary Petri Net ({@code false}).
+     * @return The options.
+     */
+    private static List<String> getPetrifyOptions(boolean produceFreeChoiceResult) {
+        List<String> options = new ArrayList<>();
+
+        // When this option is used, Petrify tries to produce the best possible result.
+        options.add("-opt");
+
+        if (produceFreeChoiceResult) {
+            // Produce a free choice Petri Net, which may lead to more intuitive activity synthesis results.
+            options.add("-fc");
+        }
 
-        // Wait for the process to finish within the given timeout period.
+        // Produce Petri Net with intermediate places. If this option is not used, implied places are described as
+        // transition-transition arcs.
+        options.add("-ip");
+        return options;
+    }
+
+    /**
+     * Wait for a Petrify process to finish successfully.
+     *
+     * @param petrifyProcess The Petrify process.
+     * @param timeoutInNanos The timeout for the process to finish, in nanoseconds.
+     * @param terminationRequested Indicates whether termination is requested. If so, the process is killed.
+     */
+    private static void waitForPetrify(Process petrifyProcess, long timeoutInNanos,
+            BooleanSupplier terminationRequested)
+    {
+        // Wait for the process to finish within the given timeout period. Regularly check whether termination is
+        // requested, to not have to wait for the timeout in that case.
+        long deadline = System.nanoTime() + timeoutInNanos;
         boolean petrifyProcessCompleted;
 
         try {
-            petrifyProcessCompleted = petrifyProcess.waitFor(timeoutInSeconds, TimeUnit.SECONDS);
+            do {
+                if (terminationRequested.getAsBoolean()) {
+                    petrifyProcess.destroyForcibly();
+                    throw new RuntimeException("Petrify process was terminated on request.");
+                }
+                long remainingNanos = deadline - System.nanoTime();
+                petrifyProcessCompleted = petrifyProcess
+                        .waitFor(Math.min(remainingNanos, TERMINATION_POLL_INTERVAL_NANOS), TimeUnit.NANOSECONDS);
+            } while (!petrifyProcessCompleted && deadline - System.nanoTime() > 0);
         } catch (InterruptedException e) {
             petrifyProcess.destroyForcibly();
+            Thread.currentThread().interrupt();
             throw new RuntimeException("Interrupted while waiting for Petrify process to finish.", e);
         }
 
@@ -163,10 +326,61 @@ public class PetrifyHelper {
 
         Verify.verify(petrifyProcess.exitValue() == 0,
                 "Petrify process exited with non-zero exit code (" + petrifyProcess.exitValue() + ").");
+    }
 
-        // Normalize the output of Petrify.
+    /**
+     * Forcibly destroy a Petrify process, if it is still running, and wait for it to terminate.
+     *
+     * @param petrifyProcess The Petrify process, or {@code null} if it was not started.
+     */
+    private static void destroyPetrify(Process petrifyProcess) {
+        if (petrifyProcess == null || !petrifyProcess.isAlive()) {
+            return;
+        }
+
+        petrifyProcess.destroyForcibly();
+
+        try {
+            petrifyProcess.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Move the output, log and stderr files of a Petrify process from its scratch folder to their destinations.
+     *
+     * @param scratchFolder The scratch folder of the Petrify process.
+     * @param petrifyOutputPath The path of the Petrify output file.
+     * @param petrifyLogPath The path of the Petrify log file.
+     * @param petrifyErrorPath The Petrify standard error (stderr) destination file.
+     * @param targetPath Function that gives the destination path for each of the given paths.
+     */
+    private static void moveOutputFiles(Path scratchFolder, Path petrifyOutputPath, Path petrifyLogPath,
+            Path petrifyErrorPath, Function<Path, Path> targetPath)
+    {
         try {
-            NormalizePetrifyOutput.normalize(petrifyOutputPath);
+            for (Path path: List.of(petrifyOutputPath, petrifyLogPath, petrifyErrorPath)) {
+                Path scratchPath = scratchFolder.resolve(path.getFileName());
+                if (Files.exists(scratchPath)) {
+                    Files.move(scratchPath, targetPath.apply(path.toAbsolutePath()),
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to move Petrify output files.", e);
+        }
+    }
+
+    /**
+     * Normalize the output of Petrify.
+     *
+     * @param petrifyOutputPath The path of the Petrify output file.
+     * @return The normalized Petrify output.
+     */
+    private static PetrifyNet normalize(Path petrifyOutputPath) {
+        try {
+            return NormalizePetrifyOutput.normalize(petrifyOutputPath);
         } catch (IOException e) {
             throw new RuntimeException("Failed to normalize Petrify output.", e);
         }
@@ -176,14 +390,19 @@ public class PetrifyHelper {
         return new LinkedList<>(Files.readAllLines(Paths.get(sourcePath)));
     }
 
+    /**
+     * Indicates whether the given element of Petrify output is a duplicate of a declared transition, i.e., whether it
+     * has the form {@code name/n} with {@code name} a declared transition name.
+     *
+     * @param elementName The name of the element.
+     * @param declaredNames The declared transition names. Should be a set with constant-time lookups, as this method
+     *     is called for every element of the Petrify output.
+     * @return {@code true} if the element is a duplicate transition, {@code false} otherwise.
+     */
     public static boolean isDuplicateTransition(String elementName, Set<String> declaredNames) {
         // Since CIF does not accept '/' in identifiers, the generated state space cannot contain '/'. It is safe to use
         // '/' to identify duplicate transitions.
-        for (String declaredName: declaredNames) {
-            if (elementName.startsWith(declaredName) && elementName.contains("/")) {
-                return true;
-            }
-        }
-        return false;
+        int separatorIndex = elementName.indexOf('/');
+        return separatorIndex > 0 && declaredNames.contains(elementName.substring(0, separatorIndex));
     }
 }
@@ -0,0 +1,243 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.petrify;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Petrify output, parsed into a Petri Net. It can be normalized and translated further without writing and reading it
+ * as text in between.
+ *
+ * <p>
+ * The specification consists of one line per node with outgoing arcs, each being the node followed by the targets of
+ * its arcs. All other lines, such as the model name, the transition declarations and the marking, are kept as is, such
+ * that the Petrify output can be reproduced exactly, except for its comments, which are removed.
+ * </p>
+ */
+public class PetrifyNet {
+    /** The lines before the specification, excluding comments. */
+    private final List<String> headerLines;
+
+    /** The lines of the specification, each being a node followed by the targets of its outgoing arcs. */
+    private final List<List<String>> specification;
+
+    /** The lines after the specification, excluding comments. */
+    private final List<String> trailerLines;
+
+    /** The name of the model. */
+    private final String modelName;
+
+    /** The names of the declared transitions, in declaration order. */
+    private final List<String> transitionNames;
+
+    /** The name of the initially marked place. */
+    private final String markingPlaceName;
+
+    private PetrifyNet(List<String> headerLines, List<List<String>> specification, List<String> trailerLines,
+            String modelName, List<String> transitionNames, String markingPlaceName)
+    {
+        this.headerLines = headerLines;
+        this.specification = specification;
+        this.trailerLines = trailerLines;
+        this.modelName = modelName;
+        this.transitionNames = transitionNames;
+        this.markingPlaceName = markingPlaceName;
+    }
+
+    /**
+     * Reads and parses a Petrify output file.
+     *
+     * @param petrifyOutputPath The path of the Petrify output file.
+     * @return The parsed Petrify output.
+     * @throws IOException In case the Petrify output file could not be read.
+     */
+    public static PetrifyNet read(Path petrifyOutputPath) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(petrifyOutputPath)) {
+            return parse(reader.lines().iterator());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Parses Petrify output.
+     *
+     * @param petrifyOutput The Petrify output.
+     * @return The parsed Petrify output.
+     */
+    public static PetrifyNet parse(List<String> petrifyOutput) {
+        return parse(petrifyOutput.iterator());
+    }
+
+    private static PetrifyNet parse(Iterator<String> lines) {
+        List<String> headerLines = new ArrayList<>();
+        List<List<String>> specification = new ArrayList<>();
+        List<String> trailerLines = new ArrayList<>();
+        String modelName = null;
+        List<String> transitionNames = null;
+        String markingPlaceName = null;
+
+        while (lines.hasNext()) {
+            String line = lines.next();
+            if (line.startsWith("#") || line.isBlank()) {
+                continue;
+            } else if (!line.startsWith(".")) {
+                Preconditions.checkArgument(trailerLines.isEmpty(),
+                        "Expected the specification of the Petrify output to be contiguous.");
+                specification.add(Collections.unmodifiableList(tokenize(line, 0)));
+                continue;
+            }
+
+            if (line.startsWith(".model")) {
+                Preconditions.checkArgument(modelName == null,
+                        "Expected the Petrify output to contain exactly one model name.");
+                modelName = line.substring(".model".length()).trim();
+            } else if (line.startsWith(".dummy")) {
+                Preconditions.checkArgument(transitionNames == null,
+                        "Expected the Petrify output to contain exactly one transition declaration.");
+                transitionNames = Collections.unmodifiableList(tokenize(line, ".dummy".length()));
+            } else if (line.startsWith(".marking")) {
+                Preconditions.checkArgument(markingPlaceName == null,
+                        "Expected the Petrify output to contain exactly one marking line.");
+                markingPlaceName = line.substring(".marking".length()).replace("{", "").replace("}", "").trim();
+                Preconditions.checkArgument(tokenize(markingPlaceName, 0).size() == 1,
+                        "Expected that there is only one marking place.");
+            }
+            (specification.isEmpty() ? headerLines : trailerLines).add(line);
+        }
+
+        Preconditions.checkArgument(modelName != null, "Expected the Petrify output to have a model name.");
+        Preconditions.checkArgument(transitionNames != null,
+                "Expected the Petrify output to contain exactly one transition declaration.");
+        Preconditions.checkArgument(!specification.isEmpty(),
+                "Expected the Petrify output to contain a specification.");
+        Preconditions.checkArgument(markingPlaceName != null,
+                "Expected the Petrify output to contain exactly one marking line.");
+
+        return new PetrifyNet(headerLines, Collections.unmodifiableList(specification), trailerLines, modelName,
+                transitionNames, markingPlaceName);
+    }
+
+    /**
+     * Gives a Petri Net with the same model name and transition declarations as this Petri Net, but with a different
+     * specification and marking.
+     *
+     * @param newSpecification The specification of the new Petri Net.
+     * @param newMarkingPlaceName The name of the initially marked place of the new Petri Net.
+     * @return The new Petri Net.
+     */
+    PetrifyNet withSpecification(List<List<String>> newSpecification, String newMarkingPlaceName) {
+        return new PetrifyNet(replaceMarking(headerLines, newMarkingPlaceName),
+                Collections.unmodifiableList(newSpecification), replaceMarking(trailerLines, newMarkingPlaceName),
+                modelName, transitionNames, newMarkingPlaceName);
+    }
+
+    private List<String> replaceMarking(List<String> lines, String newMarkingPlaceName) {
+        return lines.stream()
+                .map(line -> line.startsWith(".marking") ? line.replace(markingPlaceName, newMarkingPlaceName) : line)
+                .toList();
+    }
+
+    /**
+     * Returns the name of the model.
+     *
+     * @return The name of the model.
+     */
+    public String getModelName() {
+        return modelName;
+    }
+
+    /**
+     * Returns the names of the declared transitions, in declaration order. Duplicate transitions (e.g.,
+     * 'Transition_A/1') are not declared, and only appear in the specification.
+     *
+     * @return The names of the declared transitions.
+     */
+    public List<String> getTransitionNames() {
+        return transitionNames;
+    }
+
+    /**
+     * Returns the specification, with per node with outgoing arcs, the node followed by the targets of its arcs.
+     *
+     * @return The specification.
+     */
+    public List<List<String>> getSpecification() {
+        return specification;
+    }
+
+    /**
+     * Returns the name of the initially marked place.
+     *
+     * @return The name of the initially marked place.
+     */
+    public String getMarkingPlaceName() {
+        return markingPlaceName;
+    }
+
+    /**
+     * Returns the number of lines of this Petri Net as Petrify output.
+     *
+     * @return The number of lines.
+     */
+    public int getLineCount() {
+        return headerLines.size() + specification.size() + trailerLines.size();
+    }
+
+    /**
+     * Gives this Petri Net as Petrify output.
+     *
+     * @return The Petrify output.
+     */
+    public List<String> toLines() {
+        List<String> lines = new ArrayList<>(getLineCount());
+        lines.addAll(headerLines);
+        specification.forEach(nodes -> lines.add(String.join(" ", nodes)));
+        lines.addAll(trailerLines);
+        return lines;
+    }
+
+    /**
+     * Splits (the remainder of) a line of Petrify output into its whitespace-separated tokens.
+     *
+     * @param line The line of Petrify output.
+     * @param beginIndex The index in the line from which to start.
+     * @return The tokens.
+     */
+    private static List<String> tokenize(String line, int beginIndex) {
+        List<String> tokens = new ArrayList<>();
+        int tokenStart = -1;
+        for (int i = beginIndex; i < line.length(); i++) {
+            if (Character.isWhitespace(line.charAt(i))) {
+                if (tokenStart >= 0) {
+                    tokens.add(line.substring(tokenStart, i));
+                    tokenStart = -1;
+                }
+            } else if (tokenStart < 0) {
+                tokenStart = i;
+            }
+        }
+        if (tokenStart >= 0) {
+            tokens.add(line.substring(tokenStart));
+        }
+        return tokens;
+    }
+}
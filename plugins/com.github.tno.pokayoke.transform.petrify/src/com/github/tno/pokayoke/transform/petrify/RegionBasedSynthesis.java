@@ -0,0 +1,746 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.petrify;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Verify;
+
+/**
+ * Synthesizes Petri Nets from state graphs, using the theory of regions. This is an in-process alternative to running
+ * Petrify through {@link PetrifyHelper}. It takes Petrify input, as produced by {@code Cif2Petrify}, and produces
+ * normalized Petrify output, such that the result can be further processed in the same way as Petrify output.
+ *
+ * <p>
+ * A region is a set of states that every label either consistently enters, consistently exits, or does not cross. The
+ * places of the synthesized Petri Net are minimal pre-regions of the labels, which are found by expanding the
+ * excitation region of each label, i.e., the set of states in which the label is enabled. A label for which the
+ * intersection of its minimal pre-regions is larger than its excitation region, is split into multiple labels, named
+ * like duplicate transitions in Petrify output (e.g., 'a' and 'a/1'). Of the candidate places, an irredundant subset
+ * is kept. A free choice Petri Net is preferred, and labels may be split further to obtain one. If that does not work,
+ * an ordinary Petri Net is synthesized instead.
+ * </p>
+ */
+public class RegionBasedSynthesis {
+    private RegionBasedSynthesis() {
+    }
+
+    /**
+     * Synthesizes a Petri Net for the given state graph.
+     *
+     * @param petrifyInput The state graph, as Petrify input.
+     * @return The synthesized Petri Net, as normalized Petrify output.
+     */
+    public static List<String> synthesize(List<String> petrifyInput) {
+        return synthesizePetriNet(petrifyInput).toLines();
+    }
+
+    /**
+     * Synthesizes a Petri Net for the given state graph, like {@link #synthesize}, but gives the normalized Petrify
+     * output as a parsed Petri Net.
+     *
+     * @param petrifyInput The state graph, as Petrify input.
+     * @return The synthesized Petri Net, as normalized Petrify output.
+     */
+    public static PetrifyNet synthesizePetriNet(List<String> petrifyInput) {
+        StateGraph graph = StateGraph.parse(petrifyInput);
+
+        // Try to synthesize a free choice Petri Net. If this fails, then synthesize an ordinary Petri Net instead.
+        List<String> petrifyOutput = synthesize(graph, true);
+        if (petrifyOutput == null) {
+            petrifyOutput = synthesize(graph, false);
+        }
+        Verify.verifyNotNull(petrifyOutput, "Expected an ordinary Petri Net to have been synthesized.");
+
+        return NormalizePetrifyOutput.normalize(PetrifyNet.parse(petrifyOutput));
+    }
+
+    /**
+     * Synthesizes a Petri Net for the given state graph.
+     *
+     * @param graph The state graph.
+     * @param freeChoice Whether to synthesize a free choice Petri Net ({@code true}) or an ordinary Petri Net
+     *     ({@code false}).
+     * @return The synthesized Petri Net as Petrify output, or {@code null} if no free choice Petri Net could be
+     *     synthesized.
+     */
+    private static List<String> synthesize(StateGraph graph, boolean freeChoice) {
+        Map<String, Integer> duplicateCounts = new HashMap<>();
+
+        // Split the self-loop transitions of labels from their other transitions. A label with a self-loop can never
+        // exit a region, so its other transitions could then never change the marking.
+        List<Label> labels = new ArrayList<>();
+        for (Label label: graph.labels()) {
+            labels.addAll(splitSelfLoops(label, duplicateCounts));
+        }
+
+        while (true) {
+            // Find the minimal pre-regions of all labels. If some labels are not excitation closed, then split one of
+            // them, and try again. Splitting one label at a time avoids splitting labels that become excitation closed
+            // by splitting another label.
+            RegionFinder finder = new RegionFinder(graph.stateCount(), labels);
+            List<List<BitSet>> preRegions = labels.stream().map(finder::findMinimalPreRegions).toList();
+
+            List<Label> currentLabels = labels;
+            List<Integer> nonClosedLabels = IntStream.range(0, labels.size())
+                    .filter(i -> !isExcitationClosed(currentLabels.get(i), preRegions.get(i), graph.stateCount()))
+                    .boxed().toList();
+            if (!nonClosedLabels.isEmpty()) {
+                // Prefer splitting by connected parts of the excitation region, over splitting into one label per
+                // transition.
+                List<Label> newLabels = splitFirst(labels, nonClosedLabels, graph, duplicateCounts, false);
+                if (newLabels == null) {
+                    newLabels = splitFirst(labels, nonClosedLabels, graph, duplicateCounts, true);
+                }
+
+                // If only labels with a single transition are not excitation closed, then split all labels into one
+                // label per transition. Once all labels have a single transition, every set of states is a region.
+                if (newLabels == null) {
+                    newLabels = new ArrayList<>();
+                    for (Label label: labels) {
+                        newLabels.addAll(splitTransitions(label, duplicateCounts));
+                    }
+                    Verify.verify(newLabels.size() != labels.size(),
+                            "Expected a state graph with single-transition labels to be excitation closed.");
+                }
+                labels = newLabels;
+                continue;
+            }
+
+            // Select the places, and check whether the resulting Petri Net is free choice, if requested.
+            RegionNet net = RegionNet.select(graph, labels, preRegions);
+            Set<Integer> nonFreeChoiceLabels = freeChoice ? net.getNonFreeChoiceLabels() : Set.of();
+            if (nonFreeChoiceLabels.isEmpty()) {
+                return net.toPetrifyOutput(graph);
+            }
+
+            // Split a label that violates the free choice property, and try again.
+            labels = splitFirst(labels, nonFreeChoiceLabels, graph, duplicateCounts, false);
+            if (labels == null) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Splits the first of the given labels that can be split.
+     *
+     * @param labels The labels of the state graph.
+     * @param candidates The indices of the labels to consider for splitting, in order.
+     * @param graph The state graph.
+     * @param duplicateCounts Per original label name, the number of duplicates created so far. Is modified in-place.
+     * @param splitTransitions Whether to split labels into one label per transition, if they can't be split otherwise.
+     * @return The labels of the state graph after splitting, or {@code null} if none of the candidates can be split.
+     */
+    private static List<Label> splitFirst(List<Label> labels, Collection<Integer> candidates, StateGraph graph,
+            Map<String, Integer> duplicateCounts, boolean splitTransitions)
+    {
+        for (int candidate: candidates) {
+            List<Label> parts = split(labels.get(candidate), graph, duplicateCounts, splitTransitions);
+            if (parts.size() > 1) {
+                List<Label> result = new ArrayList<>(labels);
+                result.remove(candidate);
+                result.addAll(candidate, parts);
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a label is excitation closed, i.e., whether the intersection of its minimal pre-regions is its
+     * excitation region.
+     *
+     * @param label The label.
+     * @param preRegions The minimal pre-regions of the label.
+     * @param stateCount The number of states of the state graph.
+     * @return {@code true} if the label is excitation closed, {@code false} otherwise.
+     */
+    private static boolean isExcitationClosed(Label label, List<BitSet> preRegions, int stateCount) {
+        BitSet intersection = new BitSet();
+        intersection.set(0, stateCount);
+        preRegions.forEach(intersection::and);
+        return intersection.equals(label.excitationRegion());
+    }
+
+    /**
+     * Splits a label into multiple labels, one per connected part of its excitation region. If the excitation region
+     * is connected, the label may instead be split into one label per transition.
+     *
+     * @param label The label to split.
+     * @param graph The state graph.
+     * @param duplicateCounts Per original label name, the number of duplicates created so far. Is modified in-place.
+     * @param splitTransitions Whether to split the label into one label per transition, if it can't be split
+     *     otherwise.
+     * @return The labels resulting from the split. Is the given label if it could not be split.
+     */
+    private static List<Label> split(Label label, StateGraph graph, Map<String, Integer> duplicateCounts,
+            boolean splitTransitions)
+    {
+        // Determine the connected parts of the excitation region, using the transitions of all labels.
+        BitSet excitationRegion = label.excitationRegion();
+        Map<Integer, Integer> partOfState = new HashMap<>();
+        int partCount = 0;
+        for (int state = excitationRegion.nextSetBit(0); state >= 0; state = excitationRegion.nextSetBit(state + 1)) {
+            if (partOfState.containsKey(state)) {
+                continue;
+            }
+            Deque<Integer> queue = new ArrayDeque<>();
+            queue.add(state);
+            partOfState.put(state, partCount);
+            while (!queue.isEmpty()) {
+                for (int neighbor: graph.neighbors(queue.poll())) {
+                    if (excitationRegion.get(neighbor) && !partOfState.containsKey(neighbor)) {
+                        partOfState.put(neighbor, partCount);
+                        queue.add(neighbor);
+                    }
+                }
+            }
+            partCount++;
+        }
+
+        // Group the transitions of the label by the part of their source state, or by themselves.
+        if (partCount > 1) {
+            return split(label, IntStream.of(label.sources()).map(partOfState::get).toArray(), duplicateCounts);
+        } else if (splitTransitions) {
+            return splitTransitions(label, duplicateCounts);
+        } else {
+            return List.of(label);
+        }
+    }
+
+    /**
+     * Splits the self-loop transitions of a label from its other transitions.
+     *
+     * @param label The label to split.
+     * @param duplicateCounts Per original label name, the number of duplicates created so far. Is modified in-place.
+     * @return The labels resulting from the split. Is the given label if it has only self-loops or no self-loops.
+     */
+    private static List<Label> splitSelfLoops(Label label, Map<String, Integer> duplicateCounts) {
+        int[] sources = label.sources();
+        int[] targets = label.targets();
+        int[] groups = IntStream.range(0, sources.length).map(i -> sources[i] == targets[i] ? 1 : 0).toArray();
+        return split(label, groups, duplicateCounts);
+    }
+
+    /**
+     * Splits a label into one label per transition.
+     *
+     * @param label The label to split.
+     * @param duplicateCounts Per original label name, the number of duplicates created so far. Is modified in-place.
+     * @return The labels resulting from the split. Is the given label if it has a single transition.
+     */
+    private static List<Label> splitTransitions(Label label, Map<String, Integer> duplicateCounts) {
+        return split(label, IntStream.range(0, label.sources().length).toArray(), duplicateCounts);
+    }
+
+    /**
+     * Splits a label into one label per group of transitions. Like Petrify, the group of the last transition keeps
+     * the name of the label, while the other groups get duplicate names, in order of their first transition.
+     *
+     * @param label The label to split.
+     * @param groups Per transition, the identifier of its group.
+     * @param duplicateCounts Per original label name, the number of duplicates created so far. Is modified in-place.
+     * @return The labels resulting from the split, one per group.
+     */
+    private static List<Label> split(Label label, int[] groups, Map<String, Integer> duplicateCounts) {
+        List<Integer> groupOrder = IntStream.of(groups).distinct().boxed().toList();
+        int lastGroup = groups[groups.length - 1];
+        String originalName = label.name().split("/")[0];
+        List<Label> result = new ArrayList<>();
+        for (int group: groupOrder) {
+            int[] indices = IntStream.range(0, groups.length).filter(i -> groups[i] == group).toArray();
+            String name = label.name();
+            if (group != lastGroup) {
+                int duplicateNr = duplicateCounts.merge(originalName, 1, Integer::sum);
+                name = originalName + "/" + duplicateNr;
+            }
+            result.add(new Label(name, IntStream.of(indices).map(i -> label.sources()[i]).toArray(),
+                    IntStream.of(indices).map(i -> label.targets()[i]).toArray()));
+        }
+        return result;
+    }
+
+    /**
+     * A label of a state graph, with its transitions.
+     *
+     * @param name The name of the label.
+     * @param sources Per transition, the index of its source state.
+     * @param targets Per transition, the index of its target state.
+     */
+    private record Label(String name, int[] sources, int[] targets) {
+        /**
+         * Gives the excitation region of the label, i.e., the set of states in which it is enabled.
+         *
+         * @return The excitation region.
+         */
+        BitSet excitationRegion() {
+            BitSet result = new BitSet();
+            IntStream.of(sources).forEach(result::set);
+            return result;
+        }
+
+        /**
+         * Gives how the label crosses the given set of states.
+         *
+         * @param states The set of states.
+         * @return The crossing.
+         */
+        Crossing crossing(BitSet states) {
+            int enter = 0;
+            int exit = 0;
+            for (int i = 0; i < sources.length; i++) {
+                boolean sourceIn = states.get(sources[i]);
+                boolean targetIn = states.get(targets[i]);
+                if (!sourceIn && targetIn) {
+                    enter++;
+                } else if (sourceIn && !targetIn) {
+                    exit++;
+                }
+            }
+
+            if (enter == 0 && exit == 0) {
+                return Crossing.NONE;
+            } else if (enter == sources.length) {
+                return Crossing.ENTER;
+            } else if (exit == sources.length) {
+                return Crossing.EXIT;
+            } else {
+                return Crossing.VIOLATION;
+            }
+        }
+    }
+
+    /** How the transitions of a label cross a set of states. */
+    private enum Crossing {
+        /** No transition crosses the set of states. */
+        NONE,
+
+        /** All transitions enter the set of states. */
+        ENTER,
+
+        /** All transitions exit the set of states. */
+        EXIT,
+
+        /** The transitions cross the set of states inconsistently. The set of states is not a region. */
+        VIOLATION;
+    }
+
+    /**
+     * A state graph, as given by Petrify input.
+     *
+     * @param modelName The name of the model.
+     * @param declaredLabelNames The names of the declared labels, separated by spaces.
+     * @param stateNames The names of the states, by state index.
+     * @param initialState The index of the initial state.
+     * @param labels The labels of the state graph, in declaration order.
+     * @param adjacency Per state index, the indices of all states that are connected to it by a transition.
+     */
+    private record StateGraph(String modelName, String declaredLabelNames, List<String> stateNames, int initialState,
+            List<Label> labels, int[][] adjacency)
+    {
+        /**
+         * Parses Petrify input.
+         *
+         * @param petrifyInput The Petrify input.
+         * @return The state graph.
+         */
+        static StateGraph parse(List<String> petrifyInput) {
+            String modelName = null;
+            String declaredLabelNames = null;
+            String initialStateName = null;
+            Map<String, Integer> stateIndices = new LinkedHashMap<>();
+            Map<String, List<int[]>> transitions = new LinkedHashMap<>();
+            boolean inGraph = false;
+
+            for (String line: petrifyInput) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                } else if (line.startsWith(".model")) {
+                    modelName = line.substring(".model".length()).trim();
+                } else if (line.startsWith(".dummy")) {
+                    declaredLabelNames = line.substring(".dummy".length()).trim();
+                    for (String name: declaredLabelNames.split(" ")) {
+                        transitions.put(name, new ArrayList<>());
+                    }
+                } else if (line.startsWith(".state graph")) {
+                    inGraph = true;
+                } else if (line.startsWith(".marking")) {
+                    inGraph = false;
+                    initialStateName = line.substring(".marking".length()).replace("{", "").replace("}", "").trim();
+                } else if (line.startsWith(".end")) {
+                    break;
+                } else if (inGraph) {
+                    String[] elements = line.split(" ");
+                    Preconditions.checkArgument(elements.length == 3,
+                            "Expected a state graph transition to have a source, a label and a target: " + line);
+                    List<int[]> labelTransitions = transitions.get(elements[1]);
+                    Preconditions.checkArgument(labelTransitions != null,
+                            "Expected the label of a state graph transition to be declared: " + line);
+                    int source = stateIndices.computeIfAbsent(elements[0], s -> stateIndices.size());
+                    int target = stateIndices.computeIfAbsent(elements[2], s -> stateIndices.size());
+                    labelTransitions.add(new int[] {source, target});
+                }
+            }
+
+            Preconditions.checkArgument(modelName != null, "Expected the Petrify input to have a model name.");
+            Preconditions.checkArgument(declaredLabelNames != null,
+                    "Expected the Petrify input to contain label declarations.");
+            Preconditions.checkArgument(initialStateName != null && stateIndices.containsKey(initialStateName),
+                    "Expected the Petrify input to contain an initial marking of a single state.");
+
+            // Create the labels. Declared labels without transitions are never enabled, and are thus omitted.
+            List<Label> labels = new ArrayList<>();
+            List<Set<Integer>> neighbors = IntStream.range(0, stateIndices.size())
+                    .mapToObj(i -> (Set<Integer>)new LinkedHashSet<Integer>()).toList();
+            for (Map.Entry<String, List<int[]>> entry: transitions.entrySet()) {
+                List<int[]> labelTransitions = entry.getValue();
+                if (labelTransitions.isEmpty()) {
+                    continue;
+                }
+                labels.add(new Label(entry.getKey(), labelTransitions.stream().mapToInt(t -> t[0]).toArray(),
+                        labelTransitions.stream().mapToInt(t -> t[1]).toArray()));
+                for (int[] transition: labelTransitions) {
+                    neighbors.get(transition[0]).add(transition[1]);
+                    neighbors.get(transition[1]).add(transition[0]);
+                }
+            }
+            int[][] adjacency = neighbors.stream().map(n -> n.stream().mapToInt(i -> i).toArray())
+                    .toArray(int[][]::new);
+
+            return new StateGraph(modelName, declaredLabelNames, new ArrayList<>(stateIndices.keySet()),
+                    stateIndices.get(initialStateName), labels, adjacency);
+        }
+
+        /**
+         * Gives the number of states.
+         *
+         * @return The number of states.
+         */
+        int stateCount() {
+            return stateNames.size();
+        }
+
+        /**
+         * Gives the indices of all states that are connected to the given state by a transition.
+         *
+         * @param state The index of the state.
+         * @return The indices of the connected states.
+         */
+        int[] neighbors(int state) {
+            return adjacency[state];
+        }
+    }
+
+    /** Finds minimal regions of a state graph, by expansion of sets of states. */
+    private static class RegionFinder {
+        /** The number of states of the state graph. */
+        private final int stateCount;
+
+        /** The labels of the state graph. */
+        private final List<Label> labels;
+
+        /**
+         * Constructs a new {@link RegionFinder}.
+         *
+         * @param stateCount The number of states of the state graph.
+         * @param labels The labels of the state graph.
+         */
+        RegionFinder(int stateCount, List<Label> labels) {
+            this.stateCount = stateCount;
+            this.labels = labels;
+        }
+
+        /**
+         * Finds the minimal pre-regions of the given label, i.e., the minimal non-trivial regions that contain its
+         * excitation region. The label either exits such a region, or does not cross it.
+         *
+         * @param label The label.
+         * @return The minimal pre-regions.
+         */
+        List<BitSet> findMinimalPreRegions(Label label) {
+            List<BitSet> regions = new ArrayList<>();
+            Set<BitSet> visited = new HashSet<>();
+            Deque<BitSet> stack = new ArrayDeque<>();
+            stack.push(label.excitationRegion());
+
+            while (!stack.isEmpty()) {
+                BitSet states = stack.pop();
+
+                // Skip sets that were already expanded, that contain all states, or that contain an already found
+                // region. Expansion only adds states, so they can't lead to new minimal regions.
+                if (!visited.add(states) || states.cardinality() == stateCount
+                        || regions.stream().anyMatch(region -> isSubset(region, states)))
+                {
+                    continue;
+                }
+
+                // If the set of states is a region, then we found a candidate minimal region.
+                Label violatingLabel = labels.stream().filter(l -> l.crossing(states) == Crossing.VIOLATION)
+                        .findFirst().orElse(null);
+                if (violatingLabel == null) {
+                    regions.add(states);
+                    continue;
+                }
+
+                // Otherwise, expand the set of states in each way that may make the violating label not cross it,
+                // enter it, or exit it.
+                for (Crossing crossing: List.of(Crossing.EXIT, Crossing.ENTER, Crossing.NONE)) {
+                    BitSet expanded = expand(states, violatingLabel, crossing);
+                    if (expanded != null && !expanded.equals(states)) {
+                        stack.push(expanded);
+                    }
+                }
+            }
+
+            // Keep only the minimal regions.
+            return regions.stream()
+                    .filter(region -> regions.stream().noneMatch(other -> other != region && isSubset(other, region)))
+                    .toList();
+        }
+
+        /**
+         * Expands a set of states, such that the transitions of the given label move towards the given crossing.
+         *
+         * @param states The set of states.
+         * @param label The label.
+         * @param crossing The desired crossing.
+         * @return The expanded set of states, or {@code null} if the desired crossing can't be obtained by expansion.
+         */
+        private BitSet expand(BitSet states, Label label, Crossing crossing) {
+            BitSet result = (BitSet)states.clone();
+            int[] sources = label.sources();
+            int[] targets = label.targets();
+
+            for (int i = 0; i < sources.length; i++) {
+                boolean sourceIn = states.get(sources[i]);
+                boolean targetIn = states.get(targets[i]);
+                switch (crossing) {
+                    case ENTER -> {
+                        if (sourceIn) {
+                            return null;
+                        }
+                        result.set(targets[i]);
+                    }
+                    case EXIT -> {
+                        if (targetIn) {
+                            return null;
+                        }
+                        result.set(sources[i]);
+                    }
+                    case NONE -> {
+                        if (sourceIn != targetIn) {
+                            result.set(sources[i]);
+                            result.set(targets[i]);
+                        }
+                    }
+                    default -> throw new RuntimeException("Unexpected crossing: " + crossing);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Checks whether the first set of states is a subset of the second one.
+         *
+         * @param subset The first set of states.
+         * @param superset The second set of states.
+         * @return {@code true} if the first set is a subset of the second one, {@code false} otherwise.
+         */
+        private static boolean isSubset(BitSet subset, BitSet superset) {
+            BitSet difference = (BitSet)subset.clone();
+            difference.andNot(superset);
+            return difference.isEmpty();
+        }
+    }
+
+    /**
+     * A Petri Net synthesized from a state graph, of which the places are regions of the state graph.
+     *
+     * @param labels The labels of the state graph, which are the transitions of the Petri Net.
+     * @param places The places of the Petri Net.
+     * @param presets Per transition, the indices of its input places.
+     * @param postsets Per transition, the indices of its output places.
+     */
+    private record RegionNet(List<Label> labels, List<BitSet> places, List<Set<Integer>> presets,
+            List<Set<Integer>> postsets)
+    {
+        /**
+         * Selects an irredundant set of places from the minimal pre-regions of the labels, and constructs the
+         * corresponding Petri Net. All labels must be excitation closed.
+         *
+         * @param graph The state graph.
+         * @param labels The labels of the state graph.
+         * @param preRegions Per label, its minimal pre-regions.
+         * @return The Petri Net.
+         */
+        static RegionNet select(StateGraph graph, List<Label> labels, List<List<BitSet>> preRegions) {
+            // Collect the candidate places, and per label, the candidate places that contain its excitation region.
+            List<BitSet> candidates = new ArrayList<>(
+                    preRegions.stream().flatMap(List::stream).collect(Collectors.toCollection(LinkedHashSet::new)));
+            List<Set<Integer>> guards = new ArrayList<>();
+            for (Label label: labels) {
+                BitSet excitationRegion = label.excitationRegion();
+                guards.add(IntStream.range(0, candidates.size())
+                        .filter(c -> RegionFinder.isSubset(excitationRegion, candidates.get(c))).boxed()
+                        .collect(Collectors.toCollection(LinkedHashSet::new)));
+            }
+
+            // Remove redundant places, while keeping all labels excitation closed. Initially marked places are removed
+            // first, as only a single initially marked place is supported. Then larger places are removed first, to
+            // keep the places that most precisely capture the state graph.
+            List<Integer> removalOrder = IntStream.range(0, candidates.size()).boxed()
+                    .sorted(Comparator.<Integer, Boolean>comparing(c -> !candidates.get(c).get(graph.initialState()))
+                            .thenComparingInt(c -> -candidates.get(c).cardinality()))
+                    .toList();
+            Set<Integer> kept = new LinkedHashSet<>(IntStream.range(0, candidates.size()).boxed().toList());
+            for (int candidate: removalOrder) {
+                List<Integer> affected = IntStream.range(0, labels.size())
+                        .filter(l -> guards.get(l).contains(candidate)).boxed().toList();
+                boolean redundant = affected.stream().allMatch(l -> isExcitationClosed(labels.get(l),
+                        guards.get(l), candidate, candidates, graph.stateCount()));
+                if (redundant) {
+                    kept.remove(candidate);
+                    affected.forEach(l -> guards.get(l).remove(candidate));
+                }
+            }
+
+            // Remove redundant side conditions, i.e., places of which a label needs to be enabled, but that it does
+            // not cross.
+            for (int l = 0; l < labels.size(); l++) {
+                Label label = labels.get(l);
+                for (int candidate: new ArrayList<>(guards.get(l))) {
+                    if (label.crossing(candidates.get(candidate)) == Crossing.NONE
+                            && isExcitationClosed(label, guards.get(l), candidate, candidates, graph.stateCount()))
+                    {
+                        guards.get(l).remove(candidate);
+                    }
+                }
+            }
+
+            // Construct the Petri Net. Places that no longer guard any label are omitted, as they never restrict the
+            // behavior. Labels consume tokens from places they exit or require as side condition, and produce tokens in
+            // places they enter or require as side condition.
+            List<Integer> keptCandidates = kept.stream().filter(c -> guards.stream().anyMatch(g -> g.contains(c)))
+                    .toList();
+            List<BitSet> places = keptCandidates.stream().map(candidates::get).toList();
+            List<Set<Integer>> presets = new ArrayList<>();
+            List<Set<Integer>> postsets = new ArrayList<>();
+            for (int l = 0; l < labels.size(); l++) {
+                Label label = labels.get(l);
+                Set<Integer> preset = new LinkedHashSet<>();
+                Set<Integer> postset = new LinkedHashSet<>();
+                for (int p = 0; p < places.size(); p++) {
+                    Crossing crossing = label.crossing(places.get(p));
+                    boolean sideCondition = crossing == Crossing.NONE && guards.get(l).contains(keptCandidates.get(p));
+                    if (crossing == Crossing.EXIT || sideCondition) {
+                        preset.add(p);
+                    }
+                    if (crossing == Crossing.ENTER || sideCondition) {
+                        postset.add(p);
+                    }
+                }
+                presets.add(preset);
+                postsets.add(postset);
+            }
+            return new RegionNet(labels, places, presets, postsets);
+        }
+
+        /**
+         * Checks whether a label remains excitation closed when a place is no longer used to guard it.
+         *
+         * @param label The label.
+         * @param guards The indices of the candidate places that currently guard the label.
+         * @param excluded The index of the candidate place to no longer use to guard the label.
+         * @param candidates The candidate places.
+         * @param stateCount The number of states of the state graph.
+         * @return {@code true} if the label remains excitation closed, {@code false} otherwise.
+         */
+        private static boolean isExcitationClosed(Label label, Set<Integer> guards, int excluded,
+                List<BitSet> candidates, int stateCount)
+        {
+            List<BitSet> remaining = guards.stream().filter(c -> c != excluded).map(candidates::get).toList();
+            return RegionBasedSynthesis.isExcitationClosed(label, remaining, stateCount);
+        }
+
+        /**
+         * Gives the transitions that violate the free choice property, i.e., that share an input place with another
+         * transition that has different input places.
+         *
+         * @return The indices of the violating transitions.
+         */
+        Set<Integer> getNonFreeChoiceLabels() {
+            Set<Integer> result = new LinkedHashSet<>();
+            for (int p = 0; p < places.size(); p++) {
+                int place = p;
+                List<Integer> consumers = IntStream.range(0, labels.size())
+                        .filter(l -> presets.get(l).contains(place)).boxed().toList();
+                if (consumers.stream().map(presets::get).distinct().count() > 1) {
+                    result.addAll(consumers);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Gives the Petri Net as Petrify output, with intermediate places.
+         *
+         * @param graph The state graph from which the Petri Net is synthesized.
+         * @return The Petrify output.
+         */
+        List<String> toPetrifyOutput(StateGraph graph) {
+            List<String> placeNames = IntStream.range(0, places.size()).mapToObj(p -> "p" + p).toList();
+            List<String> result = new ArrayList<>();
+            result.add(".model " + graph.modelName());
+            result.add(".dummy  " + graph.declaredLabelNames());
+            result.add(".graph");
+
+            for (int l = 0; l < labels.size(); l++) {
+                if (!postsets.get(l).isEmpty()) {
+                    result.add(labels.get(l).name() + " "
+                            + postsets.get(l).stream().map(placeNames::get).collect(Collectors.joining(" ")));
+                }
+            }
+            for (int p = 0; p < places.size(); p++) {
+                int place = p;
+                List<String> consumers = IntStream.range(0, labels.size())
+                        .filter(l -> presets.get(l).contains(place)).mapToObj(l -> labels.get(l).name()).toList();
+                if (!consumers.isEmpty()) {
+                    result.add(placeNames.get(p) + " " + String.join(" ", consumers));
+                }
+            }
+
+            List<String> markedPlaceNames = IntStream.range(0, places.size())
+                    .filter(p -> places.get(p).get(graph.initialState())).mapToObj(placeNames::get).toList();
+            Verify.verify(markedPlaceNames.size() == 1,
+                    "Expected a single initially marked place, but got " + markedPlaceNames.size() + ".");
+            result.add(".marking { " + markedPlaceNames.get(0) + " }");
+            result.add(".end");
+            return result;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.petrify2uml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.tno.pokayoke.transform.petrify.PetrifyNet;
+
+import fr.lip6.move.pnml.ptnet.Arc;
+import fr.lip6.move.pnml.ptnet.PetriNet;
+import fr.lip6.move.pnml.ptnet.Place;
+import fr.lip6.move.pnml.ptnet.PnObject;
+import fr.lip6.move.pnml.ptnet.Transition;
+
+/**
+ * Tests for {@link PetrifyOutput2PNMLTranslator}, which translates Petrify output in a single pass, regardless of
+ * whether it is read from a list of lines, a file or a reader, or is given as a parsed {@link PetrifyNet}.
+ */
+class PetrifyOutput2PNMLTranslatorTest {
+    /** Petrify output with comments, a duplicate transition and a place with multiple targets. */
+    private static final List<String> PETRIFY_OUTPUT = List.of( //
+            "# Comment.", //
+            ".model net", //
+            ".dummy a b", //
+            ".graph", //
+            "a p1 p2", //
+            "p0 a", //
+            "p1 b", //
+            "p2 b/1", //
+            "b p0", //
+            "b/1  p0", //
+            ".marking { p0 }", //
+            ".end");
+
+    @Test
+    void testStructure() {
+        // Places and duplicate transitions are created in order of first occurrence, after the declared transitions.
+        assertEquals(List.of( //
+                "transition a a", //
+                "transition b b", //
+                "place p1 p1", //
+                "place p2 p2", //
+                "arc a__to__p1 a -> p1", //
+                "arc a__to__p2 a -> p2", //
+                "place p0 p0 marked", //
+                "arc p0__to__a p0 -> a", //
+                "arc p1__to__b p1 -> b", //
+                "transition b/1 b", //
+                "arc p2__to__b/1 p2 -> b/1", //
+                "arc b__to__p0 b -> p0", //
+                "arc b/1__to__p0 b/1 -> p0"), //
+                describe(PetrifyOutput2PNMLTranslator.transform(PETRIFY_OUTPUT)));
+    }
+
+    @Test
+    void testSources() throws IOException {
+        assertSameForAllSources(PETRIFY_OUTPUT);
+        assertSameForAllSources(Files.readAllLines(Path.of("resources-test", "regressiontests-petrify2pnml", "simple",
+                "input.out")));
+    }
+
+    @Test
+    void testInvalid() {
+        // Petrify output without marking.
+        assertThrows(IllegalArgumentException.class,
+                () -> PetrifyOutput2PNMLTranslator.transform(PETRIFY_OUTPUT.subList(0, PETRIFY_OUTPUT.size() - 2)));
+
+        // Petrify output with a marking that is not a place.
+        List<String> transitionMarking = new ArrayList<>(PETRIFY_OUTPUT);
+        transitionMarking.set(PETRIFY_OUTPUT.size() - 2, ".marking { a }");
+        assertThrows(IllegalArgumentException.class, () -> PetrifyOutput2PNMLTranslator.transform(transitionMarking));
+
+        // Petrify output with duplicate transition declarations.
+        List<String> duplicateTransitions = new ArrayList<>(PETRIFY_OUTPUT);
+        duplicateTransitions.set(2, ".dummy a b a");
+        assertThrows(IllegalArgumentException.class,
+                () -> PetrifyOutput2PNMLTranslator.transform(duplicateTransitions));
+
+        // Petrify output with a place name that conflicts with the arc IDs.
+        List<String> conflictingName = new ArrayList<>(PETRIFY_OUTPUT);
+        conflictingName.set(4, "a p1 p__to__2");
+        assertThrows(IllegalArgumentException.class, () -> PetrifyOutput2PNMLTranslator.transform(conflictingName));
+    }
+
+    /**
+     * Asserts that translating the given Petrify output gives the same Petri Net, regardless of whether it is read from
+     * a list of lines, a file or a reader, or is given as a parsed Petrify net.
+     *
+     * @param petrifyOutput The Petrify output.
+     * @throws IOException In case the Petrify output could not be written or read.
+     */
+    private static void assertSameForAllSources(List<String> petrifyOutput) throws IOException {
+        List<String> expected = describe(PetrifyOutput2PNMLTranslator.transform(petrifyOutput));
+
+        Path path = Files.createTempFile("petrify", ".out");
+        try {
+            Files.write(path, petrifyOutput);
+            assertEquals(expected, describe(PetrifyOutput2PNMLTranslator.transform(path)));
+        } finally {
+            Files.delete(path);
+        }
+
+        try (BufferedReader reader = new BufferedReader(new StringReader(String.join("\n", petrifyOutput)))) {
+            assertEquals(expected, describe(PetrifyOutput2PNMLTranslator.transform(reader)));
+        }
+
+        assertEquals(expected, describe(PetrifyOutput2PNMLTranslator.transform(PetrifyNet.parse(petrifyOutput))));
+
+        // The list of lines is not modified.
+        assertEquals(expected, describe(PetrifyOutput2PNMLTranslator.transform(petrifyOutput)));
+    }
+
+    /**
+     * Describes the given Petri Net: per object of its page, in order, its kind, ID, and name or source and target.
+     * Initially marked places are marked as such.
+     *
+     * @param petriNet The Petri Net.
+     * @return The description of the Petri Net, with an element per object.
+     */
+    private static List<String> describe(PetriNet petriNet) {
+        List<String> description = new ArrayList<>();
+        for (PnObject object: petriNet.getPages().get(0).getObjects()) {
+            if (object instanceof Transition transition) {
+                description.add("transition " + transition.getId() + " " + transition.getName().getText());
+            } else if (object instanceof Place place) {
+                description.add("place " + place.getId() + " " + place.getName().getText()
+                        + (place.getInitialMarking() == null ? "" : " marked"));
+            } else if (object instanceof Arc arc) {
+                description.add(
+                        "arc " + arc.getId() + " " + arc.getSource().getId() + " -> " + arc.getTarget().getId());
+            }
+        }
+        return description;
+    }
+}
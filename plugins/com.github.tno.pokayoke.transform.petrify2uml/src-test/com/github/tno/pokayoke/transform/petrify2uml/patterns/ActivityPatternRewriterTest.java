@@ -0,0 +1,272 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.petrify2uml.patterns;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.uml2.uml.Activity;
+import org.eclipse.uml2.uml.ActivityEdge;
+import org.eclipse.uml2.uml.ActivityNode;
+import org.eclipse.uml2.uml.CallBehaviorAction;
+import org.eclipse.uml2.uml.ControlFlow;
+import org.eclipse.uml2.uml.UMLFactory;
+import org.junit.jupiter.api.Test;
+
+import com.github.tno.pokayoke.transform.track.SynthesisChainTracking;
+
+/**
+ * Tests that the {@link ActivityPatternRewriter} rewrites activities the same as repeatedly rewriting all patterns in
+ * the whole activity, until a fixpoint is reached.
+ */
+class ActivityPatternRewriterTest {
+    private static final UMLFactory UML_FACTORY = UMLFactory.eINSTANCE;
+
+    /** The number of random activities to rewrite. */
+    private static final int ACTIVITY_COUNT = 200;
+
+    /** The maximum nesting depth of the segments of the random activities. */
+    private static final int MAX_DEPTH = 3;
+
+    /** The behaviors that the actions of the random activities call. Actions that call the same one are equivalent. */
+    private static final List<Activity> BEHAVIORS = List.of(createBehavior("a"), createBehavior("b"));
+
+    @Test
+    void testRedundantDecisionMerge() {
+        Activity activity = createDecisionMergeActivity();
+        ActivityPatternRewriter.rewriteAll(activity, new SynthesisChainTracking(activity));
+        assertEquals(List.of("InitialNode node0", "ActivityFinalNode node3", "0 -> 1"), describe(activity));
+    }
+
+    @Test
+    void testRandomActivities() {
+        Random random = new Random(0);
+        for (int i = 0; i < ACTIVITY_COUNT; i++) {
+            Activity activity = createRandomActivity(random);
+            Activity expected = EcoreUtil.copy(activity);
+            rewriteUntilFixpoint(expected, new SynthesisChainTracking(expected));
+            ActivityPatternRewriter.rewriteAll(activity, new SynthesisChainTracking(activity));
+            assertEquals(describe(expected), describe(activity), "Random activity " + i);
+        }
+    }
+
+    @Test
+    void testTermination() {
+        Activity activity = createDecisionMergeActivity();
+        List<String> original = describe(activity);
+
+        // The activity is left untouched if termination is requested right away.
+        ActivityPatternRewriter.rewriteAll(activity, new SynthesisChainTracking(activity), () -> true);
+        assertEquals(original, describe(activity));
+
+        ActivityPatternRewriter.rewriteAll(activity, new SynthesisChainTracking(activity), () -> false);
+        assertNotEquals(original, describe(activity));
+    }
+
+    /**
+     * Rewrites all patterns in the given activity, by repeatedly finding and rewriting all patterns in the whole
+     * activity, until none are left.
+     *
+     * @param activity The activity, which is modified in-place.
+     * @param tracker The synthesis chain tracker.
+     */
+    private static void rewriteUntilFixpoint(Activity activity, SynthesisChainTracking tracker) {
+        while (true) {
+            boolean changed = false;
+            changed |= RedundantDecisionMergePattern.findAndRewriteAll(activity, tracker);
+            changed |= RedundantDecisionForkMergePattern.findAndRewriteAll(activity, tracker);
+            changed |= EquivalentActionsIntoMergePattern.findAndRewriteAll(activity, tracker);
+            changed |= DoubleMergePattern.findAndRewriteAll(activity, tracker);
+            if (!changed) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Creates an activity with an initial node, a decision node with two control flows into a merge node, and a final
+     * node, which is a redundant decision-merge pattern.
+     *
+     * @return The activity.
+     */
+    private static Activity createDecisionMergeActivity() {
+        Activity activity = UML_FACTORY.createActivity();
+        ActivityNode initialNode = createNode(activity, UML_FACTORY.createInitialNode());
+        ActivityNode decisionNode = createNode(activity, UML_FACTORY.createDecisionNode());
+        ActivityNode mergeNode = createNode(activity, UML_FACTORY.createMergeNode());
+        ActivityNode finalNode = createNode(activity, UML_FACTORY.createActivityFinalNode());
+        connect(initialNode, decisionNode);
+        connect(decisionNode, mergeNode);
+        connect(decisionNode, mergeNode);
+        connect(mergeNode, finalNode);
+        return activity;
+    }
+
+    /**
+     * Creates a random activity, consisting of a sequence of random segments between an initial and a final node.
+     *
+     * @param random The random number generator.
+     * @return The activity.
+     */
+    private static Activity createRandomActivity(Random random) {
+        Activity activity = UML_FACTORY.createActivity();
+        ActivityNode node = createNode(activity, UML_FACTORY.createInitialNode());
+        int segmentCount = 3 + random.nextInt(8);
+        for (int i = 0; i < segmentCount; i++) {
+            node = addSegment(activity, node, random, 0);
+        }
+        connect(node, createNode(activity, UML_FACTORY.createActivityFinalNode()));
+        return activity;
+    }
+
+    /**
+     * Adds a random segment to the given activity. Every segment has a single entry node and a single exit node.
+     * Decision nodes get a single incoming control flow, and merge nodes and actions a single outgoing control flow,
+     * as produced by the translation of Petri nets to activities.
+     *
+     * @param activity The activity.
+     * @param predecessor The node to connect to the entry node of the segment.
+     * @param random The random number generator.
+     * @param depth The nesting depth of the segment.
+     * @return The exit node of the segment, which is not yet connected to a successor.
+     */
+    private static ActivityNode addSegment(Activity activity, ActivityNode predecessor, Random random, int depth) {
+        switch (random.nextInt(depth < MAX_DEPTH ? 5 : 2)) {
+            case 0: {
+                // A single action.
+                ActivityNode action = createAction(activity, random);
+                connect(predecessor, action);
+                return action;
+            }
+            case 1: {
+                // A single merge node.
+                ActivityNode mergeNode = createNode(activity, UML_FACTORY.createMergeNode());
+                connect(predecessor, mergeNode);
+                return mergeNode;
+            }
+            case 2: {
+                // A decision node with branches of random segments, into a merge node.
+                ActivityNode decisionNode = createNode(activity, UML_FACTORY.createDecisionNode());
+                ActivityNode mergeNode = createNode(activity, UML_FACTORY.createMergeNode());
+                connect(predecessor, decisionNode);
+                int branchCount = 1 + random.nextInt(3);
+                for (int i = 0; i < branchCount; i++) {
+                    connect(addSegments(activity, decisionNode, random, depth + 1), mergeNode);
+                }
+                return mergeNode;
+            }
+            case 3: {
+                // A decision node into fork nodes, which all fork into the same merge nodes, followed by actions that
+                // are joined again.
+                ActivityNode decisionNode = createNode(activity, UML_FACTORY.createDecisionNode());
+                connect(predecessor, decisionNode);
+                int branchCount = 2 + random.nextInt(2);
+                List<ActivityNode> forkNodes = new ArrayList<>();
+                List<ActivityNode> mergeNodes = new ArrayList<>();
+                for (int i = 0; i < branchCount; i++) {
+                    forkNodes.add(createNode(activity, UML_FACTORY.createForkNode()));
+                    mergeNodes.add(createNode(activity, UML_FACTORY.createMergeNode()));
+                }
+                ActivityNode joinNode = createNode(activity, UML_FACTORY.createJoinNode());
+                for (ActivityNode forkNode: forkNodes) {
+                    connect(decisionNode, forkNode);
+                    for (ActivityNode mergeNode: mergeNodes) {
+                        connect(forkNode, mergeNode);
+                    }
+                }
+                for (ActivityNode mergeNode: mergeNodes) {
+                    connect(addSegments(activity, mergeNode, random, depth + 1), joinNode);
+                }
+                return joinNode;
+            }
+            case 4: {
+                // A loop of random segments, that is left by a decision node.
+                ActivityNode mergeNode = createNode(activity, UML_FACTORY.createMergeNode());
+                ActivityNode decisionNode = createNode(activity, UML_FACTORY.createDecisionNode());
+                connect(predecessor, mergeNode);
+                connect(addSegments(activity, mergeNode, random, depth + 1), decisionNode);
+                connect(decisionNode, mergeNode);
+                return decisionNode;
+            }
+            default:
+                throw new RuntimeException("Unexpected segment kind.");
+        }
+    }
+
+    /**
+     * Adds zero or more random segments in sequence to the given activity.
+     *
+     * @param activity The activity.
+     * @param predecessor The node to connect to the entry node of the first segment.
+     * @param random The random number generator.
+     * @param depth The nesting depth of the segments.
+     * @return The exit node of the last segment, or the given predecessor if no segments were added.
+     */
+    private static ActivityNode addSegments(Activity activity, ActivityNode predecessor, Random random, int depth) {
+        ActivityNode node = predecessor;
+        int segmentCount = random.nextInt(3);
+        for (int i = 0; i < segmentCount; i++) {
+            node = addSegment(activity, node, random, depth);
+        }
+        return node;
+    }
+
+    private static Activity createBehavior(String name) {
+        Activity behavior = UML_FACTORY.createActivity();
+        behavior.setName(name);
+        return behavior;
+    }
+
+    private static ActivityNode createAction(Activity activity, Random random) {
+        Activity behavior = BEHAVIORS.get(random.nextInt(BEHAVIORS.size()));
+        CallBehaviorAction action = UML_FACTORY.createCallBehaviorAction();
+        action.setActivity(activity);
+        action.setName(behavior.getName());
+        action.setBehavior(behavior);
+        return action;
+    }
+
+    private static ActivityNode createNode(Activity activity, ActivityNode node) {
+        node.setName("node" + activity.getNodes().size());
+        node.setActivity(activity);
+        return node;
+    }
+
+    private static void connect(ActivityNode source, ActivityNode target) {
+        ControlFlow controlFlow = UML_FACTORY.createControlFlow();
+        controlFlow.setActivity(source.getActivity());
+        controlFlow.setSource(source);
+        controlFlow.setTarget(target);
+    }
+
+    /**
+     * Describes the structure of the given activity: its nodes in order, followed by its control flows in order.
+     *
+     * @param activity The activity.
+     * @return The description of the activity, with an element per node and control flow.
+     */
+    private static List<String> describe(Activity activity) {
+        List<String> description = new ArrayList<>();
+        List<ActivityNode> nodes = activity.getNodes();
+        for (ActivityNode node: nodes) {
+            description.add(node.eClass().getName() + " " + node.getName());
+        }
+        for (ActivityEdge edge: activity.getEdges()) {
+            description.add(nodes.indexOf(edge.getSource()) + " -> " + nodes.indexOf(edge.getTarget()));
+        }
+        return description;
+    }
+}
@@ -28,6 +28,7 @@ import org.eclipse.uml2.uml.MergeNode;
 import org.eclipse.uml2.uml.OpaqueBehavior;
 import org.eclipse.uml2.uml.RedefinableElement;
 
+import com.github.tno.pokayoke.transform.common.DeletionHelper;
 import com.github.tno.pokayoke.transform.common.ExprHelper;
 import com.github.tno.pokayoke.transform.track.SynthesisChainTracking;
 import com.github.tno.synthml.uml.profile.util.PokaYokeUmlProfileUtil;
@@ -116,7 +117,7 @@ public class ConcreteActivityRestorer {
         // Update the tracker and destroy the other decision and merge nodes and their edges.
         tracker.updateConcreteDecisionMergeNodesAndEdges(updatedNodes, elementsToDelete.stream()
                 .filter(e -> e instanceof ActivityNode).map(ActivityNode.class::cast).toList());
-        elementsToDelete.forEach(e -> e.destroy());
+        DeletionHelper.destroyAll(elementsToDelete);
     }
 
     /**
@@ -10,19 +10,23 @@
 
 package com.github.tno.pokayoke.transform.petrify2uml;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.io.FilenameUtils;
 
 import com.github.tno.pokayoke.transform.petrify.PetrifyHelper;
+import com.github.tno.pokayoke.transform.petrify.PetrifyNet;
 import com.google.common.base.Preconditions;
 
 import fr.lip6.move.pnml.ptnet.Arc;
@@ -44,8 +48,7 @@ public class PetrifyOutput2PNMLTranslator {
     private static final PtnetFactory PETRI_NET_FACTORY = PtnetFactory.eINSTANCE;
 
     public static void transformFile(Path inputPath, Path outputPath) throws IOException {
-        List<String> input = PetrifyHelper.readFile(inputPath.toString());
-        PetriNet petriNet = transform(input);
+        PetriNet petriNet = transform(inputPath);
         PostProcessPNML.removeLoop(petriNet);
 
         String filePrefix = FilenameUtils.removeExtension(inputPath.getFileName().toString());
@@ -54,22 +57,70 @@ public class PetrifyOutput2PNMLTranslator {
         PNMLUMLFileHelper.writePetriNet(petriNet, pnmlOutputFilePath.toString());
     }
 
+    /**
+     * Transforms a Petrify output file to PNML, reading the file line by line.
+     *
+     * @param petrifyOutputPath The path of the Petrify output file.
+     * @return The Petri Net.
+     * @throws IOException In case the Petrify output file could not be read.
+     */
+    public static PetriNet transform(Path petrifyOutputPath) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(petrifyOutputPath)) {
+            return transform(reader);
+        }
+    }
+
+    /**
+     * Transforms Petrify output to PNML, reading it line by line from the given reader, for instance the output stream
+     * of a Petrify process.
+     *
+     * @param reader The reader to read the Petrify output from. Is not closed.
+     * @return The Petri Net.
+     * @throws IOException In case the Petrify output could not be read.
+     */
+    public static PetriNet transform(BufferedReader reader) throws IOException {
+        try {
+            return transform(reader.lines().iterator());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
     /**
      * Transforms Petrify output to PNML.
      *
-     * @param petrifyOutput Petrify output in a list of strings. A {@link LinkedList} should be provided, as otherwise
-     *     removing elements from the head of the list is too expensive.
+     * @param petrifyOutput Petrify output in a list of strings. Is not modified.
      * @return The Petri Net.
      */
     public static PetriNet transform(List<String> petrifyOutput) {
-        Preconditions.checkArgument(!petrifyOutput.stream().anyMatch(line -> line.contains("__to__")),
-                "Expected that the Petrify output does not contain '__to__' as they are going to be used in the name of arcs.");
+        return transform(petrifyOutput.iterator());
+    }
 
+    /**
+     * Transforms normalized Petrify output to PNML.
+     *
+     * @param petrifyOutput The parsed Petrify output.
+     * @return The Petri Net.
+     */
+    public static PetriNet transform(PetrifyNet petrifyOutput) {
+        PetriNetBuilder builder = new PetriNetBuilder(petrifyOutput.getModelName());
+        builder.addTransitions(petrifyOutput.getTransitionNames());
+        petrifyOutput.getSpecification().forEach(builder::addSpecificationLine);
+        return builder.build(petrifyOutput.getMarkingPlaceName());
+    }
+
+    /**
+     * Transforms Petrify output to PNML, in a single pass over its lines. The Petri Net is built incrementally while
+     * the lines are read, such that only the current line needs to be kept in memory, besides the Petri Net itself.
+     *
+     * @param lines The lines of the Petrify output.
+     * @return The Petri Net.
+     */
+    private static PetriNet transform(Iterator<String> lines) {
         // Skip all comments.
-        String currentLine = petrifyOutput.get(0);
+        String currentLine = nextLine(lines);
         while (currentLine.startsWith("#")) {
-            petrifyOutput.remove(0);
-            currentLine = petrifyOutput.get(0);
+            currentLine = nextLine(lines);
         }
 
         // Obtain model name.
@@ -77,82 +128,73 @@ public class PetrifyOutput2PNMLTranslator {
         Preconditions.checkArgument(currentLine.startsWith(modelNameHeader),
                 "Expected the Petrify output to have a model name.");
         String modelName = currentLine.substring(modelNameHeader.length()).trim();
-        petrifyOutput.remove(0);
 
         // Create a Petri Net page.
-        Page petriNetPage = initializePetriNetPage(modelName);
+        PetriNetBuilder builder = new PetriNetBuilder(modelName);
 
-        // Obtain list of transitions.
+        // Obtain list of transitions, and create them.
         String dummyIdentifier = ".dummy";
-        currentLine = petrifyOutput.get(0);
+        currentLine = nextLine(lines);
         Preconditions.checkArgument(currentLine.startsWith(dummyIdentifier),
                 "Expected the Petrify output to contain transition declarations.");
-        String transitionDeclaration = currentLine.substring(dummyIdentifier.length()).trim();
-        petrifyOutput.remove(0);
-
-        List<String> transitionNames = new ArrayList<>(Arrays.asList(transitionDeclaration.split(" ")));
-        Preconditions.checkArgument(transitionNames.size() == transitionNames.stream().distinct().count(),
-                "Expected transition names to be unique.");
-
-        // Create transitions and add them to the map that stores objects and their names.
-        Map<String, Node> transitionsPlacesMap = new LinkedHashMap<>();
-        transitionNames.forEach(t -> transitionsPlacesMap.put(t, createTransition(t, petriNetPage)));
-
-        // In case a transition appears multiple times in a Petri Net, Petrify distinguishes each duplicate by
-        // adding a postfix to the name of the transition (e.g., 'Transition_A/1' is a duplicate of 'Transition_A'),
-        // and these duplicates are not specified in the transition declarations, but only appear in the
-        // specification. Therefore, transition duplicates in the specification are collected and separate transition
-        // objects are created with same name but different IDs. For example, duplicate 'Transition_A/1' is named
-        // as 'Transition_A' but with 'Transition_A/1' as its ID.
+        List<String> elements = new ArrayList<>();
+        tokenize(currentLine, dummyIdentifier.length(), elements);
+        builder.addTransitions(elements);
 
         // Iterate over each specification line to create places, duplicate transitions and arcs.
         String specificationIdentifier = ".graph";
-        currentLine = petrifyOutput.get(0);
+        currentLine = nextLine(lines);
         Preconditions.checkArgument(currentLine.startsWith(specificationIdentifier),
                 "Expected the Petrify output to contain a specification.");
-        petrifyOutput.remove(0);
 
-        currentLine = petrifyOutput.get(0);
+        currentLine = nextLine(lines);
         while (!currentLine.startsWith(".marking")) {
-            List<String> elements = Arrays.asList(currentLine.split(" "));
-
-            // Create new places and duplicate transitions if they have not been created. Store the names and the
-            // corresponding objects in the map.
-            for (String element: elements) {
-                if (!transitionsPlacesMap.containsKey(element)) {
-                    if (PetrifyHelper.isDuplicateTransition(element, transitionsPlacesMap.keySet())) {
-                        transitionsPlacesMap.put(element, createDuplicateTransition(element, petriNetPage));
-                    } else {
-                        transitionsPlacesMap.put(element, createPlace(element, petriNetPage));
-                    }
-                }
-            }
-            // Create arcs from the source to its targets.
-            String source = elements.get(0);
-
-            elements.stream().skip(1).forEach(target -> createArc(transitionsPlacesMap.get(source),
-                    transitionsPlacesMap.get(target), petriNetPage));
-
-            petrifyOutput.remove(0);
-            currentLine = petrifyOutput.get(0);
+            tokenize(currentLine, 0, elements);
+            builder.addSpecificationLine(elements);
+            currentLine = nextLine(lines);
         }
 
         // Obtain the marking place in curly brackets.
         String markingIdentifier = ".marking";
-        Preconditions.checkArgument(currentLine.startsWith(markingIdentifier),
-                "Expected the Petrify output to contain a marking place.");
         String markingPlaceName = currentLine.substring(markingIdentifier.length()).replace("{", "").replace("}", "")
                 .trim();
+        return builder.build(markingPlaceName);
+    }
 
-        Place markingPlace = (Place)transitionsPlacesMap.get(markingPlaceName);
-
-        // Create a marking for the marking place.
-        PTMarking initialMarking = PETRI_NET_FACTORY.createPTMarking();
-        initialMarking.setText(1L);
-        initialMarking.setContainerPlace(markingPlace);
-        markingPlace.setInitialMarking(initialMarking);
+    /**
+     * Gives the next line of Petrify output.
+     *
+     * @param lines The lines of the Petrify output.
+     * @return The next line.
+     */
+    private static String nextLine(Iterator<String> lines) {
+        Preconditions.checkArgument(lines.hasNext(), "Expected the Petrify output to contain a marking place.");
+        return lines.next();
+    }
 
-        return petriNetPage.getContainerPetriNet();
+    /**
+     * Splits (the remainder of) a line of Petrify output into its whitespace-separated tokens.
+     *
+     * @param line The line of Petrify output.
+     * @param beginIndex The index in the line from which to start.
+     * @param tokens The list to which to add the tokens. Is cleared first, such that it can be reused for each line.
+     */
+    private static void tokenize(String line, int beginIndex, List<String> tokens) {
+        tokens.clear();
+        int tokenStart = -1;
+        for (int i = beginIndex; i < line.length(); i++) {
+            if (Character.isWhitespace(line.charAt(i))) {
+                if (tokenStart >= 0) {
+                    tokens.add(line.substring(tokenStart, i));
+                    tokenStart = -1;
+                }
+            } else if (tokenStart < 0) {
+                tokenStart = i;
+            }
+        }
+        if (tokenStart >= 0) {
+            tokens.add(line.substring(tokenStart));
+        }
     }
 
     private static Page initializePetriNetPage(String petriNetId) {
@@ -211,4 +253,99 @@ public class PetrifyOutput2PNMLTranslator {
         source.getOutArcs().add(arc);
         return arc;
     }
+
+    /** Builds a Petri Net from Petrify output, one specification line at a time. */
+    private static class PetriNetBuilder {
+        /** The page of the Petri Net. */
+        private final Page petriNetPage;
+
+        /** The names of the declared transitions. */
+        private final Set<String> transitionNames = new HashSet<>();
+
+        /** The transitions and places that have been created, per name. */
+        private final Map<String, Node> transitionsPlacesMap = new HashMap<>();
+
+        /** The nodes of the current specification line, which is reused for each line. */
+        private final List<Node> nodes = new ArrayList<>();
+
+        PetriNetBuilder(String modelName) {
+            this.petriNetPage = initializePetriNetPage(modelName);
+        }
+
+        /**
+         * Creates the declared transitions.
+         *
+         * @param names The names of the declared transitions.
+         */
+        void addTransitions(List<String> names) {
+            for (String name: names) {
+                checkName(name);
+                Preconditions.checkArgument(transitionNames.add(name), "Expected transition names to be unique.");
+                transitionsPlacesMap.put(name, createTransition(name, petriNetPage));
+            }
+        }
+
+        /**
+         * Creates the places, duplicate transitions and arcs of a specification line.
+         *
+         * <p>
+         * In case a transition appears multiple times in a Petri Net, Petrify distinguishes each duplicate by adding a
+         * postfix to the name of the transition (e.g., 'Transition_A/1' is a duplicate of 'Transition_A'), and these
+         * duplicates are not specified in the transition declarations, but only appear in the specification.
+         * Therefore, transition duplicates in the specification are collected and separate transition objects are
+         * created with same name but different IDs. For example, duplicate 'Transition_A/1' is named as
+         * 'Transition_A' but with 'Transition_A/1' as its ID.
+         * </p>
+         *
+         * @param elements The elements of the specification line, being a source followed by its targets.
+         */
+        void addSpecificationLine(List<String> elements) {
+            // Create new places and duplicate transitions if they have not been created. Store the names and the
+            // corresponding objects in the map.
+            nodes.clear();
+            for (String element: elements) {
+                Node node = transitionsPlacesMap.get(element);
+                if (node == null) {
+                    checkName(element);
+                    if (PetrifyHelper.isDuplicateTransition(element, transitionNames)) {
+                        node = createDuplicateTransition(element, petriNetPage);
+                    } else {
+                        node = createPlace(element, petriNetPage);
+                    }
+                    transitionsPlacesMap.put(element, node);
+                }
+                nodes.add(node);
+            }
+
+            // Create arcs from the source to its targets.
+            for (int i = 1; i < nodes.size(); i++) {
+                createArc(nodes.get(0), nodes.get(i), petriNetPage);
+            }
+        }
+
+        /**
+         * Marks the initially marked place, and gives the Petri Net.
+         *
+         * @param markingPlaceName The name of the initially marked place.
+         * @return The Petri Net.
+         */
+        PetriNet build(String markingPlaceName) {
+            Preconditions.checkArgument(transitionsPlacesMap.get(markingPlaceName) instanceof Place,
+                    "Expected the marking to refer to a place of the specification, but got: " + markingPlaceName);
+            Place markingPlace = (Place)transitionsPlacesMap.get(markingPlaceName);
+
+            // Create a marking for the marking place.
+            PTMarking initialMarking = PETRI_NET_FACTORY.createPTMarking();
+            initialMarking.setText(1L);
+            initialMarking.setContainerPlace(markingPlace);
+            markingPlace.setInitialMarking(initialMarking);
+
+            return petriNetPage.getContainerPetriNet();
+        }
+
+        private static void checkName(String name) {
+            Preconditions.checkArgument(!name.contains("__to__"),
+                    "Expected that the Petrify output does not contain '__to__' as they are going to be used in the name of arcs.");
+        }
+    }
 }
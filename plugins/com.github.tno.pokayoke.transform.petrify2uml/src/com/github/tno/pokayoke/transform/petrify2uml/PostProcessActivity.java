@@ -10,8 +10,10 @@
 
 package com.github.tno.pokayoke.transform.petrify2uml;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 
 import org.eclipse.uml2.uml.Activity;
 import org.eclipse.uml2.uml.ActivityEdge;
@@ -19,6 +21,7 @@ import org.eclipse.uml2.uml.ActivityFinalNode;
 import org.eclipse.uml2.uml.ActivityNode;
 import org.eclipse.uml2.uml.CallBehaviorAction;
 import org.eclipse.uml2.uml.DecisionNode;
+import org.eclipse.uml2.uml.Element;
 import org.eclipse.uml2.uml.ForkNode;
 import org.eclipse.uml2.uml.InitialNode;
 import org.eclipse.uml2.uml.JoinNode;
@@ -28,11 +31,9 @@ import org.eclipse.uml2.uml.OpaqueBehavior;
 import org.eclipse.uml2.uml.RedefinableElement;
 import org.eclipse.uml2.uml.UMLFactory;
 
+import com.github.tno.pokayoke.transform.common.DeletionHelper;
 import com.github.tno.pokayoke.transform.common.ExprHelper;
-import com.github.tno.pokayoke.transform.petrify2uml.patterns.DoubleMergePattern;
-import com.github.tno.pokayoke.transform.petrify2uml.patterns.EquivalentActionsIntoMergePattern;
-import com.github.tno.pokayoke.transform.petrify2uml.patterns.RedundantDecisionForkMergePattern;
-import com.github.tno.pokayoke.transform.petrify2uml.patterns.RedundantDecisionMergePattern;
+import com.github.tno.pokayoke.transform.petrify2uml.patterns.ActivityPatternRewriter;
 import com.github.tno.pokayoke.transform.track.SynthesisChainTracking;
 import com.github.tno.pokayoke.transform.track.SynthesisChainTracking.ActionKind;
 import com.github.tno.pokayoke.transform.uml2cif.UmlToCifTranslator;
@@ -53,6 +54,7 @@ public class PostProcessActivity {
      * @param actionsToRemove The opaque actions to remove.
      */
     public static void removeOpaqueActions(Activity activity, Set<OpaqueAction> actionsToRemove) {
+        List<Element> elementsToDestroy = new ArrayList<>();
         for (OpaqueAction action: actionsToRemove) {
             List<ActivityEdge> incomingEdges = action.getIncomings();
             Preconditions.checkArgument(incomingEdges.size() == 1,
@@ -79,11 +81,17 @@ public class PostProcessActivity {
             // Add a new control flow from source to target.
             PNML2UMLTranslator.createControlFlow(activity, source, target);
 
-            // Destroy the action and its incoming and outgoing edges.
-            incomingEdge.destroy();
-            outgoingEdge.destroy();
-            action.destroy();
+            // Disconnect the action and its incoming and outgoing edges, and destroy them after all actions have been
+            // removed.
+            incomingEdge.setSource(null);
+            incomingEdge.setTarget(null);
+            outgoingEdge.setSource(null);
+            outgoingEdge.setTarget(null);
+            elementsToDestroy.add(incomingEdge);
+            elementsToDestroy.add(outgoingEdge);
+            elementsToDestroy.add(action);
         }
+        DeletionHelper.destroyAll(elementsToDestroy);
     }
 
     /**
@@ -105,18 +113,21 @@ public class PostProcessActivity {
      * @param tracker The synthesis chain tracker.
      */
     public static void simplify(Activity activity, SynthesisChainTracking tracker) {
-        while (true) {
-            boolean changed = false;
-
-            changed |= RedundantDecisionMergePattern.findAndRewriteAll(activity, tracker);
-            changed |= RedundantDecisionForkMergePattern.findAndRewriteAll(activity, tracker);
-            changed |= EquivalentActionsIntoMergePattern.findAndRewriteAll(activity, tracker);
-            changed |= DoubleMergePattern.findAndRewriteAll(activity, tracker);
+        ActivityPatternRewriter.rewriteAll(activity, tracker);
+    }
 
-            if (!changed) {
-                break;
-            }
-        }
+    /**
+     * Simplifies the given activity, until termination is requested.
+     *
+     * @param activity The activity to simplify, which is modified in-place.
+     * @param tracker The synthesis chain tracker.
+     * @param terminationRequested Indicates whether termination is requested. If so, the simplification stops early,
+     *     leaving the activity only partially simplified.
+     */
+    public static void simplify(Activity activity, SynthesisChainTracking tracker,
+            BooleanSupplier terminationRequested)
+    {
+        ActivityPatternRewriter.rewriteAll(activity, tracker, terminationRequested);
     }
 
     /**
@@ -128,6 +139,7 @@ public class PostProcessActivity {
      * @param warnings Any warnings to notify the user of, which is modified in-place.
      */
     public static void finalizeOpaqueActions(Activity activity, SynthesisChainTracking tracker, List<String> warnings) {
+        List<OpaqueAction> actionsToDestroy = new ArrayList<>();
         for (ActivityNode node: List.copyOf(activity.getNodes())) {
             if (node instanceof OpaqueAction action) {
                 if (tracker.isTemporaryPetrificationAction(action)) {
@@ -160,7 +172,7 @@ public class PostProcessActivity {
                                 "Opaque actions must have a single incoming and outgoing edge.");
                         action.getIncomings().get(0).setTarget(callAction);
                         action.getOutgoings().get(0).setSource(callAction);
-                        action.destroy();
+                        actionsToDestroy.add(action);
 
                         break;
                     }
@@ -196,7 +208,7 @@ public class PostProcessActivity {
                         // Redirect the incoming/outgoing control flow edges, and destroy the original action.
                         action.getIncomings().get(0).setTarget(callAction);
                         action.getOutgoings().get(0).setSource(callAction);
-                        action.destroy();
+                        actionsToDestroy.add(action);
 
                         break;
                     }
@@ -330,6 +342,9 @@ public class PostProcessActivity {
             }
         }
 
+        // Destroy the replaced opaque actions, all at once.
+        DeletionHelper.destroyAll(actionsToDestroy);
+
         // Ensure that there are no naming conflicts after the replacement of the double underscores.
         // Activity nodes with the same name will still refer to the same original UML element, to ensure we can still
         // do the maximum amount of pattern rewriting.
@@ -0,0 +1,300 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.petrify2uml.patterns;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.uml2.uml.Activity;
+import org.eclipse.uml2.uml.ActivityEdge;
+import org.eclipse.uml2.uml.ActivityNode;
+import org.eclipse.uml2.uml.Element;
+
+import com.github.tno.pokayoke.transform.track.SynthesisChainTracking;
+
+/**
+ * Rewrites all redundant patterns in a UML activity, until none are left.
+ * <p>
+ * The rewriter performs the same rewrites, in the same order, as repeatedly applying the
+ * {@link RedundantDecisionMergePattern}, {@link RedundantDecisionForkMergePattern},
+ * {@link EquivalentActionsIntoMergePattern} and {@link DoubleMergePattern} rewrites to the whole activity, until a
+ * fixpoint is reached. However, rather than scanning the whole activity for every pattern in every iteration, it keeps
+ * a worklist of candidate elements per pattern. Initially all elements are candidates. After that, only the elements
+ * that are close enough to a changed element for their match result to possibly have changed, become candidates
+ * again. Changed elements are recorded by listening to the notifications of the activity and its contents.
+ * </p>
+ */
+public class ActivityPatternRewriter {
+    /** The activity to rewrite. */
+    private final Activity activity;
+
+    /** The synthesis chain tracker. */
+    private final SynthesisChainTracking tracker;
+
+    /**
+     * The positions of the nodes and edges in the node and edge lists of the activity, respectively. Positions only
+     * express relative order, and are not indices. New elements are always added at the end of the lists, and thus
+     * get positions beyond those of all existing elements.
+     */
+    private final Map<Element, Long> positions = new HashMap<>();
+
+    /** The next free position, for newly added nodes and edges. */
+    private long nextPosition = 0;
+
+    /** The nodes and edges that changed since the candidates were last updated. */
+    private final Set<Element> changedElements = new LinkedHashSet<>();
+
+    /** The candidate nodes for {@link RedundantDecisionMergePattern redundant decision-merge patterns}. */
+    private final Set<ActivityNode> decisionMergeCandidates = new LinkedHashSet<>();
+
+    /** The candidate nodes for {@link RedundantDecisionForkMergePattern redundant decision-fork-merge patterns}. */
+    private final Set<ActivityNode> decisionForkMergeCandidates = new LinkedHashSet<>();
+
+    /** The candidate nodes for {@link EquivalentActionsIntoMergePattern equivalent actions into merge patterns}. */
+    private final Set<ActivityNode> equivalentActionsCandidates = new LinkedHashSet<>();
+
+    /** The candidate edges for {@link DoubleMergePattern double merge patterns}. */
+    private final Set<ActivityEdge> doubleMergeCandidates = new LinkedHashSet<>();
+
+    /**
+     * The found {@link DoubleMergePattern double merge patterns} that have not been rewritten yet, per position of
+     * their control flow. Double merge patterns are rewritten one at a time, and later patterns may thus be found
+     * before they are rewritten.
+     */
+    private final TreeMap<Long, DoubleMergePattern> doubleMergePatterns = new TreeMap<>();
+
+    /** The adapter that records the nodes and edges of the activity that change. */
+    private final EContentAdapter changeRecorder = new EContentAdapter() {
+        @Override
+        public void notifyChanged(Notification notification) {
+            // Let the content adapter attach itself to new contents.
+            super.notifyChanged(notification);
+
+            Object notifier = notification.getNotifier();
+            if (notifier == activity) {
+                // Register new nodes and edges, which are added at the end of the node and edge lists.
+                if (notification.getEventType() == Notification.ADD
+                        && (notification.getNewValue() instanceof ActivityNode
+                                || notification.getNewValue() instanceof ActivityEdge))
+                {
+                    Element element = (Element)notification.getNewValue();
+                    positions.putIfAbsent(element, nextPosition++);
+                    changedElements.add(element);
+                }
+            } else if (notifier instanceof ActivityNode || notifier instanceof ActivityEdge) {
+                changedElements.add((Element)notifier);
+            }
+        }
+    };
+
+    private ActivityPatternRewriter(Activity activity, SynthesisChainTracking tracker) {
+        this.activity = activity;
+        this.tracker = tracker;
+
+        // Initially, all nodes and edges are candidates.
+        for (ActivityNode node: activity.getNodes()) {
+            positions.put(node, nextPosition++);
+            addNodeCandidate(node);
+        }
+        for (ActivityEdge edge: activity.getEdges()) {
+            positions.put(edge, nextPosition++);
+            doubleMergeCandidates.add(edge);
+        }
+    }
+
+    /**
+     * Rewrites all redundant decision-merge, redundant decision-fork-merge, equivalent actions into merge and double
+     * merge patterns in the given activity, until none are left.
+     *
+     * @param activity The input activity, which is modified in-place.
+     * @param tracker The synthesis chain tracker.
+     */
+    public static void rewriteAll(Activity activity, SynthesisChainTracking tracker) {
+        rewriteAll(activity, tracker, () -> false);
+    }
+
+    /**
+     * Rewrites all redundant decision-merge, redundant decision-fork-merge, equivalent actions into merge and double
+     * merge patterns in the given activity, until none are left, or until termination is requested.
+     *
+     * @param activity The input activity, which is modified in-place.
+     * @param tracker The synthesis chain tracker.
+     * @param terminationRequested Indicates whether termination is requested. If so, the rewriting stops after the
+     *     current iteration, leaving the activity only partially rewritten.
+     */
+    public static void rewriteAll(Activity activity, SynthesisChainTracking tracker,
+            BooleanSupplier terminationRequested)
+    {
+        ActivityPatternRewriter rewriter = new ActivityPatternRewriter(activity, tracker);
+        activity.eAdapters().add(rewriter.changeRecorder);
+        try {
+            rewriter.rewriteUntilFixpoint(terminationRequested);
+        } finally {
+            activity.eAdapters().remove(rewriter.changeRecorder);
+        }
+    }
+
+    /**
+     * Rewrites all patterns, until none are left, or until termination is requested.
+     *
+     * @param terminationRequested Indicates whether termination is requested.
+     */
+    private void rewriteUntilFixpoint(BooleanSupplier terminationRequested) {
+        while (!terminationRequested.getAsBoolean()) {
+            boolean changed = false;
+
+            changed |= rewriteAll(decisionMergeCandidates,
+                    node -> RedundantDecisionMergePattern.findAny(node, tracker).map(p -> p::rewrite));
+            changed |= rewriteAll(decisionForkMergeCandidates,
+                    node -> RedundantDecisionForkMergePattern.findAny(node, tracker).map(p -> p::rewrite));
+            changed |= rewriteAll(equivalentActionsCandidates,
+                    node -> EquivalentActionsIntoMergePattern.findAny(node, tracker).map(p -> p::rewrite));
+            changed |= rewriteDoubleMerges();
+
+            if (!changed) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Finds all patterns of a single kind that start from the given candidate nodes, and rewrites them, like
+     * {@link RedundantDecisionMergePattern#findAndRewriteAll} would for the whole activity.
+     *
+     * @param candidates The candidate nodes for the kind of pattern. Is cleared, after which it receives the new
+     *     candidates resulting from the rewrites.
+     * @param finder The function that tries finding a pattern that starts from a given node, and gives its rewrite.
+     * @return {@code true} if the activity has been rewritten, {@code false} otherwise.
+     */
+    private boolean rewriteAll(Set<ActivityNode> candidates, Function<ActivityNode, Optional<Runnable>> finder) {
+        // Find all patterns before rewriting any of them, in the order of the nodes of the activity.
+        List<Runnable> rewrites = candidates.stream().filter(this::isInActivity)
+                .sorted(Comparator.comparing(positions::get)).flatMap(node -> finder.apply(node).stream()).toList();
+        candidates.clear();
+
+        rewrites.forEach(Runnable::run);
+        updateCandidates();
+        return !rewrites.isEmpty();
+    }
+
+    /**
+     * Finds and rewrites all double merge patterns, one at a time and in the order of the edges of the activity, like
+     * {@link DoubleMergePattern#findAndRewriteAll} would for the whole activity.
+     *
+     * @return {@code true} if the activity has been rewritten, {@code false} otherwise.
+     */
+    private boolean rewriteDoubleMerges() {
+        boolean hasFoundPatterns = false;
+
+        while (true) {
+            // Update the found patterns for all candidate edges.
+            for (ActivityEdge edge: doubleMergeCandidates) {
+                Long position = positions.get(edge);
+                doubleMergePatterns.remove(position);
+                if (isInActivity(edge)) {
+                    DoubleMergePattern.findAny(edge, tracker).ifPresent(p -> doubleMergePatterns.put(position, p));
+                }
+            }
+            doubleMergeCandidates.clear();
+
+            // Rewrite the first pattern.
+            Entry<Long, DoubleMergePattern> firstPattern = doubleMergePatterns.pollFirstEntry();
+            if (firstPattern == null) {
+                break;
+            }
+            firstPattern.getValue().rewrite();
+            updateCandidates();
+            hasFoundPatterns = true;
+        }
+        return hasFoundPatterns;
+    }
+
+    /**
+     * Makes candidates of all elements whose pattern match results may have changed due to the changed elements.
+     * <p>
+     * The pattern match results depend on the outgoing control flows of a node and the targets of those control flows,
+     * up to two levels deep (redundant decision-fork-merge patterns), on the incoming control flows of a node and their
+     * sources (equivalent actions into merge patterns), or on a control flow itself (double merge patterns). Any change
+     * to such an element triggers a notification for the node or control flow itself.
+     * </p>
+     */
+    private void updateCandidates() {
+        for (Element element: changedElements) {
+            if (!isInActivity(element)) {
+                // Removed elements no longer match. Any remaining neighbors have changed as well.
+                doubleMergeCandidates.remove(element);
+                if (element instanceof ActivityEdge edge) {
+                    doubleMergePatterns.remove(positions.get(edge));
+                }
+                continue;
+            }
+
+            if (element instanceof ActivityNode node) {
+                addNodeCandidateAndPredecessors(node);
+            } else if (element instanceof ActivityEdge edge) {
+                doubleMergeCandidates.add(edge);
+                if (edge.getSource() != null) {
+                    addNodeCandidateAndPredecessors(edge.getSource());
+                }
+                if (edge.getTarget() != null) {
+                    addNodeCandidate(edge.getTarget());
+                }
+            }
+        }
+        changedElements.clear();
+    }
+
+    /**
+     * Makes candidates of the given node and its direct predecessors.
+     *
+     * @param node The node.
+     */
+    private void addNodeCandidateAndPredecessors(ActivityNode node) {
+        addNodeCandidate(node);
+        for (ActivityEdge incoming: node.getIncomings()) {
+            if (incoming.getSource() != null) {
+                addNodeCandidate(incoming.getSource());
+            }
+        }
+    }
+
+    /**
+     * Makes a candidate of the given node, for all node-based patterns.
+     *
+     * @param node The node.
+     */
+    private void addNodeCandidate(ActivityNode node) {
+        decisionMergeCandidates.add(node);
+        decisionForkMergeCandidates.add(node);
+        equivalentActionsCandidates.add(node);
+    }
+
+    /**
+     * Indicates whether the given node or edge is (still) part of the activity.
+     *
+     * @param element The node or edge.
+     * @return {@code true} if the element is part of the activity, {@code false} otherwise.
+     */
+    private boolean isInActivity(Element element) {
+        return element.eContainer() == activity;
+    }
+}
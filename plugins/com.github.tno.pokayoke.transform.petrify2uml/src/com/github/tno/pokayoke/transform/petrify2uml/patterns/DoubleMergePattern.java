@@ -20,6 +20,7 @@ import org.eclipse.uml2.uml.ActivityNode;
 import org.eclipse.uml2.uml.ControlFlow;
 import org.eclipse.uml2.uml.MergeNode;
 
+import com.github.tno.pokayoke.transform.common.DeletionHelper;
 import com.github.tno.pokayoke.transform.track.SynthesisChainTracking;
 import com.github.tno.synthml.uml.profile.util.PokaYokeUmlProfileUtil;
 
@@ -81,7 +82,7 @@ public class DoubleMergePattern {
      * @param tracker The synthesis chain tracker.
      * @return Some <i>double merge</i> pattern in case one was found, or an empty result otherwise.
      */
-    private static Optional<DoubleMergePattern> findAny(ActivityEdge controlFlow, SynthesisChainTracking tracker) {
+    static Optional<DoubleMergePattern> findAny(ActivityEdge controlFlow, SynthesisChainTracking tracker) {
         if (controlFlow.getSource() instanceof MergeNode sourceMergeNode
                 && controlFlow.getTarget() instanceof MergeNode targetMergeNode
                 && !(tracker
@@ -101,15 +102,12 @@ public class DoubleMergePattern {
         ActivityNode source = controlFlow.getSource();
         ActivityNode target = controlFlow.getTarget();
 
-        // Remove the control flow in this pattern.
-        controlFlow.destroy();
-
         // Redirect all incoming control flows into the source node to go to the target node instead.
         for (ActivityEdge controlFlow: List.copyOf(source.getIncomings())) {
             controlFlow.setTarget(target);
         }
 
-        // Remove the source node, which is now replaced by the target node.
-        source.destroy();
+        // Remove the control flow in this pattern, and the source node, which is now replaced by the target node.
+        DeletionHelper.destroyAll(List.of(controlFlow, source));
     }
 }
@@ -20,9 +20,11 @@ import org.eclipse.uml2.uml.ActivityEdge;
 import org.eclipse.uml2.uml.ActivityFinalNode;
 import org.eclipse.uml2.uml.ActivityNode;
 import org.eclipse.uml2.uml.ControlFlow;
+import org.eclipse.uml2.uml.Element;
 import org.eclipse.uml2.uml.MergeNode;
 import org.eclipse.uml2.uml.UMLFactory;
 
+import com.github.tno.pokayoke.transform.common.DeletionHelper;
 import com.github.tno.pokayoke.transform.track.SynthesisChainTracking;
 import com.github.tno.synthml.uml.profile.util.PokaYokeUmlProfileUtil;
 import com.google.common.base.Preconditions;
@@ -83,9 +85,7 @@ public class EquivalentActionsIntoMergePattern {
      * @param tracker The synthesis chain tracker.
      * @return Some <i>equivalent actions into merge</i> pattern in case one was found, or an empty result otherwise.
      */
-    private static Optional<EquivalentActionsIntoMergePattern> findAny(ActivityNode node,
-            SynthesisChainTracking tracker)
-    {
+    static Optional<EquivalentActionsIntoMergePattern> findAny(ActivityNode node, SynthesisChainTracking tracker) {
         if (node instanceof MergeNode mergeNode
                 && !(tracker.getOriginalUmlElementForSynthesizedActivityNode(mergeNode) instanceof ActivityFinalNode)
                 && mergeNode.getIncomings().size() > 1)
@@ -122,14 +122,20 @@ public class EquivalentActionsIntoMergePattern {
             action.getIncomings().get(0).setTarget(newMergeNode);
         }
 
-        // Remove all outgoing control flows of the action nodes in this pattern.
+        // Remove all outgoing control flows of the action nodes in this pattern. Disconnect them right away, and
+        // destroy them at the end, together with all other elements to remove.
+        List<Element> elementsToDestroy = new ArrayList<>();
         for (Action action: actionNodes) {
-            List.copyOf(action.getOutgoings()).forEach(ActivityEdge::destroy);
+            for (ActivityEdge controlFlow: List.copyOf(action.getOutgoings())) {
+                controlFlow.setSource(null);
+                controlFlow.setTarget(null);
+                elementsToDestroy.add(controlFlow);
+            }
         }
 
         // Remove all action nodes in this pattern except for the first one in the action node list.
         Action actionNode = actionNodes.get(0);
-        actionNodes.stream().skip(1).forEach(ActivityNode::destroy);
+        actionNodes.stream().skip(1).forEach(elementsToDestroy::add);
 
         // Add a control flow from the new merge node to the leftover action node in the pattern.
         ControlFlow controlFlow = UML_FACTORY.createControlFlow();
@@ -145,6 +151,7 @@ public class EquivalentActionsIntoMergePattern {
         mergeNode.getOutgoings().get(0).setSource(actionNode);
 
         // Remove the old merge node in the pattern.
-        mergeNode.destroy();
+        elementsToDestroy.add(mergeNode);
+        DeletionHelper.destroyAll(elementsToDestroy);
     }
 }
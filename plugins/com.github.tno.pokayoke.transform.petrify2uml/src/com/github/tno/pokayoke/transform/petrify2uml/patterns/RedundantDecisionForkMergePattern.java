@@ -10,6 +10,7 @@
 
 package com.github.tno.pokayoke.transform.petrify2uml.patterns;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
@@ -22,11 +23,13 @@ import org.eclipse.uml2.uml.ActivityFinalNode;
 import org.eclipse.uml2.uml.ActivityNode;
 import org.eclipse.uml2.uml.ControlFlow;
 import org.eclipse.uml2.uml.DecisionNode;
+import org.eclipse.uml2.uml.Element;
 import org.eclipse.uml2.uml.ForkNode;
 import org.eclipse.uml2.uml.InitialNode;
 import org.eclipse.uml2.uml.MergeNode;
 import org.eclipse.uml2.uml.UMLFactory;
 
+import com.github.tno.pokayoke.transform.common.DeletionHelper;
 import com.github.tno.pokayoke.transform.track.SynthesisChainTracking;
 import com.github.tno.synthml.uml.profile.util.PokaYokeUmlProfileUtil;
 import com.google.common.base.Preconditions;
@@ -89,9 +92,7 @@ public class RedundantDecisionForkMergePattern {
      * @param tracker The synthesis chain tracker.
      * @return Some redundant decision-fork-merge pattern in case one was found, or an empty result otherwise.
      */
-    private static Optional<RedundantDecisionForkMergePattern> findAny(ActivityNode node,
-            SynthesisChainTracking tracker)
-    {
+    static Optional<RedundantDecisionForkMergePattern> findAny(ActivityNode node, SynthesisChainTracking tracker) {
         // To start a redundant decision-fork-merge pattern, the node must be a decision node that does not correspond
         // to an initial node of a called concrete activity.
         if (node instanceof DecisionNode decisionNode
@@ -170,19 +171,20 @@ public class RedundantDecisionForkMergePattern {
         }
 
         // Delete the decision node and all control flows attached to it.
-        List.copyOf(decisionNode.getOutgoings()).forEach(ActivityEdge::destroy);
-        decisionNode.destroy();
+        List<Element> elementsToDestroy = new ArrayList<>(decisionNode.getOutgoings());
+        elementsToDestroy.add(decisionNode);
 
         // Delete all fork nodes and all control flows that are attached to it.
         for (ForkNode forkNode: forkNodes) {
-            List.copyOf(forkNode.getOutgoings()).forEach(ActivityEdge::destroy);
-            forkNode.destroy();
+            elementsToDestroy.addAll(forkNode.getOutgoings());
+            elementsToDestroy.add(forkNode);
         }
 
         // Delete all merge nodes and all control flows that are attached to it.
         for (MergeNode mergeNode: mergeNodes) {
-            List.copyOf(mergeNode.getOutgoings()).forEach(ActivityEdge::destroy);
-            mergeNode.destroy();
+            elementsToDestroy.addAll(mergeNode.getOutgoings());
+            elementsToDestroy.add(mergeNode);
         }
+        DeletionHelper.destroyAll(elementsToDestroy);
     }
 }
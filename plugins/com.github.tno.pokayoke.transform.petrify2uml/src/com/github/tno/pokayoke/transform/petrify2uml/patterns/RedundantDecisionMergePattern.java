@@ -10,6 +10,7 @@
 
 package com.github.tno.pokayoke.transform.petrify2uml.patterns;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
@@ -22,9 +23,11 @@ import org.eclipse.uml2.uml.ActivityFinalNode;
 import org.eclipse.uml2.uml.ActivityNode;
 import org.eclipse.uml2.uml.ControlFlow;
 import org.eclipse.uml2.uml.DecisionNode;
+import org.eclipse.uml2.uml.Element;
 import org.eclipse.uml2.uml.InitialNode;
 import org.eclipse.uml2.uml.MergeNode;
 
+import com.github.tno.pokayoke.transform.common.DeletionHelper;
 import com.github.tno.pokayoke.transform.track.SynthesisChainTracking;
 import com.github.tno.synthml.uml.profile.util.PokaYokeUmlProfileUtil;
 import com.google.common.base.Preconditions;
@@ -81,7 +84,7 @@ public class RedundantDecisionMergePattern {
      * @param tracker The synthesis chain tracker.
      * @return Some redundant decision-merge pattern in case one was found, or an empty result otherwise.
      */
-    private static Optional<RedundantDecisionMergePattern> findAny(ActivityNode node, SynthesisChainTracking tracker) {
+    static Optional<RedundantDecisionMergePattern> findAny(ActivityNode node, SynthesisChainTracking tracker) {
         // To start a redundant decision-merge pattern the node must be a decision node that does not correspond to a
         // called concrete activity initial node.
         if (node instanceof DecisionNode decisionNode
@@ -127,12 +130,13 @@ public class RedundantDecisionMergePattern {
         }
 
         // Delete the decision node and possibly the merge node, and all control flows between the deleted nodes.
-        List.copyOf(decisionNode.getOutgoings()).forEach(ActivityEdge::destroy);
-        decisionNode.destroy();
+        List<Element> elementsToDestroy = new ArrayList<>(decisionNode.getOutgoings());
+        elementsToDestroy.add(decisionNode);
 
         if (!keepMergeNode) {
-            List.copyOf(mergeNode.getOutgoings()).forEach(ActivityEdge::destroy);
-            mergeNode.destroy();
+            elementsToDestroy.addAll(mergeNode.getOutgoings());
+            elementsToDestroy.add(mergeNode);
         }
+        DeletionHelper.destroyAll(elementsToDestroy);
     }
 }
@@ -0,0 +1,191 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.pokayoke.transform.track;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.escet.cif.metamodel.cif.declarations.Event;
+import org.eclipse.escet.cif.metamodel.java.CifConstructors;
+import org.eclipse.uml2.uml.Activity;
+import org.eclipse.uml2.uml.OpaqueAction;
+import org.eclipse.uml2.uml.RedefinableElement;
+import org.eclipse.uml2.uml.UMLFactory;
+import org.eclipse.uml2.uml.UMLPackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.tno.pokayoke.transform.track.SynthesisChainTracking.EventTraceInfo;
+import com.google.common.base.VerifyException;
+
+/**
+ * Tests for the CIF event queries of {@link SynthesisChainTracking}, which are answered from indexes that must stay
+ * consistent with the registered CIF events, and give the events in registration order.
+ */
+class SynthesisChainTrackingTest {
+    private SynthesisChainTracking tracker;
+
+    private OpaqueAction actionA;
+
+    private OpaqueAction actionB;
+
+    private OpaqueAction actionC;
+
+    private Event startA;
+
+    private Event startB;
+
+    private Event endA;
+
+    private Event endB;
+
+    private Event control;
+
+    private Event guardStartA;
+
+    @BeforeEach
+    void setUp() {
+        Activity activity = UMLFactory.eINSTANCE.createActivity();
+        actionA = (OpaqueAction)activity.createOwnedNode("A", UMLPackage.Literals.OPAQUE_ACTION);
+        actionB = (OpaqueAction)activity.createOwnedNode("B", UMLPackage.Literals.OPAQUE_ACTION);
+        actionC = (OpaqueAction)activity.createOwnedNode("C", UMLPackage.Literals.OPAQUE_ACTION);
+        tracker = new SynthesisChainTracking(activity);
+
+        // Register the events of the actions interleaved, such that registration order differs from element order.
+        startA = addEvent("A__start", UmlToCifTranslationPurpose.SYNTHESIS, actionA, null, true, false);
+        startB = addEvent("B__start", UmlToCifTranslationPurpose.SYNTHESIS, actionB, null, true, false);
+        endA = addEvent("A__result_1", UmlToCifTranslationPurpose.SYNTHESIS, actionA, 0, false, true);
+        control = addEvent("node", UmlToCifTranslationPurpose.SYNTHESIS, null, null, true, true);
+        endB = addEvent("B__result_1", UmlToCifTranslationPurpose.SYNTHESIS, actionB, 0, false, true);
+        guardStartA = addEvent("A__start", UmlToCifTranslationPurpose.GUARD_COMPUTATION, actionA, null, true, false);
+    }
+
+    @Test
+    void testEventsOf() {
+        assertEquals(List.of(startA, endA), tracker.getEventsOf(Set.of(actionA), UmlToCifTranslationPurpose.SYNTHESIS));
+        assertEquals(List.of(startA, startB, endA, endB),
+                tracker.getEventsOf(Set.of(actionB, actionA), UmlToCifTranslationPurpose.SYNTHESIS));
+        assertEquals(List.of(startA, endA),
+                tracker.getEventsOf(Set.of(actionA, actionC), UmlToCifTranslationPurpose.SYNTHESIS));
+        assertEquals(List.of(), tracker.getEventsOf(Set.of(actionC), UmlToCifTranslationPurpose.SYNTHESIS));
+
+        assertEquals(List.of(startA), tracker.getStartEventsOf(actionA, UmlToCifTranslationPurpose.SYNTHESIS));
+        assertEquals(List.of(guardStartA),
+                tracker.getStartEventsOf(actionA, UmlToCifTranslationPurpose.GUARD_COMPUTATION));
+        assertEquals(List.of(startB), tracker.getStartEventsCorrespondingToOriginalUmlElement(actionB,
+                UmlToCifTranslationPurpose.SYNTHESIS));
+        assertEquals(List.of(),
+                tracker.getStartEventsCorrespondingToOriginalUmlElement(null, UmlToCifTranslationPurpose.SYNTHESIS));
+    }
+
+    @Test
+    void testStartEventMaps() {
+        Map<Event, RedefinableElement> expectedStartEvents = new LinkedHashMap<>();
+        expectedStartEvents.put(startA, actionA);
+        expectedStartEvents.put(startB, actionB);
+        expectedStartEvents.put(control, null);
+        assertEquals(expectedStartEvents, tracker.getStartEventMap(UmlToCifTranslationPurpose.SYNTHESIS));
+        assertEquals(Map.of(guardStartA, actionA),
+                tracker.getStartEventMap(UmlToCifTranslationPurpose.GUARD_COMPUTATION));
+        assertEquals(Map.of(), tracker.getStartEventMap(UmlToCifTranslationPurpose.LANGUAGE_EQUIVALENCE));
+
+        // Opaque actions without the profile applied are non-atomic, while the control node event is atomic.
+        assertEquals(Map.of(startA, List.of(endA), startB, List.of(endB)),
+                tracker.getNonAtomicStartEndEventMap(UmlToCifTranslationPurpose.SYNTHESIS));
+    }
+
+    @Test
+    void testUpdateKeepsRegistrationOrder() {
+        // Updating the tracing info of an event keeps its position in the registration order.
+        addEvent(endA, UmlToCifTranslationPurpose.SYNTHESIS, actionA, 0, false, true);
+        assertEquals(List.of(startA, startB, endA, endB),
+                tracker.getEventsOf(Set.of(actionA, actionB), UmlToCifTranslationPurpose.SYNTHESIS));
+
+        // Relating an event to another UML element moves it to the events of that element, in registration order.
+        addEvent(endA, UmlToCifTranslationPurpose.SYNTHESIS, actionB, 0, false, true);
+        assertEquals(List.of(startA), tracker.getEventsOf(Set.of(actionA), UmlToCifTranslationPurpose.SYNTHESIS));
+        assertEquals(List.of(startB, endA, endB),
+                tracker.getEventsOf(Set.of(actionB), UmlToCifTranslationPurpose.SYNTHESIS));
+        assertEquals(tracker.getEventsOf(Set.of(actionB), UmlToCifTranslationPurpose.SYNTHESIS),
+                tracker.getEventsOf(Set.of(actionA, actionB), UmlToCifTranslationPurpose.SYNTHESIS).stream()
+                        .filter(e -> e != startA).toList());
+
+        // Changing the translation purpose of an event moves it to the events of that purpose, in registration order.
+        addEvent(startB, UmlToCifTranslationPurpose.GUARD_COMPUTATION, actionB, null, true, false);
+        assertEquals(List.of(endA, endB), tracker.getEventsOf(Set.of(actionB), UmlToCifTranslationPurpose.SYNTHESIS));
+        assertEquals(List.of(startB, guardStartA),
+                List.copyOf(tracker.getStartEventMap(UmlToCifTranslationPurpose.GUARD_COMPUTATION).keySet()));
+    }
+
+    @Test
+    void testRemoveEndEvent() {
+        tracker.removeAndUpdateEvents(Set.of("A__result_1"), UmlToCifTranslationPurpose.SYNTHESIS);
+
+        // The start event also becomes the end event, with the exit guard of the removed end event.
+        EventTraceInfo startInfo = tracker.getEventTraceInfo(startA);
+        assertTrue(startInfo.isStartEvent());
+        assertTrue(startInfo.isEndEvent());
+        assertEquals("exit A__result_1", startInfo.getExitGuard());
+        assertEquals(List.of(startA), tracker.getEventsOf(Set.of(actionA), UmlToCifTranslationPurpose.SYNTHESIS));
+        assertEquals(List.of(startA, startB, endB),
+                tracker.getEventsOf(Set.of(actionA, actionB), UmlToCifTranslationPurpose.SYNTHESIS));
+        assertThrows(VerifyException.class, () -> tracker.getEventTraceInfo(endA));
+
+        // The name of the removed event can no longer be found, but can be registered again.
+        assertThrows(VerifyException.class,
+                () -> tracker.removeAndUpdateEvents(Set.of("A__result_1"), UmlToCifTranslationPurpose.SYNTHESIS));
+        Event newEndA = addEvent("A__result_1", UmlToCifTranslationPurpose.SYNTHESIS, actionA, 0, false, true);
+        assertEquals(List.of(startA, newEndA),
+                tracker.getEventsOf(Set.of(actionA), UmlToCifTranslationPurpose.SYNTHESIS));
+    }
+
+    @Test
+    void testRemoveStartEvent() {
+        tracker.removeAndUpdateEvents(Set.of("B__start"), UmlToCifTranslationPurpose.SYNTHESIS);
+
+        // The start event is removed together with its end events.
+        assertEquals(List.of(), tracker.getEventsOf(Set.of(actionB), UmlToCifTranslationPurpose.SYNTHESIS));
+        assertEquals(List.of(startA, endA),
+                tracker.getEventsOf(Set.of(actionA, actionB), UmlToCifTranslationPurpose.SYNTHESIS));
+        assertFalse(tracker.getStartEventMap(UmlToCifTranslationPurpose.SYNTHESIS).containsKey(startB));
+        assertThrows(VerifyException.class, () -> tracker.getEventTraceInfo(endB));
+    }
+
+    @Test
+    void testDuplicateNames() {
+        // Events with the same name are only rejected when they are looked up by name.
+        assertThrows(VerifyException.class,
+                () -> tracker.removeAndUpdateEvents(Set.of("A__start"), UmlToCifTranslationPurpose.SYNTHESIS));
+    }
+
+    private Event addEvent(String name, UmlToCifTranslationPurpose purpose, RedefinableElement umlElement,
+            Integer effectIdx, boolean isStartEvent, boolean isEndEvent)
+    {
+        Event event = CifConstructors.newEvent();
+        event.setName(name);
+        addEvent(event, purpose, umlElement, effectIdx, isStartEvent, isEndEvent);
+        return event;
+    }
+
+    private void addEvent(Event event, UmlToCifTranslationPurpose purpose, RedefinableElement umlElement,
+            Integer effectIdx, boolean isStartEvent, boolean isEndEvent)
+    {
+        String exitGuard = isEndEvent && !isStartEvent ? "exit " + event.getName() : null;
+        tracker.addCifEvent(event, purpose, umlElement, effectIdx, isStartEvent, isEndEvent, null, exitGuard);
+    }
+}
@@ -13,6 +13,7 @@ package com.github.tno.pokayoke.transform.track;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -67,6 +68,26 @@ public class SynthesisChainTracking {
      */
     private final Map<Event, EventTraceInfo> cifEventTraceInfo = new LinkedHashMap<>();
 
+    /**
+     * Index of {@link #cifEventTraceInfo} per translation purpose. The entries of each purpose are in the same order as
+     * in {@link #cifEventTraceInfo}. Must only be updated through {@link #putCifEventTraceInfo} and
+     * {@link #removeCifEvents}.
+     */
+    private final Map<UmlToCifTranslationPurpose, Map<Event, EventTraceInfo>> cifEventTraceInfoByPurpose;
+
+    /**
+     * Index of the CIF events of {@link #cifEventTraceInfo} per translation purpose and per related UML element (which
+     * may be {@code null}). The events of each UML element are in the same order as in {@link #cifEventTraceInfo}. Must
+     * only be updated through {@link #putCifEventTraceInfo} and {@link #removeCifEvents}.
+     */
+    private final Map<UmlToCifTranslationPurpose, Map<RedefinableElement, Set<Event>>> cifEventsByUmlElement;
+
+    /**
+     * Index of the CIF events of {@link #cifEventTraceInfo} by their names. Events of different translation purposes
+     * may share a name. Must only be updated through {@link #putCifEventTraceInfo} and {@link #removeCifEvents}.
+     */
+    private final Map<String, Set<Event>> cifEventsByName = new LinkedHashMap<>();
+
     /**
      * The map from the CIF start events related to an atomic non-deterministic behavior to the events and related event
      * tracing info created before the event-based projection step of the synthesis chain, where the start and end
@@ -104,6 +125,13 @@ public class SynthesisChainTracking {
     public SynthesisChainTracking(Activity activity) {
         Verify.verify(activity != null, "Activity to track cannot be 'null'.");
         this.activity = activity;
+
+        cifEventTraceInfoByPurpose = new EnumMap<>(UmlToCifTranslationPurpose.class);
+        cifEventsByUmlElement = new EnumMap<>(UmlToCifTranslationPurpose.class);
+        for (UmlToCifTranslationPurpose purpose: UmlToCifTranslationPurpose.values()) {
+            cifEventTraceInfoByPurpose.put(purpose, new LinkedHashMap<>());
+            cifEventsByUmlElement.put(purpose, new LinkedHashMap<>());
+        }
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -127,10 +155,120 @@ public class SynthesisChainTracking {
     public void addCifEvent(Event cifEvent, UmlToCifTranslationPurpose purpose, RedefinableElement umlElement,
             Integer effectIdx, boolean isStartEvent, boolean isEndEvent, String entryGuard, String exitGuard)
     {
-        cifEventTraceInfo.put(cifEvent,
+        putCifEventTraceInfo(cifEvent,
                 new EventTraceInfo(purpose, umlElement, effectIdx, isStartEvent, isEndEvent, entryGuard, exitGuard));
     }
 
+    /**
+     * Stores the given tracing info for the given CIF event, replacing any existing tracing info of the event, and
+     * updates the secondary indexes accordingly. An event that is already stored keeps its position in the iteration
+     * order.
+     *
+     * @param cifEvent The CIF event.
+     * @param eventInfo The tracing info of the CIF event.
+     */
+    private void putCifEventTraceInfo(Event cifEvent, EventTraceInfo eventInfo) {
+        EventTraceInfo oldEventInfo = cifEventTraceInfo.put(cifEvent, eventInfo);
+
+        // If the translation purpose or UML element of a stored event changed, the event keeps its position in the
+        // iteration order, but appending it to its new index entries would place it out of order. The index entries of
+        // its new translation purpose are then rebuilt instead. This is rare, as stored events are normally only
+        // updated for the same translation purpose and UML element.
+        if (oldEventInfo != null && (oldEventInfo.getTranslationPurpose() != eventInfo.getTranslationPurpose()
+                || oldEventInfo.getUmlElement() != eventInfo.getUmlElement()))
+        {
+            removeFromIndexes(cifEvent, oldEventInfo);
+            rebuildIndexes(eventInfo.getTranslationPurpose());
+        } else {
+            cifEventTraceInfoByPurpose.get(eventInfo.getTranslationPurpose()).put(cifEvent, eventInfo);
+            cifEventsByUmlElement.get(eventInfo.getTranslationPurpose())
+                    .computeIfAbsent(eventInfo.getUmlElement(), k -> new LinkedHashSet<>()).add(cifEvent);
+        }
+        cifEventsByName.computeIfAbsent(cifEvent.getName(), k -> new LinkedHashSet<>()).add(cifEvent);
+    }
+
+    /**
+     * Rebuilds the secondary indexes of the given translation purpose from {@link #cifEventTraceInfo}, such that their
+     * entries are in the same order.
+     *
+     * @param purpose The translation purpose.
+     */
+    private void rebuildIndexes(UmlToCifTranslationPurpose purpose) {
+        Map<Event, EventTraceInfo> purposeEventTraceInfo = cifEventTraceInfoByPurpose.get(purpose);
+        Map<RedefinableElement, Set<Event>> eventsByUmlElement = cifEventsByUmlElement.get(purpose);
+        purposeEventTraceInfo.clear();
+        eventsByUmlElement.clear();
+        for (Entry<Event, EventTraceInfo> entry: cifEventTraceInfo.entrySet()) {
+            if (entry.getValue().getTranslationPurpose() == purpose) {
+                purposeEventTraceInfo.put(entry.getKey(), entry.getValue());
+                eventsByUmlElement.computeIfAbsent(entry.getValue().getUmlElement(), k -> new LinkedHashSet<>())
+                        .add(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Removes the given CIF events and their tracing info, and updates the secondary indexes accordingly. Events that
+     * are not stored are ignored.
+     *
+     * @param cifEvents The CIF events to remove.
+     */
+    private void removeCifEvents(Collection<Event> cifEvents) {
+        for (Event cifEvent: cifEvents) {
+            EventTraceInfo eventInfo = cifEventTraceInfo.remove(cifEvent);
+            if (eventInfo != null) {
+                removeFromIndexes(cifEvent, eventInfo);
+            }
+        }
+    }
+
+    /**
+     * Removes the given CIF event from the secondary indexes of the entries of the given tracing info.
+     *
+     * @param cifEvent The CIF event.
+     * @param eventInfo The tracing info under which the CIF event is indexed.
+     */
+    private void removeFromIndexes(Event cifEvent, EventTraceInfo eventInfo) {
+        cifEventTraceInfoByPurpose.get(eventInfo.getTranslationPurpose()).remove(cifEvent);
+
+        Map<RedefinableElement, Set<Event>> eventsByUmlElement = cifEventsByUmlElement
+                .get(eventInfo.getTranslationPurpose());
+        Set<Event> elementEvents = eventsByUmlElement.get(eventInfo.getUmlElement());
+        elementEvents.remove(cifEvent);
+        if (elementEvents.isEmpty()) {
+            eventsByUmlElement.remove(eventInfo.getUmlElement());
+        }
+
+        Set<Event> namedEvents = cifEventsByName.get(cifEvent.getName());
+        namedEvents.remove(cifEvent);
+        if (namedEvents.isEmpty()) {
+            cifEventsByName.remove(cifEvent.getName());
+        }
+    }
+
+    /**
+     * Returns the CIF events of the given translation purpose that relate to the given UML element.
+     *
+     * @param umlElement The UML element, or {@code null} for the CIF events that do not relate to any UML element.
+     * @param purpose The translation purpose.
+     * @return The CIF events, in registration order.
+     */
+    private Set<Event> getCifEventsOfUmlElement(RedefinableElement umlElement, UmlToCifTranslationPurpose purpose) {
+        return cifEventsByUmlElement.get(purpose).getOrDefault(umlElement, Collections.emptySet());
+    }
+
+    /**
+     * Returns the unique CIF event with the given name, or {@code null} if no CIF event with that name is stored.
+     *
+     * @param eventName The name of the CIF event.
+     * @return The CIF event, or {@code null}.
+     */
+    private Event getCifEventByName(String eventName) {
+        Set<Event> cifEvents = cifEventsByName.getOrDefault(eventName, Collections.emptySet());
+        Verify.verify(cifEvents.size() <= 1, "Found more than one CIF event with name: '" + eventName + "'.");
+        return cifEvents.isEmpty() ? null : cifEvents.iterator().next();
+    }
+
     /**
      * Gives the map from CIF start events to the corresponding UML elements (or {@code null}) for the specified
      * translation purpose.
@@ -140,8 +278,7 @@ public class SynthesisChainTracking {
      *     translation purpose.
      */
     public Map<Event, RedefinableElement> getStartEventMap(UmlToCifTranslationPurpose purpose) {
-        return cifEventTraceInfo.entrySet().stream()
-                .filter(e -> e.getValue().getTranslationPurpose().equals(purpose) && e.getValue().isStartEvent())
+        return cifEventTraceInfoByPurpose.get(purpose).entrySet().stream().filter(e -> e.getValue().isStartEvent())
                 .collect(LinkedHashMap::new, (m, e) -> m.put(e.getKey(), e.getValue().getUmlElement()),
                         LinkedHashMap::putAll);
     }
@@ -169,26 +306,34 @@ public class SynthesisChainTracking {
      * @return The list of CIF events corresponding to the UML elements.
      */
     public List<Event> getEventsOf(Set<? extends RedefinableElement> umlElements, UmlToCifTranslationPurpose purpose) {
+        // Collect the UML elements of the CIF events of the given purpose that match the given UML elements.
+        Set<RedefinableElement> matchingElements;
         switch (purpose) {
             case SYNTHESIS: {
-                return cifEventTraceInfo.entrySet().stream()
-                        .filter(e -> e.getValue().getTranslationPurpose().equals(purpose)
-                                && umlElements.contains(e.getValue().getUmlElement()))
-                        .map(Map.Entry::getKey).toList();
+                matchingElements = umlElements.stream().filter(cifEventsByUmlElement.get(purpose)::containsKey)
+                        .collect(Collectors.toCollection(LinkedHashSet::new));
+                break;
             }
             case GUARD_COMPUTATION:
             case LANGUAGE_EQUIVALENCE: {
                 // For guard computation and the language equivalence check, look at the original element and not the
                 // current one.
-                return cifEventTraceInfo.entrySet().stream()
-                        .filter(e -> e.getValue().getTranslationPurpose().equals(purpose)
-                                && umlElements.contains(getOriginalUmlElementForSynthesizedActivityNode(
-                                        (ActivityNode)e.getValue().getUmlElement())))
-                        .map(Map.Entry::getKey).toList();
+                matchingElements = cifEventsByUmlElement.get(purpose).keySet().stream()
+                        .filter(element -> umlElements
+                                .contains(getOriginalUmlElementForSynthesizedActivityNode((ActivityNode)element)))
+                        .collect(Collectors.toCollection(LinkedHashSet::new));
+                break;
             }
             default:
                 throw new IllegalArgumentException("Unexpected value: " + purpose);
         }
+
+        // Collect the CIF events of the matching UML elements, in registration order.
+        if (matchingElements.size() == 1) {
+            return List.copyOf(getCifEventsOfUmlElement(matchingElements.iterator().next(), purpose));
+        }
+        return cifEventTraceInfoByPurpose.get(purpose).entrySet().stream()
+                .filter(e -> matchingElements.contains(e.getValue().getUmlElement())).map(Map.Entry::getKey).toList();
     }
 
     /**
@@ -199,10 +344,8 @@ public class SynthesisChainTracking {
      * @return The list of CIF start events corresponding to the given UML element.
      */
     public List<Event> getStartEventsOf(RedefinableElement umlElement, UmlToCifTranslationPurpose purpose) {
-        List<Event> eventsOfElement = cifEventTraceInfo.entrySet().stream()
-                .filter(e -> e.getValue().getTranslationPurpose().equals(purpose) && e.getValue().isStartEvent()
-                        && e.getValue().getUmlElement() != null && e.getValue().getUmlElement().equals(umlElement))
-                .map(Map.Entry::getKey).toList();
+        List<Event> eventsOfElement = getCifEventsOfUmlElement(umlElement, purpose).stream()
+                .filter(e -> getEventTraceInfo(e).isStartEvent()).toList();
 
         // Before vertical scaling, there should be only one event per UML element.
         Verify.verify(eventsOfElement.size() == 1,
@@ -256,9 +399,11 @@ public class SynthesisChainTracking {
     }
 
     private List<Event> getEndEventsOf(RedefinableElement umlElement, UmlToCifTranslationPurpose purpose) {
-        return cifEventTraceInfo.entrySet().stream().filter(e -> e.getValue().getTranslationPurpose().equals(purpose))
-                .filter(e -> e.getValue().getUmlElement() != null && e.getValue().getUmlElement().equals(umlElement))
-                .filter(e -> e.getValue().isEndEvent()).map(e -> e.getKey()).toList();
+        if (umlElement == null) {
+            return List.of();
+        }
+        return getCifEventsOfUmlElement(umlElement, purpose).stream().filter(e -> getEventTraceInfo(e).isEndEvent())
+                .toList();
     }
 
     private boolean isAtomicAction(RedefinableElement umlElement) {
@@ -319,10 +464,10 @@ public class SynthesisChainTracking {
      */
     public boolean isAtomicNonDeterministicEndEventName(String eventName) {
         // Find the unique CIF event with the input name.
-        List<Event> cifEvents = cifEventTraceInfo.keySet().stream().filter(e -> e.getName().equals(eventName)).toList();
-        Verify.verify(cifEvents.size() == 1, "Found more than one CIF event with name: '" + eventName + "'.");
+        Event cifEvent = getCifEventByName(eventName);
+        Verify.verifyNotNull(cifEvent, "Could not find CIF event '" + eventName + "'.");
 
-        EventTraceInfo eventInfo = getEventTraceInfo(cifEvents.get(0));
+        EventTraceInfo eventInfo = getEventTraceInfo(cifEvent);
         return isAtomicAction(eventInfo.getUmlElement()) && !(isDeterministicAction(eventInfo.getUmlElement()))
                 && eventInfo.isEndEvent();
     }
@@ -337,10 +482,7 @@ public class SynthesisChainTracking {
     private boolean isOriginalUmlElement(RedefinableElement umlElement) {
         Verify.verifyNotNull(umlElement, "Element cannot be 'null'.");
 
-        return cifEventTraceInfo.values().stream()
-                .anyMatch(info -> info.getTranslationPurpose().equals(UmlToCifTranslationPurpose.SYNTHESIS)
-                        && info.getUmlElement() instanceof RedefinableElement cifEventUmlElement
-                        && cifEventUmlElement.equals(umlElement));
+        return cifEventsByUmlElement.get(UmlToCifTranslationPurpose.SYNTHESIS).containsKey(umlElement);
     }
 
     /**
@@ -354,10 +496,11 @@ public class SynthesisChainTracking {
             UmlToCifTranslationPurpose purpose)
     {
         List<Event> cifEvents;
-        if (purpose == UmlToCifTranslationPurpose.SYNTHESIS) {
-            cifEvents = getStartEventMap(purpose).entrySet().stream()
-                    .filter(e -> e.getValue() instanceof RedefinableElement element && element.equals(umlElement))
-                    .map(Map.Entry::getKey).toList();
+        if (umlElement == null) {
+            cifEvents = List.of();
+        } else if (purpose == UmlToCifTranslationPurpose.SYNTHESIS) {
+            cifEvents = getCifEventsOfUmlElement(umlElement, purpose).stream()
+                    .filter(e -> getEventTraceInfo(e).isStartEvent()).toList();
         } else {
             cifEvents = getStartEventMap(purpose).entrySet().stream()
                     .filter(e -> e.getValue() instanceof RedefinableElement element
@@ -382,17 +525,13 @@ public class SynthesisChainTracking {
         // Get the map from start events to the corresponding end events.
         Map<Event, List<Event>> startEndEventsMap = getStartEndEventMap(purpose);
 
-        // Create a map from event names to CIF events, for better handling CIF event names.
-        Map<String, Event> namesToCifEvents = cifEventTraceInfo.keySet().stream()
-                .collect(Collectors.toMap(e -> e.getName(), e -> e));
-
         // If the event is a start event, add it to the set of events to be removed, together with the corresponding end
         // events. If the event is an end event, add it to the set of event to be removed and store the corresponding
         // start event for later handling.
         Set<Event> eventsToRemove = new LinkedHashSet<>();
         Set<Event> startEventsToUpdate = new LinkedHashSet<>();
         for (String eventName: cifEventNamesToRemove) {
-            Event cifEvent = namesToCifEvents.get(eventName);
+            Event cifEvent = getCifEventByName(eventName);
             Verify.verifyNotNull(cifEvent, "Could not find CIF event '" + eventName + "'.");
 
             EventTraceInfo eventInfo = getEventTraceInfo(cifEvent);
@@ -411,8 +550,9 @@ public class SynthesisChainTracking {
             } else if (eventInfo.isEndEvent()) {
                 // Store the event to be removed, find the corresponding start event for later handling.
                 eventsToRemove.add(cifEvent);
-                List<Event> startToUpdate = startEndEventsMap.entrySet().stream()
-                        .filter(e -> e.getValue().contains(cifEvent)).map(e -> e.getKey()).toList();
+                // The start events of the end event are the start events of the same UML element.
+                List<Event> startToUpdate = getCifEventsOfUmlElement(eventInfo.getUmlElement(), purpose).stream()
+                        .filter(e -> getEventTraceInfo(e).isStartEvent()).toList();
                 Verify.verify(startToUpdate.size() == 1,
                         String.format("Found %d start events for end event '%s'.", startToUpdate.size(), eventName));
                 Event startEvent = startToUpdate.get(0);
@@ -451,12 +591,12 @@ public class SynthesisChainTracking {
                 EventTraceInfo newEventTraceInfo = new EventTraceInfo(oldEventTraceInfo.getTranslationPurpose(),
                         oldEventTraceInfo.getUmlElement(), oldEventTraceInfo.getEffectIdx(), true, true,
                         oldEventTraceInfo.getEntryGuard(), exitGuards.iterator().next());
-                cifEventTraceInfo.put(startEvent, newEventTraceInfo);
+                putCifEventTraceInfo(startEvent, newEventTraceInfo);
             }
         }
 
         // Remove the CIF event trace info for the events that are to be removed.
-        cifEventTraceInfo.keySet().removeAll(eventsToRemove);
+        removeCifEvents(eventsToRemove);
     }
 
     /** Tracing information related to a CIF event. */
@@ -654,10 +794,6 @@ public class SynthesisChainTracking {
     public void addPetriNetTransitions(PetriNet petriNet) {
         Verify.verify(!cifEventTraceInfo.isEmpty(), "The map from CIF event names to their tracing infos is empty.");
 
-        // Create a map from event names to CIF events, for better handling CIF event names.
-        Map<String, Event> namesToCifEvents = cifEventTraceInfo.keySet().stream()
-                .collect(Collectors.toMap(e -> e.getName(), e -> e));
-
         // Get Petri net transition list.
         List<Transition> petriNetTransitions = petriNet.getPages().stream()
                 .flatMap(p -> p.getObjects().stream().filter(o -> o instanceof Transition).map(Transition.class::cast))
@@ -665,7 +801,7 @@ public class SynthesisChainTracking {
 
         for (Transition t: petriNetTransitions) {
             // Store the transition and the related CIF event.
-            Event cifEvent = namesToCifEvents.get(t.getName().getText());
+            Event cifEvent = getCifEventByName(t.getName().getText());
             Verify.verify(cifEvent != null, "Could not find CIF event for transition '" + t.getName().getText() + "'.");
             TransitionTraceInfo transitionInfo = new TransitionTraceInfo(Set.of(cifEvent));
             transitionTraceInfo.put(t, transitionInfo);
@@ -1157,7 +1293,7 @@ public class SynthesisChainTracking {
         transitionTraceInfo.keySet().removeAll(transitionsToRemove);
 
         // Remove the corresponding CIF events.
-        cifEventTraceInfo.keySet().removeAll(eventsToRemove);
+        removeCifEvents(eventsToRemove);
     }
 
     /**
@@ -1286,7 +1422,7 @@ public class SynthesisChainTracking {
             EventTraceInfo newEventTraceInfo = new EventTraceInfo(oldEventTraceInfo.getTranslationPurpose(),
                     oldEventTraceInfo.getUmlElement(), oldEventTraceInfo.getEffectIdx(),
                     oldEventTraceInfo.isStartEvent(), oldEventTraceInfo.isEndEvent(), null, null);
-            cifEventTraceInfo.put(event, newEventTraceInfo);
+            putCifEventTraceInfo(event, newEventTraceInfo);
         }
 
         // Remove activity nodes from the internal map and the corresponding transition and CIF event tracing info.
@@ -1308,7 +1444,7 @@ public class SynthesisChainTracking {
         // Remove the obsolete nodes, transitions and events from the tracker.
         activityNodeToTransition.keySet().removeAll(nodesToRemove);
         transitionTraceInfo.keySet().removeAll(transitionToRemove);
-        cifEventTraceInfo.keySet().removeAll(eventsToRemove);
+        removeCifEvents(eventsToRemove);
         newDecisionNodeToChildNodes.keySet().removeAll(nodesToRemove);
         newDecisionNodeToChildNodes.values().forEach(v -> v.removeAll(nodesToRemove));
         newMergeNodeToParentNodes.keySet().removeAll(nodesToRemove);
@@ -1598,12 +1734,9 @@ public class SynthesisChainTracking {
 
         // Get the list of CIF events whose translation purpose is the given one, whose original UML element is equal to
         // the given one, and is related to the start of an original element.
-        List<Event> filteredEvents = cifEventTraceInfo.entrySet().stream().filter(e ->
-        // Filter to only events with given translation purpose.
-        e.getValue().getTranslationPurpose().equals(purpose)
-                // Filter to only redefinable elements (avoid 'null' for control nodes).
-                && getOriginalUmlElementForFinalizedElement(
-                        e.getValue().getUmlElement()) instanceof RedefinableElement umlElement
+        List<Event> filteredEvents = cifEventTraceInfoByPurpose.get(purpose).entrySet().stream().filter(e ->
+        // Filter to only redefinable elements (avoid 'null' for control nodes).
+        getOriginalUmlElementForFinalizedElement(e.getValue().getUmlElement()) instanceof RedefinableElement umlElement
                 // Filter to only UML elements that are equal to the original UML element.
                 && umlElement.equals(originalUmlElement)
                 // Filter to only CIF events related to the start of an original element.
@@ -1720,8 +1853,7 @@ public class SynthesisChainTracking {
      * @return The internal events set.
      */
     public Set<Event> getInternalEvents(UmlToCifTranslationPurpose purpose) {
-        return cifEventTraceInfo.entrySet().stream()
-                .filter(e -> e.getValue().getTranslationPurpose().equals(purpose) && e.getValue().isInternal())
+        return cifEventTraceInfoByPurpose.get(purpose).entrySet().stream().filter(e -> e.getValue().isInternal())
                 .map(e -> e.getKey()).collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
@@ -1752,8 +1884,8 @@ public class SynthesisChainTracking {
      */
     public Map<Event, EventTraceInfo> getExternalEventsMap(UmlToCifTranslationPurpose purpose) {
         // Create a map for the external CIF events and their event trace info.
-        Map<Event, EventTraceInfo> externalEventsMap = cifEventTraceInfo.entrySet().stream()
-                .filter(e -> e.getValue().getTranslationPurpose().equals(purpose) && e.getValue().isExternal())
+        Map<Event, EventTraceInfo> externalEventsMap = cifEventTraceInfoByPurpose.get(purpose).entrySet().stream()
+                .filter(e -> e.getValue().isExternal())
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (x, y) -> y, LinkedHashMap::new));
 
         if (purpose == UmlToCifTranslationPurpose.SYNTHESIS) {
@@ -70,6 +70,7 @@ import org.eclipse.uml2.uml.IntervalConstraint;
 import org.eclipse.uml2.uml.JoinNode;
 import org.eclipse.uml2.uml.LiteralInteger;
 import org.eclipse.uml2.uml.MergeNode;
+import org.eclipse.uml2.uml.Model;
 import org.eclipse.uml2.uml.OpaqueAction;
 import org.eclipse.uml2.uml.OpaqueBehavior;
 import org.eclipse.uml2.uml.RedefinableElement;
@@ -252,6 +253,19 @@ public class UmlToCifTranslator extends ModelToCifTranslator {
      * @throws CoreException In case the input UML model is invalid.
      */
     public Specification translate() throws CoreException {
+        return translate(true);
+    }
+
+    /**
+     * Translates the UML synthesis specifications to a CIF specification.
+     *
+     * @param prepareModel Whether to prepare the UML model for synthesis, when translating for synthesis. May only be
+     *     {@code false} if the UML model has already been prepared for synthesis, by {@link #prepareModelForSynthesis},
+     *     and has not been changed since. The translation then doesn't modify the UML model.
+     * @return The translated CIF specification.
+     * @throws CoreException In case the input UML model is invalid.
+     */
+    public Specification translate(boolean prepareModel) throws CoreException {
         // Validate the UML input model.
         //
         // Ideally, we check this always, as the UML models resulting from synthesis should also be valid. Currently, we
@@ -269,10 +283,8 @@ public class UmlToCifTranslator extends ModelToCifTranslator {
         computeNonCallableElements();
 
         // Flatten UML activities and normalize IDs.
-        if (translationPurpose == UmlToCifTranslationPurpose.SYNTHESIS) {
-            FlattenUMLActivity flattener = new FlattenUMLActivity(activity.getModel());
-            flattener.transform();
-            FileHelper.normalizeIds(activity.getModel());
+        if (translationPurpose == UmlToCifTranslationPurpose.SYNTHESIS && prepareModel) {
+            prepareModelForSynthesis(activity.getModel());
         }
 
         // Create the CIF specification to which the input UML model will be translated.
@@ -400,6 +412,19 @@ public class UmlToCifTranslator extends ModelToCifTranslator {
         return cifSpec;
     }
 
+    /**
+     * Prepares the given UML model for its translation for synthesis, by flattening its UML activities and normalizing
+     * its IDs. This preparation is part of {@link #translate()} for synthesis, and modifies the UML model in-place.
+     *
+     * @param model The UML model to prepare.
+     * @throws CoreException In case the UML model could not be flattened.
+     */
+    public static void prepareModelForSynthesis(Model model) throws CoreException {
+        FlattenUMLActivity flattener = new FlattenUMLActivity(model);
+        flattener.transform();
+        FileHelper.normalizeIds(model);
+    }
+
     /**
      * Translates all UML opaque behaviors that are in context as actions, to CIF events and corresponding CIF edges.
      *
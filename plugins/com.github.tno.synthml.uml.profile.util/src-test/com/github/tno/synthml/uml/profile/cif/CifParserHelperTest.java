@@ -0,0 +1,94 @@
+////////////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2023-2026 TNO and Contributors to the GitHub community
+//
+// This program and the accompanying materials are made available under the terms of the
+// Eclipse Public License v2.0 which accompanies this distribution, and is available at
+// https://spdx.org/licenses/EPL-2.0.html
+//
+// SPDX-License-Identifier: EPL-2.0
+////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.tno.synthml.uml.profile.cif;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.escet.cif.parser.ast.AInvariant;
+import org.eclipse.escet.cif.parser.ast.automata.AUpdate;
+import org.eclipse.escet.cif.parser.ast.expressions.AExpression;
+import org.eclipse.escet.setext.runtime.exceptions.SyntaxException;
+import org.eclipse.uml2.uml.Model;
+import org.eclipse.uml2.uml.UMLFactory;
+import org.junit.jupiter.api.Test;
+
+import com.github.tno.pokayoke.cif.parser.CifExpressionParser;
+
+/** Tests for the parse result cache of {@link CifParserHelper}. */
+class CifParserHelperTest {
+    @Test
+    void testCacheHit() throws SyntaxException {
+        AExpression parsed = CifParserHelper.parseExpression("cacheHit and not cacheMiss", null);
+        AExpression cached = CifParserHelper.parseExpression("cacheHit and not cacheMiss", null);
+        assertSame(parsed, cached);
+
+        // The cached result is the same as that of parsing without the cache.
+        AExpression uncached = new CifExpressionParser().parseString("cacheHit and not cacheMiss", "unknown");
+        assertEquals(uncached.getClass(), cached.getClass());
+        assertEquals(uncached.position.location, cached.position.location);
+    }
+
+    @Test
+    void testLocations() throws SyntaxException {
+        Model firstModel = createModel("first.uml");
+        Model secondModel = createModel("second.uml");
+
+        // The same text at different locations is parsed separately, as the location is part of the result.
+        AExpression first = CifParserHelper.parseExpression("location > 1", firstModel);
+        AExpression second = CifParserHelper.parseExpression("location > 1", secondModel);
+        assertNotSame(first, second);
+        assertEquals("first.uml", first.position.location);
+        assertEquals("second.uml", second.position.location);
+        assertSame(first, CifParserHelper.parseExpression("location > 1", firstModel));
+    }
+
+    @Test
+    void testParserKinds() throws SyntaxException {
+        // The same text parsed by different parsers gives results of the respective kinds.
+        AExpression expression = CifParserHelper.parseExpression("true", null);
+        AInvariant invariant = CifParserHelper.parseInvariant("true", null);
+        assertNotSame(expression, invariant);
+        assertSame(invariant, CifParserHelper.parseInvariant("true", null));
+    }
+
+    @Test
+    void testUpdates() throws SyntaxException {
+        List<AUpdate> updates = CifParserHelper.parseUpdates("counter := counter + 1", null);
+        assertEquals(1, updates.size());
+        assertSame(updates, CifParserHelper.parseUpdates("counter := counter + 1", null));
+
+        // Cached lists are shared, and can thus not be modified.
+        assertThrows(UnsupportedOperationException.class, () -> updates.clear());
+    }
+
+    @Test
+    void testSyntaxErrors() {
+        // Syntax errors are not cached, but reported on every parse attempt.
+        assertThrows(SyntaxException.class, () -> CifParserHelper.parseExpression("syntax +", null));
+        assertThrows(SyntaxException.class, () -> CifParserHelper.parseExpression("syntax +", null));
+        assertThrows(SyntaxException.class, () -> CifParserHelper.parseExpression(" ", null));
+    }
+
+    private static Model createModel(String uri) {
+        Resource resource = new ResourceImpl(URI.createURI(uri));
+        Model model = UMLFactory.eINSTANCE.createModel();
+        resource.getContents().add(model);
+        return model;
+    }
+}
@@ -21,6 +21,7 @@ import org.eclipse.escet.cif.parser.ast.automata.AAssignmentUpdate;
 import org.eclipse.escet.cif.parser.ast.automata.AUpdate;
 import org.eclipse.escet.cif.parser.ast.expressions.AExpression;
 import org.eclipse.escet.common.java.TextPosition;
+import org.eclipse.escet.setext.runtime.Parser;
 import org.eclipse.escet.setext.runtime.exceptions.CustomSyntaxException;
 import org.eclipse.escet.setext.runtime.exceptions.SyntaxException;
 import org.eclipse.uml2.uml.CallBehaviorAction;
@@ -36,9 +37,51 @@ import com.github.tno.pokayoke.cif.parser.CifInvariantParser;
 import com.github.tno.pokayoke.cif.parser.CifUpdatesParser;
 import com.github.tno.synthml.uml.profile.util.PokaYokeUmlProfileUtil;
 import com.google.common.base.Preconditions;
-
-/** Helps parsing CIF expressions. */
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Helps parsing CIF expressions.
+ * <p>
+ * The same guards, effects and constraints are typically parsed many times during validation and translation. Parse
+ * results are therefore cached per parser kind, source text and location. The cached ASTs are shared between callers,
+ * and must thus not be modified. Syntax errors are not cached, and are reported again on every parse attempt.
+ * </p>
+ */
 public class CifParserHelper {
+    /** The maximum number of parse results to keep in the cache. */
+    private static final long PARSE_CACHE_SIZE = 10_000;
+
+    /** The cache from parse inputs to parse results. */
+    private static final Cache<ParseKey, Object> PARSE_CACHE = CacheBuilder.newBuilder().maximumSize(PARSE_CACHE_SIZE)
+            .build();
+
+    /** The expression parser of each thread, as parsers can be reused but are not thread safe. */
+    private static final ThreadLocal<CifExpressionParser> EXPRESSION_PARSER = ThreadLocal
+            .withInitial(CifExpressionParser::new);
+
+    /** The updates parser of each thread, as parsers can be reused but are not thread safe. */
+    private static final ThreadLocal<CifUpdatesParser> UPDATES_PARSER = ThreadLocal.withInitial(CifUpdatesParser::new);
+
+    /** The invariant parser of each thread, as parsers can be reused but are not thread safe. */
+    private static final ThreadLocal<CifInvariantParser> INVARIANT_PARSER = ThreadLocal
+            .withInitial(CifInvariantParser::new);
+
+    /** The kinds of parsers. */
+    private enum ParserKind {
+        EXPRESSION, UPDATES, INVARIANT;
+    }
+
+    /**
+     * The inputs of a parse, identifying its result.
+     *
+     * @param kind The kind of parser.
+     * @param source The text to parse.
+     * @param location The location of the text, which is included in the positions of the resulting AST.
+     */
+    private record ParseKey(ParserKind kind, String source, String location) {
+    }
+
     private CifParserHelper() {
         // Empty for utility classes
     }
@@ -49,8 +92,7 @@ public class CifParserHelper {
         } else if (expression.isBlank()) {
             throw new CustomSyntaxException("cannot be blank.", TextPosition.createDummy(getLocation(context)));
         }
-        CifExpressionParser expressionParser = new CifExpressionParser();
-        return expressionParser.parseString(expression, getLocation(context));
+        return parse(ParserKind.EXPRESSION, EXPRESSION_PARSER, expression, context);
     }
 
     public static AExpression parseExpression(ValueSpecification valueSpecification) throws SyntaxException {
@@ -92,8 +134,7 @@ public class CifParserHelper {
         } else if (updates.isBlank()) {
             throw new CustomSyntaxException("cannot be blank.", TextPosition.createDummy(getLocation(context)));
         }
-        CifUpdatesParser updatesParser = new CifUpdatesParser();
-        return updatesParser.parseString(updates, getLocation(context));
+        return parse(ParserKind.UPDATES, UPDATES_PARSER, updates, context);
     }
 
     public static List<AAssignmentUpdate> parseArguments(CallBehaviorAction callBehaviorAction) throws SyntaxException {
@@ -164,7 +205,39 @@ public class CifParserHelper {
         } else if (invariant.isBlank()) {
             throw new CustomSyntaxException("cannot be blank.", TextPosition.createDummy(getLocation(context)));
         }
-        return new CifInvariantParser().parseString(invariant, getLocation(context));
+        return parse(ParserKind.INVARIANT, INVARIANT_PARSER, invariant, context);
+    }
+
+    /**
+     * Parses the given text, or returns the cached result of an earlier parse of the same text at the same location.
+     *
+     * @param <T> The type of the parse result.
+     * @param kind The kind of parser.
+     * @param parser The parser to use, if the text must be parsed.
+     * @param source The text to parse.
+     * @param context The context element of the text, used to determine its location.
+     * @return The parse result. Must not be modified.
+     * @throws SyntaxException If the text could not be parsed.
+     */
+    private static <T> T parse(ParserKind kind, ThreadLocal<? extends Parser<T>> parser, String source,
+            Element context) throws SyntaxException
+    {
+        String location = getLocation(context);
+        ParseKey key = new ParseKey(kind, source, location);
+
+        @SuppressWarnings("unchecked")
+        T result = (T)PARSE_CACHE.getIfPresent(key);
+        if (result == null) {
+            result = parser.get().parseString(source, location);
+            if (result instanceof List<?> list) {
+                // Share only unmodifiable lists.
+                @SuppressWarnings("unchecked")
+                T unmodifiableResult = (T)Collections.unmodifiableList(list);
+                result = unmodifiableResult;
+            }
+            PARSE_CACHE.put(key, result);
+        }
+        return result;
     }
 
     private static String getLocation(Element context) {